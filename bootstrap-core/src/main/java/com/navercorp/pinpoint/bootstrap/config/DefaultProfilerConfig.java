@@ -90,6 +90,9 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private boolean profileEnable = false;
 
     private String profileInstrumentEngine = INSTRUMENT_ENGINE_ASM;
+    private boolean instrumentCacheEnable = false;
+    private String instrumentCacheDir = "";
+    private long instrumentMetricReportDelay = 60000;
 
     private int interceptorRegistrySize = 1024*8;
 
@@ -102,6 +105,9 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private String collectorTcpServerIp = DEFAULT_IP;
     private int collectorTcpServerPort = 9994;
 
+    private boolean collectorAffinityEnable = false;
+    private List<String> collectorAffinityMembers = Collections.emptyList();
+
     private int spanDataSenderWriteQueueSize = 1024 * 5;
     private int spanDataSenderSocketSendBufferSize = 1024 * 64 * 16;
     private int spanDataSenderSocketTimeout = 1000 * 3;
@@ -113,6 +119,10 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private int statDataSenderSocketTimeout = 1000 * 3;
     private int statDataSenderChunkSize = 1024 * 16;
     private String statDataSenderSocketType = "OIO";
+    private String dataSenderQueueType = "LINKED";
+    private int dataSenderQueueMaxDrainSize = 10;
+    private String dataSenderQueueWaitStrategy = "PARK";
+    private int udpDataSenderBatchPacketSize = 1472;
 
     private boolean tcpDataSenderCommandAcceptEnable = false;
     private boolean tcpDataSenderCommandActiveThreadEnable = false;
@@ -121,21 +131,34 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private boolean tcpDataSenderCommandActiveThreadLightDumpEnable = false;
 
     private boolean traceAgentActiveThread = true;
+    private String activeTraceRepositoryType = "DEFAULT";
     private boolean traceAgentDataSource = false;
 
     private int callStackMaxDepth = 512;
 
     private int jdbcSqlCacheSize = 1024;
+    private boolean jdbcSqlCachePersistentEnable = false;
+    private String jdbcSqlCachePersistentDir = "";
+    private int jdbcSqlCachePersistentFileSize = 67108864;
+    private String jdbcSqlNormalizerType = "DEFAULT";
     private boolean traceSqlBindValue = false;
     private int maxSqlBindValueSize = 1024;
 
     // Sampling
     private boolean samplingEnable = true;
     private int samplingRate = 1;
+    private String samplingType = "FIXED";
+    private int samplingAdaptiveTargetTps = 100;
+    private boolean samplingTailEnable = false;
 
     // span buffering
     private boolean ioBufferingEnable;
     private int ioBufferingBufferSize;
+    private boolean ioBufferingBoundedEnable = false;
+    private int ioBufferingFlushSize = 16384;
+    private long ioBufferingMaxAge = 5000;
+    private boolean spanEventRecycleEnable = false;
+    private int spanEventRecyclePoolSize = 256;
 
     private int profileJvmCollectInterval;
     private String profileJvmVendorName;
@@ -164,6 +187,11 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         readPropertyValues();
     }
 
+    @Override
+    public Properties getProperties() {
+        return properties;
+    }
+
     @Override
     public int getInterceptorRegistrySize() {
         return interceptorRegistrySize;
@@ -199,6 +227,16 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return collectorTcpServerPort;
     }
 
+    @Override
+    public boolean isCollectorAffinityEnable() {
+        return collectorAffinityEnable;
+    }
+
+    @Override
+    public List<String> getCollectorAffinityMembers() {
+        return collectorAffinityMembers;
+    }
+
     @Override
     public int getStatDataSenderWriteQueueSize() {
         return statDataSenderWriteQueueSize;
@@ -219,6 +257,26 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return statDataSenderSocketType;
     }
 
+    @Override
+    public String getDataSenderQueueType() {
+        return dataSenderQueueType;
+    }
+
+    @Override
+    public int getDataSenderQueueMaxDrainSize() {
+        return dataSenderQueueMaxDrainSize;
+    }
+
+    @Override
+    public String getDataSenderQueueWaitStrategy() {
+        return dataSenderQueueWaitStrategy;
+    }
+
+    @Override
+    public int getUdpDataSenderBatchPacketSize() {
+        return udpDataSenderBatchPacketSize;
+    }
+
     @Override
     public int getSpanDataSenderWriteQueueSize() {
         return spanDataSenderWriteQueueSize;
@@ -259,6 +317,11 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return traceAgentActiveThread;
     }
 
+    @Override
+    public String getActiveTraceRepositoryType() {
+        return activeTraceRepositoryType;
+    }
+
     @Override
     public boolean isTraceAgentDataSource() {
         return traceAgentDataSource;
@@ -294,6 +357,26 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return jdbcSqlCacheSize;
     }
 
+    @Override
+    public boolean isJdbcSqlCachePersistentEnable() {
+        return jdbcSqlCachePersistentEnable;
+    }
+
+    @Override
+    public String getJdbcSqlCachePersistentDir() {
+        return jdbcSqlCachePersistentDir;
+    }
+
+    @Override
+    public int getJdbcSqlCachePersistentFileSize() {
+        return jdbcSqlCachePersistentFileSize;
+    }
+
+    @Override
+    public String getJdbcSqlNormalizerType() {
+        return jdbcSqlNormalizerType;
+    }
+
     @Override
     public boolean isTraceSqlBindValue() {
         return traceSqlBindValue;
@@ -315,6 +398,21 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return samplingRate;
     }
 
+    @Override
+    public String getSamplingType() {
+        return samplingType;
+    }
+
+    @Override
+    public int getSamplingAdaptiveTargetTps() {
+        return samplingAdaptiveTargetTps;
+    }
+
+    @Override
+    public boolean isSamplingTailEnable() {
+        return samplingTailEnable;
+    }
+
     @Override
     public boolean isIoBufferingEnable() {
         return ioBufferingEnable;
@@ -325,6 +423,31 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return ioBufferingBufferSize;
     }
 
+    @Override
+    public boolean isIoBufferingBoundedEnable() {
+        return ioBufferingBoundedEnable;
+    }
+
+    @Override
+    public int getIoBufferingFlushSize() {
+        return ioBufferingFlushSize;
+    }
+
+    @Override
+    public long getIoBufferingMaxAge() {
+        return ioBufferingMaxAge;
+    }
+
+    @Override
+    public boolean isSpanEventRecycleEnable() {
+        return spanEventRecycleEnable;
+    }
+
+    @Override
+    public int getSpanEventRecyclePoolSize() {
+        return spanEventRecyclePoolSize;
+    }
+
     @Override
     public int getProfileJvmCollectInterval() {
         return profileJvmCollectInterval;
@@ -390,6 +513,21 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return profileInstrumentEngine;
     }
 
+    @Override
+    public boolean isInstrumentCacheEnable() {
+        return instrumentCacheEnable;
+    }
+
+    @Override
+    public String getInstrumentCacheDir() {
+        return instrumentCacheDir;
+    }
+
+    @Override
+    public long getInstrumentMetricReportDelay() {
+        return instrumentMetricReportDelay;
+    }
+
 
     // for test
     void readPropertyValues() {
@@ -398,6 +536,9 @@ public class DefaultProfilerConfig implements ProfilerConfig {
 
         this.profileEnable = readBoolean("profiler.enable", true);
         this.profileInstrumentEngine = readString("profiler.instrument.engine", INSTRUMENT_ENGINE_ASM);
+        this.instrumentCacheEnable = readBoolean("profiler.instrument.cache.enable", false);
+        this.instrumentCacheDir = readString("profiler.instrument.cache.dir", "");
+        this.instrumentMetricReportDelay = readLong("profiler.instrument.metric.report.delay", 60000);
 
         this.interceptorRegistrySize = readInt("profiler.interceptorregistry.size", 1024*8);
 
@@ -410,6 +551,9 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         this.collectorTcpServerIp = readString("profiler.collector.tcp.ip", DEFAULT_IP, placeHolderResolver);
         this.collectorTcpServerPort = readInt("profiler.collector.tcp.port", 9994);
 
+        this.collectorAffinityEnable = readBoolean("profiler.collector.affinity.enable", false);
+        this.collectorAffinityMembers = readList("profiler.collector.affinity.members");
+
         this.spanDataSenderWriteQueueSize = readInt("profiler.spandatasender.write.queue.size", 1024 * 5);
         this.spanDataSenderSocketSendBufferSize = readInt("profiler.spandatasender.socket.sendbuffersize", 1024 * 64 * 16);
         this.spanDataSenderSocketTimeout = readInt("profiler.spandatasender.socket.timeout", 1000 * 3);
@@ -421,6 +565,10 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         this.statDataSenderSocketTimeout = readInt("profiler.statdatasender.socket.timeout", 1000 * 3);
         this.statDataSenderChunkSize = readInt("profiler.statdatasender.chunk.size", 1024 * 16);
         this.statDataSenderSocketType = readString("profiler.statdatasender.socket.type", "OIO");
+        this.dataSenderQueueType = readString("profiler.datasender.queue.type", "LINKED");
+        this.dataSenderQueueMaxDrainSize = readInt("profiler.datasender.queue.drain.size", 10);
+        this.dataSenderQueueWaitStrategy = readString("profiler.datasender.queue.waitstrategy", "PARK");
+        this.udpDataSenderBatchPacketSize = readInt("profiler.datasender.udp.batch.packet.size", 1472);
 
         this.tcpDataSenderCommandAcceptEnable = readBoolean("profiler.tcpdatasender.command.accept.enable", false);
         this.tcpDataSenderCommandActiveThreadEnable = readBoolean("profiler.tcpdatasender.command.activethread.enable", false);
@@ -429,6 +577,7 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         this.tcpDataSenderCommandActiveThreadLightDumpEnable = readBoolean("profiler.tcpdatasender.command.activethread.threadlightdump.enable", false);
 
         this.traceAgentActiveThread = readBoolean("profiler.pinpoint.activethread", true);
+        this.activeTraceRepositoryType = readString("profiler.pinpoint.activethread.repository.type", "DEFAULT");
         this.traceAgentDataSource = readBoolean("profiler.pinpoint.datasource", false);
 
         // CallStck
@@ -439,17 +588,29 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         
         // JDBC
         this.jdbcSqlCacheSize = readInt("profiler.jdbc.sqlcachesize", 1024);
+        this.jdbcSqlCachePersistentEnable = readBoolean("profiler.jdbc.sqlcache.persistent.enable", false);
+        this.jdbcSqlCachePersistentDir = readString("profiler.jdbc.sqlcache.persistent.dir", "");
+        this.jdbcSqlCachePersistentFileSize = readInt("profiler.jdbc.sqlcache.persistent.filesize", 67108864);
+        this.jdbcSqlNormalizerType = readString("profiler.jdbc.sqlnormalizer.type", "DEFAULT");
         this.traceSqlBindValue = readBoolean("profiler.jdbc.tracesqlbindvalue", false);
 
 
         this.samplingEnable = readBoolean("profiler.sampling.enable", true);
         this.samplingRate = readInt("profiler.sampling.rate", 1);
+        this.samplingType = readString("profiler.sampling.type", "FIXED");
+        this.samplingAdaptiveTargetTps = readInt("profiler.sampling.adaptive.targettps", 100);
+        this.samplingTailEnable = readBoolean("profiler.sampling.tail.enable", false);
 
         // configuration for sampling and IO buffer 
         this.ioBufferingEnable = readBoolean("profiler.io.buffering.enable", true);
 
         // it may be a problem to be here.  need to modify(delete or move or .. )  this configuration.
         this.ioBufferingBufferSize = readInt("profiler.io.buffering.buffersize", 20);
+        this.ioBufferingBoundedEnable = readBoolean("profiler.io.buffering.bounded.enable", false);
+        this.ioBufferingFlushSize = readInt("profiler.io.buffering.flush.size", 16384);
+        this.ioBufferingMaxAge = readLong("profiler.io.buffering.flush.maxage", 5000);
+        this.spanEventRecycleEnable = readBoolean("profiler.spanevent.recycle.enable", false);
+        this.spanEventRecyclePoolSize = readInt("profiler.spanevent.recycle.poolsize", 256);
 
         // JVM
         this.profileJvmCollectInterval = readInt("profiler.jvm.collect.interval", 1000);
@@ -603,6 +764,10 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(collectorTcpServerIp);
         builder.append(", collectorTcpServerPort=");
         builder.append(collectorTcpServerPort);
+        builder.append(", collectorAffinityEnable=");
+        builder.append(collectorAffinityEnable);
+        builder.append(", collectorAffinityMembers=");
+        builder.append(collectorAffinityMembers);
         builder.append(", spanDataSenderWriteQueueSize=");
         builder.append(spanDataSenderWriteQueueSize);
         builder.append(", spanDataSenderSocketSendBufferSize=");
@@ -623,6 +788,14 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(statDataSenderChunkSize);
         builder.append(", statDataSenderSocketType=");
         builder.append(statDataSenderSocketType);
+        builder.append(", dataSenderQueueType=");
+        builder.append(dataSenderQueueType);
+        builder.append(", dataSenderQueueMaxDrainSize=");
+        builder.append(dataSenderQueueMaxDrainSize);
+        builder.append(", dataSenderQueueWaitStrategy=");
+        builder.append(dataSenderQueueWaitStrategy);
+        builder.append(", udpDataSenderBatchPacketSize=");
+        builder.append(udpDataSenderBatchPacketSize);
         builder.append(", tcpDataSenderCommandAcceptEnable=");
         builder.append(tcpDataSenderCommandAcceptEnable);
         builder.append(", tcpDataSenderCommandActiveThreadEnable=");
@@ -635,12 +808,22 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(tcpDataSenderCommandActiveThreadLightDumpEnable);
         builder.append(", traceAgentActiveThread=");
         builder.append(traceAgentActiveThread);
+        builder.append(", activeTraceRepositoryType=");
+        builder.append(activeTraceRepositoryType);
         builder.append(", traceAgentDataSource=");
         builder.append(traceAgentDataSource);
         builder.append(", callStackMaxDepth=");
         builder.append(callStackMaxDepth);
         builder.append(", jdbcSqlCacheSize=");
         builder.append(jdbcSqlCacheSize);
+        builder.append(", jdbcSqlCachePersistentEnable=");
+        builder.append(jdbcSqlCachePersistentEnable);
+        builder.append(", jdbcSqlCachePersistentDir=");
+        builder.append(jdbcSqlCachePersistentDir);
+        builder.append(", jdbcSqlCachePersistentFileSize=");
+        builder.append(jdbcSqlCachePersistentFileSize);
+        builder.append(", jdbcSqlNormalizerType=");
+        builder.append(jdbcSqlNormalizerType);
         builder.append(", traceSqlBindValue=");
         builder.append(traceSqlBindValue);
         builder.append(", maxSqlBindValueSize=");
@@ -649,10 +832,26 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(samplingEnable);
         builder.append(", samplingRate=");
         builder.append(samplingRate);
+        builder.append(", samplingType=");
+        builder.append(samplingType);
+        builder.append(", samplingAdaptiveTargetTps=");
+        builder.append(samplingAdaptiveTargetTps);
+        builder.append(", samplingTailEnable=");
+        builder.append(samplingTailEnable);
         builder.append(", ioBufferingEnable=");
         builder.append(ioBufferingEnable);
         builder.append(", ioBufferingBufferSize=");
         builder.append(ioBufferingBufferSize);
+        builder.append(", ioBufferingBoundedEnable=");
+        builder.append(ioBufferingBoundedEnable);
+        builder.append(", ioBufferingFlushSize=");
+        builder.append(ioBufferingFlushSize);
+        builder.append(", ioBufferingMaxAge=");
+        builder.append(ioBufferingMaxAge);
+        builder.append(", spanEventRecycleEnable=");
+        builder.append(spanEventRecycleEnable);
+        builder.append(", spanEventRecyclePoolSize=");
+        builder.append(spanEventRecyclePoolSize);
         builder.append(", profileJvmCollectInterval=");
         builder.append(profileJvmCollectInterval);
         builder.append(", profilableClassFilter=");
@@ -667,6 +866,12 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(applicationTypeDetectOrder);
         builder.append(", disabledPlugins=");
         builder.append(disabledPlugins);
+        builder.append(", instrumentCacheEnable=");
+        builder.append(instrumentCacheEnable);
+        builder.append(", instrumentCacheDir=");
+        builder.append(instrumentCacheDir);
+        builder.append(", instrumentMetricReportDelay=");
+        builder.append(instrumentMetricReportDelay);
         builder.append("}");
         return builder.toString();
     }
@@ -18,12 +18,15 @@ package com.navercorp.pinpoint.bootstrap.config;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
 /**
  * @author Woonduk Kang(emeroad)
  */
 public interface ProfilerConfig {
 
+    Properties getProperties();
+
     int getInterceptorRegistrySize();
 
     String getCollectorSpanServerIp();
@@ -38,6 +41,10 @@ public interface ProfilerConfig {
 
     int getCollectorTcpServerPort();
 
+    boolean isCollectorAffinityEnable();
+
+    List<String> getCollectorAffinityMembers();
+
     int getStatDataSenderWriteQueueSize();
 
     int getStatDataSenderSocketSendBufferSize();
@@ -46,6 +53,14 @@ public interface ProfilerConfig {
 
     String getStatDataSenderSocketType();
 
+    String getDataSenderQueueType();
+
+    int getDataSenderQueueMaxDrainSize();
+
+    String getDataSenderQueueWaitStrategy();
+
+    int getUdpDataSenderBatchPacketSize();
+
     int getSpanDataSenderWriteQueueSize();
 
     int getSpanDataSenderSocketSendBufferSize();
@@ -62,6 +77,8 @@ public interface ProfilerConfig {
 
     boolean isTraceAgentActiveThread();
 
+    String getActiveTraceRepositoryType();
+
     boolean isTraceAgentDataSource();
 
     int getSpanDataSenderSocketTimeout();
@@ -76,6 +93,14 @@ public interface ProfilerConfig {
 
     int getJdbcSqlCacheSize();
 
+    boolean isJdbcSqlCachePersistentEnable();
+
+    String getJdbcSqlCachePersistentDir();
+
+    int getJdbcSqlCachePersistentFileSize();
+
+    String getJdbcSqlNormalizerType();
+
     boolean isTraceSqlBindValue();
 
     int getMaxSqlBindValueSize();
@@ -84,10 +109,26 @@ public interface ProfilerConfig {
 
     int getSamplingRate();
 
+    String getSamplingType();
+
+    int getSamplingAdaptiveTargetTps();
+
+    boolean isSamplingTailEnable();
+
     boolean isIoBufferingEnable();
 
     int getIoBufferingBufferSize();
 
+    boolean isIoBufferingBoundedEnable();
+
+    int getIoBufferingFlushSize();
+
+    long getIoBufferingMaxAge();
+
+    boolean isSpanEventRecycleEnable();
+
+    int getSpanEventRecyclePoolSize();
+
     int getProfileJvmCollectInterval();
 
     String getProfilerJvmVendorName();
@@ -111,6 +152,12 @@ public interface ProfilerConfig {
 
     String getProfileInstrumentEngine();
 
+    boolean isInstrumentCacheEnable();
+
+    String getInstrumentCacheDir();
+
+    long getInstrumentMetricReportDelay();
+
     String readString(String propertyName, String defaultValue);
 
     int readInt(String propertyName, int defaultValue);
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.instrument.matcher;
+
+/**
+ * @author agent
+ */
+public class DefaultPackageNameMatcher implements PackageNameMatcher {
+
+    private final String packageName;
+
+    DefaultPackageNameMatcher(String packageName) {
+        if (packageName == null) {
+            throw new NullPointerException("packageName must not be null");
+        }
+        this.packageName = packageName;
+    }
+
+    @Override
+    public String getPackageName() {
+        return packageName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DefaultPackageNameMatcher that = (DefaultPackageNameMatcher) o;
+        return packageName.equals(that.packageName);
+    }
+
+    @Override
+    public int hashCode() {
+        return packageName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultPackageNameMatcher{");
+        sb.append(packageName);
+        sb.append('}');
+        return sb.toString();
+    }
+}
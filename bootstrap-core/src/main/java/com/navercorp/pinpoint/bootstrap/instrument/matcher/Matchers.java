@@ -46,4 +46,19 @@ public final class Matchers {
         return new DefaultMultiClassNameMatcher(Arrays.asList(classNameList));
     }
 
+    public static Matcher newPackageNameMatcher(String packageName) {
+        return new DefaultPackageNameMatcher(packageName);
+    }
+
+    public static Matcher newClassNameSuffixMatcher(String suffix) {
+        return new DefaultClassNameSuffixMatcher(suffix);
+    }
+
+    public static Matcher newInterfaceMatcher(String interfaceName) {
+        return new DefaultInterfaceMatcher(interfaceName);
+    }
+
+    public static Matcher newAnnotationMatcher(String annotationName) {
+        return new DefaultAnnotationMatcher(annotationName);
+    }
 }
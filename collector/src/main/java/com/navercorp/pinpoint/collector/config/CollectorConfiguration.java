@@ -29,9 +29,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.util.Assert;
 
+import com.navercorp.pinpoint.collector.receiver.udp.UDPReceiverFactory;
 import com.navercorp.pinpoint.common.util.PropertyUtils;
 import com.navercorp.pinpoint.common.util.SimpleProperty;
 import com.navercorp.pinpoint.common.util.SystemProperty;
+import com.navercorp.pinpoint.rpc.util.CpuUtils;
 
 /**
  * @author emeroad
@@ -73,9 +75,32 @@ public class CollectorConfiguration implements InitializingBean {
     private int udpSpanWorkerQueueSize;
     private boolean udpSpanWorkerMonitor;
     private int udpSpanSocketReceiveBufferSize;
+    private String udpSpanReceiverType;
+    private int udpSpanReceiverSocketCount;
+    private boolean udpSpanDirectDecode;
+
+    private boolean tailSamplingEnable;
+    private long tailSamplingWindowMillis;
+    private int tailSamplingMaxTransactions;
+    private int tailSamplingSlowThreshold;
+
+    private boolean dispatchLaneEnable;
+    private int dispatchLaneThreadSize;
+    private int dispatchLaneSpanQueueSize;
+    private int dispatchLaneSpanWeight;
+    private int dispatchLaneStatQueueSize;
+    private int dispatchLaneStatWeight;
     
     private int agentEventWorkerThreadSize;
     private int agentEventWorkerQueueSize;
+
+    private boolean statisticsRollupEnable;
+
+    private boolean applicationStatEnable;
+    private long applicationStatWindowMillis;
+    private long applicationStatFlushDelayMillis;
+    private int applicationStatMaxWindowSize;
+    private int applicationStatMaxAgentSize;
     
     private List<String> l4IpList = Collections.emptyList();
 
@@ -222,6 +247,110 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanSocketReceiveBufferSize = udpSpanSocketReceiveBufferSize;
     }
 
+    public String getUdpSpanReceiverType() {
+        return udpSpanReceiverType;
+    }
+
+    public void setUdpSpanReceiverType(String udpSpanReceiverType) {
+        this.udpSpanReceiverType = udpSpanReceiverType;
+    }
+
+    public int getUdpSpanReceiverSocketCount() {
+        return udpSpanReceiverSocketCount;
+    }
+
+    public void setUdpSpanReceiverSocketCount(int udpSpanReceiverSocketCount) {
+        this.udpSpanReceiverSocketCount = udpSpanReceiverSocketCount;
+    }
+
+    public boolean isUdpSpanDirectDecode() {
+        return udpSpanDirectDecode;
+    }
+
+    public void setUdpSpanDirectDecode(boolean udpSpanDirectDecode) {
+        this.udpSpanDirectDecode = udpSpanDirectDecode;
+    }
+
+    public boolean isTailSamplingEnable() {
+        return tailSamplingEnable;
+    }
+
+    public void setTailSamplingEnable(boolean tailSamplingEnable) {
+        this.tailSamplingEnable = tailSamplingEnable;
+    }
+
+    public long getTailSamplingWindowMillis() {
+        return tailSamplingWindowMillis;
+    }
+
+    public void setTailSamplingWindowMillis(long tailSamplingWindowMillis) {
+        this.tailSamplingWindowMillis = tailSamplingWindowMillis;
+    }
+
+    public int getTailSamplingMaxTransactions() {
+        return tailSamplingMaxTransactions;
+    }
+
+    public void setTailSamplingMaxTransactions(int tailSamplingMaxTransactions) {
+        this.tailSamplingMaxTransactions = tailSamplingMaxTransactions;
+    }
+
+    public int getTailSamplingSlowThreshold() {
+        return tailSamplingSlowThreshold;
+    }
+
+    public void setTailSamplingSlowThreshold(int tailSamplingSlowThreshold) {
+        this.tailSamplingSlowThreshold = tailSamplingSlowThreshold;
+    }
+
+    public boolean isDispatchLaneEnable() {
+        return dispatchLaneEnable;
+    }
+
+    public void setDispatchLaneEnable(boolean dispatchLaneEnable) {
+        this.dispatchLaneEnable = dispatchLaneEnable;
+    }
+
+    public int getDispatchLaneThreadSize() {
+        return dispatchLaneThreadSize;
+    }
+
+    public void setDispatchLaneThreadSize(int dispatchLaneThreadSize) {
+        this.dispatchLaneThreadSize = dispatchLaneThreadSize;
+    }
+
+    public int getDispatchLaneSpanQueueSize() {
+        return dispatchLaneSpanQueueSize;
+    }
+
+    public void setDispatchLaneSpanQueueSize(int dispatchLaneSpanQueueSize) {
+        this.dispatchLaneSpanQueueSize = dispatchLaneSpanQueueSize;
+    }
+
+    public int getDispatchLaneSpanWeight() {
+        return dispatchLaneSpanWeight;
+    }
+
+    public void setDispatchLaneSpanWeight(int dispatchLaneSpanWeight) {
+        this.dispatchLaneSpanWeight = dispatchLaneSpanWeight;
+    }
+
+    public int getDispatchLaneStatQueueSize() {
+        return dispatchLaneStatQueueSize;
+    }
+
+    public void setDispatchLaneStatQueueSize(int dispatchLaneStatQueueSize) {
+        this.dispatchLaneStatQueueSize = dispatchLaneStatQueueSize;
+    }
+
+    public int getDispatchLaneStatWeight() {
+        return dispatchLaneStatWeight;
+    }
+
+    public void setDispatchLaneStatWeight(int dispatchLaneStatWeight) {
+        this.dispatchLaneStatWeight = dispatchLaneStatWeight;
+    }
+
     public int getAgentEventWorkerThreadSize() {
         return this.agentEventWorkerThreadSize;
     }
@@ -238,6 +367,54 @@ public class CollectorConfiguration implements InitializingBean {
         this.agentEventWorkerQueueSize = agentEventWorkerQueueSize;
     }
 
+    public boolean isStatisticsRollupEnable() {
+        return statisticsRollupEnable;
+    }
+
+    public void setStatisticsRollupEnable(boolean statisticsRollupEnable) {
+        this.statisticsRollupEnable = statisticsRollupEnable;
+    }
+
+    public boolean isApplicationStatEnable() {
+        return applicationStatEnable;
+    }
+
+    public void setApplicationStatEnable(boolean applicationStatEnable) {
+        this.applicationStatEnable = applicationStatEnable;
+    }
+
+    public long getApplicationStatWindowMillis() {
+        return applicationStatWindowMillis;
+    }
+
+    public void setApplicationStatWindowMillis(long applicationStatWindowMillis) {
+        this.applicationStatWindowMillis = applicationStatWindowMillis;
+    }
+
+    public long getApplicationStatFlushDelayMillis() {
+        return applicationStatFlushDelayMillis;
+    }
+
+    public void setApplicationStatFlushDelayMillis(long applicationStatFlushDelayMillis) {
+        this.applicationStatFlushDelayMillis = applicationStatFlushDelayMillis;
+    }
+
+    public int getApplicationStatMaxWindowSize() {
+        return applicationStatMaxWindowSize;
+    }
+
+    public void setApplicationStatMaxWindowSize(int applicationStatMaxWindowSize) {
+        this.applicationStatMaxWindowSize = applicationStatMaxWindowSize;
+    }
+
+    public int getApplicationStatMaxAgentSize() {
+        return applicationStatMaxAgentSize;
+    }
+
+    public void setApplicationStatMaxAgentSize(int applicationStatMaxAgentSize) {
+        this.applicationStatMaxAgentSize = applicationStatMaxAgentSize;
+    }
+
     public List<String> getL4IpList() {
         return l4IpList;
     }
@@ -336,9 +513,32 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanWorkerQueueSize = readInt(properties, "collector.udpSpanWorkerQueueSize", 1024 * 5);
         this.udpSpanWorkerMonitor = readBoolean(properties, "collector.udpSpanWorker.monitor");
         this.udpSpanSocketReceiveBufferSize = readInt(properties, "collector.udpSpanSocketReceiveBufferSize", 1024 * 4096);
+        this.udpSpanReceiverType = readString(properties, "collector.udpSpanReceiverType", UDPReceiverFactory.RECEIVER_TYPE_DEFAULT);
+        this.udpSpanReceiverSocketCount = readInt(properties, "collector.udpSpanReceiverSocketCount", CpuUtils.cpuCount());
+        this.udpSpanDirectDecode = readBoolean(properties, "collector.udpSpanDirectDecode");
+
+        this.tailSamplingEnable = readBoolean(properties, "collector.tailSampling.enable");
+        this.tailSamplingWindowMillis = readLong(properties, "collector.tailSampling.window", 60000L);
+        this.tailSamplingMaxTransactions = readInt(properties, "collector.tailSampling.maxTransactions", 100000);
+        this.tailSamplingSlowThreshold = readInt(properties, "collector.tailSampling.slowThreshold", 3000);
+
+        this.dispatchLaneEnable = readBoolean(properties, "collector.dispatchLane.enable");
+        this.dispatchLaneThreadSize = readInt(properties, "collector.dispatchLane.threadSize", 256);
+        this.dispatchLaneSpanQueueSize = readInt(properties, "collector.dispatchLane.span.queueSize", 1024 * 5);
+        this.dispatchLaneSpanWeight = readInt(properties, "collector.dispatchLane.span.weight", 3);
+        this.dispatchLaneStatQueueSize = readInt(properties, "collector.dispatchLane.stat.queueSize", 1024);
+        this.dispatchLaneStatWeight = readInt(properties, "collector.dispatchLane.stat.weight", 1);
         
         this.agentEventWorkerThreadSize = readInt(properties, "collector.agentEventWorker.threadSize", 32);
         this.agentEventWorkerQueueSize = readInt(properties, "collector.agentEventWorker.queueSize", 1024 * 5);
+
+        this.statisticsRollupEnable = readBoolean(properties, "statistics.rollup.enable");
+
+        this.applicationStatEnable = readBoolean(properties, "statistics.application.stat.enable");
+        this.applicationStatWindowMillis = readLong(properties, "statistics.application.stat.window", 60000L);
+        this.applicationStatFlushDelayMillis = readLong(properties, "statistics.application.stat.flushDelay", 60000L);
+        this.applicationStatMaxWindowSize = readInt(properties, "statistics.application.stat.maxWindowSize", 10000);
+        this.applicationStatMaxAgentSize = readInt(properties, "statistics.application.stat.maxAgentSize", 100000);
         
         String[] l4Ips = StringUtils.split(readString(properties, "collector.l4.ip", null), ",");
         if (l4Ips == null) {
@@ -420,8 +620,27 @@ public class CollectorConfiguration implements InitializingBean {
         sb.append(", udpSpanWorkerQueueSize=").append(udpSpanWorkerQueueSize);
         sb.append(", udpSpanWorkerMonitor=").append(udpSpanWorkerMonitor);
         sb.append(", udpSpanSocketReceiveBufferSize=").append(udpSpanSocketReceiveBufferSize);
+        sb.append(", udpSpanReceiverType='").append(udpSpanReceiverType).append('\'');
+        sb.append(", udpSpanReceiverSocketCount=").append(udpSpanReceiverSocketCount);
+        sb.append(", udpSpanDirectDecode=").append(udpSpanDirectDecode);
+        sb.append(", tailSamplingEnable=").append(tailSamplingEnable);
+        sb.append(", tailSamplingWindowMillis=").append(tailSamplingWindowMillis);
+        sb.append(", tailSamplingMaxTransactions=").append(tailSamplingMaxTransactions);
+        sb.append(", tailSamplingSlowThreshold=").append(tailSamplingSlowThreshold);
+        sb.append(", dispatchLaneEnable=").append(dispatchLaneEnable);
+        sb.append(", dispatchLaneThreadSize=").append(dispatchLaneThreadSize);
+        sb.append(", dispatchLaneSpanQueueSize=").append(dispatchLaneSpanQueueSize);
+        sb.append(", dispatchLaneSpanWeight=").append(dispatchLaneSpanWeight);
+        sb.append(", dispatchLaneStatQueueSize=").append(dispatchLaneStatQueueSize);
+        sb.append(", dispatchLaneStatWeight=").append(dispatchLaneStatWeight);
         sb.append(", agentEventWorkerThreadSize=").append(agentEventWorkerThreadSize);
         sb.append(", agentEventWorkerQueueSize=").append(agentEventWorkerQueueSize);
+        sb.append(", statisticsRollupEnable=").append(statisticsRollupEnable);
+        sb.append(", applicationStatEnable=").append(applicationStatEnable);
+        sb.append(", applicationStatWindowMillis=").append(applicationStatWindowMillis);
+        sb.append(", applicationStatFlushDelayMillis=").append(applicationStatFlushDelayMillis);
+        sb.append(", applicationStatMaxWindowSize=").append(applicationStatMaxWindowSize);
+        sb.append(", applicationStatMaxAgentSize=").append(applicationStatMaxAgentSize);
         sb.append(", l4IpList=").append(l4IpList);
         sb.append(", clusterEnable=").append(clusterEnable);
         sb.append(", clusterAddress=").append(clusterAddress);
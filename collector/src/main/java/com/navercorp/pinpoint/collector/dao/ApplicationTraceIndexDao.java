@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.collector.dao;
 
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
 
 /**
@@ -23,4 +24,6 @@ import com.navercorp.pinpoint.thrift.dto.TSpan;
  */
 public interface ApplicationTraceIndexDao {
     void insert(TSpan span);
+
+    void insert(SpanBo span);
 }
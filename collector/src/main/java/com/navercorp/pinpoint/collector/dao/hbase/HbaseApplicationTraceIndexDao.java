@@ -19,10 +19,11 @@ package com.navercorp.pinpoint.collector.dao.hbase;
 import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 
 import com.navercorp.pinpoint.collector.dao.ApplicationTraceIndexDao;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.server.util.AcceptedTimeService;
 import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
-import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.collector.dao.hbase.writer.PutWriter;
 import com.navercorp.pinpoint.common.server.util.SpanUtils;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
@@ -42,7 +43,8 @@ import org.springframework.stereotype.Repository;
 public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
 
     @Autowired
-    private HbaseOperations2 hbaseTemplate;
+    @Qualifier("putWriter")
+    private PutWriter putWriter;
 
     @Autowired
     private AcceptedTimeService acceptedTimeService;
@@ -56,34 +58,38 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         if (span == null) {
             throw new NullPointerException("span must not be null");
         }
+        final long acceptedTime = acceptedTimeService.getAcceptedTime();
+        insert(span.getApplicationName(), span.getAgentId(), span.getElapsed(), span.getErr(), SpanUtils.getVarTransactionId(span), acceptedTime);
+    }
 
+    @Override
+    public void insert(final SpanBo span) {
+        if (span == null) {
+            throw new NullPointerException("span must not be null");
+        }
+        // may be written later than it was accepted. see TailSamplingBuffer
+        final long acceptedTime = span.getCollectorAcceptTime();
+        insert(span.getApplicationId(), span.getAgentId(), span.getElapsed(), span.getErrCode(), SpanUtils.getVarTransactionId(span), acceptedTime);
+    }
+
+    private void insert(String applicationName, String agentId, int elapsed, int err, byte[] qualifier, long acceptedTime) {
         final Buffer buffer = new AutomaticBuffer(10 + AGENT_NAME_MAX_LEN);
-        buffer.putVInt(span.getElapsed());
-        buffer.putSVInt(span.getErr());
-        buffer.putPrefixedString(span.getAgentId());
+        buffer.putVInt(elapsed);
+        buffer.putSVInt(err);
+        buffer.putPrefixedString(agentId);
         final byte[] value = buffer.getBuffer();
 
-        long acceptedTime = acceptedTimeService.getAcceptedTime();
-        final byte[] distributedKey = createRowKey(span, acceptedTime);
+        final byte[] distributedKey = createRowKey(applicationName, acceptedTime);
         Put put = new Put(distributedKey);
 
-        put.addColumn(APPLICATION_TRACE_INDEX_CF_TRACE, makeQualifier(span) , acceptedTime, value);
-
-        boolean success = hbaseTemplate.asyncPut(APPLICATION_TRACE_INDEX, put);
-        if (!success) {
-            hbaseTemplate.put(APPLICATION_TRACE_INDEX, put);
-        }
-    }
-
-    private byte[] makeQualifier(final TSpan span) {
-        byte[] qualifier = SpanUtils.getVarTransactionId(span);
+        put.addColumn(APPLICATION_TRACE_INDEX_CF_TRACE, qualifier, acceptedTime, value);
 
-        return qualifier;
+        putWriter.put(APPLICATION_TRACE_INDEX, put);
     }
 
-    private byte[] createRowKey(TSpan span, long acceptedTime) {
+    private byte[] createRowKey(String applicationName, long acceptedTime) {
         // distribute key evenly
-        byte[] applicationTraceIndexRowKey = SpanUtils.getApplicationTraceIndexRowKey(span.getApplicationName(), acceptedTime);
+        byte[] applicationTraceIndexRowKey = SpanUtils.getApplicationTraceIndexRowKey(applicationName, acceptedTime);
         return rowKeyDistributor.getDistributedKey(applicationTraceIndexRowKey);
     }
 }
@@ -69,7 +69,14 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<>();
+    private final ShardedCounterMap counter = new ShardedCounterMap(new RowInfoFactory() {
+        @Override
+        public RowInfo createRowInfo(CounterKey key) {
+            final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+            final ColumnName columnName = new ResponseColumnName(key.getColumnAgentId(), key.getColumnSlotNumber());
+            return new DefaultRowInfo(rowKey, columnName);
+        }
+    });
 
     public HbaseMapResponseTimeDao() {
         this(true);
@@ -95,14 +102,15 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey selfRowKey = new CallRowKey(applicationName, applicationServiceType.getCode(), rowTimeSlot);
-
         final short slotNumber = ApplicationMapStatisticsUtils.getSlotNumber(applicationServiceType, elapsed, isError);
-        final ColumnName selfColumnName = new ResponseColumnName(agentId, slotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(selfRowKey, selfColumnName);
-            this.counter.increment(rowInfo, 1L);
+            final CounterKey counterKey = this.counter.getProbeKey();
+            counterKey.setRowKey(applicationName, applicationServiceType.getCode(), rowTimeSlot);
+            counterKey.setColumnName(agentId, (short) 0, null, null, slotNumber);
+            this.counter.increment(counterKey, 1L);
         } else {
+            final RowKey selfRowKey = new CallRowKey(applicationName, applicationServiceType.getCode(), rowTimeSlot);
+            final ColumnName selfColumnName = new ResponseColumnName(agentId, slotNumber);
             final byte[] rowKey = getDistributedKey(selfRowKey.getRowKey());
             // column name is the name of caller app.
             byte[] columnName = selfColumnName.getColumnName();
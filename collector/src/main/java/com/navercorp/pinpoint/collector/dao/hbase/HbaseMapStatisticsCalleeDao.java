@@ -69,7 +69,14 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<>();
+    private final ShardedCounterMap counter = new ShardedCounterMap(new RowInfoFactory() {
+        @Override
+        public RowInfo createRowInfo(CounterKey key) {
+            final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+            final ColumnName columnName = new CallerColumnName(key.getColumnServiceType(), key.getColumnApplicationName(), key.getColumnHost(), key.getColumnSlotNumber());
+            return new DefaultRowInfo(rowKey, columnName);
+        }
+    });
 
     public HbaseMapStatisticsCalleeDao() {
         this(true);
@@ -100,15 +107,16 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey calleeRowKey = new CallRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
-
         final short callerSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
-        final ColumnName callerColumnName = new CallerColumnName(callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
 
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(calleeRowKey, callerColumnName);
-            counter.increment(rowInfo, 1L);
+            final CounterKey counterKey = counter.getProbeKey();
+            counterKey.setRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
+            counterKey.setColumnName(null, callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
+            counter.increment(counterKey, 1L);
         } else {
+            final RowKey calleeRowKey = new CallRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
+            final ColumnName callerColumnName = new CallerColumnName(callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
             final byte[] rowKey = getDistributedKey(calleeRowKey.getRowKey());
 
             // column name is the name of caller app.
@@ -69,7 +69,14 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<>();
+    private final ShardedCounterMap counter = new ShardedCounterMap(new RowInfoFactory() {
+        @Override
+        public RowInfo createRowInfo(CounterKey key) {
+            final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+            final ColumnName columnName = new CalleeColumnName(key.getColumnAgentId(), key.getColumnServiceType(), key.getColumnApplicationName(), key.getColumnHost(), key.getColumnSlotNumber());
+            return new DefaultRowInfo(rowKey, columnName);
+        }
+    });
 
     public HbaseMapStatisticsCallerDao() {
         this(true);
@@ -99,14 +106,15 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey callerRowKey = new CallRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
-
         final short calleeSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
-        final ColumnName calleeColumnName = new CalleeColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(callerRowKey, calleeColumnName);
-            this.counter.increment(rowInfo, 1L);
+            final CounterKey counterKey = this.counter.getProbeKey();
+            counterKey.setRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
+            counterKey.setColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
+            this.counter.increment(counterKey, 1L);
         } else {
+            final RowKey callerRowKey = new CallRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
+            final ColumnName calleeColumnName = new CalleeColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
             final byte[] rowKey = getDistributedKey(callerRowKey.getRowKey());
             // column name is the name of caller app.
             byte[] columnName = calleeColumnName.getColumnName();
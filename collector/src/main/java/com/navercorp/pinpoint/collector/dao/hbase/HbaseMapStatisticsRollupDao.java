@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.dao.MapStatisticsRollupDao;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.CallRowKey;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.CalleeColumnName;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.CallerColumnName;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.ColumnName;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.CounterKey;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.DefaultRowInfo;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.RowInfo;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.RowInfoFactory;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.RowKey;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.RowKeyMerge;
+import com.navercorp.pinpoint.collector.dao.hbase.statistics.ShardedCounterMap;
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.MapStatisticsResolution;
+import com.navercorp.pinpoint.common.server.util.AcceptedTimeService;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Increment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the caller/callee statistics again into the 5min, 1hour, 1day rollup tables.
+ * Row key and column name are the same as the 1min tables except for the time slot, so the web mappers read them as they are.
+ *
+ * @author agent
+ */
+@Repository
+public class HbaseMapStatisticsRollupDao implements MapStatisticsRollupDao {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HbaseOperations2 hbaseTemplate;
+
+    @Autowired
+    private AcceptedTimeService acceptedTimeService;
+
+    @Autowired
+    private CollectorConfiguration configuration;
+
+    @Autowired
+    @Qualifier("callerMerge")
+    private RowKeyMerge callerRowKeyMerge;
+
+    @Autowired
+    @Qualifier("calleeMerge")
+    private RowKeyMerge calleeRowKeyMerge;
+
+    @Autowired
+    @Qualifier("statisticsCallerRowKeyDistributor")
+    private RowKeyDistributorByHashPrefix callerRowKeyDistributor;
+
+    @Autowired
+    @Qualifier("statisticsCalleeRowKeyDistributor")
+    private RowKeyDistributorByHashPrefix calleeRowKeyDistributor;
+
+    private final List<Rollup> rollupList;
+
+    private boolean enable;
+
+    public HbaseMapStatisticsRollupDao() {
+        final List<Rollup> rollupList = new ArrayList<>();
+        for (MapStatisticsResolution resolution : MapStatisticsResolution.values()) {
+            if (resolution.isRollup()) {
+                rollupList.add(new Rollup(resolution));
+            }
+        }
+        this.rollupList = rollupList;
+    }
+
+    @PostConstruct
+    public void setup() {
+        this.enable = configuration.isStatisticsRollupEnable();
+        logger.info("statistics rollup enable:{}", enable);
+    }
+
+    @Override
+    public void updateCaller(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError) {
+        if (!enable) {
+            return;
+        }
+        if (callerApplicationName == null) {
+            throw new NullPointerException("callerApplicationName must not be null");
+        }
+        if (calleeApplicationName == null) {
+            throw new NullPointerException("calleeApplicationName must not be null");
+        }
+
+        // there may be no endpoint in case of httpclient
+        calleeHost = StringUtils.defaultString(calleeHost);
+
+        final long acceptedTime = acceptedTimeService.getAcceptedTime();
+        final short calleeSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
+        for (Rollup rollup : rollupList) {
+            final long rowTimeSlot = rollup.resolution.getTimeSlot(acceptedTime);
+            final CounterKey counterKey = rollup.callerCounter.getProbeKey();
+            counterKey.setRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
+            counterKey.setColumnName(callerAgentId, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
+            rollup.callerCounter.increment(counterKey, 1L);
+        }
+    }
+
+    @Override
+    public void updateCallee(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError) {
+        if (!enable) {
+            return;
+        }
+        if (callerApplicationName == null) {
+            throw new NullPointerException("callerApplicationName must not be null");
+        }
+        if (calleeApplicationName == null) {
+            throw new NullPointerException("calleeApplicationName must not be null");
+        }
+
+        // there may be no endpoint in case of httpclient
+        callerHost = StringUtils.defaultString(callerHost);
+
+        final long acceptedTime = acceptedTimeService.getAcceptedTime();
+        final short callerSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
+        for (Rollup rollup : rollupList) {
+            final long rowTimeSlot = rollup.resolution.getTimeSlot(acceptedTime);
+            final CounterKey counterKey = rollup.calleeCounter.getProbeKey();
+            counterKey.setRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
+            counterKey.setColumnName(null, callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
+            rollup.calleeCounter.increment(counterKey, 1L);
+        }
+    }
+
+    @Override
+    public void flushAll() {
+        if (!enable) {
+            return;
+        }
+        for (Rollup rollup : rollupList) {
+            // caller row : MAP_STATISTICS_CALLEE_VER2 format
+            flush(rollup.resolution.getCalleeTable(), rollup.callerCounter, callerRowKeyMerge, callerRowKeyDistributor);
+            // callee row : MAP_STATISTICS_CALLER_VER2 format
+            flush(rollup.resolution.getCallerTable(), rollup.calleeCounter, calleeRowKeyMerge, calleeRowKeyDistributor);
+        }
+    }
+
+    private void flush(TableName tableName, ShardedCounterMap counter, RowKeyMerge rowKeyMerge, RowKeyDistributorByHashPrefix rowKeyDistributor) {
+        final Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counter.remove();
+        final List<Increment> merge = rowKeyMerge.createBulkIncrement(remove, rowKeyDistributor);
+        if (!merge.isEmpty()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("flush {} {} Increment:{}", this.getClass().getSimpleName(), tableName, merge.size());
+            }
+            hbaseTemplate.increment(tableName, merge);
+        }
+    }
+
+    private static class Rollup {
+        private final MapStatisticsResolution resolution;
+        private final ShardedCounterMap callerCounter;
+        private final ShardedCounterMap calleeCounter;
+
+        private Rollup(MapStatisticsResolution resolution) {
+            this.resolution = resolution;
+            this.callerCounter = new ShardedCounterMap(new RowInfoFactory() {
+                @Override
+                public RowInfo createRowInfo(CounterKey key) {
+                    final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+                    final ColumnName columnName = new CalleeColumnName(key.getColumnAgentId(), key.getColumnServiceType(), key.getColumnApplicationName(), key.getColumnHost(), key.getColumnSlotNumber());
+                    return new DefaultRowInfo(rowKey, columnName);
+                }
+            });
+            this.calleeCounter = new ShardedCounterMap(new RowInfoFactory() {
+                @Override
+                public RowInfo createRowInfo(CounterKey key) {
+                    final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+                    final ColumnName columnName = new CallerColumnName(key.getColumnServiceType(), key.getColumnApplicationName(), key.getColumnHost(), key.getColumnSlotNumber());
+                    return new DefaultRowInfo(rowKey, columnName);
+                }
+            });
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.navercorp.pinpoint.collector.dao.hbase;
 
 import com.navercorp.pinpoint.collector.dao.TraceDao;
-import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.collector.dao.hbase.writer.PutWriter;
 import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.server.bo.SpanChunkBo;
 import com.navercorp.pinpoint.common.server.bo.SpanEventBo;
@@ -30,8 +30,8 @@ public class HbaseTraceDaoV2 implements TraceDao {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
-    private HbaseOperations2 hbaseTemplate;
-
+    @Qualifier("tracePutWriter")
+    private PutWriter putWriter;
 
     @Autowired
     private SpanSerializerV2 spanSerializer;
@@ -60,11 +60,7 @@ public class HbaseTraceDaoV2 implements TraceDao {
         this.spanSerializer.serialize(spanBo, put, null);
 
 
-        boolean success = hbaseTemplate.asyncPut(TRACE_V2, put);
-        if (!success) {
-            hbaseTemplate.put(TRACE_V2, put);
-        }
-
+        putWriter.put(TRACE_V2, put);
     }
 
 
@@ -86,10 +82,7 @@ public class HbaseTraceDaoV2 implements TraceDao {
         this.spanChunkSerializer.serialize(spanChunkBo, put, null);
 
         if (!put.isEmpty()) {
-            boolean success = hbaseTemplate.asyncPut(TRACE_V2, put);
-            if (!success) {
-                hbaseTemplate.put(TRACE_V2, put);
-            }
+            putWriter.put(TRACE_V2, put);
         }
     }
 
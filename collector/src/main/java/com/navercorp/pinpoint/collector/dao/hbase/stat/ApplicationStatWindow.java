@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.stat;
+
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * min, max, sum and count of the agent statistics of one application in one time window.
+ *
+ * @author agent
+ */
+public class ApplicationStatWindow {
+
+    private static final ApplicationStatField[] FIELDS = ApplicationStatField.values();
+
+    private final String applicationName;
+    private final long windowStart;
+
+    private final Summary[] summaries = new Summary[FIELDS.length];
+    private boolean closed;
+
+    public ApplicationStatWindow(String applicationName, long windowStart) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        this.applicationName = applicationName;
+        this.windowStart = windowStart;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    /**
+     * @return false if the window is already closed for writing
+     */
+    public synchronized boolean add(ApplicationStatField field, double value) {
+        if (field == null) {
+            throw new NullPointerException("field must not be null");
+        }
+        if (closed) {
+            return false;
+        }
+        final int index = field.ordinal();
+        Summary summary = summaries[index];
+        if (summary == null) {
+            summary = new Summary();
+            summaries[index] = summary;
+        }
+        summary.add(value);
+        return true;
+    }
+
+    synchronized void close() {
+        this.closed = true;
+    }
+
+    public synchronized Map<ApplicationStatField, Summary> getSummaries() {
+        final Map<ApplicationStatField, Summary> copy = new EnumMap<>(ApplicationStatField.class);
+        for (int i = 0; i < summaries.length; i++) {
+            final Summary summary = summaries[i];
+            if (summary != null) {
+                copy.put(FIELDS[i], summary.copy());
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "ApplicationStatWindow{" +
+                "applicationName='" + applicationName + '\'' +
+                ", windowStart=" + windowStart +
+                '}';
+    }
+
+    public static class Summary {
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        private void add(double value) {
+            count++;
+            sum += value;
+            if (value < min) {
+                min = value;
+            }
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        private Summary copy() {
+            final Summary copy = new Summary();
+            copy.count = count;
+            copy.sum = sum;
+            copy.min = min;
+            copy.max = max;
+            return copy;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getAvg() {
+            if (count == 0) {
+                return 0;
+            }
+            return sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return "Summary{" +
+                    "count=" + count +
+                    ", sum=" + sum +
+                    ", min=" + min +
+                    ", max=" + max +
+                    '}';
+        }
+    }
+}
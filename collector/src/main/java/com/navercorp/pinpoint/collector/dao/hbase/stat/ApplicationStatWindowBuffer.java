@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.stat;
+
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the open {@link ApplicationStatWindow}s of every application.
+ * A window is handed out by {@link #poll(long)} once windowEnd + flushDelay has passed.
+ * When more than maxWindowSize windows are open, the oldest one is handed out early.
+ * Windows are ordered by windowStart, so finding the oldest or the expired windows does not scan every open window.
+ * Data points of a window that was already handed out are dropped, so every window is written only once.
+ *
+ * @author agent
+ */
+public class ApplicationStatWindowBuffer {
+
+    private final long windowSize;
+    private final long flushDelay;
+    private final int maxWindowSize;
+
+    private final ConcurrentNavigableMap<WindowKey, ApplicationStatWindow> windows = new ConcurrentSkipListMap<>();
+    // ConcurrentSkipListMap.size() is O(n)
+    private final AtomicInteger windowCount = new AtomicInteger();
+    // per application, windows that start before this time are already handed out
+    private final ConcurrentMap<String, AtomicLong> closedTimeMap = new ConcurrentHashMap<>();
+    private final Queue<ApplicationStatWindow> evictedQueue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public ApplicationStatWindowBuffer(long windowSize, long flushDelay, int maxWindowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        if (flushDelay < 0) {
+            throw new IllegalArgumentException("flushDelay must not be negative");
+        }
+        if (maxWindowSize <= 0) {
+            throw new IllegalArgumentException("maxWindowSize must be positive");
+        }
+        this.windowSize = windowSize;
+        this.flushDelay = flushDelay;
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    public long getWindowStart(long timestamp) {
+        return timestamp - (timestamp % windowSize);
+    }
+
+    /**
+     * @return false if the data point is dropped because its window was already handed out
+     */
+    public boolean add(String applicationName, long timestamp, ApplicationStatField field, double value) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        final long windowStart = getWindowStart(timestamp);
+        final AtomicLong closedTime = getClosedTime(applicationName);
+        if (windowStart < closedTime.get()) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        final WindowKey key = new WindowKey(applicationName, windowStart);
+        ApplicationStatWindow window = windows.get(key);
+        if (window == null) {
+            if (windowCount.get() >= maxWindowSize) {
+                evictOldest();
+            }
+            final ApplicationStatWindow newWindow = new ApplicationStatWindow(applicationName, windowStart);
+            final ApplicationStatWindow before = windows.putIfAbsent(key, newWindow);
+            if (before != null) {
+                window = before;
+            } else {
+                window = newWindow;
+                windowCount.incrementAndGet();
+                // the window may have been handed out between the closedTime check and putIfAbsent
+                if (windowStart < closedTime.get() && windows.remove(key, newWindow)) {
+                    windowCount.decrementAndGet();
+                    newWindow.close();
+                }
+            }
+        }
+        if (window.add(field, value)) {
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        return false;
+    }
+
+    private AtomicLong getClosedTime(String applicationName) {
+        final AtomicLong closedTime = closedTimeMap.get(applicationName);
+        if (closedTime != null) {
+            return closedTime;
+        }
+        final AtomicLong newClosedTime = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLong before = closedTimeMap.putIfAbsent(applicationName, newClosedTime);
+        return before != null ? before : newClosedTime;
+    }
+
+    private void evictOldest() {
+        final Map.Entry<WindowKey, ApplicationStatWindow> oldest = windows.firstEntry();
+        if (oldest == null) {
+            return;
+        }
+        final ApplicationStatWindow window = oldest.getValue();
+        if (close(oldest.getKey(), window)) {
+            evictedQueue.offer(window);
+            evictedCount.incrementAndGet();
+        }
+    }
+
+    private boolean close(WindowKey key, ApplicationStatWindow window) {
+        if (!windows.remove(key, window)) {
+            return false;
+        }
+        windowCount.decrementAndGet();
+        window.close();
+        final AtomicLong closedTime = getClosedTime(key.applicationName);
+        final long windowEnd = key.windowStart + windowSize;
+        while (true) {
+            final long current = closedTime.get();
+            if (current >= windowEnd || closedTime.compareAndSet(current, windowEnd)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return windows that ended before currentTime - flushDelay, and windows evicted early
+     */
+    public List<ApplicationStatWindow> poll(long currentTime) {
+        final List<ApplicationStatWindow> result = new ArrayList<>();
+        drainEvicted(result);
+        // windowStart + windowSize + flushDelay <= currentTime, written to not overflow on pollAll()
+        final long lastWindowStart = currentTime - flushDelay - windowSize;
+        for (Map.Entry<WindowKey, ApplicationStatWindow> entry : windows.entrySet()) {
+            final WindowKey key = entry.getKey();
+            if (key.windowStart > lastWindowStart) {
+                break;
+            }
+            final ApplicationStatWindow window = entry.getValue();
+            if (close(key, window)) {
+                result.add(window);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return every open window. used on shutdown
+     */
+    public List<ApplicationStatWindow> pollAll() {
+        return poll(Long.MAX_VALUE);
+    }
+
+    private void drainEvicted(List<ApplicationStatWindow> result) {
+        ApplicationStatWindow window;
+        while ((window = evictedQueue.poll()) != null) {
+            result.add(window);
+        }
+    }
+
+    public int getWindowCount() {
+        return windowCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    private static final class WindowKey implements Comparable<WindowKey> {
+        private final String applicationName;
+        private final long windowStart;
+
+        private WindowKey(String applicationName, long windowStart) {
+            this.applicationName = applicationName;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        public int compareTo(WindowKey o) {
+            if (windowStart != o.windowStart) {
+                return windowStart < o.windowStart ? -1 : 1;
+            }
+            return applicationName.compareTo(o.applicationName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            WindowKey windowKey = (WindowKey) o;
+
+            if (windowStart != windowKey.windowStart) return false;
+            return applicationName.equals(windowKey.applicationName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = applicationName.hashCode();
+            result = 31 * result + (int) (windowStart ^ (windowStart >>> 32));
+            return result;
+        }
+    }
+}
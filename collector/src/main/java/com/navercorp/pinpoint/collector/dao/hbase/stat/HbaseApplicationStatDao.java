@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.stat;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.dao.ApplicationStatDao;
+import com.navercorp.pinpoint.collector.util.CollectorUtils;
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.server.bo.stat.ActiveTraceBo;
+import com.navercorp.pinpoint.common.server.bo.stat.AgentStatBo;
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatSummaryBo;
+import com.navercorp.pinpoint.common.server.bo.stat.CpuLoadBo;
+import com.navercorp.pinpoint.common.server.bo.stat.JvmGcBo;
+import com.navercorp.pinpoint.common.server.bo.stat.TransactionBo;
+import com.navercorp.pinpoint.common.server.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates jvm gc, cpu load, transaction and active trace of the agents into min, max, sum and count per application and time window.
+ * <pre>
+ * row key   : applicationName(fixed length) + reverse(windowStart) + collectorId
+ * qualifier : {@link ApplicationStatField} type code
+ * value     : {@link ApplicationStatSummaryBo}
+ * </pre>
+ * Every collector only sees the agents connected to it, so each collector writes its own partial summary of a window
+ * and the reader merges the rows of the same window.
+ * The application of an agent is taken from the AgentInfo sent by the agent.
+ * Statistics of an agent whose AgentInfo was not received by this collector are skipped.
+ *
+ * @author agent
+ */
+@Repository
+public class HbaseApplicationStatDao implements ApplicationStatDao {
+
+    private static final long AGENT_EXPIRE_MINUTES = 60;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HbaseOperations2 hbaseTemplate;
+
+    @Autowired
+    private CollectorConfiguration configuration;
+
+    private final byte[] collectorId = Bytes.toBytes(CollectorUtils.getServerIdentifier());
+
+    private Cache<String, String> agentApplicationMap;
+
+    private ApplicationStatWindowBuffer windowBuffer;
+
+    private boolean enable;
+
+    @PostConstruct
+    public void setup() {
+        this.enable = configuration.isApplicationStatEnable();
+        if (enable) {
+            this.windowBuffer = new ApplicationStatWindowBuffer(configuration.getApplicationStatWindowMillis(),
+                    configuration.getApplicationStatFlushDelayMillis(), configuration.getApplicationStatMaxWindowSize());
+            this.agentApplicationMap = CacheBuilder.newBuilder()
+                    .maximumSize(configuration.getApplicationStatMaxAgentSize())
+                    .expireAfterAccess(AGENT_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                    .build();
+        }
+        logger.info("application stat enable:{}", enable);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enable) {
+            return;
+        }
+        final List<ApplicationStatWindow> windows = windowBuffer.pollAll();
+        logger.info("{} close. write {} windows", this.getClass().getSimpleName(), windows.size());
+        write(windows);
+    }
+
+    @Override
+    public void registerAgent(String agentId, String applicationName) {
+        if (!enable) {
+            return;
+        }
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        agentApplicationMap.put(agentId, applicationName);
+    }
+
+    @Override
+    public void insert(AgentStatBo agentStatBo) {
+        if (!enable) {
+            return;
+        }
+        if (agentStatBo == null) {
+            throw new NullPointerException("agentStatBo must not be null");
+        }
+        final String agentId = agentStatBo.getAgentId();
+        if (agentId == null) {
+            return;
+        }
+        final String applicationName = agentApplicationMap.getIfPresent(agentId);
+        if (applicationName == null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("applicationName not found. agentId:{}", agentId);
+            }
+            return;
+        }
+
+        addJvmGc(applicationName, agentStatBo.getJvmGcBos());
+        addCpuLoad(applicationName, agentStatBo.getCpuLoadBos());
+        addTransaction(applicationName, agentStatBo.getTransactionBos());
+        addActiveTrace(applicationName, agentStatBo.getActiveTraceBos());
+    }
+
+    private void addJvmGc(String applicationName, List<JvmGcBo> jvmGcBos) {
+        if (jvmGcBos == null) {
+            return;
+        }
+        for (JvmGcBo jvmGcBo : jvmGcBos) {
+            final long timestamp = jvmGcBo.getTimestamp();
+            if (jvmGcBo.getHeapUsed() != JvmGcBo.UNCOLLECTED_VALUE) {
+                windowBuffer.add(applicationName, timestamp, ApplicationStatField.HEAP_USED, jvmGcBo.getHeapUsed());
+            }
+            if (jvmGcBo.getNonHeapUsed() != JvmGcBo.UNCOLLECTED_VALUE) {
+                windowBuffer.add(applicationName, timestamp, ApplicationStatField.NON_HEAP_USED, jvmGcBo.getNonHeapUsed());
+            }
+        }
+    }
+
+    private void addCpuLoad(String applicationName, List<CpuLoadBo> cpuLoadBos) {
+        if (cpuLoadBos == null) {
+            return;
+        }
+        for (CpuLoadBo cpuLoadBo : cpuLoadBos) {
+            final long timestamp = cpuLoadBo.getTimestamp();
+            if (cpuLoadBo.getJvmCpuLoad() != CpuLoadBo.UNCOLLECTED_VALUE) {
+                windowBuffer.add(applicationName, timestamp, ApplicationStatField.JVM_CPU_LOAD, cpuLoadBo.getJvmCpuLoad());
+            }
+            if (cpuLoadBo.getSystemCpuLoad() != CpuLoadBo.UNCOLLECTED_VALUE) {
+                windowBuffer.add(applicationName, timestamp, ApplicationStatField.SYSTEM_CPU_LOAD, cpuLoadBo.getSystemCpuLoad());
+            }
+        }
+    }
+
+    private void addTransaction(String applicationName, List<TransactionBo> transactionBos) {
+        if (transactionBos == null) {
+            return;
+        }
+        for (TransactionBo transactionBo : transactionBos) {
+            long total = 0;
+            boolean collected = false;
+            final long[] counts = {transactionBo.getSampledNewCount(), transactionBo.getSampledContinuationCount(),
+                    transactionBo.getUnsampledNewCount(), transactionBo.getUnsampledContinuationCount()};
+            for (long count : counts) {
+                if (count != TransactionBo.UNCOLLECTED_VALUE) {
+                    total += count;
+                    collected = true;
+                }
+            }
+            if (collected) {
+                windowBuffer.add(applicationName, transactionBo.getTimestamp(), ApplicationStatField.TRANSACTION_COUNT, total);
+            }
+        }
+    }
+
+    private void addActiveTrace(String applicationName, List<ActiveTraceBo> activeTraceBos) {
+        if (activeTraceBos == null) {
+            return;
+        }
+        for (ActiveTraceBo activeTraceBo : activeTraceBos) {
+            final Map<?, Integer> activeTraceCounts = activeTraceBo.getActiveTraceCounts();
+            if (activeTraceCounts == null || activeTraceCounts.isEmpty()) {
+                continue;
+            }
+            long total = 0;
+            boolean collected = false;
+            for (Integer count : activeTraceCounts.values()) {
+                if (count != null && count != ActiveTraceBo.UNCOLLECTED_ACTIVE_TRACE_COUNT) {
+                    total += count;
+                    collected = true;
+                }
+            }
+            if (collected) {
+                windowBuffer.add(applicationName, activeTraceBo.getTimestamp(), ApplicationStatField.ACTIVE_TRACE_COUNT, total);
+            }
+        }
+    }
+
+    @Override
+    public void flushAll() {
+        if (!enable) {
+            return;
+        }
+        final List<ApplicationStatWindow> windows = windowBuffer.poll(System.currentTimeMillis());
+        write(windows);
+    }
+
+    private void write(List<ApplicationStatWindow> windows) {
+        if (windows.isEmpty()) {
+            return;
+        }
+        final List<Put> puts = new ArrayList<>(windows.size());
+        for (ApplicationStatWindow window : windows) {
+            final Put put = createPut(window);
+            if (put != null) {
+                puts.add(put);
+            }
+        }
+        if (!puts.isEmpty()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("flush {} Put:{} dropped:{} evicted:{}", this.getClass().getSimpleName(), puts.size(),
+                        windowBuffer.getDroppedCount(), windowBuffer.getEvictedCount());
+            }
+            hbaseTemplate.put(HBaseTables.APPLICATION_STAT, puts);
+        }
+    }
+
+    private Put createPut(ApplicationStatWindow window) {
+        final Map<ApplicationStatField, ApplicationStatWindow.Summary> summaries = window.getSummaries();
+        if (summaries.isEmpty()) {
+            return null;
+        }
+        final byte[] applicationName = Bytes.toBytes(window.getApplicationName());
+        final long reverseWindowStart = TimeUtils.reverseTimeMillis(window.getWindowStart());
+        final byte[] windowKey = RowKeyUtils.concatFixedByteAndLong(applicationName, HBaseTables.APPLICATION_NAME_MAX_LEN, reverseWindowStart);
+        final byte[] rowKey = Bytes.add(windowKey, collectorId);
+
+        final Put put = new Put(rowKey);
+        for (Map.Entry<ApplicationStatField, ApplicationStatWindow.Summary> entry : summaries.entrySet()) {
+            final byte[] qualifier = new byte[] {entry.getKey().getRawTypeCode()};
+            put.addColumn(HBaseTables.APPLICATION_STAT_CF_STATISTICS, qualifier, encodeSummary(entry.getValue()));
+        }
+        return put;
+    }
+
+    private byte[] encodeSummary(ApplicationStatWindow.Summary summary) {
+        final ApplicationStatSummaryBo summaryBo = new ApplicationStatSummaryBo(summary.getCount(), summary.getSum(), summary.getMin(), summary.getMax());
+        return summaryBo.writeValue();
+    }
+}
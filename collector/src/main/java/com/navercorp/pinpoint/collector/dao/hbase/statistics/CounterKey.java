@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+/**
+ * Flat row/column key of a statistics counter.
+ * A thread-local instance is reused as a lookup key, so no RowKey/ColumnName is allocated for a known key.
+ * Column fields a column type does not use are left null/0.
+ *
+ * @author agent
+ */
+public final class CounterKey {
+
+    private String rowApplicationName;
+    private short rowServiceType;
+    private long rowTimeSlot;
+
+    private String columnAgentId;
+    private short columnServiceType;
+    private String columnApplicationName;
+    private String columnHost;
+    private short columnSlotNumber;
+
+    private int hash;
+    private boolean hashed;
+
+    CounterKey() {
+    }
+
+    private CounterKey(CounterKey copy) {
+        this.rowApplicationName = copy.rowApplicationName;
+        this.rowServiceType = copy.rowServiceType;
+        this.rowTimeSlot = copy.rowTimeSlot;
+        this.columnAgentId = copy.columnAgentId;
+        this.columnServiceType = copy.columnServiceType;
+        this.columnApplicationName = copy.columnApplicationName;
+        this.columnHost = copy.columnHost;
+        this.columnSlotNumber = copy.columnSlotNumber;
+        this.hash = copy.hash;
+        this.hashed = copy.hashed;
+    }
+
+    public CounterKey setRowKey(String applicationName, short serviceType, long timeSlot) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        this.rowApplicationName = applicationName;
+        this.rowServiceType = serviceType;
+        this.rowTimeSlot = timeSlot;
+        this.hashed = false;
+        return this;
+    }
+
+    public CounterKey setColumnName(String agentId, short serviceType, String applicationName, String host, short slotNumber) {
+        this.columnAgentId = agentId;
+        this.columnServiceType = serviceType;
+        this.columnApplicationName = applicationName;
+        this.columnHost = host;
+        this.columnSlotNumber = slotNumber;
+        this.hashed = false;
+        return this;
+    }
+
+    CounterKey copy() {
+        return new CounterKey(this);
+    }
+
+    public String getRowApplicationName() {
+        return rowApplicationName;
+    }
+
+    public short getRowServiceType() {
+        return rowServiceType;
+    }
+
+    public long getRowTimeSlot() {
+        return rowTimeSlot;
+    }
+
+    public String getColumnAgentId() {
+        return columnAgentId;
+    }
+
+    public short getColumnServiceType() {
+        return columnServiceType;
+    }
+
+    public String getColumnApplicationName() {
+        return columnApplicationName;
+    }
+
+    public String getColumnHost() {
+        return columnHost;
+    }
+
+    public short getColumnSlotNumber() {
+        return columnSlotNumber;
+    }
+
+    private int computeHash() {
+        int result = rowApplicationName != null ? rowApplicationName.hashCode() : 0;
+        result = 31 * result + (int) rowServiceType;
+        result = 31 * result + (int) (rowTimeSlot ^ (rowTimeSlot >>> 32));
+        result = 31 * result + (columnAgentId != null ? columnAgentId.hashCode() : 0);
+        result = 31 * result + (int) columnServiceType;
+        result = 31 * result + (columnApplicationName != null ? columnApplicationName.hashCode() : 0);
+        result = 31 * result + (columnHost != null ? columnHost.hashCode() : 0);
+        result = 31 * result + (int) columnSlotNumber;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        CounterKey that = (CounterKey) o;
+
+        if (hashCode() != that.hashCode()) return false;
+        if (rowServiceType != that.rowServiceType) return false;
+        if (rowTimeSlot != that.rowTimeSlot) return false;
+        if (columnServiceType != that.columnServiceType) return false;
+        if (columnSlotNumber != that.columnSlotNumber) return false;
+        if (!equals(rowApplicationName, that.rowApplicationName)) return false;
+        if (!equals(columnAgentId, that.columnAgentId)) return false;
+        if (!equals(columnApplicationName, that.columnApplicationName)) return false;
+        return equals(columnHost, that.columnHost);
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        if (!hashed) {
+            this.hash = computeHash();
+            this.hashed = true;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("CounterKey{");
+        sb.append("rowApplicationName='").append(rowApplicationName).append('\'');
+        sb.append(", rowServiceType=").append(rowServiceType);
+        sb.append(", rowTimeSlot=").append(rowTimeSlot);
+        sb.append(", columnAgentId='").append(columnAgentId).append('\'');
+        sb.append(", columnServiceType=").append(columnServiceType);
+        sb.append(", columnApplicationName='").append(columnApplicationName).append('\'');
+        sb.append(", columnHost='").append(columnHost).append('\'');
+        sb.append(", columnSlotNumber=").append(columnSlotNumber);
+        sb.append('}');
+        return sb.toString();
+    }
+}
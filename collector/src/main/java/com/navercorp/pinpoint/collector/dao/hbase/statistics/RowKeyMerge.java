@@ -20,6 +20,7 @@ import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
 
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +30,14 @@ import java.util.*;
  * @author emeroad
  */
 public class RowKeyMerge {
+    // stable increment order across flushes
+    private static final Comparator<Increment> ROW_COMPARATOR = new Comparator<Increment>() {
+        @Override
+        public int compare(Increment o1, Increment o2) {
+            return Bytes.compareTo(o1.getRow(), o2.getRow());
+        }
+    };
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final byte[] family;
 
@@ -51,6 +60,7 @@ public class RowKeyMerge {
             Increment increment = createIncrement(rowKeyEntry, rowKeyDistributorByHashPrefix);
             incrementList.add(increment);
         }
+        Collections.sort(incrementList, ROW_COMPARATOR);
         return incrementList;
     }
 
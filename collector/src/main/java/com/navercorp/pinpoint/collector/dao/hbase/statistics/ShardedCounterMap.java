@@ -0,0 +1,320 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Statistics counter without per-event key allocation.
+ * <p>
+ * A {@link CounterKey} is interned into an int id once per generation, and RowInfo is created only at that time.
+ * Each thread increments its own shard of counter pages indexed by id, so increments of different threads never contend.
+ * {@link #remove()} drains the shards with getAndSet(0), so no increment is lost between flushes.
+ * <p>
+ * Ids are not reused. A new generation (new id space) is started every {@code generationFlushCount} flushes
+ * or when the id space is full, so keys of past time slots and shards of dead threads are released.
+ * A retired generation is drained for {@link #RETIRED_DRAIN_COUNT} more flushes to pick up in-flight increments.
+ *
+ * @author agent
+ */
+public class ShardedCounterMap {
+
+    static final int PAGE_SIZE = 1024;
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    static final int RETIRED_DRAIN_COUNT = 2;
+
+    private static final int DEFAULT_MAX_KEYS = 64 * PAGE_SIZE;
+    private static final int DEFAULT_GENERATION_FLUSH_COUNT = 300;
+
+    private final RowInfoFactory rowInfoFactory;
+    private final int maxKeys;
+    private final int generationFlushCount;
+
+    private final ThreadLocal<CounterKey> probeKey = new ThreadLocal<CounterKey>() {
+        @Override
+        protected CounterKey initialValue() {
+            return new CounterKey();
+        }
+    };
+
+    private final ThreadLocal<ShardRef> shardRef = new ThreadLocal<ShardRef>() {
+        @Override
+        protected ShardRef initialValue() {
+            return new ShardRef();
+        }
+    };
+
+    private volatile Generation current;
+    private final ConcurrentLinkedQueue<Generation> retired = new ConcurrentLinkedQueue<>();
+
+    // flush thread only
+    private final long[] drainBuffer;
+
+    public ShardedCounterMap(RowInfoFactory rowInfoFactory) {
+        this(rowInfoFactory, DEFAULT_MAX_KEYS, DEFAULT_GENERATION_FLUSH_COUNT);
+    }
+
+    public ShardedCounterMap(RowInfoFactory rowInfoFactory, int maxKeys, int generationFlushCount) {
+        if (rowInfoFactory == null) {
+            throw new NullPointerException("rowInfoFactory must not be null");
+        }
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be greater than 0");
+        }
+        if (generationFlushCount <= 0) {
+            throw new IllegalArgumentException("generationFlushCount must be greater than 0");
+        }
+        this.rowInfoFactory = rowInfoFactory;
+        // round up to page size
+        this.maxKeys = ((maxKeys + PAGE_MASK) >>> PAGE_SHIFT) << PAGE_SHIFT;
+        this.generationFlushCount = generationFlushCount;
+        this.drainBuffer = new long[this.maxKeys];
+        this.current = new Generation(this.maxKeys);
+    }
+
+    /**
+     * @return reusable key of the current thread. must be used before the next call in the same thread.
+     */
+    public CounterKey getProbeKey() {
+        return probeKey.get();
+    }
+
+    public void increment(CounterKey key, long increment) {
+        if (key == null) {
+            throw new NullPointerException("key must not be null");
+        }
+        Generation generation = this.current;
+        int id = generation.intern(key, rowInfoFactory);
+        while (id == -1) {
+            // id space is full
+            rollGeneration(generation);
+            generation = this.current;
+            id = generation.intern(key, rowInfoFactory);
+        }
+        final Shard shard = getShard(generation);
+        shard.add(id, increment);
+    }
+
+    private Shard getShard(Generation generation) {
+        final ShardRef ref = shardRef.get();
+        if (ref.generation != generation) {
+            final Shard shard = new Shard(generation.pageCount);
+            generation.shards.add(shard);
+            ref.generation = generation;
+            ref.shard = shard;
+        }
+        return ref.shard;
+    }
+
+    private synchronized void rollGeneration(Generation expected) {
+        if (this.current != expected) {
+            return;
+        }
+        this.retired.add(expected);
+        this.current = new Generation(maxKeys);
+    }
+
+    /**
+     * must be called by a single flush thread.
+     */
+    public Map<RowInfo, ConcurrentCounterMap.LongAdder> remove() {
+        final Generation generation = this.current;
+        if (++generation.flushCount >= generationFlushCount) {
+            rollGeneration(generation);
+        }
+
+        final Map<CounterKey, Drained> drained = new HashMap<>();
+        final Iterator<Generation> iterator = retired.iterator();
+        while (iterator.hasNext()) {
+            final Generation retiredGeneration = iterator.next();
+            retiredGeneration.drain(drainBuffer, drained);
+            if (++retiredGeneration.retiredDrainCount > RETIRED_DRAIN_COUNT) {
+                iterator.remove();
+            }
+        }
+        this.current.drain(drainBuffer, drained);
+
+        if (drained.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<RowInfo, ConcurrentCounterMap.LongAdder> result = new HashMap<>(drained.size() * 2);
+        for (Drained value : drained.values()) {
+            result.put(value.rowInfo, new ConcurrentCounterMap.LongAdder(value.count));
+        }
+        return result;
+    }
+
+    int getGenerationCount() {
+        return retired.size() + 1;
+    }
+
+    private static class ShardRef {
+        private Generation generation;
+        private Shard shard;
+    }
+
+    private static class Drained {
+        private final RowInfo rowInfo;
+        private long count;
+
+        private Drained(RowInfo rowInfo, long count) {
+            this.rowInfo = rowInfo;
+            this.count = count;
+        }
+    }
+
+    private static class Entry {
+        private final CounterKey key;
+        private final RowInfo rowInfo;
+
+        private Entry(CounterKey key, RowInfo rowInfo) {
+            this.key = key;
+            this.rowInfo = rowInfo;
+        }
+    }
+
+    private static class Generation {
+        private final int maxKeys;
+        private final int pageCount;
+        private final ConcurrentHashMap<CounterKey, Integer> idMap = new ConcurrentHashMap<>();
+        private final AtomicReferenceArray<Entry> entries;
+        private final AtomicInteger idGenerator = new AtomicInteger();
+        private final List<Shard> shards = new CopyOnWriteArrayList<>();
+
+        // flush thread only
+        private int flushCount;
+        private int retiredDrainCount;
+
+        private Generation(int maxKeys) {
+            this.maxKeys = maxKeys;
+            this.pageCount = maxKeys >>> PAGE_SHIFT;
+            this.entries = new AtomicReferenceArray<>(maxKeys);
+        }
+
+        /**
+         * @return id or -1 if the id space is full
+         */
+        private int intern(CounterKey key, RowInfoFactory rowInfoFactory) {
+            final Integer id = idMap.get(key);
+            if (id != null) {
+                return id;
+            }
+            return internSlow(key, rowInfoFactory);
+        }
+
+        private int internSlow(CounterKey key, RowInfoFactory rowInfoFactory) {
+            if (idGenerator.get() >= maxKeys) {
+                return -1;
+            }
+            final int newId = idGenerator.getAndIncrement();
+            if (newId >= maxKeys) {
+                return -1;
+            }
+            final CounterKey copy = key.copy();
+            // publish the entry before the id, a drained count must always find its entry
+            entries.set(newId, new Entry(copy, rowInfoFactory.createRowInfo(copy)));
+            final Integer old = idMap.putIfAbsent(copy, newId);
+            if (old != null) {
+                // lost the race. newId is never incremented
+                return old;
+            }
+            return newId;
+        }
+
+        /**
+         * @param counts zero filled buffer. left zero filled.
+         */
+        private void drain(long[] counts, Map<CounterKey, Drained> drained) {
+            final int idCount = Math.min(idGenerator.get(), maxKeys);
+            boolean found = false;
+            for (Shard shard : shards) {
+                found |= shard.drainTo(counts, idCount);
+            }
+            if (!found) {
+                return;
+            }
+            for (int id = 0; id < idCount; id++) {
+                final long count = counts[id];
+                if (count == 0) {
+                    continue;
+                }
+                counts[id] = 0;
+                final Entry entry = entries.get(id);
+                final Drained old = drained.get(entry.key);
+                if (old == null) {
+                    drained.put(entry.key, new Drained(entry.rowInfo, count));
+                } else {
+                    old.count += count;
+                }
+            }
+        }
+    }
+
+    private static class Shard {
+        // created by the owner thread only
+        private final AtomicReferenceArray<AtomicLongArray> pages;
+
+        private Shard(int pageCount) {
+            this.pages = new AtomicReferenceArray<>(pageCount);
+        }
+
+        private void add(int id, long increment) {
+            final int pageIndex = id >>> PAGE_SHIFT;
+            AtomicLongArray page = pages.get(pageIndex);
+            if (page == null) {
+                page = new AtomicLongArray(PAGE_SIZE);
+                pages.set(pageIndex, page);
+            }
+            // uncontended except for the flush thread
+            page.getAndAdd(id & PAGE_MASK, increment);
+        }
+
+        private boolean drainTo(long[] counts, int idCount) {
+            boolean found = false;
+            for (int pageIndex = 0; pageIndex < pages.length(); pageIndex++) {
+                final AtomicLongArray page = pages.get(pageIndex);
+                if (page == null) {
+                    continue;
+                }
+                final int base = pageIndex << PAGE_SHIFT;
+                final int length = Math.min(PAGE_SIZE, idCount - base);
+                for (int i = 0; i < length; i++) {
+                    if (page.get(i) == 0) {
+                        continue;
+                    }
+                    counts[base + i] += page.getAndSet(i, 0);
+                    found = true;
+                }
+            }
+            return found;
+        }
+    }
+}
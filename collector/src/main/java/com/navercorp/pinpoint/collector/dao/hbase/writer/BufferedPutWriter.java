@@ -0,0 +1,329 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PutWriter that never blocks the caller on hbase.
+ * Puts are queued in a bounded buffer per table and written in batches by a flush thread of the table.
+ * When the buffer is full or a batch fails, puts are appended to a local {@link PutSpillFile}.
+ * The replayer writes spilled segments back while the buffers are idle.
+ * A segment that fails halfway is replayed again from the start. Puts carry explicit timestamps, so the rewrite is idempotent.
+ *
+ * @author agent
+ */
+public class BufferedPutWriter implements PutWriter {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final HbaseOperations2 hbaseTemplate;
+    private final int bufferSize;
+    private final int batchSize;
+    private final long replayIntervalMillis;
+    private final PutSpillFile spillFile;
+
+    private final ConcurrentMap<TableName, TableBuffer> bufferMap = new ConcurrentHashMap<>();
+    private final ExecutorService flushExecutor;
+    private final ScheduledExecutorService replayExecutor;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong flushFailedCount = new AtomicLong();
+
+    public BufferedPutWriter(HbaseOperations2 hbaseTemplate, int bufferSize, int batchSize, PutSpillFile spillFile, long replayIntervalMillis) {
+        if (hbaseTemplate == null) {
+            throw new NullPointerException("hbaseTemplate must not be null");
+        }
+        if (spillFile == null) {
+            throw new NullPointerException("spillFile must not be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive:" + bufferSize);
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive:" + batchSize);
+        }
+        this.hbaseTemplate = hbaseTemplate;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.spillFile = spillFile;
+        this.replayIntervalMillis = replayIntervalMillis;
+        this.flushExecutor = Executors.newCachedThreadPool(new PinpointThreadFactory("Pinpoint-HBase-PutFlush", true));
+        this.replayExecutor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-HBase-PutReplay", true));
+    }
+
+    @PostConstruct
+    public void start() {
+        replayExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                replay();
+            }
+        }, replayIntervalMillis, replayIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(TableName tableName, Put put) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (running) {
+            final TableBuffer buffer = getBuffer(tableName);
+            if (buffer.queue.offer(put)) {
+                return;
+            }
+        }
+        spill(tableName, put);
+    }
+
+    private TableBuffer getBuffer(TableName tableName) {
+        final TableBuffer buffer = bufferMap.get(tableName);
+        if (buffer != null) {
+            return buffer;
+        }
+        final TableBuffer newBuffer = new TableBuffer(tableName, bufferSize);
+        final TableBuffer exist = bufferMap.putIfAbsent(tableName, newBuffer);
+        if (exist != null) {
+            return exist;
+        }
+        flushExecutor.execute(newBuffer);
+        return newBuffer;
+    }
+
+    private void spill(TableName tableName, Put put) {
+        try {
+            if (spillFile.append(tableName, put)) {
+                spilledCount.incrementAndGet();
+                return;
+            }
+        } catch (IOException e) {
+            logger.warn("spill fail. table:{} Caused:{}", tableName, e.getMessage(), e);
+        }
+        final long dropped = droppedCount.incrementAndGet();
+        if ((dropped % 1000) == 1) {
+            logger.warn("spill file is full. dropped put count:{}", dropped);
+        }
+    }
+
+    private void write(TableName tableName, List<Put> batch) {
+        try {
+            hbaseTemplate.put(tableName, batch);
+        } catch (Exception e) {
+            final long failed = flushFailedCount.incrementAndGet();
+            if ((failed % 100) == 1) {
+                logger.warn("put flush fail. table:{} batch:{} Caused:{}", tableName, batch.size(), e.getMessage(), e);
+            }
+            for (Put put : batch) {
+                spill(tableName, put);
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        for (TableBuffer buffer : bufferMap.values()) {
+            if (buffer.queue.size() > bufferSize / 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // package private for test
+    void replay() {
+        try {
+            spillFile.flush();
+            while (running && isIdle()) {
+                final File segment = spillFile.peekSegment();
+                if (segment == null) {
+                    return;
+                }
+                if (!replaySegment(segment)) {
+                    return;
+                }
+                spillFile.removeSegment(segment);
+            }
+        } catch (IOException e) {
+            logger.warn("replay fail. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    private boolean replaySegment(File segment) throws IOException {
+        logger.info("replay spill segment:{}", segment);
+        final Map<TableName, List<Put>> batchMap = new HashMap<>();
+        try {
+            PutSpillFile.read(segment, new PutSpillFile.SpillRecordHandler() {
+                @Override
+                public void handle(TableName tableName, Put put) throws IOException {
+                    List<Put> batch = batchMap.get(tableName);
+                    if (batch == null) {
+                        batch = new ArrayList<>(batchSize);
+                        batchMap.put(tableName, batch);
+                    }
+                    batch.add(put);
+                    if (batch.size() >= batchSize) {
+                        replayBatch(tableName, batch);
+                    }
+                }
+            });
+            for (Map.Entry<TableName, List<Put>> entry : batchMap.entrySet()) {
+                replayBatch(entry.getKey(), entry.getValue());
+            }
+            return true;
+        } catch (ReplayException e) {
+            logger.warn("replay stopped. segment:{} Caused:{}", segment, e.getCause().getMessage(), e.getCause());
+            return false;
+        }
+    }
+
+    private void replayBatch(TableName tableName, List<Put> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            hbaseTemplate.put(tableName, batch);
+        } catch (Exception e) {
+            throw new ReplayException(e);
+        }
+        replayedCount.addAndGet(batch.size());
+        batch.clear();
+    }
+
+    @PreDestroy
+    public void stop() {
+        logger.info("stop. buffered:{}", getBufferedCount());
+        this.running = false;
+        replayExecutor.shutdownNow();
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("flush executor is not terminated");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // not flushed in time
+        for (TableBuffer buffer : bufferMap.values()) {
+            Put put;
+            while ((put = buffer.queue.poll()) != null) {
+                spill(buffer.tableName, put);
+            }
+        }
+        try {
+            spillFile.close();
+        } catch (IOException e) {
+            logger.warn("spill file close fail. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    public long getBufferedCount() {
+        long count = 0;
+        for (TableBuffer buffer : bufferMap.values()) {
+            count += buffer.queue.size();
+        }
+        return count;
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFlushFailedCount() {
+        return flushFailedCount.get();
+    }
+
+    public long getSpillFileSize() {
+        return spillFile.getSize();
+    }
+
+    private class TableBuffer implements Runnable {
+
+        private final TableName tableName;
+        private final ArrayBlockingQueue<Put> queue;
+
+        private TableBuffer(TableName tableName, int bufferSize) {
+            this.tableName = tableName;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        @Override
+        public void run() {
+            final List<Put> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                final Put first;
+                try {
+                    first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(tableName, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static class ReplayException extends RuntimeException {
+        private ReplayException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges puts to the same row into one multi-column put within a time window.
+ * Spans and span chunks of a transaction share a row key, so one put per transaction is written instead of one per span.
+ * Pending rows are bounded : the oldest row of a stripe is written early when the stripe is full,
+ * and a row is written early when it holds too many cells.
+ *
+ * @author agent
+ */
+public class CoalescingPutWriter implements PutWriter {
+
+    private static final int STRIPE_COUNT = 16;
+    private static final long MIN_FLUSH_INTERVAL_MILLIS = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final PutWriter delegate;
+    private final long windowMillis;
+    private final int maxRowsPerStripe;
+    private final int maxCellsPerRow;
+
+    private final Stripe[] stripes;
+    private final ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    public CoalescingPutWriter(PutWriter delegate, long windowMillis, int maxPendingRows, int maxCellsPerRow) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("negative windowMillis:" + windowMillis);
+        }
+        if (maxPendingRows <= 0) {
+            throw new IllegalArgumentException("maxPendingRows must be greater than 0");
+        }
+        if (maxCellsPerRow <= 0) {
+            throw new IllegalArgumentException("maxCellsPerRow must be greater than 0");
+        }
+        this.delegate = delegate;
+        this.windowMillis = windowMillis;
+        this.maxRowsPerStripe = Math.max(1, maxPendingRows / STRIPE_COUNT);
+        this.maxCellsPerRow = maxCellsPerRow;
+
+        this.stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (isEnable()) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-HBase-PutCoalesce", true));
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+
+    private boolean isEnable() {
+        return windowMillis > 0;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnable()) {
+            return;
+        }
+        final long interval = Math.max(MIN_FLUSH_INTERVAL_MILLIS, windowMillis / 2);
+        flushExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flushExpired(System.currentTimeMillis());
+                } catch (Exception e) {
+                    logger.warn("coalesced put flush fail. Caused:{}", e.getMessage(), e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void put(TableName tableName, Put put) {
+        receivedCount.incrementAndGet();
+        if (!isEnable()) {
+            write(tableName, put);
+            return;
+        }
+
+        final RowKey rowKey = new RowKey(tableName, put.getRow());
+        final Stripe stripe = stripes[(rowKey.hashCode() & Integer.MAX_VALUE) % STRIPE_COUNT];
+        PendingPut flush = null;
+        synchronized (stripe) {
+            final PendingPut pending = stripe.rows.get(rowKey);
+            if (pending == null) {
+                stripe.rows.put(rowKey, new PendingPut(tableName, put, System.currentTimeMillis()));
+                if (stripe.rows.size() > maxRowsPerStripe) {
+                    flush = removeEldest(stripe);
+                }
+            } else if (merge(pending.put, put)) {
+                if (pending.put.size() >= maxCellsPerRow) {
+                    flush = stripe.rows.remove(rowKey);
+                }
+            } else {
+                // write the unmerged put as it is
+                flush = new PendingPut(tableName, put, 0);
+            }
+        }
+        if (flush != null) {
+            write(flush.tableName, flush.put);
+        }
+    }
+
+    private PendingPut removeEldest(Stripe stripe) {
+        final Iterator<PendingPut> iterator = stripe.rows.values().iterator();
+        final PendingPut eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    private boolean merge(Put target, Put source) {
+        try {
+            for (List<Cell> cells : source.getFamilyCellMap().values()) {
+                for (Cell cell : cells) {
+                    target.add(cell);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("put merge fail. Caused:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    void flushExpired(long currentTimeMillis) {
+        final long expireTime = currentTimeMillis - windowMillis;
+        for (Stripe stripe : stripes) {
+            final List<PendingPut> expired = drain(stripe, expireTime);
+            for (PendingPut pending : expired) {
+                write(pending.tableName, pending.put);
+            }
+        }
+    }
+
+    private List<PendingPut> drain(Stripe stripe, long expireTime) {
+        synchronized (stripe) {
+            if (stripe.rows.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<PendingPut> expired = new ArrayList<>();
+            final Iterator<PendingPut> iterator = stripe.rows.values().iterator();
+            // insertion order is creation order
+            while (iterator.hasNext()) {
+                final PendingPut pending = iterator.next();
+                if (pending.createTime > expireTime) {
+                    break;
+                }
+                expired.add(pending);
+                iterator.remove();
+            }
+            return expired;
+        }
+    }
+
+    private void write(TableName tableName, Put put) {
+        writtenCount.incrementAndGet();
+        delegate.put(tableName, put);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!isEnable()) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushExpired(Long.MAX_VALUE);
+        logger.info("stop. received:{} written:{}", getReceivedCount(), getWrittenCount());
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getPendingCount() {
+        long count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.rows.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return received puts per written put
+     */
+    public double getCoalescingRatio() {
+        final long written = getWrittenCount();
+        if (written == 0) {
+            return 0;
+        }
+        return getReceivedCount() / (double) written;
+    }
+
+    private static class Stripe {
+        private final Map<RowKey, PendingPut> rows = new LinkedHashMap<>();
+    }
+
+    private static class PendingPut {
+        private final TableName tableName;
+        private final Put put;
+        private final long createTime;
+
+        private PendingPut(TableName tableName, Put put, long createTime) {
+            this.tableName = tableName;
+            this.put = put;
+            this.createTime = createTime;
+        }
+    }
+
+    private static class RowKey {
+        private final TableName tableName;
+        private final byte[] row;
+        private final int hashCode;
+
+        private RowKey(TableName tableName, byte[] row) {
+            this.tableName = tableName;
+            this.row = row;
+            this.hashCode = 31 * tableName.hashCode() + Arrays.hashCode(row);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            RowKey rowKey = (RowKey) o;
+
+            if (!Arrays.equals(row, rowKey.row)) return false;
+            return tableName.equals(rowKey.tableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the row and the cells (family, qualifier, timestamp, value) of a Put.
+ * Attributes and durability are not written.
+ *
+ * @author agent
+ */
+final class PutCodec {
+
+    private PutCodec() {
+    }
+
+    static void write(DataOutput out, Put put) throws IOException {
+        writeBytes(out, put.getRow());
+        final Map<byte[], List<Cell>> familyCellMap = put.getFamilyCellMap();
+        int cellCount = 0;
+        for (List<Cell> cells : familyCellMap.values()) {
+            cellCount += cells.size();
+        }
+        out.writeInt(cellCount);
+        for (List<Cell> cells : familyCellMap.values()) {
+            for (Cell cell : cells) {
+                writeBytes(out, CellUtil.cloneFamily(cell));
+                writeBytes(out, CellUtil.cloneQualifier(cell));
+                out.writeLong(cell.getTimestamp());
+                writeBytes(out, CellUtil.cloneValue(cell));
+            }
+        }
+    }
+
+    static Put read(DataInput in) throws IOException {
+        final byte[] row = readBytes(in);
+        final Put put = new Put(row);
+        final int cellCount = in.readInt();
+        for (int i = 0; i < cellCount; i++) {
+            final byte[] family = readBytes(in);
+            final byte[] qualifier = readBytes(in);
+            final long timestamp = in.readLong();
+            final byte[] value = readBytes(in);
+            put.addColumn(family, qualifier, timestamp, value);
+        }
+        return put;
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("invalid length:" + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Append only spill file of puts, split into segments.
+ * Segments left by a previous run are replayed too.
+ * <pre>
+ * segment : record*
+ * record  : tableName(utf) put({@link PutCodec})
+ * </pre>
+ *
+ * @author agent
+ */
+public class PutSpillFile {
+
+    private static final String SEGMENT_PREFIX = "spill-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File dir;
+    private final long segmentSize;
+    private final long maxSize;
+
+    private final Deque<File> closedSegments = new ArrayDeque<>();
+    private long closedSegmentBytes;
+    private long nextSequence;
+
+    private File currentSegment;
+    private DataOutputStream currentOutput;
+
+    public PutSpillFile(File dir, long segmentSize, long maxSize) throws IOException {
+        if (dir == null) {
+            throw new NullPointerException("dir must not be null");
+        }
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid segmentSize:" + segmentSize);
+        }
+        if (maxSize < segmentSize) {
+            throw new IllegalArgumentException("maxSize < segmentSize");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("spill dir create fail. dir:" + dir);
+        }
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        loadSegments();
+    }
+
+    private void loadSegments() {
+        final File[] segments = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (segments == null) {
+            return;
+        }
+        // fixed width sequence
+        Arrays.sort(segments);
+        for (File segment : segments) {
+            closedSegments.addLast(segment);
+            closedSegmentBytes += segment.length();
+            nextSequence = Math.max(nextSequence, parseSequence(segment) + 1);
+        }
+        if (!closedSegments.isEmpty()) {
+            logger.info("spill segments found. count:{} size:{}", closedSegments.size(), closedSegmentBytes);
+        }
+    }
+
+    private long parseSequence(File segment) {
+        final String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return false if the spill file is full
+     */
+    public synchronized boolean append(TableName tableName, Put put) throws IOException {
+        if (closedSegmentBytes + currentSize() >= maxSize) {
+            return false;
+        }
+        if (currentOutput == null) {
+            openSegment();
+        }
+        currentOutput.writeUTF(tableName.getNameAsString());
+        PutCodec.write(currentOutput, put);
+        if (currentSize() >= segmentSize) {
+            closeSegment();
+        }
+        return true;
+    }
+
+    private int currentSize() {
+        if (currentOutput == null) {
+            return 0;
+        }
+        return currentOutput.size();
+    }
+
+    private void openSegment() throws IOException {
+        final String name = String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX);
+        this.currentSegment = new File(dir, name);
+        this.currentOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(currentSegment, true)));
+    }
+
+    private void closeSegment() throws IOException {
+        if (currentOutput == null) {
+            return;
+        }
+        try {
+            currentOutput.close();
+        } finally {
+            closedSegments.addLast(currentSegment);
+            closedSegmentBytes += currentSegment.length();
+            this.currentOutput = null;
+            this.currentSegment = null;
+        }
+    }
+
+    /**
+     * closes the current segment if there is no closed segment.
+     * @return oldest closed segment or null
+     */
+    public synchronized File peekSegment() throws IOException {
+        if (closedSegments.isEmpty() && currentSize() > 0) {
+            closeSegment();
+        }
+        return closedSegments.peekFirst();
+    }
+
+    public synchronized void removeSegment(File segment) {
+        if (!closedSegments.remove(segment)) {
+            return;
+        }
+        closedSegmentBytes -= segment.length();
+        if (!segment.delete()) {
+            logger.warn("spill segment delete fail. segment:{}", segment);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (currentOutput != null) {
+            currentOutput.flush();
+        }
+    }
+
+    public synchronized long getSize() {
+        return closedSegmentBytes + currentSize();
+    }
+
+    public synchronized void close() throws IOException {
+        closeSegment();
+    }
+
+    public static void read(File segment, SpillRecordHandler handler) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+        try {
+            while (true) {
+                final TableName tableName;
+                final Put put;
+                try {
+                    tableName = TableName.valueOf(input.readUTF());
+                    put = PutCodec.read(input);
+                } catch (EOFException e) {
+                    // end of segment or truncated record of a crash
+                    break;
+                }
+                handler.handle(tableName, put);
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    public interface SpillRecordHandler {
+        void handle(TableName tableName, Put put) throws IOException;
+    }
+}
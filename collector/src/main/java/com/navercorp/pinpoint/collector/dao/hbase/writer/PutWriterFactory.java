@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author agent
+ */
+public final class PutWriterFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PutWriterFactory.class);
+
+    private static final String DEFAULT_SPILL_DIR = "pinpoint-collector-spill";
+    private static final long SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long REPLAY_INTERVAL_MILLIS = 1000;
+
+    private PutWriterFactory() {
+    }
+
+    public static PutWriter create(HbaseOperations2 hbaseTemplate, boolean bufferEnable, int bufferSize, int batchSize, String spillDir, long spillMaxSize) throws IOException {
+        if (!bufferEnable) {
+            return new SyncFallbackPutWriter(hbaseTemplate);
+        }
+        final File dir = getSpillDir(spillDir);
+        LOGGER.info("BufferedPutWriter bufferSize:{} batchSize:{} spillDir:{} spillMaxSize:{}", bufferSize, batchSize, dir, spillMaxSize);
+        final PutSpillFile spillFile = new PutSpillFile(dir, Math.min(SEGMENT_SIZE, spillMaxSize), spillMaxSize);
+        return new BufferedPutWriter(hbaseTemplate, bufferSize, batchSize, spillFile, REPLAY_INTERVAL_MILLIS);
+    }
+
+    public static PutWriter createCoalescing(PutWriter delegate, long windowMillis, int maxPendingRows, int maxCellsPerRow) {
+        LOGGER.info("CoalescingPutWriter windowMillis:{} maxPendingRows:{} maxCellsPerRow:{}", windowMillis, maxPendingRows, maxCellsPerRow);
+        return new CoalescingPutWriter(delegate, windowMillis, maxPendingRows, maxCellsPerRow);
+    }
+
+    private static File getSpillDir(String spillDir) {
+        if (StringUtils.isBlank(spillDir)) {
+            return new File(System.getProperty("java.io.tmpdir"), DEFAULT_SPILL_DIR);
+        }
+        return new File(spillDir);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+
+/**
+ * asyncPut, and a synchronous put on the calling thread if the async buffer rejects it.
+ *
+ * @author agent
+ */
+public class SyncFallbackPutWriter implements PutWriter {
+
+    private final HbaseOperations2 hbaseTemplate;
+
+    public SyncFallbackPutWriter(HbaseOperations2 hbaseTemplate) {
+        if (hbaseTemplate == null) {
+            throw new NullPointerException("hbaseTemplate must not be null");
+        }
+        this.hbaseTemplate = hbaseTemplate;
+    }
+
+    @Override
+    public void put(TableName tableName, Put put) {
+        boolean success = hbaseTemplate.asyncPut(tableName, put);
+        if (!success) {
+            hbaseTemplate.put(tableName, put);
+        }
+    }
+}
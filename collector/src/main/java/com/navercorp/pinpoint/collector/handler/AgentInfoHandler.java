@@ -24,6 +24,7 @@ import org.springframework.stereotype.Service;
 
 import com.navercorp.pinpoint.collector.dao.AgentInfoDao;
 import com.navercorp.pinpoint.collector.dao.ApplicationIndexDao;
+import com.navercorp.pinpoint.collector.dao.ApplicationStatDao;
 import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
 import com.navercorp.pinpoint.thrift.dto.TResult;
 
@@ -42,6 +43,9 @@ public class AgentInfoHandler implements SimpleHandler, RequestResponseHandler {
     @Autowired
     private ApplicationIndexDao applicationIndexDao;
 
+    @Autowired
+    private ApplicationStatDao applicationStatDao;
+
     public void handleSimple(TBase<?, ?> tbase) {
         handleRequest(tbase);
     }
@@ -66,6 +70,9 @@ public class AgentInfoHandler implements SimpleHandler, RequestResponseHandler {
             // for querying agentid using applicationname
             applicationIndexDao.insert(agentInfo);
 
+            // for aggregating agent statistics per application
+            applicationStatDao.registerAgent(agentInfo.getAgentId(), agentInfo.getApplicationName());
+
             return new TResult(true);
 
             // for querying applicationname using agentid
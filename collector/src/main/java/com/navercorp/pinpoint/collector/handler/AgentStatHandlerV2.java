@@ -33,6 +33,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.navercorp.pinpoint.collector.dao.AgentStatDaoV2;
+import com.navercorp.pinpoint.collector.dao.ApplicationStatDao;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
 
@@ -69,6 +70,9 @@ public class AgentStatHandlerV2 implements Handler {
     @Autowired
     private AgentStatDaoV2<DataSourceListBo> dataSourceListDao;
 
+    @Autowired
+    private ApplicationStatDao applicationStatDao;
+
     @Autowired(required = false)
     private AgentStatService agentStatService;
 
@@ -119,6 +123,7 @@ public class AgentStatHandlerV2 implements Handler {
             this.transactionDao.insert(agentId, agentStatBo.getTransactionBos());
             this.activeTraceDao.insert(agentId, agentStatBo.getActiveTraceBos());
             this.dataSourceListDao.insert(agentId, agentStatBo.getDataSourceListBos());
+            this.applicationStatDao.insert(agentStatBo);
         } catch (Exception e) {
             logger.warn("Error inserting AgentStatBo. Caused:{}", e.getMessage(), e);
         }
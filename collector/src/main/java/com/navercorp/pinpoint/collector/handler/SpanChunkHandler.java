@@ -56,47 +56,77 @@ public class SpanChunkHandler implements SimpleHandler {
     @Autowired
     private SpanFactory spanFactory;
 
+    @Autowired(required = false)
+    private TailSamplingBuffer tailSamplingBuffer;
+
     @Override
     public void handleSimple(TBase<?, ?> tbase) {
 
         try {
             final SpanChunkBo spanChunkBo = newSpanChunkBo(tbase);
 
-            traceDao.insertSpanChunk(spanChunkBo);
+            insert(spanChunkBo);
+        } catch (Exception e) {
+            logger.warn("SpanChunk handle error Caused:{}", e.getMessage(), e);
+        }
+    }
 
-            final ServiceType applicationServiceType = getApplicationServiceType(spanChunkBo);
-            List<SpanEventBo> spanEventList = spanChunkBo.getSpanEventBoList();
-            if (spanEventList != null) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("SpanChunk Size:{}", spanEventList.size());
-                }
-                // TODO need to batch update later.
-                for (SpanEventBo spanEvent : spanEventList) {
-                    final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
-
-                    if (!spanEventType.isRecordStatistics()) {
-                        continue;
-                    }
-
-                    // if terminal update statistics
-                    final int elapsed = spanEvent.getEndElapsed();
-                    final boolean hasException = spanEvent.hasException();
-
-                    /*
-                     * save information to draw a server map based on statistics
-                     */
-                    // save the information of caller (the spanevent that span called)
-                    statisticsHandler.updateCaller(spanChunkBo.getApplicationId(), applicationServiceType, spanChunkBo.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
-
-                    // save the information of callee (the span that called spanevent)
-                    statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, spanChunkBo.getApplicationId(), applicationServiceType, spanChunkBo.getEndPoint(), elapsed, hasException);
-                }
+    /**
+     * for span chunks decoded without TSpanChunk. see {@link com.navercorp.pinpoint.common.server.bo.DirectSpanFactory}
+     */
+    public void handleSpanChunkBo(SpanChunkBo spanChunkBo) {
+        if (spanChunkBo == null) {
+            throw new NullPointerException("spanChunkBo must not be null");
+        }
+
+        try {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Received SpanChunk={}", spanChunkBo);
             }
+
+            insert(spanChunkBo);
         } catch (Exception e) {
             logger.warn("SpanChunk handle error Caused:{}", e.getMessage(), e);
         }
     }
 
+    private void insert(SpanChunkBo spanChunkBo) {
+        if (tailSamplingBuffer != null && tailSamplingBuffer.isEnable()) {
+            tailSamplingBuffer.add(spanChunkBo);
+        } else {
+            traceDao.insertSpanChunk(spanChunkBo);
+        }
+
+        final ServiceType applicationServiceType = getApplicationServiceType(spanChunkBo);
+        List<SpanEventBo> spanEventList = spanChunkBo.getSpanEventBoList();
+        if (spanEventList != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("SpanChunk Size:{}", spanEventList.size());
+            }
+            // TODO need to batch update later.
+            for (SpanEventBo spanEvent : spanEventList) {
+                final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
+
+                if (!spanEventType.isRecordStatistics()) {
+                    continue;
+                }
+
+                // if terminal update statistics
+                final int elapsed = spanEvent.getEndElapsed();
+                final boolean hasException = spanEvent.hasException();
+
+                /*
+                 * save information to draw a server map based on statistics
+                 */
+                // save the information of caller (the spanevent that span called)
+                statisticsHandler.updateCaller(spanChunkBo.getApplicationId(), applicationServiceType, spanChunkBo.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+
+                // save the information of callee (the span that called spanevent)
+                statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, spanChunkBo.getApplicationId(), applicationServiceType, spanChunkBo.getEndPoint(), elapsed, hasException);
+            }
+        }
+    }
+
     private SpanChunkBo newSpanChunkBo(TBase<?, ?> tbase) {
         if (!(tbase instanceof TSpanChunk)) {
             throw new IllegalArgumentException("unexpected tbase:" + tbase + " expected:" + this.getClass().getName());
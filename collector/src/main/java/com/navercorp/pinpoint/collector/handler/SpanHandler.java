@@ -66,6 +66,9 @@ public class SpanHandler implements SimpleHandler {
     @Autowired
     private SpanFactory spanFactory;
 
+    @Autowired(required = false)
+    private TailSamplingBuffer tailSamplingBuffer;
+
     public void handleSimple(TBase<?, ?> tbase) {
 
         if (!(tbase instanceof TSpan)) {
@@ -81,18 +84,46 @@ public class SpanHandler implements SimpleHandler {
 
             final SpanBo spanBo = spanFactory.buildSpanBo(tSpan);
 
-            traceDao.insert(spanBo);
-            applicationTraceIndexDao.insert(tSpan);
-
-            // insert statistics info for server map
-            insertAcceptorHost(spanBo);
-            insertSpanStat(spanBo);
-            insertSpanEventStat(spanBo);
+            insert(spanBo);
         } catch (Exception e) {
             logger.warn("Span handle error. Caused:{}. Span:{}",e.getMessage(), tbase, e);
         }
     }
 
+    /**
+     * for spans decoded without TSpan. see {@link com.navercorp.pinpoint.common.server.bo.DirectSpanFactory}
+     */
+    public void handleSpanBo(SpanBo spanBo) {
+        if (spanBo == null) {
+            throw new NullPointerException("spanBo must not be null");
+        }
+
+        try {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Received SPAN={}", spanBo);
+            }
+
+            insert(spanBo);
+        } catch (Exception e) {
+            logger.warn("Span handle error. Caused:{}. Span:{}",e.getMessage(), spanBo, e);
+        }
+    }
+
+    private void insert(SpanBo spanBo) {
+        if (tailSamplingBuffer != null && tailSamplingBuffer.isEnable()) {
+            // written only if the transaction is sampled, slow or erroneous
+            tailSamplingBuffer.add(spanBo);
+        } else {
+            traceDao.insert(spanBo);
+            applicationTraceIndexDao.insert(spanBo);
+        }
+
+        // insert statistics info for server map
+        insertAcceptorHost(spanBo);
+        insertSpanStat(spanBo);
+        insertSpanEventStat(spanBo);
+    }
+
 
     private void insertSpanStat(SpanBo span) {
         final ServiceType applicationServiceType = getApplicationServiceType(span);
@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.collector.handler;
 import com.navercorp.pinpoint.collector.dao.MapResponseTimeDao;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.collector.dao.MapStatisticsCallerDao;
+import com.navercorp.pinpoint.collector.dao.MapStatisticsRollupDao;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +42,9 @@ public class StatisticsHandler {
     @Autowired
     private MapResponseTimeDao mapResponseTimeDao;
 
+    @Autowired
+    private MapStatisticsRollupDao mapStatisticsRollupDao;
+
     /**
      * Calling MySQL from Tomcat generates the following message for the caller(Tomcat) :<br/>
      * emeroad-app (TOMCAT) -> MySQL_DB_ID (MYSQL)[10.25.141.69:3306] <br/>
@@ -57,6 +61,7 @@ public class StatisticsHandler {
      */
     public void updateCaller(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError) {
         mapStatisticsCallerDao.update(callerApplicationName, callerServiceType, callerAgentId, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError);
+        mapStatisticsRollupDao.updateCaller(callerApplicationName, callerServiceType, callerAgentId, calleeApplicationName, calleeServiceType, calleeHost, elapsed, isError);
     }
 
     /**
@@ -75,6 +80,7 @@ public class StatisticsHandler {
      */
     public void updateCallee(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError) {
         mapStatisticsCalleeDao.update(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError);
+        mapStatisticsRollupDao.updateCallee(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError);
     }
 
     public void updateResponseTime(String applicationName, ServiceType serviceType, String agentId, int elapsed, boolean isError) {
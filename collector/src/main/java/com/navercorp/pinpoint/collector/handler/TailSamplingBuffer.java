@@ -0,0 +1,411 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.collector.dao.ApplicationTraceIndexDao;
+import com.navercorp.pinpoint.collector.dao.TraceDao;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.SpanChunkBo;
+import com.navercorp.pinpoint.common.server.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.trace.TraceFlags;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collector side of tail-based sampling.
+ * Spans flagged as {@link TraceFlags#TAIL_SAMPLING_CANDIDATE} are held per transaction.
+ * When a span of the transaction is slow or erroneous, the transaction is promoted :
+ * the held spans are written and the following spans of the transaction are written directly.
+ * Transactions that receive no span for the window are released : dropped unless promoted.
+ * The window is counted from the last span, so a slow root arriving long after its children still finds them,
+ * as long as the gap is shorter than the window.
+ * <p>
+ * The decision needs every span of the transaction on the same collector.
+ * With several collectors, agents route the candidate spans by transaction id(profiler.collector.affinity.*).
+ * <p>
+ * Span chunks carry no flag, so every chunk is held until its transaction is known.
+ * Chunks whose span never shows up within the window are written, as they may belong to a sampled transaction.
+ *
+ * @author agent
+ */
+public class TailSamplingBuffer {
+
+    private static final int STRIPE_COUNT = 16;
+    private static final long MIN_EXPIRE_INTERVAL_MILLIS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final TraceDao traceDao;
+    private final ApplicationTraceIndexDao applicationTraceIndexDao;
+
+    private final boolean enable;
+    private final long windowMillis;
+    private final int maxTransactionsPerStripe;
+    private final int slowThreshold;
+
+    private final Stripe[] stripes;
+    private final ScheduledExecutorService expireExecutor;
+
+    private final AtomicLong bufferedCount = new AtomicLong();
+    private final AtomicLong promotedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public TailSamplingBuffer(TraceDao traceDao, ApplicationTraceIndexDao applicationTraceIndexDao, boolean enable, long windowMillis, int maxTransactions, int slowThreshold) {
+        if (traceDao == null) {
+            throw new NullPointerException("traceDao must not be null");
+        }
+        if (applicationTraceIndexDao == null) {
+            throw new NullPointerException("applicationTraceIndexDao must not be null");
+        }
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be greater than 0");
+        }
+        if (maxTransactions <= 0) {
+            throw new IllegalArgumentException("maxTransactions must be greater than 0");
+        }
+        this.traceDao = traceDao;
+        this.applicationTraceIndexDao = applicationTraceIndexDao;
+        this.enable = enable;
+        this.windowMillis = windowMillis;
+        this.maxTransactionsPerStripe = Math.max(1, maxTransactions / STRIPE_COUNT);
+        this.slowThreshold = slowThreshold;
+
+        this.stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (enable) {
+            this.expireExecutor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-TailSampling-Expire", true));
+        } else {
+            this.expireExecutor = null;
+        }
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enable) {
+            return;
+        }
+        final long interval = Math.max(MIN_EXPIRE_INTERVAL_MILLIS, windowMillis / 4);
+        expireExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    expire(System.currentTimeMillis());
+                } catch (Exception e) {
+                    logger.warn("tail sampling expire fail. Caused:{}", e.getMessage(), e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (expireExecutor == null) {
+            return;
+        }
+        expireExecutor.shutdown();
+        try {
+            expireExecutor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // held chunks may belong to sampled transactions
+        expire(Long.MAX_VALUE);
+    }
+
+    /**
+     * writes the span now or holds it until its transaction is promoted
+     */
+    public void add(SpanBo spanBo) {
+        if (spanBo == null) {
+            throw new NullPointerException("spanBo must not be null");
+        }
+        if (!enable) {
+            write(spanBo);
+            return;
+        }
+        // a span without the flag means the transaction was picked by the sampler
+        final boolean promote = !TraceFlags.isTailSamplingCandidate(spanBo.getFlag()) || isSlowOrError(spanBo);
+
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Stripe stripe = getStripe(spanBo.getTransactionId());
+        Transaction evicted = null;
+        Transaction promoted = null;
+        synchronized (stripe) {
+            // get() moves the transaction to the tail of the access order
+            Transaction transaction = stripe.transactions.get(spanBo.getTransactionId());
+            if (transaction == null) {
+                transaction = new Transaction(currentTimeMillis);
+                stripe.transactions.put(spanBo.getTransactionId(), transaction);
+                evicted = evictEldest(stripe);
+            } else {
+                transaction.lastUpdateTime = currentTimeMillis;
+            }
+            if (!transaction.promoted) {
+                if (promote) {
+                    promoted = transaction.promote();
+                } else {
+                    transaction.candidate = true;
+                    transaction.spanList.add(spanBo);
+                    bufferedCount.incrementAndGet();
+                    spanBo = null;
+                }
+            }
+        }
+        if (spanBo != null) {
+            write(spanBo);
+        }
+        if (promoted != null) {
+            promotedCount.incrementAndGet();
+            write(promoted);
+        }
+        if (evicted != null) {
+            release(evicted);
+        }
+    }
+
+    /**
+     * writes the span chunk now or holds it until its transaction is known
+     */
+    public void add(SpanChunkBo spanChunkBo) {
+        if (spanChunkBo == null) {
+            throw new NullPointerException("spanChunkBo must not be null");
+        }
+        if (!enable) {
+            write(spanChunkBo);
+            return;
+        }
+        final boolean promote = isSlowOrError(spanChunkBo.getSpanEventBoList());
+
+        final long currentTimeMillis = System.currentTimeMillis();
+        final Stripe stripe = getStripe(spanChunkBo.getTransactionId());
+        Transaction evicted = null;
+        Transaction promoted = null;
+        synchronized (stripe) {
+            // get() moves the transaction to the tail of the access order
+            Transaction transaction = stripe.transactions.get(spanChunkBo.getTransactionId());
+            if (transaction == null) {
+                transaction = new Transaction(currentTimeMillis);
+                stripe.transactions.put(spanChunkBo.getTransactionId(), transaction);
+                evicted = evictEldest(stripe);
+            } else {
+                transaction.lastUpdateTime = currentTimeMillis;
+            }
+            if (!transaction.promoted) {
+                if (promote) {
+                    promoted = transaction.promote();
+                } else {
+                    transaction.spanChunkList.add(spanChunkBo);
+                    bufferedCount.incrementAndGet();
+                    spanChunkBo = null;
+                }
+            }
+        }
+        if (spanChunkBo != null) {
+            write(spanChunkBo);
+        }
+        if (promoted != null) {
+            promotedCount.incrementAndGet();
+            write(promoted);
+        }
+        if (evicted != null) {
+            release(evicted);
+        }
+    }
+
+    private boolean isSlowOrError(SpanBo spanBo) {
+        // errCode contains the error of the span and its span events
+        if (spanBo.getErrCode() != 0 || spanBo.hasException()) {
+            return true;
+        }
+        if (spanBo.getElapsed() >= slowThreshold) {
+            return true;
+        }
+        return isSlowOrError(spanBo.getSpanEventBoList());
+    }
+
+    private boolean isSlowOrError(List<SpanEventBo> spanEventBoList) {
+        if (spanEventBoList == null) {
+            return false;
+        }
+        for (SpanEventBo spanEventBo : spanEventBoList) {
+            if (spanEventBo.hasException()) {
+                return true;
+            }
+            if (spanEventBo.getEndElapsed() >= slowThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Stripe getStripe(TransactionId transactionId) {
+        return stripes[(transactionId.hashCode() & Integer.MAX_VALUE) % STRIPE_COUNT];
+    }
+
+    private Transaction evictEldest(Stripe stripe) {
+        if (stripe.transactions.size() <= maxTransactionsPerStripe) {
+            return null;
+        }
+        final Iterator<Transaction> iterator = stripe.transactions.values().iterator();
+        final Transaction eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    void expire(long currentTimeMillis) {
+        final long expireTime = currentTimeMillis - windowMillis;
+        for (Stripe stripe : stripes) {
+            final List<Transaction> expired = drain(stripe, expireTime);
+            for (Transaction transaction : expired) {
+                release(transaction);
+            }
+        }
+    }
+
+    private List<Transaction> drain(Stripe stripe, long expireTime) {
+        synchronized (stripe) {
+            if (stripe.transactions.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<Transaction> expired = new ArrayList<>();
+            final Iterator<Transaction> iterator = stripe.transactions.values().iterator();
+            // access order is update order
+            while (iterator.hasNext()) {
+                final Transaction transaction = iterator.next();
+                if (transaction.lastUpdateTime > expireTime) {
+                    break;
+                }
+                expired.add(transaction);
+                iterator.remove();
+            }
+            return expired;
+        }
+    }
+
+    /**
+     * a transaction removed without promotion
+     */
+    private void release(Transaction transaction) {
+        final int spanCount = transaction.spanList.size();
+        if (transaction.candidate) {
+            final int dropped = spanCount + transaction.spanChunkList.size();
+            if (dropped > 0) {
+                bufferedCount.addAndGet(-dropped);
+                droppedCount.addAndGet(dropped);
+            }
+            return;
+        }
+        // only span chunks. the transaction is unknown
+        bufferedCount.addAndGet(-transaction.spanChunkList.size());
+        for (SpanChunkBo spanChunkBo : transaction.spanChunkList) {
+            write(spanChunkBo);
+        }
+    }
+
+    private void write(Transaction transaction) {
+        bufferedCount.addAndGet(-(transaction.spanList.size() + transaction.spanChunkList.size()));
+        for (SpanBo spanBo : transaction.spanList) {
+            write(spanBo);
+        }
+        for (SpanChunkBo spanChunkBo : transaction.spanChunkList) {
+            write(spanChunkBo);
+        }
+    }
+
+    private void write(SpanBo spanBo) {
+        try {
+            traceDao.insert(spanBo);
+            applicationTraceIndexDao.insert(spanBo);
+        } catch (Exception e) {
+            logger.warn("Span write error. Caused:{}. Span:{}", e.getMessage(), spanBo, e);
+        }
+    }
+
+    private void write(SpanChunkBo spanChunkBo) {
+        try {
+            traceDao.insertSpanChunk(spanChunkBo);
+        } catch (Exception e) {
+            logger.warn("SpanChunk write error Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    public long getBufferedCount() {
+        return bufferedCount.get();
+    }
+
+    public long getPromotedCount() {
+        return promotedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private static class Stripe {
+        private final Map<TransactionId, Transaction> transactions = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static class Transaction {
+        private final long createTime;
+        private long lastUpdateTime;
+        // a span flagged as candidate was received
+        private boolean candidate;
+        private boolean promoted;
+        private List<SpanBo> spanList = new ArrayList<>();
+        private List<SpanChunkBo> spanChunkList = new ArrayList<>();
+
+        private Transaction(long createTime) {
+            this.createTime = createTime;
+            this.lastUpdateTime = createTime;
+        }
+
+        /**
+         * @return the transaction holding the spans to write
+         */
+        private Transaction promote() {
+            this.promoted = true;
+            final Transaction held = new Transaction(createTime);
+            held.spanList = this.spanList;
+            held.spanChunkList = this.spanChunkList;
+            this.spanList = Collections.emptyList();
+            this.spanChunkList = Collections.emptyList();
+            return held;
+        }
+    }
+}
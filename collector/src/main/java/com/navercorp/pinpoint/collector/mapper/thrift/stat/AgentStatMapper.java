@@ -93,6 +93,9 @@ public class AgentStatMapper implements ThriftBoMapper<AgentStatBo, TAgentStat>
             TransactionBo transactionBo = this.transactionBoMapper.map(tAgentStat.getTransaction());
             setBaseData(transactionBo, agentId, startTimestamp, timestamp);
             transactionBo.setCollectInterval(tAgentStat.getCollectInterval());
+            if (tAgentStat.isSetSamplingRate()) {
+                transactionBo.setSamplingRate(tAgentStat.getSamplingRate());
+            }
             agentStatBo.setTransactionBos(Arrays.asList(transactionBo));
         }
         // activeTrace
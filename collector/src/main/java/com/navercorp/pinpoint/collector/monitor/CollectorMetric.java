@@ -51,6 +51,12 @@ public class CollectorMetric {
     @Autowired(required = false)
     private HBaseAsyncOperationMetrics hBaseAsyncOperationMetrics;
 
+    @Autowired(required = false)
+    private HBasePutWriterMetrics hBasePutWriterMetrics;
+
+    @Autowired(required = false)
+    private DispatchLaneMetrics dispatchLaneMetrics;
+
     private ScheduledReporter reporter;
 
     private final boolean isEnable = isEnable0(REPORTER_LOGGER_NAME);
@@ -87,6 +93,20 @@ public class CollectorMetric {
                 metricRegistry.register(metric.getKey(), metric.getValue());
             }
         }
+
+        if (hBasePutWriterMetrics != null) {
+            Map<String, Metric> metrics = hBasePutWriterMetrics.getMetrics();
+            for (Map.Entry<String, Metric> metric : metrics.entrySet()) {
+                metricRegistry.register(metric.getKey(), metric.getValue());
+            }
+        }
+
+        if (dispatchLaneMetrics != null) {
+            Map<String, Metric> metrics = dispatchLaneMetrics.getMetrics();
+            for (Map.Entry<String, Metric> metric : metrics.entrySet()) {
+                metricRegistry.register(metric.getKey(), metric.getValue());
+            }
+        }
     }
 
     private void initReporters() {
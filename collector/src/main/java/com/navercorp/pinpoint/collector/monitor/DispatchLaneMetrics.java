@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.navercorp.pinpoint.collector.receiver.DispatchLane;
+import com.navercorp.pinpoint.collector.receiver.DispatchLaneExecutor;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class DispatchLaneMetrics implements MetricSet {
+
+    private static final String DISPATCH_LANE = "dispatch.lane";
+
+    private final DispatchLaneExecutor dispatchLaneExecutor;
+
+    public DispatchLaneMetrics(DispatchLaneExecutor dispatchLaneExecutor) {
+        if (dispatchLaneExecutor == null) {
+            throw new NullPointerException("dispatchLaneExecutor must not be null");
+        }
+        this.dispatchLaneExecutor = dispatchLaneExecutor;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        if (!dispatchLaneExecutor.isEnable()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Metric> gauges = new HashMap<>(6);
+        addLaneMetrics(gauges, DispatchLane.SPAN, "application");
+        addLaneMetrics(gauges, DispatchLane.STAT, "agent");
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private void addLaneMetrics(Map<String, Metric> gauges, final DispatchLane lane, String keyName) {
+        final String prefix = DISPATCH_LANE + "." + lane.name().toLowerCase();
+        gauges.put(prefix + ".queued.count", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return dispatchLaneExecutor.getQueuedCount(lane);
+            }
+        });
+        gauges.put(prefix + ".dropped.count", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return dispatchLaneExecutor.getDroppedCount(lane);
+            }
+        });
+        gauges.put(prefix + ".dropped." + keyName, new Gauge<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> getValue() {
+                return dispatchLaneExecutor.getDroppedCountMap(lane);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.navercorp.pinpoint.collector.dao.hbase.writer.BufferedPutWriter;
+import com.navercorp.pinpoint.collector.dao.hbase.writer.CoalescingPutWriter;
+import com.navercorp.pinpoint.collector.dao.hbase.writer.PutWriter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class HBasePutWriterMetrics implements MetricSet {
+
+    private static final String HBASE_PUT_WRITER = "hbase.put.writer";
+    private static final String BUFFERED_COUNT = HBASE_PUT_WRITER + ".buffered.count";
+    private static final String SPILLED_COUNT = HBASE_PUT_WRITER + ".spilled.count";
+    private static final String REPLAYED_COUNT = HBASE_PUT_WRITER + ".replayed.count";
+    private static final String DROPPED_COUNT = HBASE_PUT_WRITER + ".dropped.count";
+    private static final String FLUSH_FAILED_COUNT = HBASE_PUT_WRITER + ".flush.failed.count";
+    private static final String SPILL_FILE_SIZE = HBASE_PUT_WRITER + ".spill.size";
+
+    private static final String HBASE_PUT_COALESCE = "hbase.put.coalesce";
+    private static final String COALESCE_RECEIVED_COUNT = HBASE_PUT_COALESCE + ".received.count";
+    private static final String COALESCE_WRITTEN_COUNT = HBASE_PUT_COALESCE + ".written.count";
+    private static final String COALESCE_PENDING_COUNT = HBASE_PUT_COALESCE + ".pending.count";
+    private static final String COALESCE_RATIO = HBASE_PUT_COALESCE + ".ratio";
+
+    private final PutWriter putWriter;
+    private final PutWriter tracePutWriter;
+
+    public HBasePutWriterMetrics(PutWriter putWriter, PutWriter tracePutWriter) {
+        if (putWriter == null) {
+            throw new NullPointerException("putWriter must not be null");
+        }
+        if (tracePutWriter == null) {
+            throw new NullPointerException("tracePutWriter must not be null");
+        }
+        this.putWriter = putWriter;
+        this.tracePutWriter = tracePutWriter;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        final Map<String, Metric> gauges = new HashMap<>(10);
+        if (putWriter instanceof BufferedPutWriter) {
+            addBufferedMetrics(gauges, (BufferedPutWriter) putWriter);
+        }
+        if (tracePutWriter instanceof CoalescingPutWriter) {
+            addCoalescingMetrics(gauges, (CoalescingPutWriter) tracePutWriter);
+        }
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private void addBufferedMetrics(Map<String, Metric> gauges, final BufferedPutWriter bufferedPutWriter) {
+        gauges.put(BUFFERED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getBufferedCount();
+            }
+        });
+        gauges.put(SPILLED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getSpilledCount();
+            }
+        });
+        gauges.put(REPLAYED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getReplayedCount();
+            }
+        });
+        gauges.put(DROPPED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getDroppedCount();
+            }
+        });
+        gauges.put(FLUSH_FAILED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getFlushFailedCount();
+            }
+        });
+        gauges.put(SPILL_FILE_SIZE, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return bufferedPutWriter.getSpillFileSize();
+            }
+        });
+    }
+
+    private void addCoalescingMetrics(Map<String, Metric> gauges, final CoalescingPutWriter coalescingPutWriter) {
+        gauges.put(COALESCE_RECEIVED_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return coalescingPutWriter.getReceivedCount();
+            }
+        });
+        gauges.put(COALESCE_WRITTEN_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return coalescingPutWriter.getWrittenCount();
+            }
+        });
+        gauges.put(COALESCE_PENDING_COUNT, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return coalescingPutWriter.getPendingCount();
+            }
+        });
+        gauges.put(COALESCE_RATIO, new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return coalescingPutWriter.getCoalescingRatio();
+            }
+        });
+    }
+
+}
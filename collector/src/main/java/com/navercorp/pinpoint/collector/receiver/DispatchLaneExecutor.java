@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches received messages through priority lanes.
+ * {@link DispatchLane#SPAN} and {@link DispatchLane#STAT} have their own bounded {@link FairDispatchQueue}
+ * and are served by shared worker threads in proportion to their weights.
+ * {@link DispatchLane#AGENT} is never queued : it runs on the caller thread and is never dropped.
+ *
+ * @author agent
+ */
+public class DispatchLaneExecutor {
+
+    public static final String UNKNOWN_KEY = "UNKNOWN";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final int DROP_LOG_INTERVAL = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enable;
+    private final int threadSize;
+
+    private final FairDispatchQueue spanQueue;
+    private final FairDispatchQueue statQueue;
+    // each queue appears as many times as its weight
+    private final FairDispatchQueue[] schedule;
+    private final AtomicInteger scheduleIndex = new AtomicInteger();
+
+    // one permit per queued task
+    private final Semaphore queuedPermits = new Semaphore(0);
+
+    private final ExecutorService worker;
+    private volatile boolean running = false;
+
+    public DispatchLaneExecutor(boolean enable, int threadSize, int spanQueueSize, int spanWeight, int statQueueSize, int statWeight) {
+        if (threadSize <= 0) {
+            throw new IllegalArgumentException("threadSize must be greater than 0");
+        }
+        if (spanWeight <= 0) {
+            throw new IllegalArgumentException("spanWeight must be greater than 0");
+        }
+        if (statWeight <= 0) {
+            throw new IllegalArgumentException("statWeight must be greater than 0");
+        }
+        this.enable = enable;
+        this.threadSize = threadSize;
+        this.spanQueue = new FairDispatchQueue(spanQueueSize);
+        this.statQueue = new FairDispatchQueue(statQueueSize);
+
+        this.schedule = new FairDispatchQueue[spanWeight + statWeight];
+        for (int i = 0; i < schedule.length; i++) {
+            schedule[i] = i < spanWeight ? spanQueue : statQueue;
+        }
+        if (enable) {
+            this.worker = Executors.newFixedThreadPool(threadSize, new PinpointThreadFactory("Pinpoint-Dispatch-Lane", true));
+        } else {
+            this.worker = null;
+        }
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enable) {
+            return;
+        }
+        logger.info("start DispatchLaneExecutor threadSize:{}", threadSize);
+        running = true;
+        for (int i = 0; i < threadSize; i++) {
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        logger.info("stop DispatchLaneExecutor");
+        running = false;
+        worker.shutdown();
+        try {
+            worker.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // tasks queued while stopping
+        while (queuedPermits.tryAcquire()) {
+            run(pollNext());
+        }
+    }
+
+    /**
+     * queues the task on its lane. the task may be dropped when the lane is full
+     */
+    public void execute(DispatchLane lane, String key, Runnable task) {
+        if (lane == null) {
+            throw new NullPointerException("lane must not be null");
+        }
+        if (task == null) {
+            throw new NullPointerException("task must not be null");
+        }
+        if (lane == DispatchLane.AGENT || !running) {
+            task.run();
+            return;
+        }
+
+        final FairDispatchQueue queue = getQueue(lane);
+        if (queue.offer(key != null ? key : UNKNOWN_KEY, task)) {
+            queuedPermits.release();
+            return;
+        }
+        final long droppedCount = queue.getDroppedCount();
+        if ((droppedCount % DROP_LOG_INTERVAL) == 0) {
+            logger.warn("{} lane is full. droppedCount={}", lane, droppedCount);
+        }
+    }
+
+    private FairDispatchQueue getQueue(DispatchLane lane) {
+        switch (lane) {
+            case SPAN:
+                return spanQueue;
+            case STAT:
+                return statQueue;
+            default:
+                throw new IllegalArgumentException("not queued lane:" + lane);
+        }
+    }
+
+    private void work() {
+        while (true) {
+            final boolean acquired;
+            try {
+                acquired = queuedPermits.tryAcquire(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (acquired) {
+                run(pollNext());
+            } else if (!running) {
+                return;
+            }
+        }
+    }
+
+    private Runnable pollNext() {
+        // the acquired permit guarantees a queued task
+        final int start = (scheduleIndex.getAndIncrement() & Integer.MAX_VALUE) % schedule.length;
+        while (true) {
+            for (int i = 0; i < schedule.length; i++) {
+                final Runnable task = schedule[(start + i) % schedule.length].poll();
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            logger.warn("dispatch fail. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    public int getQueuedCount(DispatchLane lane) {
+        if (lane == DispatchLane.AGENT) {
+            return 0;
+        }
+        return getQueue(lane).size();
+    }
+
+    public long getDroppedCount(DispatchLane lane) {
+        if (lane == DispatchLane.AGENT) {
+            return 0;
+        }
+        return getQueue(lane).getDroppedCount();
+    }
+
+    /**
+     * @return dropped count per key. applicationName for {@link DispatchLane#SPAN}, agentId for {@link DispatchLane#STAT}
+     */
+    public Map<String, Long> getDroppedCountMap(DispatchLane lane) {
+        if (lane == DispatchLane.AGENT) {
+            return Collections.emptyMap();
+        }
+        return getQueue(lane).getDroppedCountMap();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of dispatch tasks, served round-robin per key.
+ * When the queue is full, the newest task of the key holding the most tasks is dropped,
+ * so a noisy key cannot starve the others.
+ * Keys are also bucketed by the number of tasks they hold, so the longest key is found without scanning every key.
+ * Dropped counts are kept for at most {@link #MAX_DROPPED_KEY_SIZE} keys which dropped recently.
+ *
+ * @author agent
+ */
+class FairDispatchQueue {
+
+    static final int MAX_DROPPED_KEY_SIZE = 1024;
+    private static final long DROPPED_KEY_EXPIRE_MINUTES = 10;
+
+    private final int capacity;
+
+    private final Map<String, KeyQueue> queues = new HashMap<>();
+    // keys with queued tasks, in serving order
+    private final ArrayDeque<KeyQueue> readyKeys = new ArrayDeque<>();
+    // buckets.get(n) : keys holding n tasks
+    private final List<LinkedHashSet<KeyQueue>> buckets = new ArrayList<>();
+    private int longestSize;
+    private int size;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Cache<String, AtomicLong> droppedCountMap = CacheBuilder.newBuilder()
+            .maximumSize(MAX_DROPPED_KEY_SIZE)
+            .expireAfterAccess(DROPPED_KEY_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    FairDispatchQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return true if the queue grew. false if the task or a task of another key was dropped
+     */
+    synchronized boolean offer(String key, Runnable task) {
+        if (key == null) {
+            throw new NullPointerException("key must not be null");
+        }
+        if (task == null) {
+            throw new NullPointerException("task must not be null");
+        }
+        if (size < capacity) {
+            add(key, task);
+            size++;
+            return true;
+        }
+
+        final KeyQueue queue = queues.get(key);
+        final int queueSize = queue == null ? 0 : queue.tasks.size();
+        final KeyQueue longest = findLongest();
+        if (longest == null || longest.tasks.size() <= queueSize + 1) {
+            drop(key);
+            return false;
+        }
+        // longest holds at least 2 tasks, it is not emptied here
+        longest.tasks.pollLast();
+        moveBucket(longest, longest.tasks.size() + 1);
+        drop(longest.key);
+        add(key, task);
+        return false;
+    }
+
+    private void add(String key, Runnable task) {
+        KeyQueue queue = queues.get(key);
+        if (queue == null) {
+            queue = new KeyQueue(key);
+            queues.put(key, queue);
+            readyKeys.addLast(queue);
+        }
+        queue.tasks.addLast(task);
+        moveBucket(queue, queue.tasks.size() - 1);
+    }
+
+    // the size of a key changes by one at a time, so longestSize moves by at most one
+    private void moveBucket(KeyQueue queue, int oldSize) {
+        final int newSize = queue.tasks.size();
+        if (oldSize > 0) {
+            buckets.get(oldSize).remove(queue);
+        }
+        if (newSize > 0) {
+            while (buckets.size() <= newSize) {
+                buckets.add(new LinkedHashSet<KeyQueue>());
+            }
+            buckets.get(newSize).add(queue);
+        }
+        if (newSize > longestSize) {
+            longestSize = newSize;
+        } else if (oldSize == longestSize && buckets.get(oldSize).isEmpty()) {
+            longestSize = newSize;
+        }
+    }
+
+    private KeyQueue findLongest() {
+        if (longestSize == 0) {
+            return null;
+        }
+        final Iterator<KeyQueue> iterator = buckets.get(longestSize).iterator();
+        return iterator.next();
+    }
+
+    private void drop(String key) {
+        droppedCount.incrementAndGet();
+        AtomicLong keyDroppedCount = droppedCountMap.getIfPresent(key);
+        if (keyDroppedCount == null) {
+            final AtomicLong newCount = new AtomicLong();
+            final AtomicLong before = droppedCountMap.asMap().putIfAbsent(key, newCount);
+            keyDroppedCount = before != null ? before : newCount;
+        }
+        keyDroppedCount.incrementAndGet();
+    }
+
+    synchronized Runnable poll() {
+        final KeyQueue queue = readyKeys.pollFirst();
+        if (queue == null) {
+            return null;
+        }
+        final Runnable task = queue.tasks.pollFirst();
+        moveBucket(queue, queue.tasks.size() + 1);
+        if (queue.tasks.isEmpty()) {
+            queues.remove(queue.key);
+        } else {
+            readyKeys.addLast(queue);
+        }
+        size--;
+        return task;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    Map<String, Long> getDroppedCountMap() {
+        final Map<String, AtomicLong> snapshot = droppedCountMap.asMap();
+        final Map<String, Long> result = new HashMap<>(snapshot.size());
+        for (Map.Entry<String, AtomicLong> entry : snapshot.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    private static final class KeyQueue {
+        private final String key;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        private KeyQueue(String key) {
+            this.key = key;
+        }
+    }
+}
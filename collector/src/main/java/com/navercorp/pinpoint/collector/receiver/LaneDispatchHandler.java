@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import org.apache.thrift.TBase;
+
+/**
+ * Hands send messages over to the lane of their type in {@link DispatchLaneExecutor}.
+ * Request messages(metadata, agent info) are dispatched on the caller thread as the response is written by the caller.
+ *
+ * @author agent
+ */
+public class LaneDispatchHandler implements DispatchHandler {
+
+    private final DispatchHandler delegate;
+
+    private final DispatchLaneExecutor dispatchLaneExecutor;
+
+    public LaneDispatchHandler(DispatchHandler delegate, DispatchLaneExecutor dispatchLaneExecutor) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (dispatchLaneExecutor == null) {
+            throw new NullPointerException("dispatchLaneExecutor must not be null");
+        }
+        this.delegate = delegate;
+        this.dispatchLaneExecutor = dispatchLaneExecutor;
+    }
+
+    @Override
+    public void dispatchSendMessage(final TBase<?, ?> tBase) {
+        if (!dispatchLaneExecutor.isEnable()) {
+            delegate.dispatchSendMessage(tBase);
+            return;
+        }
+        final DispatchLane lane = getLane(tBase);
+        dispatchLaneExecutor.execute(lane, getKey(tBase), new Runnable() {
+            @Override
+            public void run() {
+                delegate.dispatchSendMessage(tBase);
+            }
+        });
+    }
+
+    @Override
+    public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+        return delegate.dispatchRequestMessage(tBase);
+    }
+
+    static DispatchLane getLane(TBase<?, ?> tBase) {
+        if (tBase instanceof TSpan || tBase instanceof TSpanChunk) {
+            return DispatchLane.SPAN;
+        }
+        if (tBase instanceof TAgentStat || tBase instanceof TAgentStatBatch) {
+            return DispatchLane.STAT;
+        }
+        return DispatchLane.AGENT;
+    }
+
+    static String getKey(TBase<?, ?> tBase) {
+        if (tBase instanceof TSpan) {
+            return ((TSpan) tBase).getApplicationName();
+        }
+        if (tBase instanceof TSpanChunk) {
+            return ((TSpanChunk) tBase).getApplicationName();
+        }
+        if (tBase instanceof TAgentStat) {
+            return ((TAgentStat) tBase).getAgentId();
+        }
+        if (tBase instanceof TAgentStatBatch) {
+            return ((TAgentStatBatch) tBase).getAgentId();
+        }
+        return null;
+    }
+}
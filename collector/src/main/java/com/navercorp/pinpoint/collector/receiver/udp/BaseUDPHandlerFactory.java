@@ -44,6 +44,8 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final DeserializerFactory<HeaderTBaseDeserializer> deserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<>(new HeaderTBaseDeserializerFactory());
+    // packets batched by the agent(NIO_BATCH sender)
+    private final DeserializerFactory<ChunkHeaderTBaseDeserializer> chunkDeserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<>(new ChunkHeaderTBaseDeserializerFactory());
 
     private final DispatchHandler dispatchHandler;
 
@@ -53,6 +55,8 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
     
     private final InetAddress[] ignoreAddresses;
 
+    private SpanDirectDispatcher spanDirectDispatcher;
+
     public BaseUDPHandlerFactory(DispatchHandler dispatchHandler, TBaseFilter<SocketAddress> filter, List<String> l4IpList) {
         if (dispatchHandler == null) {
             throw new NullPointerException("dispatchHandler must not be null");
@@ -92,6 +96,10 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
         return null;
     }
 
+    public void setSpanDirectDispatcher(SpanDirectDispatcher spanDirectDispatcher) {
+        this.spanDirectDispatcher = spanDirectDispatcher;
+    }
+
     @Override
     public PacketHandler<T> createPacketHandler() {
         return this.dispatchPacket;
@@ -109,11 +117,20 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
                 return;
             }
             
+            final ChunkHeaderTBaseDeserializer chunkDeserializer = chunkDeserializerFactory.createDeserializer();
+            if (chunkDeserializer.isChunked(packet.getData(), packet.getOffset(), packet.getLength())) {
+                receiveChunkedPacket(localSocket, packet, chunkDeserializer);
+                return;
+            }
+
             final HeaderTBaseDeserializer deserializer = deserializerFactory.createDeserializer();
             SocketAddress socketAddress = packet.getSocketAddress();
             TBase<?, ?> tBase = null;
             
             try {
+                if (spanDirectDispatcher != null && spanDirectDispatcher.dispatch(packet.getData(), packet.getOffset(), packet.getLength())) {
+                    return;
+                }
                 tBase = deserializer.deserialize(packet.getData());
                 if (filter.filter(localSocket, tBase, socketAddress) == TBaseFilter.BREAK) {
                     return;
@@ -138,6 +155,33 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
             }
         }
         
+        private void receiveChunkedPacket(DatagramSocket localSocket, T packet, ChunkHeaderTBaseDeserializer deserializer) {
+            final SocketAddress socketAddress = packet.getSocketAddress();
+            try {
+                final List<TBase<?, ?>> list = deserializer.deserialize(packet.getData(), packet.getOffset(), packet.getLength());
+                for (TBase<?, ?> tBase : list) {
+                    if (filter.filter(localSocket, tBase, socketAddress) == TBaseFilter.BREAK) {
+                        continue;
+                    }
+                    dispatchHandler.dispatchSendMessage(tBase);
+                }
+            } catch (TException e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("packet serialize error. SendSocketAddress:{} Cause:{}", socketAddress, e.getMessage(), e);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                }
+            } catch (Exception e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Unexpected error. SendSocketAddress:{} Cause:{} ", socketAddress, e.getMessage(), e);
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("packet dump hex:{}", PacketUtils.dumpDatagramPacket(packet));
+                }
+            }
+        }
+
         private boolean isIgnoreAddress(InetAddress remoteAddress) {
             if (ignoreAddresses == null) {
                 return false;
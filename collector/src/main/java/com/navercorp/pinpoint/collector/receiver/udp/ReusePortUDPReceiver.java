@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.util.DatagramPacketFactory;
+import com.navercorp.pinpoint.collector.util.PacketUtils;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UDPReceiver that binds several DatagramChannels to the same port with SO_REUSEPORT.
+ * Each channel has its own io thread, and the io thread reads into its own direct ByteBuffer
+ * and hands the packet to its own PacketHandler. No worker pool, no per packet task.
+ * <p>
+ * SO_REUSEPORT is available as a socket option since java 9. The receiver refuses to start on older runtimes,
+ * one shared channel would serialize the io threads on a single socket.
+ *
+ * @author agent
+ */
+public class ReusePortUDPReceiver implements DataReceiver {
+
+    private static final SocketOption<Boolean> SO_REUSEPORT = findReusePortOption();
+
+    private final Logger logger;
+
+    private final String receiverName;
+    private final String bindAddress;
+    private final int port;
+    private final int receiveBufferSize;
+    private final int socketCount;
+
+    private final PacketHandlerFactory<DatagramPacket> packetHandlerFactory;
+
+    private final List<DatagramChannel> channelList = new ArrayList<>();
+    private ExecutorService io;
+
+    private final AtomicBoolean state = new AtomicBoolean(true);
+
+    public ReusePortUDPReceiver(String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiveBufferSize, int socketCount) {
+        if (receiverName != null) {
+            this.logger = LoggerFactory.getLogger(receiverName);
+        } else {
+            this.logger = LoggerFactory.getLogger(this.getClass());
+        }
+        if (packetHandlerFactory == null) {
+            throw new NullPointerException("packetHandlerFactory must not be null");
+        }
+        if (bindAddress == null) {
+            throw new NullPointerException("bindAddress must not be null");
+        }
+        if (socketCount <= 0) {
+            throw new IllegalArgumentException("socketCount must be positive:" + socketCount);
+        }
+        this.receiverName = receiverName;
+        this.packetHandlerFactory = packetHandlerFactory;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.receiveBufferSize = receiveBufferSize;
+        this.socketCount = socketCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SocketOption<Boolean> findReusePortOption() {
+        try {
+            final Field field = StandardSocketOptions.class.getField("SO_REUSEPORT");
+            return (SocketOption<Boolean>) field.get(null);
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    static boolean isReusePortSupported() {
+        return SO_REUSEPORT != null;
+    }
+
+    static void checkReusePortSupported() {
+        if (!isReusePortSupported()) {
+            // java 7/8 has no SO_REUSEPORT option. the kernel can not spread packets over sockets
+            throw new IllegalStateException("SO_REUSEPORT is not available on java " + System.getProperty("java.version")
+                    + ". REUSEPORT udp receiver requires java 9+. use the DEFAULT udp receiver type");
+        }
+    }
+
+    @PostConstruct
+    @Override
+    public void start() {
+        logger.info("{} start.", receiverName);
+        checkReusePortSupported();
+        final InetSocketAddress bindSocketAddress = new InetSocketAddress(bindAddress, port);
+        try {
+            for (int i = 0; i < socketCount; i++) {
+                channelList.add(openChannel(bindSocketAddress));
+            }
+        } catch (RuntimeException e) {
+            for (DatagramChannel channel : channelList) {
+                closeChannel(channel);
+            }
+            channelList.clear();
+            throw e;
+        }
+
+        this.io = Executors.newFixedThreadPool(socketCount, new PinpointThreadFactory(receiverName + "-Io", true));
+        logger.info("UDP Packet reader:{} channel:{} started.", socketCount, channelList.size());
+        for (final DatagramChannel channel : channelList) {
+            io.execute(new Runnable() {
+                @Override
+                public void run() {
+                    receive(channel);
+                }
+            });
+        }
+    }
+
+    private DatagramChannel openChannel(InetSocketAddress bindSocketAddress) {
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            if (logger.isWarnEnabled()) {
+                final int checkReceiveBufferSize = channel.getOption(StandardSocketOptions.SO_RCVBUF);
+                if (receiveBufferSize != checkReceiveBufferSize) {
+                    logger.warn("DatagramChannel.setOption(SO_RCVBUF) error. {}!={}", receiveBufferSize, checkReceiveBufferSize);
+                }
+            }
+            channel.setOption(SO_REUSEPORT, Boolean.TRUE);
+            logger.info("DatagramChannel.bind() {}/{} reusePort:true", bindAddress, port);
+            channel.bind(bindSocketAddress);
+            return channel;
+        } catch (IOException ex) {
+            closeChannel(channel);
+            throw new IllegalStateException("Socket bind Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
+        }
+    }
+
+    private void receive(final DatagramChannel channel) {
+        final DatagramSocket localSocket = channel.socket();
+        if (logger.isInfoEnabled()) {
+            logger.info("start ioThread localAddress:{}, IoThread:{}", localSocket.getLocalSocketAddress(), Thread.currentThread().getName());
+        }
+        final boolean debugEnabled = logger.isDebugEnabled();
+
+        // owned by this io thread
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(DatagramPacketFactory.UDP_MAX_PACKET_LENGTH);
+        final byte[] data = new byte[DatagramPacketFactory.UDP_MAX_PACKET_LENGTH];
+        final DatagramPacket packet = new DatagramPacket(data, data.length);
+        final PacketHandler<DatagramPacket> packetHandler = packetHandlerFactory.createPacketHandler();
+
+        while (state.get()) {
+            final SocketAddress remoteAddress = read0(channel, buffer);
+            if (remoteAddress == null) {
+                continue;
+            }
+            final int length = buffer.remaining();
+            if (length == 0) {
+                if (debugEnabled) {
+                    logger.debug("length is 0 remoteAddress:{}", remoteAddress);
+                }
+                continue;
+            }
+            buffer.get(data, 0, length);
+            packet.setData(data, 0, length);
+            packet.setSocketAddress(remoteAddress);
+            if (debugEnabled) {
+                logger.debug("DatagramPacket SocketAddress:{} read size:{}", remoteAddress, length);
+                if (logger.isTraceEnabled()) {
+                    // use trace as packet dump may be large
+                    logger.trace("dump packet:{}", PacketUtils.dumpDatagramPacket(packet));
+                }
+            }
+            try {
+                packetHandler.receive(localSocket, packet);
+            } catch (Exception e) {
+                logger.warn("packet handle error. remoteAddress:{} Caused:{}", remoteAddress, e.getMessage(), e);
+            }
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("stop ioThread IoThread:{}", Thread.currentThread().getName());
+        }
+    }
+
+    private SocketAddress read0(DatagramChannel channel, ByteBuffer buffer) {
+        buffer.clear();
+        try {
+            final SocketAddress remoteAddress = channel.receive(buffer);
+            buffer.flip();
+            return remoteAddress;
+        } catch (ClosedChannelException e) {
+            if (state.get()) {
+                logger.error("channel closed. Caused:{}", e.getMessage(), e);
+                state.set(false);
+            }
+            return null;
+        } catch (IOException e) {
+            if (state.get()) {
+                logger.error("IoError, Caused:{}", e.getMessage(), e);
+            }
+            return null;
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void shutdown() {
+        logger.info("{} shutdown.", this.receiverName);
+        state.set(false);
+        for (DatagramChannel channel : channelList) {
+            closeChannel(channel);
+        }
+        if (io != null) {
+            io.shutdown();
+            try {
+                io.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.info("IoExecutor.shutdown() Interrupted", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeChannel(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("DatagramChannel.close() error. Caused:{}", e.getMessage(), e);
+        }
+    }
+}
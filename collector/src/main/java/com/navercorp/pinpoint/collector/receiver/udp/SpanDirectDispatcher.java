@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.collector.handler.SpanChunkHandler;
+import com.navercorp.pinpoint.collector.handler.SpanHandler;
+import com.navercorp.pinpoint.collector.manage.HandlerManager;
+import com.navercorp.pinpoint.collector.receiver.DispatchLane;
+import com.navercorp.pinpoint.collector.receiver.DispatchLaneExecutor;
+import com.navercorp.pinpoint.common.server.bo.BasicSpan;
+import com.navercorp.pinpoint.common.server.bo.DirectSpanFactory;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.SpanChunkBo;
+import com.navercorp.pinpoint.common.server.util.AcceptedTimeService;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Dispatches span packets decoded by {@link DirectSpanFactory} to {@link SpanHandler}/{@link SpanChunkHandler},
+ * skipping the TSpan/TSpanChunk objects of the thrift deserializer.
+ *
+ * @author agent
+ */
+public class SpanDirectDispatcher {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enable;
+
+    private final DirectSpanFactory directSpanFactory;
+
+    @Autowired
+    private SpanHandler spanHandler;
+
+    @Autowired
+    private SpanChunkHandler spanChunkHandler;
+
+    @Autowired
+    private AcceptedTimeService acceptedTimeService;
+
+    @Autowired(required = false)
+    private HandlerManager handlerManager;
+
+    @Autowired(required = false)
+    private DispatchLaneExecutor dispatchLaneExecutor;
+
+    public SpanDirectDispatcher(boolean enable, DirectSpanFactory directSpanFactory) {
+        if (directSpanFactory == null) {
+            throw new NullPointerException("directSpanFactory must not be null");
+        }
+        this.enable = enable;
+        this.directSpanFactory = directSpanFactory;
+    }
+
+    /**
+     * @return false if the packet is not handled and must be deserialized to TBase
+     */
+    public boolean dispatch(byte[] bytes, int offset, int length) throws TException {
+        if (!enable) {
+            return false;
+        }
+        final short type = directSpanFactory.readType(bytes, offset, length);
+        if (!directSpanFactory.isSupport(type)) {
+            return false;
+        }
+        if (!checkAvailable()) {
+            logger.debug("Handler is disabled. Skipping span packet.");
+            return true;
+        }
+
+        final BasicSpan basicSpan = directSpanFactory.decode(bytes, offset, length);
+        // mark accepted time
+        acceptedTimeService.accept();
+        final long acceptedTime = acceptedTimeService.getAcceptedTime();
+        if (basicSpan instanceof SpanBo) {
+            final SpanBo spanBo = (SpanBo) basicSpan;
+            spanBo.setCollectorAcceptTime(acceptedTime);
+            if (isLaneEnable()) {
+                dispatchLaneExecutor.execute(DispatchLane.SPAN, spanBo.getApplicationId(), new Runnable() {
+                    @Override
+                    public void run() {
+                        spanHandler.handleSpanBo(spanBo);
+                    }
+                });
+            } else {
+                spanHandler.handleSpanBo(spanBo);
+            }
+            return true;
+        }
+        if (basicSpan instanceof SpanChunkBo) {
+            final SpanChunkBo spanChunkBo = (SpanChunkBo) basicSpan;
+            spanChunkBo.setCollectorAcceptTime(acceptedTime);
+            if (isLaneEnable()) {
+                dispatchLaneExecutor.execute(DispatchLane.SPAN, spanChunkBo.getApplicationId(), new Runnable() {
+                    @Override
+                    public void run() {
+                        spanChunkHandler.handleSpanChunkBo(spanChunkBo);
+                    }
+                });
+            } else {
+                spanChunkHandler.handleSpanChunkBo(spanChunkBo);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isLaneEnable() {
+        return dispatchLaneExecutor != null && dispatchLaneExecutor.isEnable();
+    }
+
+    private boolean checkAvailable() {
+        if (handlerManager == null) {
+            return true;
+        }
+        return handlerManager.isEnable();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.receiver.WorkerOption;
+
+import java.net.DatagramPacket;
+
+/**
+ * Selects the udp receiver implementation from the configured receiver type.
+ *
+ * @author agent
+ */
+public final class UDPReceiverFactory {
+
+    public static final String RECEIVER_TYPE_DEFAULT = "DEFAULT";
+    public static final String RECEIVER_TYPE_REUSEPORT = "REUSEPORT";
+
+    private UDPReceiverFactory() {
+    }
+
+    public static DataReceiver createUDPReceiver(String receiverType, String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory,
+                                                 String bindAddress, int port, int receiveBufferSize, WorkerOption workerOption, int socketCount) {
+        if (RECEIVER_TYPE_REUSEPORT.equalsIgnoreCase(receiverType)) {
+            // fail on startup instead of silently sharing one socket
+            ReusePortUDPReceiver.checkReusePortSupported();
+            return new ReusePortUDPReceiver(receiverName, packetHandlerFactory, bindAddress, port, receiveBufferSize, socketCount);
+        }
+        return new UDPReceiver(receiverName, packetHandlerFactory, bindAddress, port, receiveBufferSize, workerOption);
+    }
+}
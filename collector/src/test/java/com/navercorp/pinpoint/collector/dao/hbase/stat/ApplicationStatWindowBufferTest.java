@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.stat;
+
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class ApplicationStatWindowBufferTest {
+
+    @Test
+    public void summary() {
+        ApplicationStatWindowBuffer buffer = new ApplicationStatWindowBuffer(60000, 0, 100);
+        buffer.add("app", 1000, ApplicationStatField.HEAP_USED, 10);
+        buffer.add("app", 2000, ApplicationStatField.HEAP_USED, 30);
+        buffer.add("app", 3000, ApplicationStatField.HEAP_USED, 20);
+        buffer.add("app", 3000, ApplicationStatField.JVM_CPU_LOAD, 0.5);
+
+        Assert.assertTrue(buffer.poll(59999).isEmpty());
+
+        List<ApplicationStatWindow> windows = buffer.poll(60000);
+        Assert.assertEquals(1, windows.size());
+        ApplicationStatWindow window = windows.get(0);
+        Assert.assertEquals("app", window.getApplicationName());
+        Assert.assertEquals(0, window.getWindowStart());
+
+        ApplicationStatWindow.Summary heapUsed = window.getSummaries().get(ApplicationStatField.HEAP_USED);
+        Assert.assertEquals(3, heapUsed.getCount());
+        Assert.assertEquals(60, heapUsed.getSum(), 0);
+        Assert.assertEquals(10, heapUsed.getMin(), 0);
+        Assert.assertEquals(30, heapUsed.getMax(), 0);
+        Assert.assertEquals(20, heapUsed.getAvg(), 0);
+
+        ApplicationStatWindow.Summary cpuLoad = window.getSummaries().get(ApplicationStatField.JVM_CPU_LOAD);
+        Assert.assertEquals(1, cpuLoad.getCount());
+        Assert.assertEquals(2, window.getSummaries().size());
+    }
+
+    @Test
+    public void windowPerApplication() {
+        ApplicationStatWindowBuffer buffer = new ApplicationStatWindowBuffer(60000, 0, 100);
+        buffer.add("app1", 1000, ApplicationStatField.HEAP_USED, 10);
+        buffer.add("app2", 1000, ApplicationStatField.HEAP_USED, 10);
+        buffer.add("app1", 61000, ApplicationStatField.HEAP_USED, 10);
+        Assert.assertEquals(3, buffer.getWindowCount());
+
+        Assert.assertEquals(2, buffer.poll(60000).size());
+        Assert.assertEquals(1, buffer.getWindowCount());
+        Assert.assertEquals(1, buffer.pollAll().size());
+        Assert.assertEquals(0, buffer.getWindowCount());
+    }
+
+    @Test
+    public void flushDelay() {
+        ApplicationStatWindowBuffer buffer = new ApplicationStatWindowBuffer(60000, 10000, 100);
+        buffer.add("app", 1000, ApplicationStatField.HEAP_USED, 10);
+
+        Assert.assertTrue(buffer.poll(69999).isEmpty());
+        // late data point within flushDelay
+        Assert.assertTrue(buffer.add("app", 2000, ApplicationStatField.HEAP_USED, 10));
+
+        List<ApplicationStatWindow> windows = buffer.poll(70000);
+        Assert.assertEquals(2, windows.get(0).getSummaries().get(ApplicationStatField.HEAP_USED).getCount());
+    }
+
+    @Test
+    public void dropLateDataPoint() {
+        ApplicationStatWindowBuffer buffer = new ApplicationStatWindowBuffer(60000, 0, 100);
+        buffer.add("app", 1000, ApplicationStatField.HEAP_USED, 10);
+        Assert.assertEquals(1, buffer.poll(60000).size());
+
+        Assert.assertFalse(buffer.add("app", 2000, ApplicationStatField.HEAP_USED, 10));
+        Assert.assertEquals(1, buffer.getDroppedCount());
+        Assert.assertEquals(0, buffer.getWindowCount());
+
+        // other application is not affected
+        Assert.assertTrue(buffer.add("other", 2000, ApplicationStatField.HEAP_USED, 10));
+    }
+
+    @Test
+    public void evictOldest() {
+        ApplicationStatWindowBuffer buffer = new ApplicationStatWindowBuffer(1000, 0, 2);
+        buffer.add("app", 5000, ApplicationStatField.HEAP_USED, 10);
+        buffer.add("app", 1000, ApplicationStatField.HEAP_USED, 10);
+        buffer.add("app", 3000, ApplicationStatField.HEAP_USED, 10);
+
+        Assert.assertEquals(2, buffer.getWindowCount());
+        Assert.assertEquals(1, buffer.getEvictedCount());
+
+        List<ApplicationStatWindow> windows = buffer.poll(0);
+        Assert.assertEquals(1, windows.size());
+        Assert.assertEquals(1000, windows.get(0).getWindowStart());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class ShardedCounterMapTest {
+
+    private static final RowInfoFactory ROW_INFO_FACTORY = new RowInfoFactory() {
+        @Override
+        public RowInfo createRowInfo(CounterKey key) {
+            final RowKey rowKey = new CallRowKey(key.getRowApplicationName(), key.getRowServiceType(), key.getRowTimeSlot());
+            final ColumnName columnName = new ResponseColumnName(key.getColumnAgentId(), key.getColumnSlotNumber());
+            return new DefaultRowInfo(rowKey, columnName);
+        }
+    };
+
+    @Test
+    public void increment() {
+        ShardedCounterMap counterMap = new ShardedCounterMap(ROW_INFO_FACTORY);
+        increment(counterMap, "app1", "agent1", 1);
+        increment(counterMap, "app1", "agent1", 1);
+        increment(counterMap, "app1", "agent2", 1);
+        increment(counterMap, "app2", "agent1", 5);
+
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counterMap.remove();
+        Assert.assertEquals(3, remove.size());
+        Assert.assertEquals(2, get(remove, "app1", "agent1"));
+        Assert.assertEquals(1, get(remove, "app1", "agent2"));
+        Assert.assertEquals(5, get(remove, "app2", "agent1"));
+
+        Assert.assertTrue(counterMap.remove().isEmpty());
+
+        increment(counterMap, "app1", "agent1", 1);
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> next = counterMap.remove();
+        Assert.assertEquals(1, next.size());
+        Assert.assertEquals(1, get(next, "app1", "agent1"));
+    }
+
+    @Test
+    public void concurrentIncrement() throws Exception {
+        final ShardedCounterMap counterMap = new ShardedCounterMap(ROW_INFO_FACTORY);
+        final int threadCount = 8;
+        final int loop = 10000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < loop; j++) {
+                        increment(counterMap, "app", "agent" + (j % 10), 1);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+
+        long total = 0;
+        // flush while incrementing
+        while (!latch.await(1, TimeUnit.MILLISECONDS)) {
+            total += sum(counterMap.remove());
+        }
+        total += sum(counterMap.remove());
+        executor.shutdown();
+
+        Assert.assertEquals(threadCount * loop, total);
+    }
+
+    @Test
+    public void rollGeneration_maxKeys() {
+        ShardedCounterMap counterMap = new ShardedCounterMap(ROW_INFO_FACTORY, ShardedCounterMap.PAGE_SIZE, 100);
+        final int keyCount = ShardedCounterMap.PAGE_SIZE * 2 + 1;
+        for (int i = 0; i < keyCount; i++) {
+            increment(counterMap, "app", "agent" + i, 1);
+        }
+        Assert.assertEquals(3, counterMap.getGenerationCount());
+
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counterMap.remove();
+        Assert.assertEquals(keyCount, remove.size());
+        Assert.assertEquals(keyCount, sum(remove));
+    }
+
+    @Test
+    public void rollGeneration_flushCount() {
+        ShardedCounterMap counterMap = new ShardedCounterMap(ROW_INFO_FACTORY, ShardedCounterMap.PAGE_SIZE, 2);
+        increment(counterMap, "app", "agent", 1);
+        Assert.assertEquals(1, sum(counterMap.remove()));
+        Assert.assertEquals(1, counterMap.getGenerationCount());
+
+        increment(counterMap, "app", "agent", 1);
+        Assert.assertEquals(1, sum(counterMap.remove()));
+        Assert.assertEquals(2, counterMap.getGenerationCount());
+
+        // merged with the same key of the retired generation
+        increment(counterMap, "app", "agent", 1);
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counterMap.remove();
+        Assert.assertEquals(1, remove.size());
+        Assert.assertEquals(1, sum(remove));
+
+        for (int i = 0; i < ShardedCounterMap.RETIRED_DRAIN_COUNT; i++) {
+            counterMap.remove();
+        }
+        Assert.assertTrue(counterMap.getGenerationCount() <= 2);
+    }
+
+    @Test
+    public void rowKeyMerge() {
+        ShardedCounterMap counterMap = new ShardedCounterMap(ROW_INFO_FACTORY);
+        increment(counterMap, "app3", "agent1", 1);
+        increment(counterMap, "app1", "agent1", 1);
+        increment(counterMap, "app2", "agent1", 1);
+        increment(counterMap, "app1", "agent2", 1);
+
+        RowKeyMerge rowKeyMerge = new RowKeyMerge(Bytes.toBytes("C"));
+        List<Increment> increments = rowKeyMerge.createBulkIncrement(counterMap.remove(), null);
+        Assert.assertEquals(3, increments.size());
+        for (int i = 1; i < increments.size(); i++) {
+            Assert.assertTrue(Bytes.compareTo(increments.get(i - 1).getRow(), increments.get(i).getRow()) < 0);
+        }
+    }
+
+    private void increment(ShardedCounterMap counterMap, String applicationName, String agentId, long increment) {
+        CounterKey key = counterMap.getProbeKey();
+        key.setRowKey(applicationName, ServiceType.STAND_ALONE.getCode(), 0);
+        key.setColumnName(agentId, (short) 0, null, null, (short) 1);
+        counterMap.increment(key, increment);
+    }
+
+    private long get(Map<RowInfo, ConcurrentCounterMap.LongAdder> map, String applicationName, String agentId) {
+        RowInfo rowInfo = new DefaultRowInfo(new CallRowKey(applicationName, ServiceType.STAND_ALONE.getCode(), 0), new ResponseColumnName(agentId, (short) 1));
+        ConcurrentCounterMap.LongAdder longAdder = map.get(rowInfo);
+        Assert.assertNotNull(longAdder);
+        return longAdder.get();
+    }
+
+    private long sum(Map<RowInfo, ConcurrentCounterMap.LongAdder> map) {
+        long sum = 0;
+        for (ConcurrentCounterMap.LongAdder longAdder : map.values()) {
+            sum += longAdder.get();
+        }
+        return sum;
+    }
+}
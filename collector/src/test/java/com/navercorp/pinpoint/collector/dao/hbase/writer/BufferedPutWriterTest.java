@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author agent
+ */
+public class BufferedPutWriterTest {
+
+    private static final TableName TABLE = TableName.valueOf("TraceV2");
+    private static final byte[] FAMILY = Bytes.toBytes("S");
+    // the replay thread is not started by the tests
+    private static final long REPLAY_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private File dir;
+    private HbaseOperations2 hbaseTemplate;
+    private BufferedPutWriter writer;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("spill-test", "");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdirs());
+        hbaseTemplate = mock(HbaseOperations2.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (writer != null) {
+            writer.stop();
+        }
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void spillOnFull() throws Exception {
+        final CountDownLatch flushStarted = new CountDownLatch(1);
+        final CountDownLatch hbaseResponse = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                flushStarted.countDown();
+                hbaseResponse.await();
+                return null;
+            }
+        }).when(hbaseTemplate).put(eq(TABLE), anyListOf(Put.class));
+
+        writer = new BufferedPutWriter(hbaseTemplate, 2, 1, newSpillFile(1024 * 1024), REPLAY_INTERVAL);
+        // taken by the flush thread, which is blocked on hbase
+        writer.put(TABLE, newPut(0));
+        Assert.assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+
+        // 2 fill the buffer, 3 are spilled
+        for (int i = 1; i <= 5; i++) {
+            writer.put(TABLE, newPut(i));
+        }
+        Assert.assertEquals(2, writer.getBufferedCount());
+        Assert.assertEquals(3, writer.getSpilledCount());
+        Assert.assertEquals(0, writer.getDroppedCount());
+
+        hbaseResponse.countDown();
+    }
+
+    @Test
+    public void spillOnFlushFailure() throws Exception {
+        doThrow(new RuntimeException("hbase down")).when(hbaseTemplate).put(eq(TABLE), anyListOf(Put.class));
+
+        writer = new BufferedPutWriter(hbaseTemplate, 100, 10, newSpillFile(1024 * 1024), REPLAY_INTERVAL);
+        for (int i = 0; i < 10; i++) {
+            writer.put(TABLE, newPut(i));
+        }
+        awaitSpilled(10);
+
+        Assert.assertTrue(writer.getFlushFailedCount() > 0);
+        Assert.assertEquals(0, writer.getDroppedCount());
+        Assert.assertTrue(writer.getSpillFileSize() > 0);
+    }
+
+    @Test
+    public void replayOrder() throws Exception {
+        final List<Put> written = new ArrayList<>();
+        final boolean[] hbaseDown = {true};
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                synchronized (written) {
+                    if (hbaseDown[0]) {
+                        throw new RuntimeException("hbase down");
+                    }
+                    // the batch list is cleared after put
+                    final List<Put> batch = (List<Put>) invocation.getArguments()[1];
+                    written.addAll(batch);
+                }
+                return null;
+            }
+        }).when(hbaseTemplate).put(eq(TABLE), anyListOf(Put.class));
+
+        // small segments, so the puts span several segment files
+        writer = new BufferedPutWriter(hbaseTemplate, 100, 1, newSpillFile(256), REPLAY_INTERVAL);
+        final int putCount = 20;
+        for (int i = 0; i < putCount; i++) {
+            writer.put(TABLE, newPut(i));
+            // batch size 1, so each put is spilled before the next one
+            awaitSpilled(i + 1);
+        }
+
+        synchronized (written) {
+            hbaseDown[0] = false;
+        }
+        writer.replay();
+
+        Assert.assertEquals(putCount, writer.getReplayedCount());
+        Assert.assertEquals(putCount, written.size());
+        for (int i = 0; i < putCount; i++) {
+            Assert.assertArrayEquals(row(i), written.get(i).getRow());
+        }
+        Assert.assertEquals(0, writer.getSpillFileSize());
+    }
+
+    private PutSpillFile newSpillFile(long segmentSize) throws IOException {
+        return new PutSpillFile(dir, segmentSize, 10 * 1024 * 1024);
+    }
+
+    private void awaitSpilled(long count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getSpilledCount() < count) {
+            Assert.assertTrue("spilled:" + writer.getSpilledCount(), System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private byte[] row(int index) {
+        return Bytes.toBytes("row" + index);
+    }
+
+    private Put newPut(int index) {
+        Put put = new Put(row(index));
+        put.addColumn(FAMILY, Bytes.toBytes("q"), index, Bytes.toBytes("value" + index));
+        return put;
+    }
+}
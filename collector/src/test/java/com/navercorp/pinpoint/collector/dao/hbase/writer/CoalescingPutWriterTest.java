@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class CoalescingPutWriterTest {
+
+    private static final TableName TABLE = TableName.valueOf("TraceV2");
+    private static final byte[] FAMILY = Bytes.toBytes("S");
+
+    @Test
+    public void coalesce() {
+        RecordingPutWriter delegate = new RecordingPutWriter();
+        CoalescingPutWriter writer = new CoalescingPutWriter(delegate, 200, 1000, 1000);
+
+        writer.put(TABLE, newPut("tx1", "span1"));
+        writer.put(TABLE, newPut("tx1", "span2"));
+        writer.put(TABLE, newPut("tx2", "span1"));
+        writer.put(TABLE, newPut("tx1", "chunk1"));
+        Assert.assertTrue(delegate.puts.isEmpty());
+        Assert.assertEquals(2, writer.getPendingCount());
+
+        writer.flushExpired(System.currentTimeMillis() + 200);
+
+        Assert.assertEquals(2, delegate.puts.size());
+        Assert.assertEquals(3, delegate.find("tx1").size());
+        Assert.assertEquals(1, delegate.find("tx2").size());
+
+        Assert.assertEquals(0, writer.getPendingCount());
+        Assert.assertEquals(4, writer.getReceivedCount());
+        Assert.assertEquals(2, writer.getWrittenCount());
+        Assert.assertEquals(2.0, writer.getCoalescingRatio(), 0.001);
+    }
+
+    @Test
+    public void notExpired() {
+        RecordingPutWriter delegate = new RecordingPutWriter();
+        CoalescingPutWriter writer = new CoalescingPutWriter(delegate, 200, 1000, 1000);
+
+        writer.put(TABLE, newPut("tx1", "span1"));
+        writer.flushExpired(System.currentTimeMillis() - 1000);
+
+        Assert.assertTrue(delegate.puts.isEmpty());
+        Assert.assertEquals(1, writer.getPendingCount());
+    }
+
+    @Test
+    public void maxCellsPerRow() {
+        RecordingPutWriter delegate = new RecordingPutWriter();
+        CoalescingPutWriter writer = new CoalescingPutWriter(delegate, 200, 1000, 2);
+
+        writer.put(TABLE, newPut("tx1", "span1"));
+        writer.put(TABLE, newPut("tx1", "span2"));
+
+        Assert.assertEquals(1, delegate.puts.size());
+        Assert.assertEquals(2, delegate.puts.get(0).size());
+        Assert.assertEquals(0, writer.getPendingCount());
+    }
+
+    @Test
+    public void maxPendingRows() {
+        RecordingPutWriter delegate = new RecordingPutWriter();
+        // 1 row per stripe
+        CoalescingPutWriter writer = new CoalescingPutWriter(delegate, 200, 1, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            writer.put(TABLE, newPut("tx" + i, "span"));
+        }
+
+        Assert.assertTrue(writer.getPendingCount() <= 16);
+        Assert.assertEquals(100, delegate.puts.size() + writer.getPendingCount());
+    }
+
+    @Test
+    public void disable() {
+        RecordingPutWriter delegate = new RecordingPutWriter();
+        CoalescingPutWriter writer = new CoalescingPutWriter(delegate, 0, 1000, 1000);
+
+        writer.put(TABLE, newPut("tx1", "span1"));
+        writer.put(TABLE, newPut("tx1", "span2"));
+
+        Assert.assertEquals(2, delegate.puts.size());
+        Assert.assertEquals(1.0, writer.getCoalescingRatio(), 0.001);
+    }
+
+    private Put newPut(String row, String qualifier) {
+        Put put = new Put(Bytes.toBytes(row));
+        put.addColumn(FAMILY, Bytes.toBytes(qualifier), 1L, Bytes.toBytes("value"));
+        return put;
+    }
+
+    private static class RecordingPutWriter implements PutWriter {
+        private final List<Put> puts = new ArrayList<>();
+
+        @Override
+        public void put(TableName tableName, Put put) {
+            puts.add(put);
+        }
+
+        private Put find(String row) {
+            for (Put put : puts) {
+                if (Bytes.equals(Bytes.toBytes(row), put.getRow())) {
+                    return put;
+                }
+            }
+            throw new AssertionError("put not found. row:" + row);
+        }
+    }
+}
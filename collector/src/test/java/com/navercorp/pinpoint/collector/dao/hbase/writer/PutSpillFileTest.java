@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase.writer;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class PutSpillFileTest {
+
+    private static final TableName TABLE = TableName.valueOf("TraceV2");
+    private static final byte[] FAMILY = Bytes.toBytes("S");
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("spill-test", "");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdirs());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void appendAndRead() throws Exception {
+        PutSpillFile spillFile = new PutSpillFile(dir, 1024 * 1024, 10 * 1024 * 1024);
+        Assert.assertTrue(spillFile.append(TABLE, newPut("row1", 1L, "value1")));
+        Assert.assertTrue(spillFile.append(TABLE, newPut("row2", 2L, "value2")));
+
+        File segment = spillFile.peekSegment();
+        Assert.assertNotNull(segment);
+
+        List<Put> puts = readAll(segment);
+        Assert.assertEquals(2, puts.size());
+        Assert.assertArrayEquals(Bytes.toBytes("row1"), puts.get(0).getRow());
+        Assert.assertEquals(1L, puts.get(0).get(FAMILY, Bytes.toBytes("q")).get(0).getTimestamp());
+        Assert.assertArrayEquals(Bytes.toBytes("row2"), puts.get(1).getRow());
+
+        spillFile.removeSegment(segment);
+        Assert.assertFalse(segment.exists());
+        Assert.assertNull(spillFile.peekSegment());
+        Assert.assertEquals(0, spillFile.getSize());
+        spillFile.close();
+    }
+
+    @Test
+    public void reloadSegments() throws Exception {
+        PutSpillFile spillFile = new PutSpillFile(dir, 1024 * 1024, 10 * 1024 * 1024);
+        spillFile.append(TABLE, newPut("row1", 1L, "value1"));
+        spillFile.close();
+
+        PutSpillFile reopen = new PutSpillFile(dir, 1024 * 1024, 10 * 1024 * 1024);
+        Assert.assertTrue(reopen.getSize() > 0);
+        File segment = reopen.peekSegment();
+        Assert.assertNotNull(segment);
+        Assert.assertEquals(1, readAll(segment).size());
+        reopen.close();
+    }
+
+    @Test
+    public void maxSize() throws Exception {
+        PutSpillFile spillFile = new PutSpillFile(dir, 64, 128);
+        int appended = 0;
+        while (spillFile.append(TABLE, newPut("row" + appended, appended, "value"))) {
+            appended++;
+            Assert.assertTrue("spill file must be bounded", appended < 100);
+        }
+        Assert.assertTrue(appended > 0);
+        Assert.assertTrue(spillFile.getSize() >= 128);
+        spillFile.close();
+    }
+
+    private Put newPut(String row, long timestamp, String value) {
+        Put put = new Put(Bytes.toBytes(row));
+        put.addColumn(FAMILY, Bytes.toBytes("q"), timestamp, Bytes.toBytes(value));
+        return put;
+    }
+
+    private List<Put> readAll(File segment) throws IOException {
+        final List<Put> puts = new ArrayList<>();
+        PutSpillFile.read(segment, new PutSpillFile.SpillRecordHandler() {
+            @Override
+            public void handle(TableName tableName, Put put) {
+                Assert.assertEquals(TABLE, tableName);
+                puts.add(put);
+            }
+        });
+        return puts;
+    }
+}
@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.collector.handler;
 
 import com.navercorp.pinpoint.collector.dao.AgentStatDaoV2;
+import com.navercorp.pinpoint.collector.dao.ApplicationStatDao;
 import com.navercorp.pinpoint.collector.mapper.thrift.stat.AgentStatBatchMapper;
 import com.navercorp.pinpoint.collector.mapper.thrift.stat.AgentStatMapper;
 import com.navercorp.pinpoint.common.server.bo.stat.ActiveTraceBo;
@@ -73,6 +74,9 @@ public class AgentStatHandlerV2Test {
     @Mock
     private AgentStatDaoV2<DataSourceListBo> dataSourceDao;
 
+    @Mock
+    private ApplicationStatDao applicationStatDao;
+
     @InjectMocks
     private AgentStatHandlerV2 agentStatHandler = new AgentStatHandlerV2();
 
@@ -98,6 +102,7 @@ public class AgentStatHandlerV2Test {
         verify(transactionDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getTransactionBos());
         verify(activeTraceDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getActiveTraceBos());
         verify(dataSourceDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getDataSourceListBos());
+        verify(applicationStatDao).insert(mappedAgentStat);
     }
 
     @Test
@@ -118,6 +123,7 @@ public class AgentStatHandlerV2Test {
         verify(transactionDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getTransactionBos());
         verify(activeTraceDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getActiveTraceBos());
         verify(dataSourceDao).insert(mappedAgentStat.getAgentId(), mappedAgentStat.getDataSourceListBos());
+        verify(applicationStatDao).insert(mappedAgentStat);
     }
 
     @Test
@@ -137,6 +143,7 @@ public class AgentStatHandlerV2Test {
         verifyZeroInteractions(transactionDao);
         verifyZeroInteractions(activeTraceDao);
         verifyZeroInteractions(dataSourceDao);
+        verifyZeroInteractions(applicationStatDao);
     }
 
     @Test
@@ -157,6 +164,7 @@ public class AgentStatHandlerV2Test {
         verifyZeroInteractions(transactionDao);
         verifyZeroInteractions(activeTraceDao);
         verifyZeroInteractions(dataSourceDao);
+        verifyZeroInteractions(applicationStatDao);
     }
 
     @Test(expected=IllegalArgumentException.class)
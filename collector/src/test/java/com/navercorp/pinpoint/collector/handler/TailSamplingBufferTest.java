@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.collector.dao.ApplicationTraceIndexDao;
+import com.navercorp.pinpoint.collector.dao.TraceDao;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.SpanChunkBo;
+import com.navercorp.pinpoint.common.server.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.trace.TraceFlags;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class TailSamplingBufferTest {
+
+    private static final long WINDOW = 10000;
+    private static final int SLOW_THRESHOLD = 3000;
+
+    private final RecordingTraceDao traceDao = new RecordingTraceDao();
+    private final RecordingApplicationTraceIndexDao applicationTraceIndexDao = new RecordingApplicationTraceIndexDao();
+
+    private TailSamplingBuffer newBuffer(int maxTransactions) {
+        return new TailSamplingBuffer(traceDao, applicationTraceIndexDao, true, WINDOW, maxTransactions, SLOW_THRESHOLD);
+    }
+
+    @Test
+    public void sampled() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, false, 100, 0));
+
+        Assert.assertEquals(1, traceDao.spanList.size());
+        Assert.assertEquals(1, applicationTraceIndexDao.spanList.size());
+        Assert.assertEquals(0, buffer.getBufferedCount());
+    }
+
+    @Test
+    public void candidate_dropped() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        buffer.add(newSpan(1, true, 200, 0));
+        Assert.assertTrue(traceDao.spanList.isEmpty());
+        Assert.assertEquals(2, buffer.getBufferedCount());
+
+        buffer.expire(System.currentTimeMillis() + WINDOW);
+
+        Assert.assertTrue(traceDao.spanList.isEmpty());
+        Assert.assertEquals(0, buffer.getBufferedCount());
+        Assert.assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void candidate_promoted_slow() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        buffer.add(newSpan(2, true, 100, 0));
+        buffer.add(newSpan(1, true, SLOW_THRESHOLD, 0));
+
+        // held span + slow span
+        Assert.assertEquals(2, traceDao.spanList.size());
+        Assert.assertEquals(2, applicationTraceIndexDao.spanList.size());
+        Assert.assertEquals(1, buffer.getPromotedCount());
+        Assert.assertEquals(1, buffer.getBufferedCount());
+
+        // following span of the promoted transaction
+        buffer.add(newSpan(1, true, 100, 0));
+        Assert.assertEquals(3, traceDao.spanList.size());
+
+        buffer.expire(System.currentTimeMillis() + WINDOW);
+        Assert.assertEquals(3, traceDao.spanList.size());
+        Assert.assertEquals(1, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void expire_fromLastSpan() throws InterruptedException {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        Thread.sleep(50);
+        final long lastSpanTime = System.currentTimeMillis();
+        buffer.add(newSpan(1, true, 100, 0));
+
+        // past the window of the first span, within the window of the last span
+        buffer.expire(lastSpanTime + WINDOW - 1);
+        Assert.assertEquals(2, buffer.getBufferedCount());
+        Assert.assertEquals(0, buffer.getDroppedCount());
+
+        // slow root arriving late
+        buffer.add(newSpan(1, true, SLOW_THRESHOLD, 0));
+        Assert.assertEquals(3, traceDao.spanList.size());
+        Assert.assertEquals(1, buffer.getPromotedCount());
+    }
+
+    @Test
+    public void candidate_promoted_error() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        buffer.add(newSpan(1, true, 100, 1));
+
+        Assert.assertEquals(2, traceDao.spanList.size());
+        Assert.assertEquals(0, buffer.getBufferedCount());
+    }
+
+    @Test
+    public void candidate_promoted_spanEventException() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        SpanBo spanBo = newSpan(1, true, 100, 0);
+        SpanEventBo spanEventBo = new SpanEventBo();
+        spanEventBo.setExceptionInfo(1, "exception");
+        spanBo.addSpanEvent(spanEventBo);
+        buffer.add(spanBo);
+
+        Assert.assertEquals(2, traceDao.spanList.size());
+    }
+
+    @Test
+    public void spanChunk_unknownTransaction() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpanChunk(1));
+        Assert.assertTrue(traceDao.spanChunkList.isEmpty());
+
+        buffer.expire(System.currentTimeMillis() + WINDOW);
+
+        Assert.assertEquals(1, traceDao.spanChunkList.size());
+        Assert.assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void spanChunk_sampledTransaction() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpanChunk(1));
+        buffer.add(newSpan(1, false, 100, 0));
+
+        Assert.assertEquals(1, traceDao.spanChunkList.size());
+        Assert.assertEquals(1, traceDao.spanList.size());
+
+        buffer.add(newSpanChunk(1));
+        Assert.assertEquals(2, traceDao.spanChunkList.size());
+    }
+
+    @Test
+    public void spanChunk_candidateTransaction() {
+        TailSamplingBuffer buffer = newBuffer(1000);
+
+        buffer.add(newSpanChunk(1));
+        buffer.add(newSpan(1, true, 100, 0));
+
+        buffer.expire(System.currentTimeMillis() + WINDOW);
+
+        Assert.assertTrue(traceDao.spanChunkList.isEmpty());
+        Assert.assertTrue(traceDao.spanList.isEmpty());
+        Assert.assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void evict() {
+        // 1 transaction per stripe
+        TailSamplingBuffer buffer = newBuffer(1);
+
+        for (int i = 0; i < 100; i++) {
+            buffer.add(newSpan(i, true, 100, 0));
+        }
+
+        Assert.assertTrue(buffer.getBufferedCount() <= 16);
+        Assert.assertEquals(100, buffer.getBufferedCount() + buffer.getDroppedCount());
+        Assert.assertTrue(traceDao.spanList.isEmpty());
+    }
+
+    @Test
+    public void disable() {
+        TailSamplingBuffer buffer = new TailSamplingBuffer(traceDao, applicationTraceIndexDao, false, WINDOW, 1000, SLOW_THRESHOLD);
+
+        buffer.add(newSpan(1, true, 100, 0));
+        buffer.add(newSpanChunk(1));
+
+        Assert.assertEquals(1, traceDao.spanList.size());
+        Assert.assertEquals(1, traceDao.spanChunkList.size());
+    }
+
+    private SpanBo newSpan(long transactionSequence, boolean candidate, int elapsed, int errCode) {
+        SpanBo spanBo = new SpanBo();
+        spanBo.setAgentId("agentId");
+        spanBo.setApplicationId("applicationId");
+        spanBo.setTransactionId(new TransactionId("agentId", 1, transactionSequence));
+        spanBo.setFlag(candidate ? TraceFlags.TAIL_SAMPLING_CANDIDATE : 0);
+        spanBo.setElapsed(elapsed);
+        spanBo.setErrCode(errCode);
+        return spanBo;
+    }
+
+    private SpanChunkBo newSpanChunk(long transactionSequence) {
+        SpanChunkBo spanChunkBo = new SpanChunkBo();
+        spanChunkBo.setAgentId("agentId");
+        spanChunkBo.setTransactionId(new TransactionId("agentId", 1, transactionSequence));
+        spanChunkBo.addSpanEventBoList(Collections.singletonList(new SpanEventBo()));
+        return spanChunkBo;
+    }
+
+    private static class RecordingTraceDao implements TraceDao {
+        private final List<SpanBo> spanList = new ArrayList<>();
+        private final List<SpanChunkBo> spanChunkList = new ArrayList<>();
+
+        @Override
+        public void insert(SpanBo span) {
+            spanList.add(span);
+        }
+
+        @Override
+        public void insertSpanChunk(SpanChunkBo spanChunk) {
+            spanChunkList.add(spanChunk);
+        }
+    }
+
+    private static class RecordingApplicationTraceIndexDao implements ApplicationTraceIndexDao {
+        private final List<SpanBo> spanList = new ArrayList<>();
+
+        @Override
+        public void insert(TSpan span) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void insert(SpanBo span) {
+            spanList.add(span);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent
+ */
+public class DispatchLaneExecutorTest {
+
+    @Test
+    public void execute() throws Exception {
+        DispatchLaneExecutor executor = new DispatchLaneExecutor(true, 2, 100, 3, 100, 1);
+        executor.start();
+        try {
+            final CountDownLatch latch = new CountDownLatch(20);
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            };
+            for (int i = 0; i < 10; i++) {
+                executor.execute(DispatchLane.SPAN, "app", task);
+                executor.execute(DispatchLane.STAT, "agent", task);
+            }
+            Assert.assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void agentLane_callerThread() {
+        DispatchLaneExecutor executor = new DispatchLaneExecutor(true, 1, 1, 1, 1, 1);
+        executor.start();
+        try {
+            final Thread caller = Thread.currentThread();
+            final AtomicInteger callerThreadCount = new AtomicInteger();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    if (Thread.currentThread() == caller) {
+                        callerThreadCount.incrementAndGet();
+                    }
+                }
+            };
+            for (int i = 0; i < 100; i++) {
+                executor.execute(DispatchLane.AGENT, "agent", task);
+            }
+            Assert.assertEquals(100, callerThreadCount.get());
+            Assert.assertEquals(0, executor.getDroppedCount(DispatchLane.AGENT));
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void spanLane_shed() throws Exception {
+        DispatchLaneExecutor executor = new DispatchLaneExecutor(true, 1, 4, 1, 4, 1);
+        executor.start();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            // occupy the only worker thread
+            executor.execute(DispatchLane.SPAN, "noisy", new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Assert.assertTrue(blocked.await(3000, TimeUnit.MILLISECONDS));
+
+            final AtomicInteger quietCount = new AtomicInteger();
+            Runnable noisyTask = new Runnable() {
+                @Override
+                public void run() {
+                }
+            };
+            Runnable quietTask = new Runnable() {
+                @Override
+                public void run() {
+                    quietCount.incrementAndGet();
+                }
+            };
+            for (int i = 0; i < 10; i++) {
+                executor.execute(DispatchLane.SPAN, "noisy", noisyTask);
+            }
+            executor.execute(DispatchLane.SPAN, "quiet", quietTask);
+            executor.execute(DispatchLane.SPAN, "quiet", quietTask);
+            // stat lane is not affected
+            executor.execute(DispatchLane.STAT, "agent", noisyTask);
+
+            Assert.assertEquals(4, executor.getQueuedCount(DispatchLane.SPAN));
+            Assert.assertEquals(1, executor.getQueuedCount(DispatchLane.STAT));
+            Assert.assertEquals(Long.valueOf(8), executor.getDroppedCountMap(DispatchLane.SPAN).get("noisy"));
+            Assert.assertNull(executor.getDroppedCountMap(DispatchLane.SPAN).get("quiet"));
+            Assert.assertEquals(0, executor.getDroppedCount(DispatchLane.STAT));
+
+            release.countDown();
+            executor.stop();
+            Assert.assertEquals(2, quietCount.get());
+        } finally {
+            release.countDown();
+            executor.stop();
+        }
+    }
+
+    @Test
+    public void disable() {
+        DispatchLaneExecutor executor = new DispatchLaneExecutor(false, 1, 1, 1, 1, 1);
+        executor.start();
+
+        final AtomicInteger count = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            executor.execute(DispatchLane.SPAN, "app", task);
+        }
+        Assert.assertEquals(10, count.get());
+        executor.stop();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class FairDispatchQueueTest {
+
+    @Test
+    public void roundRobin() {
+        FairDispatchQueue queue = new FairDispatchQueue(10);
+        List<String> result = new ArrayList<>();
+
+        Assert.assertTrue(queue.offer("a", new RecordTask(result, "a1")));
+        Assert.assertTrue(queue.offer("a", new RecordTask(result, "a2")));
+        Assert.assertTrue(queue.offer("a", new RecordTask(result, "a3")));
+        Assert.assertTrue(queue.offer("b", new RecordTask(result, "b1")));
+        Assert.assertEquals(4, queue.size());
+
+        runAll(queue);
+
+        Assert.assertEquals("[a1, b1, a2, a3]", result.toString());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void full_dropLongest() {
+        FairDispatchQueue queue = new FairDispatchQueue(4);
+        List<String> result = new ArrayList<>();
+
+        queue.offer("noisy", new RecordTask(result, "n1"));
+        queue.offer("noisy", new RecordTask(result, "n2"));
+        queue.offer("noisy", new RecordTask(result, "n3"));
+        queue.offer("noisy", new RecordTask(result, "n4"));
+        // full. the newest task of noisy is dropped
+        Assert.assertFalse(queue.offer("quiet", new RecordTask(result, "q1")));
+        Assert.assertEquals(4, queue.size());
+
+        runAll(queue);
+
+        Assert.assertEquals("[n1, q1, n2, n3]", result.toString());
+        Map<String, Long> droppedCountMap = queue.getDroppedCountMap();
+        Assert.assertEquals(Long.valueOf(1), droppedCountMap.get("noisy"));
+        Assert.assertNull(droppedCountMap.get("quiet"));
+    }
+
+    @Test
+    public void full_dropOffered() {
+        FairDispatchQueue queue = new FairDispatchQueue(4);
+        List<String> result = new ArrayList<>();
+
+        queue.offer("a", new RecordTask(result, "a1"));
+        queue.offer("a", new RecordTask(result, "a2"));
+        queue.offer("b", new RecordTask(result, "b1"));
+        queue.offer("b", new RecordTask(result, "b2"));
+        // noisy key offers more
+        Assert.assertFalse(queue.offer("a", new RecordTask(result, "a3")));
+
+        runAll(queue);
+
+        Assert.assertEquals("[a1, b1, a2, b2]", result.toString());
+        Assert.assertEquals(1, queue.getDroppedCount());
+        Assert.assertEquals(Long.valueOf(1), queue.getDroppedCountMap().get("a"));
+    }
+
+    @Test
+    public void full_longestAfterPoll() {
+        FairDispatchQueue queue = new FairDispatchQueue(6);
+        List<String> result = new ArrayList<>();
+
+        queue.offer("a", new RecordTask(result, "a1"));
+        queue.offer("a", new RecordTask(result, "a2"));
+        queue.offer("a", new RecordTask(result, "a3"));
+        queue.offer("b", new RecordTask(result, "b1"));
+        queue.offer("b", new RecordTask(result, "b2"));
+        queue.offer("c", new RecordTask(result, "c1"));
+
+        // a is the longest
+        Assert.assertFalse(queue.offer("d", new RecordTask(result, "d1")));
+        Assert.assertEquals(Long.valueOf(1), queue.getDroppedCountMap().get("a"));
+
+        // a1, b1, c1 served. a and b hold 1 task each, d holds 1
+        queue.poll().run();
+        queue.poll().run();
+        queue.poll().run();
+        queue.offer("b", new RecordTask(result, "b3"));
+        queue.offer("b", new RecordTask(result, "b4"));
+        queue.offer("b", new RecordTask(result, "b5"));
+        // b is the longest now
+        Assert.assertFalse(queue.offer("e", new RecordTask(result, "e1")));
+        Assert.assertEquals(Long.valueOf(1), queue.getDroppedCountMap().get("b"));
+
+        runAll(queue);
+
+        Assert.assertEquals("[a1, b1, c1, d1, a2, b2, e1, b3, b4]", result.toString());
+    }
+
+    @Test
+    public void droppedCountMap_bounded() {
+        FairDispatchQueue queue = new FairDispatchQueue(1);
+        queue.offer("first", new RecordTask(new ArrayList<String>(), "first"));
+        for (int i = 0; i < FairDispatchQueue.MAX_DROPPED_KEY_SIZE * 2; i++) {
+            Assert.assertFalse(queue.offer("key" + i, new RecordTask(new ArrayList<String>(), "task")));
+        }
+
+        Assert.assertEquals(FairDispatchQueue.MAX_DROPPED_KEY_SIZE * 2, queue.getDroppedCount());
+        Assert.assertTrue(queue.getDroppedCountMap().size() <= FairDispatchQueue.MAX_DROPPED_KEY_SIZE);
+    }
+
+    private void runAll(FairDispatchQueue queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static class RecordTask implements Runnable {
+        private final List<String> result;
+        private final String name;
+
+        private RecordTask(List<String> result, String name) {
+            this.result = result;
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            result.add(name);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.util.SocketUtils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class ReusePortUDPReceiverTest {
+
+    @Test
+    public void receive() throws Exception {
+        Assume.assumeTrue(ReusePortUDPReceiver.isReusePortSupported());
+
+        final int port = SocketUtils.findAvailableUdpPort(21311);
+        final int packetCount = 10;
+        final CountDownLatch latch = new CountDownLatch(packetCount);
+        final PacketHandler<DatagramPacket> echoHandler = new PacketHandler<DatagramPacket>() {
+            @Override
+            public void receive(DatagramSocket localSocket, DatagramPacket packet) {
+                byte[] copy = Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength());
+                try {
+                    localSocket.send(new DatagramPacket(copy, copy.length, packet.getSocketAddress()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                latch.countDown();
+            }
+        };
+        DataReceiver receiver = new ReusePortUDPReceiver("test", new PacketHandlerFactory<DatagramPacket>() {
+            @Override
+            public PacketHandler<DatagramPacket> createPacketHandler() {
+                return echoHandler;
+            }
+        }, "127.0.0.1", port, 1024 * 64, 2);
+        receiver.start();
+
+        DatagramSocket client = new DatagramSocket();
+        try {
+            client.setSoTimeout(5000);
+            for (int i = 0; i < packetCount; i++) {
+                byte[] data = ("packet-" + i).getBytes("UTF-8");
+                client.send(new DatagramPacket(data, data.length, new InetSocketAddress("127.0.0.1", port)));
+
+                DatagramPacket echo = new DatagramPacket(new byte[1024], 1024);
+                client.receive(echo);
+                Assert.assertEquals("packet-" + i, new String(echo.getData(), 0, echo.getLength(), "UTF-8"));
+            }
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            client.close();
+            receiver.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void reusePortNotSupported() {
+        Assume.assumeFalse(ReusePortUDPReceiver.isReusePortSupported());
+
+        UDPReceiverFactory.createUDPReceiver(UDPReceiverFactory.RECEIVER_TYPE_REUSEPORT, "test", new PacketHandlerFactory<DatagramPacket>() {
+            @Override
+            public PacketHandler<DatagramPacket> createPacketHandler() {
+                return null;
+            }
+        }, "127.0.0.1", 0, 1024, null, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSocketCount() {
+        new ReusePortUDPReceiver("test", new PacketHandlerFactory<DatagramPacket>() {
+            @Override
+            public PacketHandler<DatagramPacket> createPacketHandler() {
+                return null;
+            }
+        }, "127.0.0.1", 0, 1024, 0);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.common.server.bo.BasicSpan;
+import com.navercorp.pinpoint.common.server.bo.DirectSpanFactory;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.SpanFactory;
+import com.navercorp.pinpoint.common.server.util.EmptyAcceptedTimeService;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares TSpan deserialization + {@link SpanFactory} with {@link DirectSpanFactory} for the same span packet.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main SpanDecodeBenchmark
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpanDecodeBenchmark {
+
+    @Param({"0", "10", "100"})
+    private int spanEventCount;
+
+    private byte[] packet;
+
+    private HeaderTBaseDeserializer deserializer;
+    private SpanFactory spanFactory;
+    private DirectSpanFactory directSpanFactory;
+
+    @Setup
+    public void setUp() throws TException {
+        this.packet = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer().serialize(createSpan(spanEventCount));
+
+        this.deserializer = new HeaderTBaseDeserializerFactory().createDeserializer();
+        this.spanFactory = new SpanFactory();
+        this.spanFactory.setAcceptedTimeService(new EmptyAcceptedTimeService());
+        this.directSpanFactory = new DirectSpanFactory();
+    }
+
+    private TSpan createSpan(int spanEventCount) {
+        final TSpan span = new TSpan();
+        span.setAgentId("benchmark-agent");
+        span.setApplicationName("benchmark-application");
+        span.setAgentStartTime(System.currentTimeMillis());
+        span.setTransactionId(TransactionIdUtils.formatBytes("benchmark-agent", span.getAgentStartTime(), 1));
+        span.setSpanId(spanEventCount);
+        span.setStartTime(System.currentTimeMillis());
+        span.setElapsed(100);
+        span.setRpc("/benchmark/request");
+        span.setServiceType((short) 1010);
+        span.setEndPoint("localhost:8080");
+        span.setRemoteAddr("127.0.0.1");
+        span.addToAnnotations(newStringAnnotation(40, "/benchmark/request?param=value"));
+        for (int i = 0; i < spanEventCount; i++) {
+            final TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.setSequence((short) i);
+            spanEvent.setStartElapsed(i);
+            spanEvent.setEndElapsed(1);
+            spanEvent.setServiceType((short) 2100);
+            spanEvent.setApiId(i);
+            spanEvent.setDestinationId("benchmark-db");
+            spanEvent.setEndPoint("localhost:3306");
+            // sql
+            spanEvent.addToAnnotations(newStringAnnotation(20, "select * from benchmark where id = ?"));
+            // sql bind value
+            spanEvent.addToAnnotations(newStringAnnotation(21, "1, benchmark"));
+            span.addToSpanEventList(spanEvent);
+        }
+        return span;
+    }
+
+    private TAnnotation newStringAnnotation(int key, String value) {
+        final TAnnotation annotation = new TAnnotation(key);
+        annotation.setValue(TAnnotationValue.stringValue(value));
+        return annotation;
+    }
+
+    @Benchmark
+    public SpanBo thriftThenMap() throws TException {
+        final TSpan tSpan = (TSpan) deserializer.deserialize(packet);
+        return spanFactory.buildSpanBo(tSpan);
+    }
+
+    @Benchmark
+    public BasicSpan direct() throws TException {
+        return directSpanFactory.decode(packet, 0, packet.length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SpanDecodeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.codahale.metrics.MetricRegistry;
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.receiver.WorkerOption;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.SocketUtils;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays span packets over loopback to {@link UDPReceiver} and {@link ReusePortUDPReceiver}.
+ * Captured packets are read from the file of the system property {@value #CAPTURE_FILE_PROPERTY}
+ * (repeated 4 byte length + packet). Serialized sample spans are sent when it is not set.
+ * The packets are only counted, so the receive path is measured. Received/sent is logged on tear down.
+ * <pre>
+ * run main() or
+ * java -Dpinpoint.benchmark.udp.capture=span.dump -cp ... org.openjdk.jmh.Main UDPReceiverBenchmark
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UDPReceiverBenchmark {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    public static final String CAPTURE_FILE_PROPERTY = "pinpoint.benchmark.udp.capture";
+
+    private static final int BATCH_SIZE = 1024;
+    private static final int SENDER_COUNT = 8;
+
+    @Param({UDPReceiverFactory.RECEIVER_TYPE_DEFAULT, UDPReceiverFactory.RECEIVER_TYPE_REUSEPORT})
+    public String receiverType;
+
+    @Param({"4"})
+    public int ioThreadSize;
+
+    private DataReceiver receiver;
+    private final AtomicLong received = new AtomicLong();
+    private long sent;
+
+    private InetSocketAddress receiverAddress;
+    private final List<DatagramChannel> senderList = new ArrayList<DatagramChannel>();
+    private ByteBuffer[] packets;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.packets = loadPackets();
+
+        final int port = SocketUtils.findAvailableUdpPort(31000);
+        this.receiverAddress = new InetSocketAddress("127.0.0.1", port);
+        final PacketHandler<DatagramPacket> countingHandler = new PacketHandler<DatagramPacket>() {
+            @Override
+            public void receive(DatagramSocket localSocket, DatagramPacket packet) {
+                received.incrementAndGet();
+            }
+        };
+        final PacketHandlerFactory<DatagramPacket> packetHandlerFactory = new PacketHandlerFactory<DatagramPacket>() {
+            @Override
+            public PacketHandler<DatagramPacket> createPacketHandler() {
+                return countingHandler;
+            }
+        };
+        final WorkerOption workerOption = new WorkerOption(ioThreadSize, 1024 * 5, false);
+        this.receiver = UDPReceiverFactory.createUDPReceiver(receiverType, "benchmark", packetHandlerFactory, "127.0.0.1", port, 1024 * 4096, workerOption, ioThreadSize);
+        if (receiver instanceof UDPReceiver) {
+            ReflectionTestUtils.setField(receiver, "metricRegistry", new MetricRegistry());
+        }
+        receiver.start();
+
+        // SO_REUSEPORT distributes by source address, so send from several sockets
+        for (int i = 0; i < SENDER_COUNT; i++) {
+            final DatagramChannel sender = DatagramChannel.open();
+            sender.connect(receiverAddress);
+            senderList.add(sender);
+        }
+    }
+
+    private ByteBuffer[] loadPackets() throws IOException, TException {
+        final String captureFile = System.getProperty(CAPTURE_FILE_PROPERTY);
+        if (captureFile != null) {
+            return readCapturedPackets(captureFile);
+        }
+        final HeaderTBaseSerializer serializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+        final ByteBuffer[] result = new ByteBuffer[16];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ByteBuffer.wrap(serializer.serialize(createSpan(i * 4)));
+        }
+        return result;
+    }
+
+    private ByteBuffer[] readCapturedPackets(String captureFile) throws IOException {
+        final List<ByteBuffer> packetList = new ArrayList<ByteBuffer>();
+        final DataInputStream input = new DataInputStream(new FileInputStream(captureFile));
+        try {
+            while (true) {
+                final int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                final byte[] packet = new byte[length];
+                input.readFully(packet);
+                packetList.add(ByteBuffer.wrap(packet));
+            }
+        } finally {
+            input.close();
+        }
+        if (packetList.isEmpty()) {
+            throw new IOException("empty capture file:" + captureFile);
+        }
+        return packetList.toArray(new ByteBuffer[packetList.size()]);
+    }
+
+    private TSpan createSpan(int spanEventCount) {
+        final TSpan span = new TSpan();
+        span.setAgentId("benchmark-agent");
+        span.setApplicationName("benchmark-application");
+        span.setAgentStartTime(System.currentTimeMillis());
+        span.setTransactionId(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        span.setSpanId(spanEventCount);
+        span.setStartTime(System.currentTimeMillis());
+        span.setElapsed(100);
+        span.setRpc("/benchmark/request");
+        span.setServiceType((short) 1010);
+        span.setEndPoint("localhost:8080");
+        span.setRemoteAddr("127.0.0.1");
+        for (int i = 0; i < spanEventCount; i++) {
+            final TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.setSequence((short) i);
+            spanEvent.setStartElapsed(i);
+            spanEvent.setEndElapsed(1);
+            spanEvent.setServiceType((short) 2100);
+            spanEvent.setApiId(i);
+            spanEvent.addToAnnotations(new TAnnotation(12));
+            span.addToSpanEventList(spanEvent);
+        }
+        return span;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (DatagramChannel sender : senderList) {
+            sender.close();
+        }
+        receiver.shutdown();
+        logger.info("{} ioThreadSize:{} received/sent:{}/{}", receiverType, ioThreadSize, received.get(), sent);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long replay() throws IOException, InterruptedException {
+        final long expected = received.get() + BATCH_SIZE;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final ByteBuffer packet = packets[i % packets.length];
+            packet.rewind();
+            senderList.get(i % SENDER_COUNT).write(packet);
+        }
+        sent += BATCH_SIZE;
+        // wait for the receiver. dropped packets end the wait after 100ms
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        while (received.get() < expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        return received.get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UDPReceiverBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -62,6 +62,10 @@ public final class HBaseTables {
     @Deprecated public static final byte[] AGENT_STAT_COL_TRANSACTION_UNSAMPLED_CONTINUATION = Bytes.toBytes("tUnSC"); // qualifier for unsampled continuation count
     @Deprecated public static final byte[] AGENT_STAT_COL_ACTIVE_TRACE_HISTOGRAM = Bytes.toBytes("aH"); // qualifier for active trace histogram
 
+    // agent statistics aggregated per application and time window
+    public static final TableName APPLICATION_STAT = TableName.valueOf("ApplicationStat");
+    public static final byte[] APPLICATION_STAT_CF_STATISTICS = Bytes.toBytes("S");
+
     @Deprecated
     public static final TableName TRACES = TableName.valueOf("Traces");
     @Deprecated
@@ -114,6 +118,15 @@ public final class HBaseTables {
     public static final TableName MAP_STATISTICS_CALLEE_VER2 = TableName.valueOf("ApplicationMapStatisticsCallee_Ver2");
     public static final byte[] MAP_STATISTICS_CALLEE_VER2_CF_COUNTER = Bytes.toBytes("C");
 
+    // rollup of MAP_STATISTICS_CALLER_VER2, MAP_STATISTICS_CALLEE_VER2. same column family and row/column format
+    public static final TableName MAP_STATISTICS_CALLER_VER2_5M = TableName.valueOf("ApplicationMapStatisticsCaller_Ver2_5M");
+    public static final TableName MAP_STATISTICS_CALLER_VER2_1H = TableName.valueOf("ApplicationMapStatisticsCaller_Ver2_1H");
+    public static final TableName MAP_STATISTICS_CALLER_VER2_1D = TableName.valueOf("ApplicationMapStatisticsCaller_Ver2_1D");
+
+    public static final TableName MAP_STATISTICS_CALLEE_VER2_5M = TableName.valueOf("ApplicationMapStatisticsCallee_Ver2_5M");
+    public static final TableName MAP_STATISTICS_CALLEE_VER2_1H = TableName.valueOf("ApplicationMapStatisticsCallee_Ver2_1H");
+    public static final TableName MAP_STATISTICS_CALLEE_VER2_1D = TableName.valueOf("ApplicationMapStatisticsCallee_Ver2_1D");
+
     public static final TableName MAP_STATISTICS_SELF_VER2 = TableName.valueOf("ApplicationMapStatisticsSelf_Ver2");
     public static final byte[] MAP_STATISTICS_SELF_VER2_CF_COUNTER = Bytes.toBytes("C");
 
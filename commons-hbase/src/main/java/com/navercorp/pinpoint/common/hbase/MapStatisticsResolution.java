@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.hbase;
+
+import org.apache.hadoop.hbase.TableName;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time slot resolution of the application map statistics tables.
+ * ONE_MINUTE is the original table, the others are rollups written by the collector with the same row/column format.
+ *
+ * @author agent
+ */
+public enum MapStatisticsResolution {
+
+    ONE_MINUTE(TimeUnit.MINUTES.toMillis(1), HBaseTables.MAP_STATISTICS_CALLER_VER2, HBaseTables.MAP_STATISTICS_CALLEE_VER2),
+    FIVE_MINUTES(TimeUnit.MINUTES.toMillis(5), HBaseTables.MAP_STATISTICS_CALLER_VER2_5M, HBaseTables.MAP_STATISTICS_CALLEE_VER2_5M),
+    ONE_HOUR(TimeUnit.HOURS.toMillis(1), HBaseTables.MAP_STATISTICS_CALLER_VER2_1H, HBaseTables.MAP_STATISTICS_CALLEE_VER2_1H),
+    ONE_DAY(TimeUnit.DAYS.toMillis(1), HBaseTables.MAP_STATISTICS_CALLER_VER2_1D, HBaseTables.MAP_STATISTICS_CALLEE_VER2_1D);
+
+    private final long resolution;
+    private final TableName callerTable;
+    private final TableName calleeTable;
+
+    MapStatisticsResolution(long resolution, TableName callerTable, TableName calleeTable) {
+        this.resolution = resolution;
+        this.callerTable = callerTable;
+        this.calleeTable = calleeTable;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return table of MAP_STATISTICS_CALLER_VER2 format (row : callee, column : caller)
+     */
+    public TableName getCallerTable() {
+        return callerTable;
+    }
+
+    /**
+     * @return table of MAP_STATISTICS_CALLEE_VER2 format (row : caller, column : callee)
+     */
+    public TableName getCalleeTable() {
+        return calleeTable;
+    }
+
+    public long getTimeSlot(long time) {
+        return (time / resolution) * resolution;
+    }
+
+    public boolean isRollup() {
+        return this != ONE_MINUTE;
+    }
+}
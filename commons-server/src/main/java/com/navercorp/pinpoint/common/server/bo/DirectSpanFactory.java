@@ -0,0 +1,726 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import com.navercorp.pinpoint.common.server.bo.filter.EmptySpanEventFilter;
+import com.navercorp.pinpoint.common.server.bo.filter.SpanEventFilter;
+import com.navercorp.pinpoint.common.util.LazyString;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.io.Header;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.TBaseLocator;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a header + TSpan/TSpanChunk packet straight into {@link SpanBo}/{@link SpanChunkBo}
+ * without creating the TSpan, TSpanEvent, TAnnotation object graph first.
+ * The result is the same as {@link SpanFactory} except that string annotation values are {@link LazyString}.
+ * collectorAcceptTime is not set, the caller sets it.
+ *
+ * @author agent
+ */
+@Component
+public class DirectSpanFactory {
+
+    // TSpan field id
+    private static final short SPAN_AGENT_ID = 1;
+    private static final short SPAN_APPLICATION_NAME = 2;
+    private static final short SPAN_AGENT_START_TIME = 3;
+    private static final short SPAN_TRANSACTION_ID = 4;
+    private static final short SPAN_SPAN_ID = 7;
+    private static final short SPAN_PARENT_SPAN_ID = 8;
+    private static final short SPAN_START_TIME = 9;
+    private static final short SPAN_ELAPSED = 10;
+    private static final short SPAN_RPC = 11;
+    private static final short SPAN_SERVICE_TYPE = 12;
+    private static final short SPAN_END_POINT = 13;
+    private static final short SPAN_REMOTE_ADDR = 14;
+    private static final short SPAN_ANNOTATIONS = 15;
+    private static final short SPAN_FLAG = 16;
+    private static final short SPAN_ERR = 17;
+    private static final short SPAN_SPAN_EVENT_LIST = 18;
+    private static final short SPAN_PARENT_APPLICATION_NAME = 19;
+    private static final short SPAN_PARENT_APPLICATION_TYPE = 20;
+    private static final short SPAN_ACCEPTOR_HOST = 21;
+    private static final short SPAN_API_ID = 25;
+    private static final short SPAN_EXCEPTION_INFO = 26;
+    private static final short SPAN_APPLICATION_SERVICE_TYPE = 30;
+    private static final short SPAN_LOGGING_TRANSACTION_INFO = 31;
+
+    // TSpanChunk field id
+    private static final short SPAN_CHUNK_AGENT_ID = 1;
+    private static final short SPAN_CHUNK_APPLICATION_NAME = 2;
+    private static final short SPAN_CHUNK_AGENT_START_TIME = 3;
+    private static final short SPAN_CHUNK_SERVICE_TYPE = 4;
+    private static final short SPAN_CHUNK_TRANSACTION_ID = 5;
+    private static final short SPAN_CHUNK_SPAN_ID = 8;
+    private static final short SPAN_CHUNK_END_POINT = 9;
+    private static final short SPAN_CHUNK_SPAN_EVENT_LIST = 10;
+    private static final short SPAN_CHUNK_APPLICATION_SERVICE_TYPE = 11;
+
+    // TSpanEvent field id
+    private static final short EVENT_SEQUENCE = 8;
+    private static final short EVENT_START_ELAPSED = 9;
+    private static final short EVENT_END_ELAPSED = 10;
+    private static final short EVENT_RPC = 11;
+    private static final short EVENT_SERVICE_TYPE = 12;
+    private static final short EVENT_END_POINT = 13;
+    private static final short EVENT_ANNOTATIONS = 14;
+    private static final short EVENT_DEPTH = 15;
+    private static final short EVENT_NEXT_SPAN_ID = 16;
+    private static final short EVENT_DESTINATION_ID = 20;
+    private static final short EVENT_API_ID = 25;
+    private static final short EVENT_EXCEPTION_INFO = 26;
+    private static final short EVENT_ASYNC_ID = 30;
+    private static final short EVENT_NEXT_ASYNC_ID = 31;
+    private static final short EVENT_ASYNC_SEQUENCE = 32;
+
+    // TAnnotation field id
+    private static final short ANNOTATION_KEY = 1;
+    private static final short ANNOTATION_VALUE = 2;
+
+    // TAnnotationValue field id
+    private static final short VALUE_STRING = 1;
+    private static final short VALUE_BOOL = 2;
+    private static final short VALUE_INT = 3;
+    private static final short VALUE_LONG = 4;
+    private static final short VALUE_SHORT = 5;
+    private static final short VALUE_DOUBLE = 6;
+    private static final short VALUE_BINARY = 7;
+    private static final short VALUE_BYTE = 8;
+    private static final short VALUE_INT_STRING = 9;
+    private static final short VALUE_INT_STRING_STRING = 10;
+
+    // TIntStringValue field id
+    private static final short INT_STRING_INT = 1;
+    private static final short INT_STRING_STRING = 2;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private final TProtocolFactory protocolFactory;
+    private final short spanType;
+    private final short spanChunkType;
+
+    private SpanEventFilter spanEventFilter = new EmptySpanEventFilter();
+
+    public DirectSpanFactory() {
+        this(HeaderTBaseDeserializerFactory.DEFAULT_FACTORY);
+    }
+
+    public DirectSpanFactory(HeaderTBaseDeserializerFactory deserializerFactory) {
+        if (deserializerFactory == null) {
+            throw new NullPointerException("deserializerFactory must not be null");
+        }
+        this.protocolFactory = deserializerFactory.getProtocolFactory();
+        final TBaseLocator locator = deserializerFactory.getLocator();
+        try {
+            this.spanType = locator.headerLookup(new TSpan()).getType();
+            this.spanChunkType = locator.headerLookup(new TSpanChunk()).getType();
+        } catch (TException e) {
+            throw new IllegalStateException("span header not found", e);
+        }
+    }
+
+    @Autowired(required = false)
+    public void setSpanEventFilter(SpanEventFilter spanEventFilter) {
+        this.spanEventFilter = spanEventFilter;
+    }
+
+    /**
+     * @return header type of the packet, or -1 if the packet does not start with a valid header
+     */
+    public short readType(byte[] bytes, int offset, int length) {
+        if (length < Header.HEADER_SIZE) {
+            return -1;
+        }
+        if (bytes[offset] != Header.SIGNATURE) {
+            return -1;
+        }
+        return (short) (((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff));
+    }
+
+    public boolean isSupport(short type) {
+        return type == spanType || type == spanChunkType;
+    }
+
+    /**
+     * @return {@link SpanBo} or {@link SpanChunkBo}, null if the packet is neither TSpan nor TSpanChunk
+     */
+    public BasicSpan decode(byte[] bytes, int offset, int length) throws TException {
+        if (bytes == null) {
+            throw new NullPointerException("bytes must not be null");
+        }
+        final short type = readType(bytes, offset, length);
+        if (type == spanType) {
+            return readSpan(newProtocol(bytes, offset, length));
+        }
+        if (type == spanChunkType) {
+            return readSpanChunk(newProtocol(bytes, offset, length));
+        }
+        return null;
+    }
+
+    private TProtocol newProtocol(byte[] bytes, int offset, int length) {
+        final TMemoryInputTransport transport = new TMemoryInputTransport(bytes, offset + Header.HEADER_SIZE, length - Header.HEADER_SIZE);
+        return protocolFactory.getProtocol(transport);
+    }
+
+    private SpanBo readSpan(TProtocol protocol) throws TException {
+        final SpanBo spanBo = new SpanBo();
+        // TSpan default values
+        byte[] transactionId = EMPTY_BYTES;
+        short serviceType = 0;
+        Short applicationServiceType = null;
+        spanBo.setParentSpanId(-1);
+        List<AnnotationBo> annotationBoList = null;
+        List<SpanEventBo> spanEventBoList = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case SPAN_AGENT_ID:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setAgentId(protocol.readString());
+                    }
+                    break;
+                case SPAN_APPLICATION_NAME:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setApplicationId(protocol.readString());
+                    }
+                    break;
+                case SPAN_AGENT_START_TIME:
+                    if (check(protocol, field, TType.I64)) {
+                        spanBo.setAgentStartTime(protocol.readI64());
+                    }
+                    break;
+                case SPAN_TRANSACTION_ID:
+                    if (check(protocol, field, TType.STRING)) {
+                        transactionId = readBytes(protocol);
+                    }
+                    break;
+                case SPAN_SPAN_ID:
+                    if (check(protocol, field, TType.I64)) {
+                        spanBo.setSpanId(protocol.readI64());
+                    }
+                    break;
+                case SPAN_PARENT_SPAN_ID:
+                    if (check(protocol, field, TType.I64)) {
+                        spanBo.setParentSpanId(protocol.readI64());
+                    }
+                    break;
+                case SPAN_START_TIME:
+                    if (check(protocol, field, TType.I64)) {
+                        spanBo.setStartTime(protocol.readI64());
+                    }
+                    break;
+                case SPAN_ELAPSED:
+                    if (check(protocol, field, TType.I32)) {
+                        spanBo.setElapsed(protocol.readI32());
+                    }
+                    break;
+                case SPAN_RPC:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setRpc(protocol.readString());
+                    }
+                    break;
+                case SPAN_SERVICE_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        serviceType = protocol.readI16();
+                    }
+                    break;
+                case SPAN_END_POINT:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case SPAN_REMOTE_ADDR:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setRemoteAddr(protocol.readString());
+                    }
+                    break;
+                case SPAN_ANNOTATIONS:
+                    if (check(protocol, field, TType.LIST)) {
+                        annotationBoList = readAnnotationList(protocol);
+                    }
+                    break;
+                case SPAN_FLAG:
+                    if (check(protocol, field, TType.I16)) {
+                        spanBo.setFlag(protocol.readI16());
+                    }
+                    break;
+                case SPAN_ERR:
+                    if (check(protocol, field, TType.I32)) {
+                        spanBo.setErrCode(protocol.readI32());
+                    }
+                    break;
+                case SPAN_SPAN_EVENT_LIST:
+                    if (check(protocol, field, TType.LIST)) {
+                        spanEventBoList = readSpanEventList(protocol);
+                    }
+                    break;
+                case SPAN_PARENT_APPLICATION_NAME:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setParentApplicationId(protocol.readString());
+                    }
+                    break;
+                case SPAN_PARENT_APPLICATION_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        spanBo.setParentApplicationServiceType(protocol.readI16());
+                    }
+                    break;
+                case SPAN_ACCEPTOR_HOST:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanBo.setAcceptorHost(protocol.readString());
+                    }
+                    break;
+                case SPAN_API_ID:
+                    if (check(protocol, field, TType.I32)) {
+                        spanBo.setApiId(protocol.readI32());
+                    }
+                    break;
+                case SPAN_EXCEPTION_INFO:
+                    if (check(protocol, field, TType.STRUCT)) {
+                        final TIntStringValue exceptionInfo = readIntStringValue(protocol);
+                        spanBo.setExceptionInfo(exceptionInfo.getIntValue(), exceptionInfo.getStringValue());
+                    }
+                    break;
+                case SPAN_APPLICATION_SERVICE_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        applicationServiceType = protocol.readI16();
+                    }
+                    break;
+                case SPAN_LOGGING_TRANSACTION_INFO:
+                    if (check(protocol, field, TType.BYTE)) {
+                        spanBo.setLoggingTransactionInfo(protocol.readByte());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        spanBo.setServiceType(serviceType);
+        // FIXME (2015.03) Legacy - applicationServiceType added in v1.1.0
+        if (applicationServiceType != null) {
+            spanBo.setApplicationServiceType(applicationServiceType);
+        } else {
+            spanBo.setApplicationServiceType(serviceType);
+        }
+        spanBo.setTransactionId(newTransactionId(transactionId, spanBo.getAgentId()));
+        if (annotationBoList != null) {
+            spanBo.setAnnotationBoList(annotationBoList);
+        }
+        if (spanEventBoList != null) {
+            spanBo.addSpanEventBoList(spanEventBoList);
+        }
+        return spanBo;
+    }
+
+    private SpanChunkBo readSpanChunk(TProtocol protocol) throws TException {
+        final SpanChunkBo spanChunkBo = new SpanChunkBo();
+        byte[] transactionId = EMPTY_BYTES;
+        short serviceType = 0;
+        Short applicationServiceType = null;
+        List<SpanEventBo> spanEventBoList = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case SPAN_CHUNK_AGENT_ID:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanChunkBo.setAgentId(protocol.readString());
+                    }
+                    break;
+                case SPAN_CHUNK_APPLICATION_NAME:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanChunkBo.setApplicationId(protocol.readString());
+                    }
+                    break;
+                case SPAN_CHUNK_AGENT_START_TIME:
+                    if (check(protocol, field, TType.I64)) {
+                        spanChunkBo.setAgentStartTime(protocol.readI64());
+                    }
+                    break;
+                case SPAN_CHUNK_SERVICE_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        serviceType = protocol.readI16();
+                    }
+                    break;
+                case SPAN_CHUNK_TRANSACTION_ID:
+                    if (check(protocol, field, TType.STRING)) {
+                        transactionId = readBytes(protocol);
+                    }
+                    break;
+                case SPAN_CHUNK_SPAN_ID:
+                    if (check(protocol, field, TType.I64)) {
+                        spanChunkBo.setSpanId(protocol.readI64());
+                    }
+                    break;
+                case SPAN_CHUNK_END_POINT:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanChunkBo.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case SPAN_CHUNK_SPAN_EVENT_LIST:
+                    if (check(protocol, field, TType.LIST)) {
+                        spanEventBoList = readSpanEventList(protocol);
+                    }
+                    break;
+                case SPAN_CHUNK_APPLICATION_SERVICE_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        applicationServiceType = protocol.readI16();
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        spanChunkBo.setServiceType(serviceType);
+        if (applicationServiceType != null) {
+            spanChunkBo.setApplicationServiceType(applicationServiceType);
+        } else {
+            spanChunkBo.setApplicationServiceType(serviceType);
+        }
+        spanChunkBo.setTransactionId(newTransactionId(transactionId, spanChunkBo.getAgentId()));
+        if (spanEventBoList != null) {
+            spanChunkBo.addSpanEventBoList(spanEventBoList);
+        }
+        return spanChunkBo;
+    }
+
+    private List<SpanEventBo> readSpanEventList(TProtocol protocol) throws TException {
+        final TList list = protocol.readListBegin();
+        final List<SpanEventBo> spanEventBoList = new ArrayList<SpanEventBo>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            final SpanEventBo spanEventBo = readSpanEvent(protocol);
+            if (!spanEventFilter.filter(spanEventBo)) {
+                continue;
+            }
+            spanEventBoList.add(spanEventBo);
+        }
+        protocol.readListEnd();
+
+        Collections.sort(spanEventBoList, SpanEventComparator.INSTANCE);
+        return spanEventBoList;
+    }
+
+    private SpanEventBo readSpanEvent(TProtocol protocol) throws TException {
+        final SpanEventBo spanEventBo = new SpanEventBo();
+        List<AnnotationBo> annotationBoList = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case EVENT_SEQUENCE:
+                    if (check(protocol, field, TType.I16)) {
+                        spanEventBo.setSequence(protocol.readI16());
+                    }
+                    break;
+                case EVENT_START_ELAPSED:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setStartElapsed(protocol.readI32());
+                    }
+                    break;
+                case EVENT_END_ELAPSED:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setEndElapsed(protocol.readI32());
+                    }
+                    break;
+                case EVENT_RPC:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanEventBo.setRpc(protocol.readString());
+                    }
+                    break;
+                case EVENT_SERVICE_TYPE:
+                    if (check(protocol, field, TType.I16)) {
+                        spanEventBo.setServiceType(protocol.readI16());
+                    }
+                    break;
+                case EVENT_END_POINT:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanEventBo.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case EVENT_ANNOTATIONS:
+                    if (check(protocol, field, TType.LIST)) {
+                        annotationBoList = readAnnotationList(protocol);
+                    }
+                    break;
+                case EVENT_DEPTH:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setDepth(protocol.readI32());
+                    }
+                    break;
+                case EVENT_NEXT_SPAN_ID:
+                    if (check(protocol, field, TType.I64)) {
+                        spanEventBo.setNextSpanId(protocol.readI64());
+                    }
+                    break;
+                case EVENT_DESTINATION_ID:
+                    if (check(protocol, field, TType.STRING)) {
+                        spanEventBo.setDestinationId(protocol.readString());
+                    }
+                    break;
+                case EVENT_API_ID:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setApiId(protocol.readI32());
+                    }
+                    break;
+                case EVENT_EXCEPTION_INFO:
+                    if (check(protocol, field, TType.STRUCT)) {
+                        final TIntStringValue exceptionInfo = readIntStringValue(protocol);
+                        spanEventBo.setExceptionInfo(exceptionInfo.getIntValue(), exceptionInfo.getStringValue());
+                    }
+                    break;
+                case EVENT_ASYNC_ID:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setAsyncId(protocol.readI32());
+                    }
+                    break;
+                case EVENT_NEXT_ASYNC_ID:
+                    if (check(protocol, field, TType.I32)) {
+                        spanEventBo.setNextAsyncId(protocol.readI32());
+                    }
+                    break;
+                case EVENT_ASYNC_SEQUENCE:
+                    if (check(protocol, field, TType.I16)) {
+                        spanEventBo.setAsyncSequence(protocol.readI16());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        spanEventBo.setAnnotationBoList(annotationBoList != null ? annotationBoList : new ArrayList<AnnotationBo>());
+        return spanEventBo;
+    }
+
+    private List<AnnotationBo> readAnnotationList(TProtocol protocol) throws TException {
+        final TList list = protocol.readListBegin();
+        final List<AnnotationBo> annotationBoList = new ArrayList<AnnotationBo>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            annotationBoList.add(readAnnotation(protocol));
+        }
+        protocol.readListEnd();
+
+        Collections.sort(annotationBoList, AnnotationComparator.INSTANCE);
+        return annotationBoList;
+    }
+
+    private AnnotationBo readAnnotation(TProtocol protocol) throws TException {
+        final AnnotationBo annotationBo = new AnnotationBo();
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case ANNOTATION_KEY:
+                    if (check(protocol, field, TType.I32)) {
+                        annotationBo.setKey(protocol.readI32());
+                    }
+                    break;
+                case ANNOTATION_VALUE:
+                    if (check(protocol, field, TType.STRUCT)) {
+                        annotationBo.setValue(readAnnotationValue(protocol));
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return annotationBo;
+    }
+
+    /**
+     * same value as TAnnotationValue.getFieldValue() except that a string is {@link LazyString}
+     */
+    private Object readAnnotationValue(TProtocol protocol) throws TException {
+        Object value = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case VALUE_STRING:
+                    if (check(protocol, field, TType.STRING)) {
+                        value = new LazyString(readBytes(protocol));
+                    }
+                    break;
+                case VALUE_BOOL:
+                    if (check(protocol, field, TType.BOOL)) {
+                        value = protocol.readBool();
+                    }
+                    break;
+                case VALUE_INT:
+                    if (check(protocol, field, TType.I32)) {
+                        value = protocol.readI32();
+                    }
+                    break;
+                case VALUE_LONG:
+                    if (check(protocol, field, TType.I64)) {
+                        value = protocol.readI64();
+                    }
+                    break;
+                case VALUE_SHORT:
+                    if (check(protocol, field, TType.I16)) {
+                        value = protocol.readI16();
+                    }
+                    break;
+                case VALUE_DOUBLE:
+                    if (check(protocol, field, TType.DOUBLE)) {
+                        value = protocol.readDouble();
+                    }
+                    break;
+                case VALUE_BINARY:
+                    if (check(protocol, field, TType.STRING)) {
+                        value = readBytes(protocol);
+                    }
+                    break;
+                case VALUE_BYTE:
+                    if (check(protocol, field, TType.BYTE)) {
+                        value = protocol.readByte();
+                    }
+                    break;
+                case VALUE_INT_STRING:
+                    if (check(protocol, field, TType.STRUCT)) {
+                        value = readIntStringValue(protocol);
+                    }
+                    break;
+                case VALUE_INT_STRING_STRING:
+                    if (check(protocol, field, TType.STRUCT)) {
+                        final TIntStringStringValue intStringStringValue = new TIntStringStringValue();
+                        intStringStringValue.read(protocol);
+                        value = intStringStringValue;
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return value;
+    }
+
+    private TIntStringValue readIntStringValue(TProtocol protocol) throws TException {
+        final TIntStringValue intStringValue = new TIntStringValue();
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case INT_STRING_INT:
+                    if (check(protocol, field, TType.I32)) {
+                        intStringValue.setIntValue(protocol.readI32());
+                    }
+                    break;
+                case INT_STRING_STRING:
+                    if (check(protocol, field, TType.STRING)) {
+                        intStringValue.setStringValue(protocol.readString());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return intStringValue;
+    }
+
+    /**
+     * skip the field if the type does not match like the generated thrift code
+     */
+    private boolean check(TProtocol protocol, TField field, byte type) throws TException {
+        if (field.type == type) {
+            return true;
+        }
+        TProtocolUtil.skip(protocol, field.type);
+        return false;
+    }
+
+    private byte[] readBytes(TProtocol protocol) throws TException {
+        final ByteBuffer buffer = protocol.readBinary();
+        final int remaining = buffer.remaining();
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && remaining == buffer.array().length) {
+            return buffer.array();
+        }
+        // may be a view of the packet buffer which is reused
+        final byte[] bytes = new byte[remaining];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private TransactionId newTransactionId(byte[] transactionIdBytes, String spanAgentId) {
+        final TransactionId transactionId = TransactionIdUtils.parseTransactionId(transactionIdBytes);
+        if (transactionId.getAgentId() != null) {
+            return transactionId;
+        }
+        return new TransactionId(spanAgentId, transactionId.getAgentStartTime(), transactionId.getTransactionSequence());
+    }
+}
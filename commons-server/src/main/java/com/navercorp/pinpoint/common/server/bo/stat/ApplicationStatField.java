@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo.stat;
+
+/**
+ * Agent statistics aggregated per application. The type code is used as the column qualifier of the ApplicationStat table.
+ *
+ * @author agent
+ */
+public enum ApplicationStatField {
+    UNKNOWN(0, AgentStatType.UNKNOWN, "Unknown"),
+    HEAP_USED(1, AgentStatType.JVM_GC, "Heap Used"),
+    NON_HEAP_USED(2, AgentStatType.JVM_GC, "Non Heap Used"),
+    JVM_CPU_LOAD(3, AgentStatType.CPU_LOAD, "JVM Cpu Usage"),
+    SYSTEM_CPU_LOAD(4, AgentStatType.CPU_LOAD, "System Cpu Usage"),
+    TRANSACTION_COUNT(5, AgentStatType.TRANSACTION, "Transaction Count"),
+    ACTIVE_TRACE_COUNT(6, AgentStatType.ACTIVE_TRACE, "Active Trace Count");
+
+    private final byte typeCode;
+    private final AgentStatType agentStatType;
+    private final String name;
+
+    ApplicationStatField(int typeCode, AgentStatType agentStatType, String name) {
+        if (typeCode < 0 || typeCode > 255) {
+            throw new IllegalArgumentException("type code out of range (0~255)");
+        }
+        this.typeCode = (byte) (typeCode & 0xFF);
+        this.agentStatType = agentStatType;
+        this.name = name;
+    }
+
+    public int getTypeCode() {
+        return this.typeCode & 0xFF;
+    }
+
+    public byte getRawTypeCode() {
+        return typeCode;
+    }
+
+    public AgentStatType getAgentStatType() {
+        return agentStatType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    public static ApplicationStatField fromTypeCode(byte typeCode) {
+        for (ApplicationStatField field : ApplicationStatField.values()) {
+            if (field.typeCode == typeCode) {
+                return field;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo.stat;
+
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+
+/**
+ * count, sum, min and max of an {@link ApplicationStatField} in a window. The column value of the ApplicationStat table.
+ * <pre>
+ * value : count(long) + sum(double) + min(double) + max(double)
+ * </pre>
+ *
+ * @author agent
+ */
+public class ApplicationStatSummaryBo {
+
+    public static final int VALUE_SIZE = 8 + (8 * 3);
+
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+
+    public ApplicationStatSummaryBo(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAvg() {
+        if (count == 0) {
+            return 0;
+        }
+        return sum / count;
+    }
+
+    /**
+     * merges the summary of the same window written by another collector
+     */
+    public void merge(ApplicationStatSummaryBo other) {
+        if (other == null) {
+            throw new NullPointerException("other must not be null");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        if (this.count == 0) {
+            this.min = other.min;
+            this.max = other.max;
+        } else {
+            this.min = Math.min(this.min, other.min);
+            this.max = Math.max(this.max, other.max);
+        }
+        this.count += other.count;
+        this.sum += other.sum;
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = new FixedBuffer(VALUE_SIZE);
+        buffer.putLong(this.count);
+        buffer.putDouble(this.sum);
+        buffer.putDouble(this.min);
+        buffer.putDouble(this.max);
+        return buffer.getBuffer();
+    }
+
+    public static ApplicationStatSummaryBo readValue(byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(value);
+        final long count = buffer.readLong();
+        final double sum = buffer.readDouble();
+        final double min = buffer.readDouble();
+        final double max = buffer.readDouble();
+        return new ApplicationStatSummaryBo(count, sum, min, max);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ApplicationStatSummaryBo{");
+        sb.append("count=").append(count);
+        sb.append(", sum=").append(sum);
+        sb.append(", min=").append(min);
+        sb.append(", max=").append(max);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -31,6 +31,7 @@ public class TransactionBo implements AgentStatDataPoint {
     private long sampledContinuationCount = UNCOLLECTED_VALUE;
     private long unsampledNewCount = UNCOLLECTED_VALUE;
     private long unsampledContinuationCount = UNCOLLECTED_VALUE;
+    private long samplingRate = UNCOLLECTED_VALUE;
 
     @Override
     public String getAgentId() {
@@ -107,6 +108,14 @@ public class TransactionBo implements AgentStatDataPoint {
         this.unsampledContinuationCount = unsampledContinuationCount;
     }
 
+    public long getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(long samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -121,6 +130,7 @@ public class TransactionBo implements AgentStatDataPoint {
         if (sampledContinuationCount != that.sampledContinuationCount) return false;
         if (unsampledNewCount != that.unsampledNewCount) return false;
         if (unsampledContinuationCount != that.unsampledContinuationCount) return false;
+        if (samplingRate != that.samplingRate) return false;
         return agentId != null ? agentId.equals(that.agentId) : that.agentId == null;
 
     }
@@ -135,6 +145,7 @@ public class TransactionBo implements AgentStatDataPoint {
         result = 31 * result + (int) (sampledContinuationCount ^ (sampledContinuationCount >>> 32));
         result = 31 * result + (int) (unsampledNewCount ^ (unsampledNewCount >>> 32));
         result = 31 * result + (int) (unsampledContinuationCount ^ (unsampledContinuationCount >>> 32));
+        result = 31 * result + (int) (samplingRate ^ (samplingRate >>> 32));
         return result;
     }
 
@@ -149,6 +160,7 @@ public class TransactionBo implements AgentStatDataPoint {
                 ", sampledContinuationCount=" + sampledContinuationCount +
                 ", unsampledNewCount=" + unsampledNewCount +
                 ", unsampledContinuationCount=" + unsampledContinuationCount +
+                ", samplingRate=" + samplingRate +
                 '}';
     }
 }
@@ -77,6 +77,19 @@ public final class SpanUtils {
         return buffer.getBuffer();
     }
 
+    public static byte[] getVarTransactionId(BasicSpan basicSpan) {
+        if (basicSpan == null) {
+            throw new NullPointerException("basicSpan must not be null");
+        }
+        final TransactionId transactionId = basicSpan.getTransactionId();
+
+        final Buffer buffer= new AutomaticBuffer(32);
+        buffer.putPrefixedString(transactionId.getAgentId());
+        buffer.putSVLong(transactionId.getAgentStartTime());
+        buffer.putVLong(transactionId.getTransactionSequence());
+        return buffer.getBuffer();
+    }
+
     @Deprecated
     public static byte[] getTransactionId(TSpan span) {
         if (span == null) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import com.navercorp.pinpoint.common.util.LazyString;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class DirectSpanFactoryTest {
+
+    private static final int REPEAT_COUNT = 10;
+
+    private final DirectSpanFactory directSpanFactory = new DirectSpanFactory();
+
+    private final SpanFactoryAssert spanFactoryAssert = new SpanFactoryAssert();
+
+    private final RandomTSpan random = new RandomTSpan();
+
+    private final HeaderTBaseSerializer serializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+
+    @Test
+    public void testDecodeSpan() throws Exception {
+        for (int i = 0; i < REPEAT_COUNT; i++) {
+            TSpan tSpan = random.randomTSpan();
+            List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>();
+            spanEventList.add(random.randomTSpanEvent((short) 1));
+            spanEventList.add(random.randomTSpanEvent((short) 0));
+            tSpan.setSpanEventList(spanEventList);
+
+            byte[] bytes = serializer.serialize(tSpan);
+            SpanBo spanBo = (SpanBo) directSpanFactory.decode(bytes, 0, bytes.length);
+
+            assertLazyString(spanBo.getAnnotationBoList());
+            for (SpanEventBo spanEventBo : spanBo.getSpanEventBoList()) {
+                assertLazyString(spanEventBo.getAnnotationBoList());
+            }
+            spanFactoryAssert.assertSpan(tSpan, spanBo);
+            Assert.assertEquals(0, spanBo.getSpanEventBoList().get(0).getSequence());
+        }
+    }
+
+    @Test
+    public void testDecodeSpan_default() throws Exception {
+        TSpan tSpan = new TSpan();
+        tSpan.setAgentId("agentId");
+        tSpan.setApplicationName("appName");
+        tSpan.setServiceType((short) 1000);
+        tSpan.setTransactionId(random.randomTSpan().getTransactionId());
+
+        byte[] bytes = serializer.serialize(tSpan);
+        SpanBo spanBo = (SpanBo) directSpanFactory.decode(bytes, 0, bytes.length);
+
+        Assert.assertEquals(-1, spanBo.getParentSpanId());
+        Assert.assertEquals(1000, spanBo.getApplicationServiceType());
+        Assert.assertTrue(spanBo.getAnnotationBoList().isEmpty());
+        Assert.assertFalse(spanBo.hasException());
+    }
+
+    @Test
+    public void testDecodeSpanChunk() throws Exception {
+        for (int i = 0; i < REPEAT_COUNT; i++) {
+            TSpanChunk tSpanChunk = random.randomTSpanChunk();
+
+            byte[] bytes = serializer.serialize(tSpanChunk);
+            SpanChunkBo spanChunkBo = (SpanChunkBo) directSpanFactory.decode(bytes, 0, bytes.length);
+
+            for (SpanEventBo spanEventBo : spanChunkBo.getSpanEventBoList()) {
+                assertLazyString(spanEventBo.getAnnotationBoList());
+            }
+            spanFactoryAssert.assertSpanChunk(tSpanChunk, spanChunkBo);
+        }
+    }
+
+    @Test
+    public void testDecode_offset() throws Exception {
+        TSpan tSpan = random.randomTSpan();
+        byte[] bytes = serializer.serialize(tSpan);
+        byte[] packet = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, packet, 5, bytes.length);
+
+        SpanBo spanBo = (SpanBo) directSpanFactory.decode(packet, 5, bytes.length);
+
+        assertLazyString(spanBo.getAnnotationBoList());
+        spanFactoryAssert.assertSpan(tSpan, spanBo);
+    }
+
+    @Test
+    public void testDecode_notSupport() throws Exception {
+        byte[] bytes = serializer.serialize(new TSpanEvent());
+
+        Assert.assertFalse(directSpanFactory.isSupport(directSpanFactory.readType(bytes, 0, bytes.length)));
+        Assert.assertNull(directSpanFactory.decode(bytes, 0, bytes.length));
+        Assert.assertNull(directSpanFactory.decode(new byte[]{1, 2, 3, 4, 5}, 0, 5));
+    }
+
+    private void assertLazyString(List<AnnotationBo> annotationBoList) {
+        for (AnnotationBo annotationBo : annotationBoList) {
+            Object value = annotationBo.getValue();
+            Assert.assertTrue(value instanceof LazyString);
+            // for SpanFactoryAssert
+            annotationBo.setValue(value.toString());
+        }
+    }
+}
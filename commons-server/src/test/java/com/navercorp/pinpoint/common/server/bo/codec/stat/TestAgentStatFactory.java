@@ -210,6 +210,7 @@ public class TestAgentStatFactory {
                 10L,
                 100L,
                 numValues);
+        List<Long> samplingRates = TestAgentStatDataPointFactory.LONG.createRandomValues(1L, 100L, numValues);
         for (int i = 0; i < numValues; ++i) {
             TransactionBo transactionBo = new TransactionBo();
             transactionBo.setAgentId(agentId);
@@ -220,6 +221,7 @@ public class TestAgentStatFactory {
             transactionBo.setSampledContinuationCount(sampledContinuationCounts.get(i));
             transactionBo.setUnsampledNewCount(unsampledNewCount.get(i));
             transactionBo.setUnsampledContinuationCount(unsampledContinuationCount.get(i));
+            transactionBo.setSamplingRate(samplingRates.get(i));
             transactionBos.add(transactionBo);
         }
         return transactionBos;
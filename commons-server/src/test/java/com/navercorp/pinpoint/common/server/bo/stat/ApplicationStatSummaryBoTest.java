@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo.stat;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class ApplicationStatSummaryBoTest {
+
+    @Test
+    public void testByteArrayConversion() {
+        final ApplicationStatSummaryBo testBo = new ApplicationStatSummaryBo(3, 60, 10, 30);
+
+        final byte[] serializedBo = testBo.writeValue();
+        Assert.assertEquals(ApplicationStatSummaryBo.VALUE_SIZE, serializedBo.length);
+
+        final ApplicationStatSummaryBo deserializedBo = ApplicationStatSummaryBo.readValue(serializedBo);
+        Assert.assertEquals(3, deserializedBo.getCount());
+        Assert.assertEquals(60, deserializedBo.getSum(), 0);
+        Assert.assertEquals(10, deserializedBo.getMin(), 0);
+        Assert.assertEquals(30, deserializedBo.getMax(), 0);
+    }
+
+    @Test
+    public void merge() {
+        final ApplicationStatSummaryBo summaryBo = new ApplicationStatSummaryBo(3, 60, 10, 30);
+        summaryBo.merge(new ApplicationStatSummaryBo(1, 40, 40, 40));
+
+        Assert.assertEquals(4, summaryBo.getCount());
+        Assert.assertEquals(100, summaryBo.getSum(), 0);
+        Assert.assertEquals(10, summaryBo.getMin(), 0);
+        Assert.assertEquals(40, summaryBo.getMax(), 0);
+        Assert.assertEquals(25, summaryBo.getAvg(), 0);
+    }
+
+    @Test
+    public void mergeEmpty() {
+        final ApplicationStatSummaryBo summaryBo = new ApplicationStatSummaryBo(0, 0, 0, 0);
+        summaryBo.merge(new ApplicationStatSummaryBo(2, 10, 4, 6));
+
+        Assert.assertEquals(2, summaryBo.getCount());
+        Assert.assertEquals(4, summaryBo.getMin(), 0);
+        Assert.assertEquals(6, summaryBo.getMax(), 0);
+    }
+}
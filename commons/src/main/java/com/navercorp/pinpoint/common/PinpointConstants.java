@@ -25,4 +25,10 @@ public final class PinpointConstants {
 
     public static final int AGENT_NAME_MAX_LEN = 24;
 
+    /**
+     * reserved sql id. the sql of this metadata is the start time of the agent whose sql cache lineage the agent continues.
+     * generated sql ids are never 0.
+     */
+    public static final int SQL_METADATA_LINEAGE_ID = 0;
+
 }
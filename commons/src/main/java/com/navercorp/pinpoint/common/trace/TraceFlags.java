@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.trace;
+
+/**
+ * Bits of the trace flags which are propagated to the next node with the trace id and stored in the span.
+ *
+ * @author agent
+ */
+public final class TraceFlags {
+
+    /**
+     * the transaction was not picked by the sampler and is traced only for tail-based sampling.
+     * the collector keeps it only if the transaction turns out to be slow or erroneous.
+     */
+    public static final short TAIL_SAMPLING_CANDIDATE = 0x01;
+
+    private TraceFlags() {
+    }
+
+    public static boolean isTailSamplingCandidate(short flags) {
+        return (flags & TAIL_SAMPLING_CANDIDATE) != 0;
+    }
+}
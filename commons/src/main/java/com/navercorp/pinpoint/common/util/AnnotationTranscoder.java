@@ -104,6 +104,8 @@ public class AnnotationTranscoder {
         }
         if (o instanceof String) {
             return CODE_STRING;
+        } else if (o instanceof LazyString) {
+            return CODE_STRING;
         } else if (o instanceof Long) {
             return CODE_LONG;
         } else if (o instanceof Integer) {
@@ -135,6 +137,9 @@ public class AnnotationTranscoder {
     public byte[] encode(Object o, int typeCode) {
         switch (typeCode) {
             case CODE_STRING:
+                if (o instanceof LazyString) {
+                    return ((LazyString) o).getBytes();
+                }
                 return encodeString((String) o);
             case CODE_INT: {
                 return BytesUtils.intToSVar32((Integer) o);
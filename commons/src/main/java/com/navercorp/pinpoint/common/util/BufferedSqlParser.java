@@ -0,0 +1,306 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import java.util.List;
+
+/**
+ * SqlParser producing the same output as {@link DefaultSqlParser} into a per-thread {@link NormalizedSqlBuffer}.
+ * The hash of the normalized sql is computed in the same pass,
+ * so a cache lookup does not need to create the normalized sql string.
+ *
+ * @author agent
+ */
+public class BufferedSqlParser implements SqlParser {
+
+    private static final int NEXT_TOKEN_NOT_EXIST = -1;
+
+    private static final NormalizedSql NULL_OBJECT = new DefaultNormalizedSql("", "");
+
+    private static final ThreadLocal<NormalizedSqlBuffer> BUFFER = new ThreadLocal<NormalizedSqlBuffer>() {
+        @Override
+        protected NormalizedSqlBuffer initialValue() {
+            return new NormalizedSqlBuffer();
+        }
+    };
+
+    private final SqlParser sqlParser = new DefaultSqlParser();
+
+    public BufferedSqlParser() {
+    }
+
+    @Override
+    public NormalizedSql normalizedSql(String sql) {
+        if (sql == null) {
+            return NULL_OBJECT;
+        }
+        final NormalizedSqlBuffer buffer = normalize(sql);
+        return new DefaultNormalizedSql(buffer.getNormalizedSql(), buffer.getParseParameter());
+    }
+
+    /**
+     * @return buffer of the current thread. valid until the next call on the same thread.
+     */
+    public NormalizedSqlBuffer normalize(final String sql) {
+        if (sql == null) {
+            throw new NullPointerException("sql must not be null");
+        }
+        final NormalizedSqlBuffer normalized = BUFFER.get();
+        normalized.reset(sql);
+
+        final int length = sql.length();
+        int replaceIndex = 0;
+        boolean numberTokenStartEnable = true;
+        for (int i = 0; i < length; i++) {
+            final char ch = sql.charAt(i);
+            switch (ch) {
+                // COMMENT start check
+                case '/':
+                    // comment state
+                    final int lookAhead1Char = lookAhead1(sql, i);
+                    // multi line comment and oracle hint /*+ */
+                    if (lookAhead1Char == '*') {
+                        normalized.append('/');
+                        normalized.append('*');
+                        i += 2;
+                        for (; i < length; i++) {
+                            char stateCh = sql.charAt(i);
+                            if (stateCh == '*') {
+                                if (lookAhead1(sql, i) == '/') {
+                                    normalized.append('*');
+                                    normalized.append('/');
+                                    i++;
+                                    break;
+                                }
+                            }
+                            normalized.append(stateCh);
+                        }
+                        break;
+                        // single line comment
+                    } else if (lookAhead1Char == '/') {
+                        normalized.append('/');
+                        normalized.append('/');
+                        i += 2;
+                        i = readLine(sql, normalized, i);
+                        break;
+
+                    } else {
+                        // unary operator
+                        numberTokenStartEnable = true;
+                        normalized.append(ch);
+                        break;
+                    }
+                case '-':
+                    // single line comment state
+                    if (lookAhead1(sql, i) == '-') {
+                        normalized.append('-');
+                        normalized.append('-');
+                        i += 2;
+                        i = readLine(sql, normalized, i);
+                        break;
+                    } else {
+                        // unary operator
+                        numberTokenStartEnable = true;
+                        normalized.append(ch);
+                        break;
+                    }
+
+                    // SYMBOL start check
+                case '\'':
+                    // empty symbol
+                    if (lookAhead1(sql, i) == '\'') {
+                        normalized.append('\'');
+                        normalized.append('\'');
+                        // no need to add parameter to output as $ is not converted
+                        i += 2;
+                        break;
+                    } else {
+                        normalized.setChanged();
+                        normalized.append('\'');
+                        i++;
+                        appendOutputSeparator(normalized);
+                        for (; i < length; i++) {
+                            char stateCh = sql.charAt(i);
+                            if (stateCh == '\'') {
+                                // a consecutive ' is the same as \'
+                                if (lookAhead1(sql, i) == '\'') {
+                                    i++;
+                                    normalized.appendParameter('\'');
+                                    normalized.appendParameter('\'');
+                                    continue;
+                                } else {
+                                    normalized.append(replaceIndex++);
+                                    normalized.append(DefaultSqlParser.SYMBOL_REPLACE);
+                                    normalized.append('\'');
+                                    break;
+                                }
+                            }
+                            appendSeparatorCheckOutputParam(normalized, stateCh);
+                        }
+                        break;
+                    }
+
+                    // number start check
+                case '0':
+                case '1':
+                case '2':
+                case '3':
+                case '4':
+                case '5':
+                case '6':
+                case '7':
+                case '8':
+                case '9':
+                    if (numberTokenStartEnable) {
+                        normalized.setChanged();
+                        normalized.append(replaceIndex++);
+                        normalized.append(DefaultSqlParser.NUMBER_REPLACE);
+                        // number token start
+                        appendOutputSeparator(normalized);
+                        normalized.appendParameter(ch);
+                        i++;
+                        tokenEnd:
+                        for (; i < length; i++) {
+                            char stateCh = sql.charAt(i);
+                            switch (stateCh) {
+                                case '0':
+                                case '1':
+                                case '2':
+                                case '3':
+                                case '4':
+                                case '5':
+                                case '6':
+                                case '7':
+                                case '8':
+                                case '9':
+                                case '.':
+                                case 'E':
+                                case 'e':
+                                    normalized.appendParameter(stateCh);
+                                    break;
+                                default:
+                                    i--;
+                                    break tokenEnd;
+                            }
+                        }
+                        break;
+                    } else {
+                        normalized.append(ch);
+                        break;
+                    }
+
+                    // empty space
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    numberTokenStartEnable = true;
+                    normalized.append(ch);
+                    break;
+                case '*':
+                case '+':
+                case '%':
+                case '=':
+                case '<':
+                case '>':
+                case '&':
+                case '|':
+                case '^':
+                case '~':
+                case '!':
+                    numberTokenStartEnable = true;
+                    normalized.append(ch);
+                    break;
+
+                case '(':
+                case ')':
+                case ',':
+                case ';':
+                    numberTokenStartEnable = true;
+                    normalized.append(ch);
+                    break;
+
+                case '.':
+                case '_':
+                case '@': // Assignment Operator
+                case ':': // Oracle's bind variable is possible with :bindvalue
+                    numberTokenStartEnable = false;
+                    normalized.append(ch);
+                    break;
+
+                default:
+                    if (ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z') {
+                        numberTokenStartEnable = false;
+                    } else {
+                        numberTokenStartEnable = true;
+                    }
+                    normalized.append(ch);
+                    break;
+            }
+        }
+        return normalized;
+    }
+
+    private int readLine(String sql, NormalizedSqlBuffer normalized, int index) {
+        final int length = sql.length();
+        for (; index < length; index++) {
+            char ch = sql.charAt(index);
+            normalized.append(ch);
+            if (ch == '\n') {
+                break;
+            }
+        }
+        return index;
+    }
+
+    private void appendOutputSeparator(NormalizedSqlBuffer output) {
+        if (output.getParameterLength() == 0) {
+            // first parameter
+            return;
+        }
+        output.appendParameter(DefaultSqlParser.SEPARATOR);
+    }
+
+    private void appendSeparatorCheckOutputParam(NormalizedSqlBuffer output, char ch) {
+        if (ch == ',') {
+            output.appendParameter(',');
+            output.appendParameter(',');
+        } else {
+            output.appendParameter(ch);
+        }
+    }
+
+    private int lookAhead1(String sql, int index) {
+        index++;
+        if (index < sql.length()) {
+            return sql.charAt(index);
+        } else {
+            return NEXT_TOKEN_NOT_EXIST;
+        }
+    }
+
+    @Override
+    public String combineOutputParams(String sql, List<String> outputParams) {
+        return sqlParser.combineOutputParams(sql, outputParams);
+    }
+
+    @Override
+    public String combineBindValues(String sql, List<String> bindValues) {
+        return sqlParser.combineBindValues(sql, bindValues);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring of collector members.
+ * The owner of a key depends only on the member set, so agents and collectors resolve the same owner,
+ * and adding or removing a member moves only the keys of that member.
+ *
+ * @author agent
+ */
+public class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODE_COUNT = 128;
+
+    private final List<String> members;
+    private final int virtualNodeCount;
+    private final TreeMap<Integer, String> ring = new TreeMap<Integer, String>();
+
+    public ConsistentHashRing(Collection<String> members) {
+        this(members, DEFAULT_VIRTUAL_NODE_COUNT);
+    }
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodeCount) {
+        if (members == null) {
+            throw new NullPointerException("members must not be null");
+        }
+        if (virtualNodeCount <= 0) {
+            throw new IllegalArgumentException("virtualNodeCount must be greater than 0");
+        }
+        // sorted, so that hash collisions are resolved the same way regardless of the given order
+        final List<String> sortedMembers = new ArrayList<String>(new TreeSet<String>(members));
+        this.members = Collections.unmodifiableList(sortedMembers);
+        this.virtualNodeCount = virtualNodeCount;
+        for (String member : sortedMembers) {
+            for (int i = 0; i < virtualNodeCount; i++) {
+                final int hash = hash(member + "#" + i);
+                if (!ring.containsKey(hash)) {
+                    ring.put(hash, member);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return owner member of the key. null if the ring is empty
+     */
+    public String getOwner(String key) {
+        if (key == null) {
+            throw new NullPointerException("key must not be null");
+        }
+        if (ring.isEmpty()) {
+            return null;
+        }
+        final SortedMap<Integer, String> tailMap = ring.tailMap(hash(key));
+        if (tailMap.isEmpty()) {
+            return ring.firstEntry().getValue();
+        }
+        return tailMap.get(tailMap.firstKey());
+    }
+
+    /**
+     * @return a new ring without the member
+     */
+    public ConsistentHashRing remove(String member) {
+        final List<String> remainMembers = new ArrayList<String>(members);
+        remainMembers.remove(member);
+        return new ConsistentHashRing(remainMembers, virtualNodeCount);
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the murmur3 mixer.
+     * do not change : agents and collectors of different versions must agree on the owner
+     */
+    static int hash(String value) {
+        final byte[] bytes = BytesUtils.toBytes(value);
+        int hash = 0x811c9dc5;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{" +
+                "members=" + members +
+                ", virtualNodeCount=" + virtualNodeCount +
+                '}';
+    }
+}
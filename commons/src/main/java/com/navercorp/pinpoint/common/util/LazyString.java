@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import java.util.Arrays;
+
+/**
+ * UTF-8 encoded string that is decoded on first use.
+ * Annotation values received from the agent are mostly written to storage as they are,
+ * so the bytes are kept and {@link AnnotationTranscoder} writes them without decoding.
+ *
+ * @author agent
+ */
+public final class LazyString implements CharSequence {
+
+    private final byte[] bytes;
+    private String string;
+
+    public LazyString(byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes must not be null");
+        }
+        this.bytes = bytes;
+    }
+
+    /**
+     * UTF-8 bytes. must not be modified
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public boolean isDecoded() {
+        return string != null;
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        // racy single-check is fine. the result is always the same
+        String string = this.string;
+        if (string == null) {
+            string = BytesUtils.toString(bytes);
+            this.string = string;
+        }
+        return string;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LazyString that = (LazyString) o;
+        return Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+}
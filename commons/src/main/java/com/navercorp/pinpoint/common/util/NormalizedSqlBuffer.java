@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+/**
+ * Reusable output of {@link BufferedSqlParser}.
+ * The normalized sql stays in a char buffer until {@link #getNormalizedSql()} is called.
+ * {@link #hashCode()} is the same as the hashCode of the normalized sql string, so caches can be probed without creating the string.
+ * Owned by a single thread and overwritten by the next parse on the same thread.
+ *
+ * @author agent
+ */
+public final class NormalizedSqlBuffer implements NormalizedSql {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+    // do not keep huge buffers per thread
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 64;
+
+    private String originalSql;
+    private boolean changed;
+
+    private char[] normalized = new char[DEFAULT_BUFFER_SIZE];
+    private int normalizedLength;
+    private int hash;
+
+    private char[] parameter = new char[DEFAULT_BUFFER_SIZE];
+    private int parameterLength;
+
+    NormalizedSqlBuffer() {
+    }
+
+    void reset(String originalSql) {
+        this.originalSql = originalSql;
+        this.changed = false;
+        if (normalized.length > MAX_RETAINED_BUFFER_SIZE) {
+            normalized = new char[DEFAULT_BUFFER_SIZE];
+        }
+        if (parameter.length > MAX_RETAINED_BUFFER_SIZE) {
+            parameter = new char[DEFAULT_BUFFER_SIZE];
+        }
+        this.normalizedLength = 0;
+        this.hash = 0;
+        this.parameterLength = 0;
+    }
+
+    void setChanged() {
+        this.changed = true;
+    }
+
+    void append(char ch) {
+        if (normalizedLength == normalized.length) {
+            normalized = grow(normalized);
+        }
+        normalized[normalizedLength++] = ch;
+        hash = 31 * hash + ch;
+    }
+
+    void append(int value) {
+        if (value >= 10) {
+            append(value / 10);
+        }
+        append((char) ('0' + (value % 10)));
+    }
+
+    void appendParameter(char ch) {
+        if (parameterLength == parameter.length) {
+            parameter = grow(parameter);
+        }
+        parameter[parameterLength++] = ch;
+    }
+
+    int getParameterLength() {
+        return parameterLength;
+    }
+
+    private static char[] grow(char[] buffer) {
+        final char[] newBuffer = new char[buffer.length * 2];
+        System.arraycopy(buffer, 0, newBuffer, 0, buffer.length);
+        return newBuffer;
+    }
+
+    public String getOriginalSql() {
+        return originalSql;
+    }
+
+    /**
+     * @return false if the normalized sql is the same as the original sql
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    public int length() {
+        if (!changed) {
+            return originalSql.length();
+        }
+        return normalizedLength;
+    }
+
+    public char charAt(int index) {
+        if (!changed) {
+            return originalSql.charAt(index);
+        }
+        if (index >= normalizedLength) {
+            throw new IndexOutOfBoundsException("index:" + index);
+        }
+        return normalized[index];
+    }
+
+    /**
+     * @return true if the normalized sql equals the string
+     */
+    public boolean contentEquals(String sql) {
+        if (!changed) {
+            return originalSql.equals(sql);
+        }
+        if (sql == null || sql.length() != normalizedLength) {
+            return false;
+        }
+        for (int i = 0; i < normalizedLength; i++) {
+            if (normalized[i] != sql.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getNormalizedSql() {
+        if (!changed) {
+            // reuse the original string and its hashcode
+            return originalSql;
+        }
+        return new String(normalized, 0, normalizedLength);
+    }
+
+    @Override
+    public String getParseParameter() {
+        if (parameterLength == 0) {
+            return "";
+        }
+        return new String(parameter, 0, parameterLength);
+    }
+
+    /**
+     * @return String.hashCode() of the normalized sql
+     */
+    @Override
+    public int hashCode() {
+        if (!changed) {
+            return originalSql.hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return "NormalizedSqlBuffer{" +
+                "normalizedSql=" + getNormalizedSql() +
+                ", changed=" + changed +
+                '}';
+    }
+}
@@ -147,6 +147,20 @@ public class AnnotationTranscoderTest {
         Assert.assertEquals(tIntStringValue.getStringValue(), decode.getStringValue());
     }
 
+    @Test
+    public void testLazyString() {
+        AnnotationTranscoder transcoder = new AnnotationTranscoder();
+        LazyString lazyString = new LazyString(BytesUtils.toBytes("lazy test"));
+
+        byte typeCode = transcoder.getTypeCode(lazyString);
+        Assert.assertEquals(AnnotationTranscoder.CODE_STRING, typeCode);
+        byte[] encode = transcoder.encode(lazyString, typeCode);
+        Assert.assertFalse(lazyString.isDecoded());
+
+        Assert.assertEquals("lazy test", transcoder.decode(typeCode, encode));
+        Assert.assertEquals("lazy test", lazyString.toString());
+    }
+
     private void write(int value) throws TException {
         TCompactProtocol.Factory factory = new TCompactProtocol.Factory();
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Random;
+
+/**
+ * @author agent
+ */
+public class BufferedSqlParserTest {
+
+    private final DefaultSqlParser defaultSqlParser = new DefaultSqlParser();
+    private final BufferedSqlParser bufferedSqlParser = new BufferedSqlParser();
+
+    @Test
+    public void normalize() {
+        assertSameAsDefault("select * from table a = 1 and b=50 and c=? and d='11'");
+        assertSameAsDefault("select * from table where a = 'a,b' and b = 'it''s'");
+        assertSameAsDefault("select * from table where a = '' and b = 1.5e10");
+        assertSameAsDefault("select /*+ INDEX(a) */ a.name_1 from table a -- comment 1\n where a.id = -1");
+        assertSameAsDefault("select * from table // 1\n where a = :bind1 and b = @var2");
+        assertSameAsDefault("insert into t values (1, 'a', 2.5, 'b')");
+        assertSameAsDefault("");
+        assertSameAsDefault(" ");
+        assertSameAsDefault("''");
+        assertSameAsDefault("'");
+        assertSameAsDefault("/*");
+        assertSameAsDefault("select 1");
+    }
+
+    @Test
+    public void normalize_replaceIndex() {
+        StringBuilder sql = new StringBuilder("select * from t where a in (");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(i);
+        }
+        sql.append(')');
+        assertSameAsDefault(sql.toString());
+    }
+
+    @Test
+    public void normalize_notChanged() {
+        final String sql = "select * from table where a = ?";
+        NormalizedSqlBuffer buffer = bufferedSqlParser.normalize(sql);
+        Assert.assertFalse(buffer.isChanged());
+        Assert.assertSame(sql, buffer.getNormalizedSql());
+        Assert.assertEquals("", buffer.getParseParameter());
+        Assert.assertEquals(sql.hashCode(), buffer.hashCode());
+    }
+
+    @Test
+    public void normalize_largeSql() throws IOException {
+        final String sql = readSample();
+        assertSameAsDefault(sql);
+        assertSameAsDefault(sql + sql + sql);
+    }
+
+    @Test
+    public void normalize_random() {
+        final char[] alphabet = "abcXYZ019.,;:_@'-/*+=<>() \n\tEe".toCharArray();
+        final Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            final int length = random.nextInt(40);
+            final StringBuilder sql = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sql.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertSameAsDefault(sql.toString());
+        }
+    }
+
+    private void assertSameAsDefault(String sql) {
+        final NormalizedSql expected = defaultSqlParser.normalizedSql(sql);
+        final NormalizedSqlBuffer buffer = bufferedSqlParser.normalize(sql);
+
+        final String normalizedSql = expected.getNormalizedSql();
+        Assert.assertEquals(sql, normalizedSql, buffer.getNormalizedSql());
+        Assert.assertEquals(sql, expected.getParseParameter(), buffer.getParseParameter());
+        Assert.assertEquals(sql, normalizedSql.hashCode(), buffer.hashCode());
+        Assert.assertEquals(sql, normalizedSql.length(), buffer.length());
+        Assert.assertTrue(sql, buffer.contentEquals(normalizedSql));
+        Assert.assertFalse(sql, buffer.contentEquals(normalizedSql + " "));
+
+        final NormalizedSql normalizedSqlObject = bufferedSqlParser.normalizedSql(sql);
+        Assert.assertEquals(normalizedSql, normalizedSqlObject.getNormalizedSql());
+        Assert.assertEquals(expected.getParseParameter(), normalizedSqlObject.getParseParameter());
+    }
+
+    private String readSample() throws IOException {
+        final InputStream inputStream = getClass().getClassLoader().getResourceAsStream("sample-01.sql");
+        Assert.assertNotNull(inputStream);
+        try {
+            final Reader reader = new InputStreamReader(inputStream, "UTF-8");
+            final StringBuilder sql = new StringBuilder();
+            final char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sql.append(buffer, 0, read);
+            }
+            return sql.toString();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
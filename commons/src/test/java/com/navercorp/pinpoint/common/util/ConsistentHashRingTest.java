@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class ConsistentHashRingTest {
+
+    private static final int KEY_COUNT = 10000;
+
+    @Test
+    public void getOwner_sameForAnyOrder() {
+        ConsistentHashRing ring1 = new ConsistentHashRing(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        ConsistentHashRing ring2 = new ConsistentHashRing(Arrays.asList("10.0.0.3", "10.0.0.1", "10.0.0.2", "10.0.0.1"));
+
+        Assert.assertEquals(ring1.getMembers(), ring2.getMembers());
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "application-" + i;
+            Assert.assertEquals(ring1.getOwner(key), ring2.getOwner(key));
+        }
+    }
+
+    @Test
+    public void getOwner_balanced() {
+        List<String> members = Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.4");
+        ConsistentHashRing ring = new ConsistentHashRing(members);
+
+        Map<String, Integer> countMap = new HashMap<String, Integer>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String owner = ring.getOwner("application-" + i);
+            Integer count = countMap.get(owner);
+            countMap.put(owner, count == null ? 1 : count + 1);
+        }
+
+        Assert.assertEquals(members.size(), countMap.size());
+        final int expected = KEY_COUNT / members.size();
+        for (Integer count : countMap.values()) {
+            Assert.assertTrue("count:" + count, Math.abs(count - expected) < expected * 0.3);
+        }
+    }
+
+    @Test
+    public void remove_movesOnlyRemovedMember() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        ConsistentHashRing removed = ring.remove("10.0.0.2");
+
+        Assert.assertEquals(Arrays.asList("10.0.0.1", "10.0.0.3"), removed.getMembers());
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "application-" + i;
+            String owner = ring.getOwner(key);
+            if (!"10.0.0.2".equals(owner)) {
+                Assert.assertEquals(owner, removed.getOwner(key));
+            }
+        }
+    }
+
+    @Test
+    public void empty() {
+        ConsistentHashRing ring = new ConsistentHashRing(Collections.<String>emptyList());
+
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertNull(ring.getOwner("application"));
+        Assert.assertTrue(ring.remove("10.0.0.1").isEmpty());
+    }
+}
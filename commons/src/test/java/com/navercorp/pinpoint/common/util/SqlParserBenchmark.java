@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalizes the sql corpus (sql-corpus.txt, sample-01.sql) with {@link DefaultSqlParser} and {@link BufferedSqlParser}.
+ * bufferedParser_lookup is the cache hit path of the buffered normalizer: only the hash and the parameter are used.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main SqlParserBenchmark -prof gc
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SqlParserBenchmark {
+
+    private final DefaultSqlParser defaultSqlParser = new DefaultSqlParser();
+    private final BufferedSqlParser bufferedSqlParser = new BufferedSqlParser();
+
+    private String[] corpus;
+
+    @Setup
+    public void setup() throws IOException {
+        final List<String> sqlList = new ArrayList<String>();
+        for (String line : readLines("sql-corpus.txt")) {
+            if (!line.isEmpty()) {
+                sqlList.add(line);
+            }
+        }
+        final StringBuilder sample = new StringBuilder();
+        for (String line : readLines("sample-01.sql")) {
+            sample.append(line).append('\n');
+        }
+        sqlList.add(sample.toString());
+        this.corpus = sqlList.toArray(new String[0]);
+    }
+
+    private List<String> readLines(String resource) throws IOException {
+        final InputStream stream = SqlParserBenchmark.class.getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException(resource + " not found");
+        }
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+        try {
+            final List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Benchmark
+    public void defaultParser(Blackhole blackhole) {
+        for (String sql : corpus) {
+            final NormalizedSql normalizedSql = defaultSqlParser.normalizedSql(sql);
+            blackhole.consume(normalizedSql.getNormalizedSql());
+            blackhole.consume(normalizedSql.getParseParameter());
+        }
+    }
+
+    @Benchmark
+    public void bufferedParser(Blackhole blackhole) {
+        for (String sql : corpus) {
+            final NormalizedSql normalizedSql = bufferedSqlParser.normalizedSql(sql);
+            blackhole.consume(normalizedSql.getNormalizedSql());
+            blackhole.consume(normalizedSql.getParseParameter());
+        }
+    }
+
+    @Benchmark
+    public void bufferedParser_lookup(Blackhole blackhole) {
+        for (String sql : corpus) {
+            final NormalizedSqlBuffer normalizedSql = bufferedSqlParser.normalize(sql);
+            blackhole.consume(normalizedSql.hashCode());
+            blackhole.consume(normalizedSql.getParseParameter());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SqlParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
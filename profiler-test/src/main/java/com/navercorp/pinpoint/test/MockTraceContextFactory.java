@@ -28,6 +28,7 @@ import com.navercorp.pinpoint.profiler.context.IdGenerator;
 import com.navercorp.pinpoint.profiler.context.PluginMonitorContextBuilder;
 import com.navercorp.pinpoint.profiler.context.TraceFactoryBuilder;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceRepository;
+import com.navercorp.pinpoint.profiler.context.active.DefaultActiveTraceRepository;
 import com.navercorp.pinpoint.profiler.context.monitor.PluginMonitorContext;
 import com.navercorp.pinpoint.profiler.context.storage.LogStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
@@ -123,7 +124,7 @@ public class MockTraceContextFactory {
 
     private static ActiveTraceRepository newActiveTraceRepository() {
         if (TRACE_ACTIVE_THREAD) {
-            return new ActiveTraceRepository();
+            return new DefaultActiveTraceRepository();
         }
         return null;
     }
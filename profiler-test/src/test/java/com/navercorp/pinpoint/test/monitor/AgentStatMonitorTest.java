@@ -23,6 +23,7 @@ import com.navercorp.pinpoint.profiler.context.DefaultTransactionCounter;
 import com.navercorp.pinpoint.profiler.context.IdGenerator;
 import com.navercorp.pinpoint.profiler.context.TransactionCounter;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceRepository;
+import com.navercorp.pinpoint.profiler.context.active.DefaultActiveTraceRepository;
 import com.navercorp.pinpoint.profiler.context.monitor.DefaultPluginMonitorContext;
 import com.navercorp.pinpoint.profiler.context.monitor.PluginMonitorContext;
 import com.navercorp.pinpoint.profiler.monitor.AgentStatMonitor;
@@ -87,7 +88,7 @@ public class AgentStatMonitorTest {
 
     private AgentStatCollectorFactory newAgentStatCollectorFactory() {
         ProfilerConfig profilerConfig = new DefaultProfilerConfig();
-        ActiveTraceRepository activeTraceRepository = new ActiveTraceRepository();
+        ActiveTraceRepository activeTraceRepository = new DefaultActiveTraceRepository();
         IdGenerator idGenerator = new IdGenerator();
         TransactionCounter transactionCounter = new DefaultTransactionCounter(idGenerator);
         PluginMonitorContext pluginMonitorContext = new DefaultPluginMonitorContext();
@@ -27,10 +27,16 @@ import org.slf4j.LoggerFactory;
 import com.navercorp.pinpoint.bootstrap.config.Filter;
 import com.navercorp.pinpoint.bootstrap.instrument.DynamicTransformRequestListener;
 import com.navercorp.pinpoint.profiler.instrument.LegacyProfilerPluginClassInjector;
+import com.navercorp.pinpoint.profiler.instrument.transformer.CachingClassFileTransformer;
 import com.navercorp.pinpoint.profiler.instrument.transformer.DebugTransformer;
-import com.navercorp.pinpoint.profiler.instrument.transformer.DefaultTransformerRegistry;
+import com.navercorp.pinpoint.profiler.instrument.transformer.EmptyTransformCache;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformCache;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformMetric;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformMetricRegistry;
 import com.navercorp.pinpoint.profiler.instrument.transformer.TransformerRegistry;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TrieTransformerRegistry;
 import com.navercorp.pinpoint.profiler.plugin.DefaultProfilerPluginContext;
+import com.navercorp.pinpoint.profiler.plugin.PluginConfig;
 import com.navercorp.pinpoint.profiler.plugin.xml.transformer.MatchableClassFileTransformer;
 import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
 
@@ -56,9 +62,19 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer, Dyn
     private final ClassFileFilter unmodifiableFilter;
 
     public ClassFileTransformerDispatcher(DefaultAgent agent, List<DefaultProfilerPluginContext> pluginContexts) {
+        this(agent, pluginContexts, EmptyTransformCache.INSTANCE, new TransformMetricRegistry());
+    }
+
+    public ClassFileTransformerDispatcher(DefaultAgent agent, List<DefaultProfilerPluginContext> pluginContexts, TransformCache transformCache, TransformMetricRegistry transformMetricRegistry) {
         if (agent == null) {
             throw new NullPointerException("agent must not be null");
         }
+        if (transformCache == null) {
+            throw new NullPointerException("transformCache must not be null");
+        }
+        if (transformMetricRegistry == null) {
+            throw new NullPointerException("transformMetricRegistry must not be null");
+        }
 
         this.globalContext = new DefaultProfilerPluginContext(agent, new LegacyProfilerPluginClassInjector(getClass().getClassLoader()));
         this.debugTargetFilter = agent.getProfilerConfig().getProfilableClassFilter();
@@ -67,7 +83,7 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer, Dyn
         this.pinpointClassFilter = new PinpointClassFilter(agentClassLoader);
         this.unmodifiableFilter = new UnmodifiableClassFilter();
 
-        this.transformerRegistry = createTransformerRegistry(pluginContexts);
+        this.transformerRegistry = createTransformerRegistry(pluginContexts, transformCache, transformMetricRegistry);
         this.dynamicTransformerRegistry = new DefaultDynamicTransformerRegistry();
     }
 
@@ -86,7 +102,7 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer, Dyn
             return null;
         }
 
-        ClassFileTransformer transformer = this.transformerRegistry.findTransformer(classInternalName);
+        ClassFileTransformer transformer = this.transformerRegistry.findTransformer(classLoader, classInternalName, classFileBuffer);
         if (transformer == null) {
             // For debug
             // TODO What if a modifier is duplicated?
@@ -152,15 +168,20 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer, Dyn
         }
     }
 
-    private TransformerRegistry createTransformerRegistry(List<DefaultProfilerPluginContext> pluginContexts) {
-        DefaultTransformerRegistry registry = new DefaultTransformerRegistry();
+    private TransformerRegistry createTransformerRegistry(List<DefaultProfilerPluginContext> pluginContexts, TransformCache transformCache, TransformMetricRegistry transformMetricRegistry) {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
 
         for (DefaultProfilerPluginContext pluginContext : pluginContexts) {
+            final String pluginName = getPluginName(pluginContext);
+            final TransformMetric transformMetric = transformMetricRegistry.getMetric(pluginName);
+            // registration order of a plugin is stable, so the index identifies the transformer across restarts
+            int transformerIndex = 0;
             for (ClassFileTransformer transformer : pluginContext.getClassEditors()) {
                 if (transformer instanceof MatchableClassFileTransformer) {
                     MatchableClassFileTransformer t = (MatchableClassFileTransformer) transformer;
                     logger.info("Registering class file transformer {} for {} ", t, t.getMatcher());
-                    registry.addTransformer(t.getMatcher(), t);
+                    final String transformerId = pluginName + '#' + transformerIndex++;
+                    registry.addTransformer(t.getMatcher(), new CachingClassFileTransformer(transformerId, t, transformCache, transformMetric));
                 } else {
                     logger.warn("Ignore class file transformer {}", transformer);
                 }
@@ -169,4 +190,12 @@ public class ClassFileTransformerDispatcher implements ClassFileTransformer, Dyn
 
         return registry;
     }
+
+    private String getPluginName(DefaultProfilerPluginContext pluginContext) {
+        final PluginConfig pluginConfig = pluginContext.getPluginConfig();
+        if (pluginConfig == null) {
+            return "unknown";
+        }
+        return pluginConfig.getPlugin().getClass().getName();
+    }
 }
\ No newline at end of file
@@ -29,31 +29,51 @@ import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerBinder;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
 import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.bootstrap.util.StringUtils;
+import com.navercorp.pinpoint.common.Version;
 import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
 import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.profiler.context.BufferedCachingSqlNormalizer;
+import com.navercorp.pinpoint.profiler.context.CachingSqlNormalizer;
+import com.navercorp.pinpoint.profiler.context.DefaultCachingSqlNormalizer;
 import com.navercorp.pinpoint.profiler.context.DefaultServerMetaDataHolder;
+import com.navercorp.pinpoint.profiler.context.DefaultSpanEventFactory;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceFactoryBuilder;
 import com.navercorp.pinpoint.profiler.context.DefaultTransactionCounter;
 import com.navercorp.pinpoint.profiler.context.IdGenerator;
 import com.navercorp.pinpoint.profiler.context.PluginMonitorContextBuilder;
+import com.navercorp.pinpoint.profiler.context.RecyclingSpanEventFactory;
+import com.navercorp.pinpoint.profiler.context.SpanEventFactory;
 import com.navercorp.pinpoint.profiler.context.SystemPropertyDumper;
 import com.navercorp.pinpoint.profiler.context.TraceFactoryBuilder;
 import com.navercorp.pinpoint.profiler.context.TransactionCounter;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceRepository;
+import com.navercorp.pinpoint.profiler.context.active.DefaultActiveTraceRepository;
+import com.navercorp.pinpoint.profiler.context.active.StripedActiveTraceRepository;
 import com.navercorp.pinpoint.profiler.context.monitor.PluginMonitorContext;
+import com.navercorp.pinpoint.profiler.context.storage.BoundedBufferedStorageFactory;
+import com.navercorp.pinpoint.profiler.context.storage.BoundedBufferedStorageFlusher;
 import com.navercorp.pinpoint.profiler.context.storage.BufferedStorageFactory;
+import com.navercorp.pinpoint.profiler.context.storage.SpanEventListPool;
 import com.navercorp.pinpoint.profiler.context.storage.SpanStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
 import com.navercorp.pinpoint.profiler.instrument.ASMBytecodeDumpService;
 import com.navercorp.pinpoint.profiler.instrument.ASMClassPool;
 import com.navercorp.pinpoint.profiler.instrument.BytecodeDumpTransformer;
 import com.navercorp.pinpoint.profiler.instrument.JavassistClassPool;
+import com.navercorp.pinpoint.profiler.instrument.transformer.EmptyTransformCache;
+import com.navercorp.pinpoint.profiler.instrument.transformer.FileTransformCache;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformCache;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformMetricRegistry;
+import com.navercorp.pinpoint.profiler.instrument.transformer.TransformMetricReporter;
 import com.navercorp.pinpoint.profiler.interceptor.registry.DefaultInterceptorRegistryBinder;
 import com.navercorp.pinpoint.profiler.interceptor.registry.InterceptorRegistryBinder;
 import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinder;
 import com.navercorp.pinpoint.profiler.metadata.ApiMetaDataCacheService;
 import com.navercorp.pinpoint.profiler.metadata.ApiMetaDataService;
+import com.navercorp.pinpoint.profiler.metadata.MappedSqlCache;
+import com.navercorp.pinpoint.profiler.metadata.MappedSqlMetaDataCacheService;
 import com.navercorp.pinpoint.profiler.metadata.SqlMetaDataCacheService;
 import com.navercorp.pinpoint.profiler.metadata.SqlMetaDataService;
 import com.navercorp.pinpoint.profiler.metadata.StringMetaDataCacheService;
@@ -61,6 +81,7 @@ import com.navercorp.pinpoint.profiler.metadata.StringMetaDataService;
 import com.navercorp.pinpoint.profiler.monitor.AgentStatMonitor;
 import com.navercorp.pinpoint.profiler.monitor.codahale.AgentStatCollectorFactory;
 import com.navercorp.pinpoint.profiler.plugin.DefaultProfilerPluginContext;
+import com.navercorp.pinpoint.profiler.plugin.PluginConfig;
 import com.navercorp.pinpoint.profiler.plugin.ProfilerPluginLoader;
 import com.navercorp.pinpoint.profiler.receiver.CommandDispatcher;
 import com.navercorp.pinpoint.profiler.receiver.ProfilerCommandLocatorBuilder;
@@ -70,20 +91,34 @@ import com.navercorp.pinpoint.profiler.receiver.service.EchoService;
 import com.navercorp.pinpoint.profiler.sampler.SamplerFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
+import com.navercorp.pinpoint.profiler.sender.SendCompletionHandler;
 import com.navercorp.pinpoint.profiler.sender.TcpDataSender;
+import com.navercorp.pinpoint.profiler.sender.TransactionRoutingDataSender;
+import com.navercorp.pinpoint.profiler.sender.AbstractDataSender;
+import com.navercorp.pinpoint.profiler.sender.CollectorAffinityAddressProvider;
+import com.navercorp.pinpoint.profiler.sender.CollectorAffinityResolver;
+import com.navercorp.pinpoint.profiler.sender.CollectorSwitchable;
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueFactory;
 import com.navercorp.pinpoint.profiler.sender.UdpDataSenderFactory;
 import com.navercorp.pinpoint.profiler.util.ApplicationServerTypeResolver;
 import com.navercorp.pinpoint.profiler.util.RuntimeMXBeanUtils;
 import com.navercorp.pinpoint.rpc.ClassPreLoader;
 import com.navercorp.pinpoint.rpc.client.PinpointClient;
 import com.navercorp.pinpoint.rpc.client.PinpointClientFactory;
+import com.navercorp.pinpoint.rpc.client.PinpointClientReconnectEventListener;
 import com.navercorp.pinpoint.rpc.packet.HandshakePropertyType;
 import com.navercorp.pinpoint.rpc.util.ClientFactoryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -109,10 +144,16 @@ public class DefaultAgent implements Agent {
 
     private PinpointClientFactory clientFactory;
     private PinpointClient client;
+    // null if affinity is disabled
+    private final CollectorAffinityResolver collectorAffinityResolver;
+    // owner collector of the application. null if affinity is disabled
+    private final String collectorAffinityHost;
     private final EnhancedDataSender tcpDataSender;
 
     private final DataSender statDataSender;
     private final DataSender spanDataSender;
+    // sends the tail sampling candidates. routed by transaction over the affinity members if affinity is enabled
+    private final DataSender tailSamplingSpanDataSender;
 
     private final AgentInformation agentInformation;
     private final ServerMetaDataHolder serverMetaDataHolder;
@@ -128,6 +169,10 @@ public class DefaultAgent implements Agent {
     private final InstrumentClassPool classPool;
     private final DynamicTransformService dynamicTransformService;
     private final List<DefaultProfilerPluginContext> pluginContexts;
+    private final TransformCache transformCache;
+    private final TransformMetricReporter transformMetricReporter;
+    private final MappedSqlCache mappedSqlCache;
+    private final BoundedBufferedStorageFlusher storageFlusher;
     
 
     static {
@@ -194,7 +239,10 @@ public class DefaultAgent implements Agent {
 
         pluginContexts = loadPlugins(agentOption);
 
-        this.classFileTransformer = new ClassFileTransformerDispatcher(this, pluginContexts);
+        this.transformCache = createTransformCache(profilerConfig, pluginContexts);
+        final TransformMetricRegistry transformMetricRegistry = new TransformMetricRegistry();
+        this.transformMetricReporter = new TransformMetricReporter(transformMetricRegistry, profilerConfig.getInstrumentMetricReportDelay());
+        this.classFileTransformer = new ClassFileTransformerDispatcher(this, pluginContexts, transformCache, transformMetricRegistry);
         this.dynamicTransformService = new DynamicTransformService(instrumentation, classFileTransformer);
 
         ClassFileTransformer wrappedTransformer = wrapClassFileTransformer(classFileTransformer);
@@ -211,9 +259,12 @@ public class DefaultAgent implements Agent {
         
         this.serverMetaDataHolder = createServerMetaDataHolder();
 
+        this.collectorAffinityResolver = createCollectorAffinityResolver();
+        this.collectorAffinityHost = resolveCollectorAffinityHost();
         this.spanDataSender = createUdpSpanDataSender(this.profilerConfig.getCollectorSpanServerPort(), "Pinpoint-UdpSpanDataExecutor",
                 this.profilerConfig.getSpanDataSenderWriteQueueSize(), this.profilerConfig.getSpanDataSenderSocketTimeout(),
                 this.profilerConfig.getSpanDataSenderSocketSendBufferSize());
+        this.tailSamplingSpanDataSender = createTailSamplingSpanDataSender();
         this.statDataSender = createUdpStatDataSender(this.profilerConfig.getCollectorStatServerPort(), "Pinpoint-UdpStatDataExecutor",
                 this.profilerConfig.getStatDataSenderWriteQueueSize(), this.profilerConfig.getStatDataSenderSocketTimeout(),
                 this.profilerConfig.getStatDataSenderSocketSendBufferSize());
@@ -227,8 +278,13 @@ public class DefaultAgent implements Agent {
 
         final PluginMonitorContext pluginMonitorContext = createPluginMonitorContext();
 
-        this.traceContext = createTraceContext(tcpDataSender, idGenerator, activeTraceRepository, pluginMonitorContext);
-        final AgentStatCollectorFactory agentStatCollectorFactory = new AgentStatCollectorFactory(profilerConfig, activeTraceRepository, transactionCounter, pluginMonitorContext);
+        this.mappedSqlCache = createMappedSqlCache();
+        this.storageFlusher = createStorageFlusher();
+        final Sampler sampler = createSampler();
+        logger.info("SamplerType:{}", sampler);
+
+        this.traceContext = createTraceContext(tcpDataSender, idGenerator, activeTraceRepository, pluginMonitorContext, sampler);
+        final AgentStatCollectorFactory agentStatCollectorFactory = new AgentStatCollectorFactory(profilerConfig, activeTraceRepository, transactionCounter, pluginMonitorContext, sampler);
 
         final JvmInformationFactory jvmInformationFactory = new JvmInformationFactory(agentStatCollectorFactory.getGarbageCollector());
 
@@ -241,7 +297,10 @@ public class DefaultAgent implements Agent {
 
     private ActiveTraceRepository createActiveTraceRepository() {
         if (this.profilerConfig.isTraceAgentActiveThread()) {
-            return new ActiveTraceRepository();
+            if ("STRIPED".equalsIgnoreCase(this.profilerConfig.getActiveTraceRepositoryType())) {
+                return new StripedActiveTraceRepository();
+            }
+            return new DefaultActiveTraceRepository();
         }
         return null;
     }
@@ -279,6 +338,35 @@ public class DefaultAgent implements Agent {
         return agentOption.getBootstrapJarPaths();
     }
 
+    private TransformCache createTransformCache(ProfilerConfig profilerConfig, List<DefaultProfilerPluginContext> pluginContexts) {
+        if (!profilerConfig.isInstrumentCacheEnable()) {
+            return EmptyTransformCache.INSTANCE;
+        }
+        String cacheDir = profilerConfig.getInstrumentCacheDir();
+        if (StringUtils.isEmpty(cacheDir)) {
+            cacheDir = System.getProperty("java.io.tmpdir") + File.separator + "pinpoint-transform-cache";
+        }
+
+        final List<String> pluginSignatures = new ArrayList<String>(pluginContexts.size());
+        for (DefaultProfilerPluginContext pluginContext : pluginContexts) {
+            final PluginConfig pluginConfig = pluginContext.getPluginConfig();
+            if (pluginConfig == null) {
+                continue;
+            }
+            final File pluginJar = new File(pluginConfig.getPluginJarFile().getName());
+            pluginSignatures.add(pluginConfig.getPlugin().getClass().getName() + " " + pluginJar.getName() + " " + pluginJar.length() + " " + pluginJar.lastModified());
+        }
+        final String generation = FileTransformCache.generation(Version.VERSION, pluginSignatures, profilerConfig.getProperties());
+        try {
+            final TransformCache transformCache = new FileTransformCache(new File(cacheDir), generation);
+            logger.info("transformCache:{}", transformCache);
+            return transformCache;
+        } catch (IOException e) {
+            logger.warn("transform cache disabled. Caused:{}", e.getMessage(), e);
+            return EmptyTransformCache.INSTANCE;
+        }
+    }
+
     protected List<DefaultProfilerPluginContext> loadPlugins(AgentOption agentOption) {
         final ProfilerPluginLoader loader = new ProfilerPluginLoader(this);
         return loader.load(agentOption.getPluginJars());
@@ -346,15 +434,19 @@ public class DefaultAgent implements Agent {
         PLoggerFactory.initialize(binder);
     }
 
-    private TraceContext createTraceContext(EnhancedDataSender enhancedDataSender, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository, PluginMonitorContext pluginMonitorContext) {
+    private TraceContext createTraceContext(EnhancedDataSender enhancedDataSender, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository, PluginMonitorContext pluginMonitorContext, Sampler sampler) {
 
         final StorageFactory storageFactory = createStorageFactory();
         logger.info("StorageFactoryType:{}", storageFactory);
+        final StorageFactory tailSamplingStorageFactory = createTailSamplingStorageFactory(storageFactory);
 
-        final Sampler sampler = createSampler();
-        logger.info("SamplerType:{}", sampler);
-
-        final TraceFactoryBuilder traceFactoryBuilder = createTraceFactory(storageFactory, sampler, idGenerator, activeTraceRepository);
+        final TraceFactoryBuilder traceFactoryBuilder = createTraceFactory(storageFactory, tailSamplingStorageFactory, sampler, idGenerator, activeTraceRepository);
+        registerSpanEventListPool(storageFactory, this.spanDataSender);
+        if (tailSamplingStorageFactory != storageFactory) {
+            for (DataSender dataSender : getTailSamplingSpanDataSenders()) {
+                registerSpanEventListPool(tailSamplingStorageFactory, dataSender);
+            }
+        }
 
         final String agentId = this.agentInformation.getAgentId();
         final long agentStartTime = this.agentInformation.getStartTime();
@@ -362,8 +454,8 @@ public class DefaultAgent implements Agent {
         final ApiMetaDataService apiMetaDataService = new ApiMetaDataCacheService(agentId, agentStartTime, enhancedDataSender);
         final StringMetaDataService stringMetaDataService = new StringMetaDataCacheService(agentId, agentStartTime, enhancedDataSender);
 
-        int jdbcSqlCacheSize = profilerConfig.getJdbcSqlCacheSize();
-        final SqlMetaDataService sqlMetaDataService = new SqlMetaDataCacheService(agentId, agentStartTime, enhancedDataSender, jdbcSqlCacheSize);
+        final SqlMetaDataService sqlMetaDataService = createSqlMetaDataService(agentId, agentStartTime, enhancedDataSender);
+        logger.info("SqlMetaDataService:{}", sqlMetaDataService);
 
         final TraceContext traceContext = new DefaultTraceContext(this.profilerConfig, this.agentInformation,
                 traceFactoryBuilder, pluginMonitorContext, this.serverMetaDataHolder,
@@ -373,32 +465,179 @@ public class DefaultAgent implements Agent {
         return traceContext;
     }
 
+    private MappedSqlCache createMappedSqlCache() {
+        if (!profilerConfig.isJdbcSqlCachePersistentEnable()) {
+            return null;
+        }
+        String cacheDir = profilerConfig.getJdbcSqlCachePersistentDir();
+        if (StringUtils.isEmpty(cacheDir)) {
+            cacheDir = System.getProperty("java.io.tmpdir") + File.separator + "pinpoint-sql-cache";
+        }
+        final File cacheFile = new File(cacheDir, agentInformation.getAgentId() + ".sqlcache");
+        try {
+            return new MappedSqlCache(cacheFile, profilerConfig.getJdbcSqlCachePersistentFileSize(), profilerConfig.getJdbcSqlCacheSize(),
+                    Version.VERSION, agentInformation.getStartTime());
+        } catch (IOException e) {
+            logger.warn("persistent sql cache disabled. Caused:{}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private SqlMetaDataService createSqlMetaDataService(String agentId, long agentStartTime, EnhancedDataSender enhancedDataSender) {
+        if (mappedSqlCache != null) {
+            return new MappedSqlMetaDataCacheService(agentId, agentStartTime, enhancedDataSender, mappedSqlCache);
+        }
+        final CachingSqlNormalizer cachingSqlNormalizer = createCachingSqlNormalizer();
+        return new SqlMetaDataCacheService(agentId, agentStartTime, enhancedDataSender, cachingSqlNormalizer);
+    }
+
+    private CachingSqlNormalizer createCachingSqlNormalizer() {
+        final int jdbcSqlCacheSize = profilerConfig.getJdbcSqlCacheSize();
+        if ("BUFFERED".equalsIgnoreCase(profilerConfig.getJdbcSqlNormalizerType())) {
+            return new BufferedCachingSqlNormalizer(jdbcSqlCacheSize);
+        }
+        return new DefaultCachingSqlNormalizer(jdbcSqlCacheSize);
+    }
+
     private PluginMonitorContext createPluginMonitorContext() {
         final boolean traceDataSource = profilerConfig.isTraceAgentDataSource();
         final PluginMonitorContextBuilder monitorContextBuilder = new PluginMonitorContextBuilder(traceDataSource);
         return monitorContextBuilder.build();
     }
 
-    private TraceFactoryBuilder createTraceFactory(StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository) {
+    private TraceFactoryBuilder createTraceFactory(StorageFactory storageFactory, StorageFactory tailSamplingStorageFactory, Sampler sampler, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository) {
+
+        final SpanEventFactory spanEventFactory = createSpanEventFactory();
+        logger.info("SpanEventFactory:{}", spanEventFactory);
+
+        final boolean tailSampling = profilerConfig.isSamplingTailEnable();
+        logger.info("tailSampling:{}, {}", tailSampling, tailSamplingStorageFactory);
 
-        final TraceFactoryBuilder builder = new DefaultTraceFactoryBuilder(storageFactory, sampler, idGenerator, activeTraceRepository);
+        final TraceFactoryBuilder builder = new DefaultTraceFactoryBuilder(storageFactory, sampler, idGenerator, activeTraceRepository, spanEventFactory,
+                tailSampling, tailSamplingStorageFactory);
         return builder;
     }
 
+    protected SpanEventFactory createSpanEventFactory() {
+        if (profilerConfig.isSpanEventRecycleEnable()) {
+            // SpanEvents are recycled after the span sender thread has written them to the socket.
+            final List<AbstractDataSender> spanDataSenders = getSendCompletionSupportedSpanDataSenders();
+            if (spanDataSenders != null) {
+                final RecyclingSpanEventFactory spanEventFactory = new RecyclingSpanEventFactory(profilerConfig.getSpanEventRecyclePoolSize());
+                for (AbstractDataSender abstractDataSender : spanDataSenders) {
+                    abstractDataSender.setSendCompletionHandler(spanEventFactory);
+                }
+                return spanEventFactory;
+            }
+            logger.warn("SpanEvent recycling not supported. spanDataSender:{}", this.spanDataSender);
+        }
+        return new DefaultSpanEventFactory();
+    }
+
+    // null if a span sender cannot report the send completion
+    private List<AbstractDataSender> getSendCompletionSupportedSpanDataSenders() {
+        final List<DataSender> spanDataSenders = new ArrayList<DataSender>();
+        spanDataSenders.add(this.spanDataSender);
+        if (this.tailSamplingSpanDataSender != this.spanDataSender) {
+            spanDataSenders.addAll(getTailSamplingSpanDataSenders());
+        }
+
+        final List<AbstractDataSender> result = new ArrayList<AbstractDataSender>(spanDataSenders.size());
+        for (DataSender dataSender : spanDataSenders) {
+            if (!(dataSender instanceof AbstractDataSender)) {
+                return null;
+            }
+            final AbstractDataSender abstractDataSender = (AbstractDataSender) dataSender;
+            if (!abstractDataSender.isSendCompletionSupported()) {
+                return null;
+            }
+            result.add(abstractDataSender);
+        }
+        return result;
+    }
+
+    private void registerSpanEventListPool(StorageFactory storageFactory, DataSender dataSender) {
+        if (!(storageFactory instanceof BoundedBufferedStorageFactory)) {
+            return;
+        }
+        final SpanEventListPool spanEventListPool = ((BoundedBufferedStorageFactory) storageFactory).getSpanEventListPool();
+        if (dataSender instanceof AbstractDataSender) {
+            final AbstractDataSender abstractDataSender = (AbstractDataSender) dataSender;
+            if (abstractDataSender.isSendCompletionSupported()) {
+                // outermost handler. the SpanEvent recycler reads the buffer before it is cleared
+                final SendCompletionHandler next = abstractDataSender.getSendCompletionHandler();
+                abstractDataSender.setSendCompletionHandler(spanEventListPool.newSendCompletionHandler(next));
+                return;
+            }
+        }
+        logger.info("SpanEvent buffer pooling not supported. spanDataSender:{}", dataSender);
+    }
+
+    private BoundedBufferedStorageFlusher createStorageFlusher() {
+        if (profilerConfig.isIoBufferingEnable() && profilerConfig.isIoBufferingBoundedEnable()) {
+            return new BoundedBufferedStorageFlusher(profilerConfig.getIoBufferingMaxAge());
+        }
+        return null;
+    }
+
     protected StorageFactory createStorageFactory() {
+        return createStorageFactory(this.spanDataSender);
+    }
+
+    private StorageFactory createStorageFactory(DataSender spanDataSender) {
         if (profilerConfig.isIoBufferingEnable()) {
-            return new BufferedStorageFactory(this.spanDataSender, this.profilerConfig, this.agentInformation);
+            if (profilerConfig.isIoBufferingBoundedEnable()) {
+                return new BoundedBufferedStorageFactory(spanDataSender, this.profilerConfig, this.agentInformation, this.storageFlusher);
+            }
+            return new BufferedStorageFactory(spanDataSender, this.profilerConfig, this.agentInformation);
         } else {
             return new SpanStorageFactory(spanDataSender);
         }
     }
 
+    // also used for the candidates of the previous nodes, whether tail sampling is enabled on this agent or not
+    private StorageFactory createTailSamplingStorageFactory(StorageFactory storageFactory) {
+        if (this.tailSamplingSpanDataSender == this.spanDataSender) {
+            return storageFactory;
+        }
+        return createStorageFactory(this.tailSamplingSpanDataSender);
+    }
+
+    private DataSender createTailSamplingSpanDataSender() {
+        if (collectorAffinityHost == null) {
+            return this.spanDataSender;
+        }
+        // the collector decides tail sampling on the whole transaction,
+        // so the candidates are routed by transaction instead of following the application owner
+        final List<String> members = collectorAffinityResolver.getCandidates(agentInformation.getApplicationName());
+        final Map<String, DataSender> dataSenderMap = new LinkedHashMap<String, DataSender>();
+        for (String member : members) {
+            final UdpDataSenderFactory factory = new UdpDataSenderFactory(member, this.profilerConfig.getCollectorSpanServerPort(),
+                    "Pinpoint-UdpTailSamplingSpanDataExecutor-" + member, this.profilerConfig.getSpanDataSenderWriteQueueSize(),
+                    this.profilerConfig.getSpanDataSenderSocketTimeout(), this.profilerConfig.getSpanDataSenderSocketSendBufferSize(),
+                    createAsyncQueueFactory(), profilerConfig.getUdpDataSenderBatchPacketSize());
+            dataSenderMap.put(member, factory.create(profilerConfig.getSpanDataSenderSocketType()));
+        }
+        final DataSender dataSender = new TransactionRoutingDataSender(collectorAffinityResolver, dataSenderMap);
+        logger.info("tail sampling candidates routed by transaction. {}", dataSender);
+        return dataSender;
+    }
+
+    private Collection<DataSender> getTailSamplingSpanDataSenders() {
+        if (this.tailSamplingSpanDataSender instanceof TransactionRoutingDataSender) {
+            return ((TransactionRoutingDataSender) this.tailSamplingSpanDataSender).getDataSenders();
+        }
+        return Collections.singletonList(this.tailSamplingSpanDataSender);
+    }
+
     private Sampler createSampler() {
         boolean samplingEnable = this.profilerConfig.isSamplingEnable();
         int samplingRate = this.profilerConfig.getSamplingRate();
+        String samplingType = this.profilerConfig.getSamplingType();
+        int targetTps = this.profilerConfig.getSamplingAdaptiveTargetTps();
 
         SamplerFactory samplerFactory = new SamplerFactory();
-        return samplerFactory.createSampler(samplingEnable, samplingRate);
+        return samplerFactory.createSampler(samplingEnable, samplingRate, samplingType, targetTps);
     }
     
     protected ServerMetaDataHolder createServerMetaDataHolder() {
@@ -429,22 +668,98 @@ public class DefaultAgent implements Agent {
         return pinpointClientFactory;
     }
 
+    private CollectorAffinityResolver createCollectorAffinityResolver() {
+        if (!profilerConfig.isCollectorAffinityEnable()) {
+            return null;
+        }
+        return new CollectorAffinityResolver(profilerConfig.getCollectorAffinityMembers());
+    }
+
+    private String resolveCollectorAffinityHost() {
+        if (collectorAffinityResolver == null) {
+            return null;
+        }
+        // hash only. probing the members here would block the application startup
+        final String owner = collectorAffinityResolver.getOwner(agentInformation.getApplicationName());
+        if (owner == null) {
+            logger.warn("profiler.collector.affinity.members is empty. use profiler.collector.*.ip");
+        } else {
+            logger.info("collector affinity owner. applicationName:{}, collector:{}", agentInformation.getApplicationName(), owner);
+        }
+        return owner;
+    }
+
+    private String getCollectorIp(String collectorIp) {
+        if (collectorAffinityHost != null) {
+            return collectorAffinityHost;
+        }
+        return collectorIp;
+    }
+
     protected EnhancedDataSender createTcpDataSender(CommandDispatcher commandDispatcher) {
         this.clientFactory = createPinpointClientFactory(commandDispatcher);
-        this.client = ClientFactoryUtils.createPinpointClient(this.profilerConfig.getCollectorTcpServerIp(), this.profilerConfig.getCollectorTcpServerPort(), clientFactory);
+        if (collectorAffinityHost != null) {
+            this.client = createCollectorAffinityClient(clientFactory);
+        } else {
+            this.client = ClientFactoryUtils.createPinpointClient(this.profilerConfig.getCollectorTcpServerIp(), this.profilerConfig.getCollectorTcpServerPort(), clientFactory);
+        }
         return new TcpDataSender(client);
     }
 
+    private PinpointClient createCollectorAffinityClient(PinpointClientFactory clientFactory) {
+        final List<String> candidates = collectorAffinityResolver.getCandidates(agentInformation.getApplicationName());
+        final CollectorAffinityAddressProvider addressProvider = new CollectorAffinityAddressProvider(candidates, this.profilerConfig.getCollectorTcpServerPort());
+        // every connect attempt takes the next member on the ring, and a reconnect starts again from the owner
+        final PinpointClient client = ClientFactoryUtils.createPinpointClient(addressProvider, clientFactory);
+        client.addPinpointClientReconnectEventListener(new PinpointClientReconnectEventListener() {
+            @Override
+            public void reconnectPerformed(PinpointClient client) {
+                collectorAffinityConnected(addressProvider);
+            }
+        });
+        if (client.isConnected()) {
+            collectorAffinityConnected(addressProvider);
+        }
+        return client;
+    }
+
+    private void collectorAffinityConnected(CollectorAffinityAddressProvider addressProvider) {
+        final String collector = addressProvider.connected();
+        if (!collectorAffinityHost.equals(collector)) {
+            logger.warn("owner collector unreachable. failed over. owner:{}, collector:{}", collectorAffinityHost, collector);
+        } else {
+            logger.info("collector affinity connected. collector:{}", collector);
+        }
+        // udp has no connection to lose, so the udp senders follow the tcp connection
+        switchCollector(this.spanDataSender, collector);
+        switchCollector(this.statDataSender, collector);
+    }
+
+    private void switchCollector(DataSender dataSender, String collector) {
+        if (dataSender instanceof CollectorSwitchable) {
+            ((CollectorSwitchable) dataSender).switchCollector(collector);
+        } else {
+            logger.warn("collector switch not supported. dataSender:{}", dataSender);
+        }
+    }
+
     protected DataSender createUdpStatDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorStatServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        UdpDataSenderFactory factory = new UdpDataSenderFactory(getCollectorIp(this.profilerConfig.getCollectorStatServerIp()), port, threadName, writeQueueSize, timeout, sendBufferSize, createAsyncQueueFactory(), profilerConfig.getUdpDataSenderBatchPacketSize());
         return factory.create(profilerConfig.getStatDataSenderSocketType());
     }
     
     protected DataSender createUdpSpanDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        UdpDataSenderFactory factory = new UdpDataSenderFactory(getCollectorIp(this.profilerConfig.getCollectorSpanServerIp()), port, threadName, writeQueueSize, timeout, sendBufferSize, createAsyncQueueFactory(), profilerConfig.getUdpDataSenderBatchPacketSize());
         return factory.create(profilerConfig.getSpanDataSenderSocketType());
     }
 
+    protected AsyncQueueFactory createAsyncQueueFactory() {
+        final String queueType = profilerConfig.getDataSenderQueueType();
+        final int maxDrainSize = profilerConfig.getDataSenderQueueMaxDrainSize();
+        final String waitStrategy = profilerConfig.getDataSenderQueueWaitStrategy();
+        return new AsyncQueueFactory(queueType, maxDrainSize, waitStrategy);
+    }
+
     protected EnhancedDataSender getTcpDataSender() {
         return tcpDataSender;
     }
@@ -482,6 +797,10 @@ public class DefaultAgent implements Agent {
         logger.info("Starting {} Agent.", ProductInfo.NAME);
         this.agentInfoSender.start();
         this.agentStatMonitor.start();
+        this.transformMetricReporter.start();
+        if (this.storageFlusher != null) {
+            this.storageFlusher.start();
+        }
     }
 
     @Override
@@ -502,9 +821,21 @@ public class DefaultAgent implements Agent {
 
         this.agentInfoSender.stop();
         this.agentStatMonitor.stop();
+        this.transformMetricReporter.stop();
+        this.transformCache.close();
+        if (this.mappedSqlCache != null) {
+            this.mappedSqlCache.close();
+        }
+
+        if (this.storageFlusher != null) {
+            this.storageFlusher.stop();
+        }
 
         // Need to process stop
         this.spanDataSender.stop();
+        if (this.tailSamplingSpanDataSender != this.spanDataSender) {
+            this.tailSamplingSpanDataSender.stop();
+        }
         this.statDataSender.stop();
 
         closeTcpDataSender();
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.common.util.BufferedSqlParser;
+import com.navercorp.pinpoint.common.util.NormalizedSqlBuffer;
+import com.navercorp.pinpoint.profiler.metadata.NormalizedSqlCache;
+import com.navercorp.pinpoint.profiler.metadata.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CachingSqlNormalizer that looks up the cache before the normalized sql string is created.
+ * A cached sql without literals is normalized without allocation.
+ *
+ * @author agent
+ */
+public class BufferedCachingSqlNormalizer implements CachingSqlNormalizer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final DefaultParsingResult EMPTY_OBJECT = new DefaultParsingResult("");
+
+    private final NormalizedSqlCache sqlCache;
+    private final BufferedSqlParser sqlParser;
+
+    public BufferedCachingSqlNormalizer(int cacheSize) {
+        this.sqlCache = new NormalizedSqlCache(cacheSize);
+        this.sqlParser = new BufferedSqlParser();
+    }
+
+    @Override
+    public ParsingResult wrapSql(String sql) {
+        if (sql == null) {
+            return EMPTY_OBJECT;
+        }
+        return new DefaultParsingResult(sql);
+    }
+
+    @Override
+    public boolean normalizedSql(ParsingResult parsingResult) {
+        if (parsingResult == null) {
+            return false;
+        }
+        if (parsingResult == EMPTY_OBJECT) {
+            return false;
+        }
+        if (parsingResult.getId() != ParsingResult.ID_NOT_EXIST) {
+            // already cached
+            return false;
+        }
+
+        if (!(parsingResult instanceof ParsingResultInternal)) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("unsupported ParsingResult Type type {}", parsingResult);
+            }
+            throw new IllegalArgumentException("unsupported ParsingResult Type");
+        }
+
+        final ParsingResultInternal parsingResultInternal = (ParsingResultInternal) parsingResult;
+
+        final String originalSql = parsingResultInternal.getOriginalSql();
+        final NormalizedSqlBuffer normalizedSql = this.sqlParser.normalize(originalSql);
+
+        final NormalizedSqlCache.Entry entry = this.sqlCache.get(normalizedSql);
+        if (entry != null) {
+            setResult(parsingResultInternal, entry.getId(), entry.getSql(), normalizedSql.getParseParameter());
+            return false;
+        }
+
+        final Result cachingResult = this.sqlCache.put(normalizedSql);
+        setResult(parsingResultInternal, cachingResult.getId(), normalizedSql.getNormalizedSql(), normalizedSql.getParseParameter());
+        return cachingResult.isNewValue();
+    }
+
+    private void setResult(ParsingResultInternal parsingResultInternal, int id, String sql, String parseParameter) {
+        final boolean success = parsingResultInternal.setId(id);
+        if (!success) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("invalid state. setSqlId fail setId:{}, ParsingResultInternal:{}", id, parsingResultInternal);
+            }
+        }
+        parsingResultInternal.setSql(sql);
+        parsingResultInternal.setOutput(parseParameter);
+    }
+
+    @Override
+    public String toString() {
+        return "BufferedCachingSqlNormalizer{" +
+                "sqlCache=" + sqlCache +
+                '}';
+    }
+}
@@ -31,6 +31,9 @@ public class CallStack {
 
     private final Span span;
     private final int maxDepth;
+    private final SpanEventFactory spanEventFactory;
+    // returned by peek() on overflow. never stored
+    private SpanEvent overflowPeekEvent;
     private int index = DEFAULT_INDEX;
     private int overflowIndex = 0;
     private short sequence;
@@ -41,8 +44,16 @@ public class CallStack {
     }
     
     public CallStack(Span span, int maxDepth) {
+        this(span, maxDepth, new DefaultSpanEventFactory());
+    }
+
+    public CallStack(Span span, int maxDepth, SpanEventFactory spanEventFactory) {
+        if (spanEventFactory == null) {
+            throw new NullPointerException("spanEventFactory must not be null");
+        }
         this.span = span;
         this.maxDepth = maxDepth;
+        this.spanEventFactory = spanEventFactory;
     }
     
     public Span getSpan() {
@@ -87,7 +98,7 @@ public class CallStack {
     public SpanEvent pop() {
         if(isOverflow() && overflowIndex > 0) {
             overflowIndex--;
-            return new SpanEvent(span);
+            return spanEventFactory.newSpanEvent(span);
         }
         
         final SpanEvent spanEvent = peek();
@@ -105,12 +116,23 @@ public class CallStack {
         }
         
         if(isOverflow() && overflowIndex > 0) {
-            return new SpanEvent(span);
+            return getOverflowPeekEvent();
         }
 
         return stack[index - 1];
     }
 
+    private SpanEvent getOverflowPeekEvent() {
+        SpanEvent overflowPeekEvent = this.overflowPeekEvent;
+        if (overflowPeekEvent == null) {
+            overflowPeekEvent = new SpanEvent(span);
+            this.overflowPeekEvent = overflowPeekEvent;
+        } else {
+            overflowPeekEvent.reset(span);
+        }
+        return overflowPeekEvent;
+    }
+
     public boolean empty() {
         return index == DEFAULT_INDEX;
     }
@@ -18,11 +18,13 @@ package com.navercorp.pinpoint.profiler.context;
 
 import com.navercorp.pinpoint.bootstrap.context.AsyncState;
 import com.navercorp.pinpoint.bootstrap.context.AsyncTraceId;
+import com.navercorp.pinpoint.bootstrap.context.SpanId;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
 import com.navercorp.pinpoint.bootstrap.context.TraceContext;
 import com.navercorp.pinpoint.bootstrap.context.TraceId;
 import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 import com.navercorp.pinpoint.common.annotations.InterfaceAudience;
+import com.navercorp.pinpoint.common.trace.TraceFlags;
 import com.navercorp.pinpoint.profiler.context.storage.AsyncStorage;
 import com.navercorp.pinpoint.profiler.context.storage.Storage;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
@@ -41,7 +43,23 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
 
     private final IdGenerator idGenerator;
 
+    private final SpanEventFactory spanEventFactory;
+
+    // trace unsampled transactions as tail sampling candidates
+    private final boolean tailSampling;
+    // storages of the candidates, sent in full to the collector deciding for the transaction
+    private final StorageFactory tailSamplingStorageFactory;
+
     public DefaultBaseTraceFactory(TraceContext traceContext, StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator) {
+        this(traceContext, storageFactory, sampler, idGenerator, new DefaultSpanEventFactory());
+    }
+
+    public DefaultBaseTraceFactory(TraceContext traceContext, StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, SpanEventFactory spanEventFactory) {
+        this(traceContext, storageFactory, sampler, idGenerator, spanEventFactory, false, storageFactory);
+    }
+
+    public DefaultBaseTraceFactory(TraceContext traceContext, StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, SpanEventFactory spanEventFactory,
+                                   boolean tailSampling, StorageFactory tailSamplingStorageFactory) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
         }
@@ -54,10 +72,27 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
         if (idGenerator == null) {
             throw new NullPointerException("idGenerator must not be null");
         }
+        if (spanEventFactory == null) {
+            throw new NullPointerException("spanEventFactory must not be null");
+        }
+        if (tailSamplingStorageFactory == null) {
+            throw new NullPointerException("tailSamplingStorageFactory must not be null");
+        }
         this.traceContext = traceContext;
         this.storageFactory = storageFactory;
         this.sampler = sampler;
         this.idGenerator = idGenerator;
+        this.spanEventFactory = spanEventFactory;
+        this.tailSampling = tailSampling;
+        this.tailSamplingStorageFactory = tailSamplingStorageFactory;
+    }
+
+    private Storage createStorage(TraceId traceId) {
+        // the candidate flag is propagated from the previous nodes, so every span of the transaction reaches the same collector
+        if (TraceFlags.isTailSamplingCandidate(traceId.getFlags())) {
+            return tailSamplingStorageFactory.createStorage();
+        }
+        return storageFactory.createStorage();
     }
 
 
@@ -68,10 +103,10 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
         // always set true because the decision of sampling has been  made on previous nodes
         // TODO need to consider as a target to sample in case Trace object has a sampling flag (true) marked on previous node.
         final boolean sampling = true;
-        final Storage storage = storageFactory.createStorage();
+        final Storage storage = createStorage(traceId);
         final long localTransactionId = this.idGenerator.nextContinuedTransactionId();
 
-        final Trace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling);
+        final Trace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling, spanEventFactory);
         return trace;
     }
 
@@ -86,12 +121,12 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
     public Trace newTraceObject() {
         // TODO need to modify how to inject a datasender
         final boolean sampling = sampler.isSampling();
-        if (sampling) {
-            final Storage storage = storageFactory.createStorage();
-
+        if (sampling || tailSampling) {
             final long localTransactionId = idGenerator.nextTransactionId();
-            final TraceId traceId = new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), localTransactionId);
-            final Trace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling);
+            final TraceId traceId = newTraceId(localTransactionId, sampling);
+            final Storage storage = createStorage(traceId);
+
+            final Trace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, true, spanEventFactory);
 
             return trace;
         } else {
@@ -99,6 +134,14 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
         }
     }
 
+    private TraceId newTraceId(long localTransactionId, boolean sampling) {
+        if (sampling) {
+            return new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), localTransactionId);
+        }
+        // the flag is propagated to the next nodes, so the whole transaction becomes a candidate
+        return new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), localTransactionId, SpanId.NULL, SpanId.newSpanId(), TraceFlags.TAIL_SAMPLING_CANDIDATE);
+    }
+
 
 
     // internal async trace.
@@ -107,9 +150,9 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
 
         final TraceId parentTraceId = traceId.getParentTraceId();
         final boolean sampling = true;
-        final Storage storage = storageFactory.createStorage();
+        final Storage storage = createStorage(parentTraceId);
         final Storage asyncStorage = new AsyncStorage(storage);
-        final Trace trace = new DefaultTrace(traceContext, asyncStorage, parentTraceId, IdGenerator.UNTRACKED_ID, sampling);
+        final Trace trace = new DefaultTrace(traceContext, asyncStorage, parentTraceId, IdGenerator.UNTRACKED_ID, sampling, spanEventFactory);
 
         final AsyncTrace asyncTrace = new AsyncTrace(trace, asyncId, traceId.nextAsyncSequence(), startTime);
 
@@ -123,11 +166,11 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
 
         final boolean sampling = true;
 
-        final Storage storage = storageFactory.createStorage();
+        final Storage storage = createStorage(traceId);
         final long localTransactionId = this.idGenerator.nextContinuedTransactionId();
-        final DefaultTrace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling);
+        final DefaultTrace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling, spanEventFactory);
 
-        final SpanAsyncStateListener asyncStateListener = new SpanAsyncStateListener(trace.getSpan(), storageFactory.createStorage());
+        final SpanAsyncStateListener asyncStateListener = new SpanAsyncStateListener(trace.getSpan(), createStorage(traceId));
         final ListenableAsyncState stateListener = new ListenableAsyncState(asyncStateListener);
         final AsyncTrace asyncTrace = new AsyncTrace(trace, stateListener);
 
@@ -140,13 +183,13 @@ public class DefaultBaseTraceFactory implements BaseTraceFactory {
     public Trace newAsyncTraceObject() {
 
         final boolean sampling = sampler.isSampling();
-        if (sampling) {
-            final Storage storage = storageFactory.createStorage();
+        if (sampling || tailSampling) {
             final long localTransactionId = idGenerator.nextTransactionId();
-            final TraceId traceId = new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), localTransactionId);
-            final DefaultTrace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, sampling);
+            final TraceId traceId = newTraceId(localTransactionId, sampling);
+            final Storage storage = createStorage(traceId);
+            final DefaultTrace trace = new DefaultTrace(traceContext, storage, traceId, localTransactionId, true, spanEventFactory);
 
-            final SpanAsyncStateListener asyncStateListener = new SpanAsyncStateListener(trace.getSpan(), storageFactory.createStorage());
+            final SpanAsyncStateListener asyncStateListener = new SpanAsyncStateListener(trace.getSpan(), createStorage(traceId));
             final AsyncState closer = new ListenableAsyncState(asyncStateListener);
             final AsyncTrace asyncTrace = new AsyncTrace(trace, closer);
 
@@ -45,6 +45,7 @@ public final class DefaultTrace implements Trace {
 
     private final TraceContext traceContext;
     private final Storage storage;
+    private final SpanEventFactory spanEventFactory;
 
     private final WrappedSpanEventRecorder spanEventRecorder;
     private final DefaultSpanRecorder spanRecorder;
@@ -55,6 +56,10 @@ public final class DefaultTrace implements Trace {
     private final DefaultTraceScopePool scopePool = new DefaultTraceScopePool();
 
     public DefaultTrace(TraceContext traceContext, Storage storage, TraceId traceId, long localTransactionId, boolean sampling) {
+        this(traceContext, storage, traceId, localTransactionId, sampling, new DefaultSpanEventFactory());
+    }
+
+    public DefaultTrace(TraceContext traceContext, Storage storage, TraceId traceId, long localTransactionId, boolean sampling, SpanEventFactory spanEventFactory) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
         }
@@ -64,12 +69,16 @@ public final class DefaultTrace implements Trace {
         if (traceId == null) {
             throw new NullPointerException("continueTraceId must not be null");
         }
+        if (spanEventFactory == null) {
+            throw new NullPointerException("spanEventFactory must not be null");
+        }
 
         this.traceContext = traceContext;
         this.storage = storage;
         this.traceId = traceId;
         this.localTransactionId = localTransactionId;
         this.sampling = sampling;
+        this.spanEventFactory = spanEventFactory;
 
         final Span span = createSpan();
         this.spanRecorder = new DefaultSpanRecorder(traceContext, span, this.traceId, sampling);
@@ -82,9 +91,9 @@ public final class DefaultTrace implements Trace {
     private CallStack createCallStack(ProfilerConfig profilerConfig, Span span) {
         if (profilerConfig != null) {
             final int maxCallStackDepth = profilerConfig.getCallStackMaxDepth();
-            return new CallStack(span, maxCallStackDepth);
+            return new CallStack(span, maxCallStackDepth, spanEventFactory);
         } else {
-            return new CallStack(span);
+            return new CallStack(span, -1, spanEventFactory);
         }
     }
 
@@ -117,7 +126,7 @@ public final class DefaultTrace implements Trace {
     @Override
     public SpanEventRecorder traceBlockBegin(final int stackId) {
         // Set properties for the case when stackFrame is not used as part of Span.
-        final SpanEvent spanEvent = new SpanEvent(spanRecorder.getSpan());
+        final SpanEvent spanEvent = spanEventFactory.newSpanEvent(spanRecorder.getSpan());
         spanEvent.markStartTime();
         spanEvent.setStackId(stackId);
 
@@ -35,8 +35,20 @@ public class DefaultTraceFactoryBuilder implements TraceFactoryBuilder {
     private final Sampler sampler;
     private final IdGenerator idGenerator;
     private final ActiveTraceRepository activeTraceRepository;
+    private final SpanEventFactory spanEventFactory;
+    private final boolean tailSampling;
+    private final StorageFactory tailSamplingStorageFactory;
 
     public DefaultTraceFactoryBuilder(StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository) {
+        this(storageFactory, sampler, idGenerator, activeTraceRepository, new DefaultSpanEventFactory());
+    }
+
+    public DefaultTraceFactoryBuilder(StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository, SpanEventFactory spanEventFactory) {
+        this(storageFactory, sampler, idGenerator, activeTraceRepository, spanEventFactory, false, storageFactory);
+    }
+
+    public DefaultTraceFactoryBuilder(StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, ActiveTraceRepository activeTraceRepository, SpanEventFactory spanEventFactory,
+                                      boolean tailSampling, StorageFactory tailSamplingStorageFactory) {
         if (storageFactory == null) {
             throw new NullPointerException("storageFactory must not be null");
         }
@@ -46,6 +58,12 @@ public class DefaultTraceFactoryBuilder implements TraceFactoryBuilder {
         if (idGenerator == null) {
             throw new NullPointerException("idGenerator must not be null");
         }
+        if (spanEventFactory == null) {
+            throw new NullPointerException("spanEventFactory must not be null");
+        }
+        if (tailSamplingStorageFactory == null) {
+            throw new NullPointerException("tailSamplingStorageFactory must not be null");
+        }
 //        if (activeTraceRepository == null) {
 //            throw new NullPointerException("activeTraceRepository must not be null");
 //        }
@@ -54,6 +72,9 @@ public class DefaultTraceFactoryBuilder implements TraceFactoryBuilder {
         this.sampler = sampler;
         this.idGenerator = idGenerator;
         this.activeTraceRepository = activeTraceRepository;
+        this.spanEventFactory = spanEventFactory;
+        this.tailSampling = tailSampling;
+        this.tailSamplingStorageFactory = tailSamplingStorageFactory;
     }
 
     public TraceFactory build(TraceContext traceContext) {
@@ -61,7 +82,7 @@ public class DefaultTraceFactoryBuilder implements TraceFactoryBuilder {
             throw new NullPointerException("traceContext must not be null");
         }
 
-        BaseTraceFactory baseTraceFactory = new DefaultBaseTraceFactory(traceContext, storageFactory, sampler, idGenerator);
+        BaseTraceFactory baseTraceFactory = new DefaultBaseTraceFactory(traceContext, storageFactory, sampler, idGenerator, spanEventFactory, tailSampling, tailSamplingStorageFactory);
         if (isDebugEnabled()) {
             baseTraceFactory = LoggingBaseTraceFactory.wrap(baseTraceFactory);
         }
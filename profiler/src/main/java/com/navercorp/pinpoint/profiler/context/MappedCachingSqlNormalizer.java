@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.common.util.DefaultSqlParser;
+import com.navercorp.pinpoint.common.util.NormalizedSql;
+import com.navercorp.pinpoint.common.util.SqlParser;
+import com.navercorp.pinpoint.profiler.metadata.MappedSqlCache;
+import com.navercorp.pinpoint.profiler.metadata.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CachingSqlNormalizer backed by {@link MappedSqlCache}.
+ * Sql without literals is normalized to itself, so it skips parsing once it is in the cache, even after a restart.
+ *
+ * @author agent
+ */
+public class MappedCachingSqlNormalizer implements CachingSqlNormalizer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private static final DefaultParsingResult EMPTY_OBJECT = new DefaultParsingResult("");
+
+    private final MappedSqlCache sqlCache;
+    private final SqlParser sqlParser;
+
+    public MappedCachingSqlNormalizer(MappedSqlCache sqlCache) {
+        if (sqlCache == null) {
+            throw new NullPointerException("sqlCache must not be null");
+        }
+        this.sqlCache = sqlCache;
+        this.sqlParser = new DefaultSqlParser();
+    }
+
+    @Override
+    public ParsingResult wrapSql(String sql) {
+        if (sql == null) {
+            return EMPTY_OBJECT;
+        }
+        return new DefaultParsingResult(sql);
+    }
+
+    @Override
+    public boolean normalizedSql(ParsingResult parsingResult) {
+        if (parsingResult == null) {
+            return false;
+        }
+        if (parsingResult == EMPTY_OBJECT) {
+            return false;
+        }
+        if (parsingResult.getId() != ParsingResult.ID_NOT_EXIST) {
+            // already cached
+            return false;
+        }
+
+        if (!(parsingResult instanceof ParsingResultInternal)) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("unsupported ParsingResult Type type {}", parsingResult);
+            }
+            throw new IllegalArgumentException("unsupported ParsingResult Type");
+        }
+
+        final ParsingResultInternal parsingResultInternal = (ParsingResultInternal) parsingResult;
+        final String originalSql = parsingResultInternal.getOriginalSql();
+
+        final Result normalizedResult = this.sqlCache.getNormalized(originalSql);
+        if (normalizedResult != null) {
+            // skip parsing
+            setResult(parsingResultInternal, normalizedResult, originalSql, "");
+            return normalizedResult.isNewValue();
+        }
+
+        final NormalizedSql normalizedSql = this.sqlParser.normalizedSql(originalSql);
+        final String sql = normalizedSql.getNormalizedSql();
+        final String parseParameter = normalizedSql.getParseParameter();
+        final boolean alreadyNormalized = sql.equals(originalSql) && parseParameter.isEmpty();
+
+        final Result cachingResult = this.sqlCache.put(sql, alreadyNormalized);
+        setResult(parsingResultInternal, cachingResult, sql, parseParameter);
+        return cachingResult.isNewValue();
+    }
+
+    private void setResult(ParsingResultInternal parsingResultInternal, Result cachingResult, String sql, String parseParameter) {
+        final boolean success = parsingResultInternal.setId(cachingResult.getId());
+        if (!success) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("invalid state. setSqlId fail setId:{}, ParsingResultInternal:{}", cachingResult.getId(), parsingResultInternal);
+            }
+        }
+        parsingResultInternal.setSql(sql);
+        parsingResultInternal.setOutput(parseParameter);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedCachingSqlNormalizer{" +
+                "sqlCache=" + sqlCache +
+                '}';
+    }
+}
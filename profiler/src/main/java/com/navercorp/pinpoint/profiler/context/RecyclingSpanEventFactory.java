@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.profiler.sender.SendCompletionHandler;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+
+import java.util.List;
+
+/**
+ * Hands out per-thread pooled {@link SpanEvent}s.
+ * SpanEvents are returned to the pool of the recording thread after the sender thread has serialized
+ * the {@link Span} or {@link SpanChunk} holding them. (see {@link SendCompletionHandler})
+ *
+ * @author agent
+ */
+public class RecyclingSpanEventFactory implements SpanEventFactory, SendCompletionHandler {
+
+    public static final int DEFAULT_POOL_SIZE = 256;
+
+    private final int poolSize;
+
+    private final ThreadLocal<SpanEventPool> poolLocal = new ThreadLocal<SpanEventPool>() {
+        @Override
+        protected SpanEventPool initialValue() {
+            return new SpanEventPool(poolSize);
+        }
+    };
+
+    public RecyclingSpanEventFactory() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    public RecyclingSpanEventFactory(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize");
+        }
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public SpanEvent newSpanEvent(Span span) {
+        final SpanEventPool pool = poolLocal.get();
+        return pool.acquire(span);
+    }
+
+    @Override
+    public void completed(Object message) {
+        if (message instanceof SpanChunk) {
+            final SpanChunk spanChunk = (SpanChunk) message;
+            recycle(spanChunk.getSpanEventList());
+            spanChunk.setSpanEventList(null);
+        } else if (message instanceof Span) {
+            final Span span = (Span) message;
+            recycle(span.getSpanEventList());
+            span.setSpanEventList(null);
+        }
+    }
+
+    private void recycle(List<TSpanEvent> spanEventList) {
+        if (spanEventList == null) {
+            return;
+        }
+        final int size = spanEventList.size();
+        for (int i = 0; i < size; i++) {
+            final TSpanEvent spanEvent = spanEventList.get(i);
+            if (spanEvent instanceof SpanEvent) {
+                ((SpanEvent) spanEvent).recycle();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RecyclingSpanEventFactory{" +
+                "poolSize=" + poolSize +
+                '}';
+    }
+}
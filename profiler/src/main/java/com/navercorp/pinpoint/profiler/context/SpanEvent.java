@@ -17,9 +17,12 @@
 package com.navercorp.pinpoint.profiler.context;
 
 import com.navercorp.pinpoint.bootstrap.context.FrameAttachment;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
 import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 
+import java.util.List;
+
 /**
  * Span represent RPC
  *
@@ -28,11 +31,17 @@ import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
  */
 public class SpanEvent extends TSpanEvent implements FrameAttachment {
 
-    private final Span span;
+    private Span span;
     private int stackId;
     private boolean timeRecording = true;
     private Object frameObject;
 
+    // owner pool of recycled SpanEvent. null if not recycled
+    private SpanEventPool pool;
+    // set by the sender thread. cleared by the owner thread after the pool handed it over again
+    private boolean released;
+    private List<TAnnotation> recycledAnnotations;
+
     public SpanEvent(Span span) {
         if (span == null) {
             throw new NullPointerException("span must not be null");
@@ -45,6 +54,10 @@ public class SpanEvent extends TSpanEvent implements FrameAttachment {
     }
 
     public void addAnnotation(Annotation annotation) {
+        if (this.recycledAnnotations != null && getAnnotations() == null) {
+            setAnnotations(this.recycledAnnotations);
+            this.recycledAnnotations = null;
+        }
         this.addToAnnotations(annotation);
     }
 
@@ -115,4 +128,41 @@ public class SpanEvent extends TSpanEvent implements FrameAttachment {
         this.frameObject = null;
         return delete;
     }
+
+    void setPool(SpanEventPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Caution. must be called after the last reference to this SpanEvent is released.
+     */
+    void recycle() {
+        final SpanEventPool pool = this.pool;
+        if (pool == null) {
+            return;
+        }
+        // a SpanEvent sent twice must not be handed out twice
+        if (released) {
+            return;
+        }
+        this.released = true;
+        pool.release(this);
+    }
+
+    void reset(Span span) {
+        if (span == null) {
+            throw new NullPointerException("span must not be null");
+        }
+        final List<TAnnotation> annotations = getAnnotations();
+        clear();
+        if (annotations != null) {
+            annotations.clear();
+            this.recycledAnnotations = annotations;
+        }
+        this.span = span;
+        this.released = false;
+        this.stackId = 0;
+        this.timeRecording = true;
+        this.frameObject = null;
+    }
 }
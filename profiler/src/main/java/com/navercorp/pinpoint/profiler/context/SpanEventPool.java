@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.profiler.sender.RingBufferAsyncQueue;
+import com.navercorp.pinpoint.profiler.sender.WaitStrategy;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+
+/**
+ * Per-thread pool of {@link SpanEvent}.
+ * acquire() is called by the owner thread only. release() is called by the sender thread
+ * and goes through a preallocated ring buffer, so neither side locks or allocates.
+ *
+ * @author agent
+ */
+final class SpanEventPool {
+
+    private final SpanEvent[] freeList;
+    private int freeCount = 0;
+    private final FreeListCollection freeListCollection = new FreeListCollection();
+
+    private final RingBufferAsyncQueue<SpanEvent> releaseQueue;
+
+    SpanEventPool(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize");
+        }
+        this.releaseQueue = new RingBufferAsyncQueue<SpanEvent>(poolSize, WaitStrategy.PARK);
+        this.freeList = new SpanEvent[releaseQueue.capacity()];
+    }
+
+    SpanEvent acquire(Span span) {
+        if (freeCount == 0) {
+            releaseQueue.drainTo(freeListCollection, freeList.length);
+        }
+        if (freeCount == 0) {
+            final SpanEvent spanEvent = new SpanEvent(span);
+            spanEvent.setPool(this);
+            return spanEvent;
+        }
+        final SpanEvent spanEvent = freeList[--freeCount];
+        freeList[freeCount] = null;
+        spanEvent.reset(span);
+        return spanEvent;
+    }
+
+    void release(SpanEvent spanEvent) {
+        // pool is full. leave it to GC
+        releaseQueue.offer(spanEvent);
+    }
+
+    int freeCount() {
+        return freeCount + releaseQueue.size();
+    }
+
+    private class FreeListCollection extends AbstractCollection<SpanEvent> {
+        @Override
+        public boolean add(SpanEvent spanEvent) {
+            freeList[freeCount++] = spanEvent;
+            return true;
+        }
+
+        @Override
+        public Iterator<SpanEvent> iterator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int size() {
+            return freeCount;
+        }
+    }
+}
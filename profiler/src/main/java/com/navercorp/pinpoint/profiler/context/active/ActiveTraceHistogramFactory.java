@@ -20,6 +20,7 @@ import com.navercorp.pinpoint.common.trace.BaseHistogramSchema;
 import com.navercorp.pinpoint.common.trace.HistogramSchema;
 import com.navercorp.pinpoint.common.trace.HistogramSlot;
 import com.navercorp.pinpoint.common.trace.SlotType;
+import com.navercorp.pinpoint.profiler.context.ActiveTrace;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -55,6 +56,10 @@ public class ActiveTraceHistogramFactory {
     }
 
     public ActiveTraceHistogram createHistogram() {
+        if (activeTraceLocator instanceof ActiveTraceRepository) {
+            return createHistogram((ActiveTraceRepository) activeTraceLocator);
+        }
+
         Map<SlotType, IntAdder> mappedSlot = new LinkedHashMap<SlotType, IntAdder>(activeTraceSlotsCount);
         for (SlotType slotType : ACTIVE_TRACE_SLOTS_ORDER) {
             mappedSlot.put(slotType, new IntAdder(0));
@@ -75,6 +80,41 @@ public class ActiveTraceHistogramFactory {
         return new ActiveTraceHistogram(this.histogramSchema, activeTraceCount);
     }
 
+    private ActiveTraceHistogram createHistogram(ActiveTraceRepository activeTraceRepository) {
+        // counts start times while scanning. no ActiveTraceInfo copy
+        final HistogramVisitor visitor = new HistogramVisitor(System.currentTimeMillis());
+        activeTraceRepository.scan(visitor);
+
+        List<Integer> activeTraceCount = new ArrayList<Integer>(activeTraceSlotsCount);
+        for (int count : visitor.slotCount) {
+            activeTraceCount.add(count);
+        }
+        return new ActiveTraceHistogram(this.histogramSchema, activeTraceCount);
+    }
+
+    private class HistogramVisitor implements ActiveTraceVisitor {
+        private final long currentTime;
+        private final int[] slotCount = new int[activeTraceSlotsCount];
+
+        private HistogramVisitor(long currentTime) {
+            this.currentTime = currentTime;
+        }
+
+        @Override
+        public void visit(ActiveTrace activeTrace) {
+            final long startTime = activeTrace.getStartTime();
+            // not started
+            if (startTime <= 0) {
+                return;
+            }
+            final HistogramSlot slot = histogramSchema.findHistogramSlot((int) (currentTime - startTime), false);
+            final int index = ACTIVE_TRACE_SLOTS_ORDER.indexOf(slot.getSlotType());
+            if (index != -1) {
+                slotCount[index]++;
+            }
+        }
+    }
+
     private static class IntAdder {
         private int value = 0;
 
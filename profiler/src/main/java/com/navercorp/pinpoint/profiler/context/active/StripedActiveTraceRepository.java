@@ -0,0 +1,242 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.active;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.navercorp.pinpoint.profiler.context.ActiveTrace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ActiveTraceRepository built on thread owned slots.
+ * A thread usually has one active trace, so put and remove are a store to the slot of the current thread.
+ * A trace put while the slot is occupied goes to an overflow map, bounded and weakly referenced like {@link DefaultActiveTraceRepository}.
+ * Slots are registered once per thread in copy on write stripes, and collect scans them without locking.
+ * Slots of dead threads are purged while scanning.
+ *
+ * @author agent
+ */
+public class StripedActiveTraceRepository implements ActiveTraceRepository {
+
+    private static final int DEFAULT_STRIPE_SIZE = 16;
+    // memory leak defense threshold
+    private static final int DEFAULT_MAX_OVERFLOW_SIZE = 1024;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    // oom safe cache
+    private final ConcurrentMap<Long, ActiveTrace> overflowMap;
+
+    private final ThreadLocal<Slot> localSlot = new ThreadLocal<Slot>() {
+        @Override
+        protected Slot initialValue() {
+            final Slot slot = new Slot(Thread.currentThread());
+            getStripe(slot.thread).add(slot);
+            return slot;
+        }
+    };
+
+    public StripedActiveTraceRepository() {
+        this(DEFAULT_STRIPE_SIZE);
+    }
+
+    public StripedActiveTraceRepository(int stripeSize) {
+        this(stripeSize, DEFAULT_MAX_OVERFLOW_SIZE);
+    }
+
+    public StripedActiveTraceRepository(int stripeSize, int maxOverflowSize) {
+        if (stripeSize <= 0) {
+            throw new IllegalArgumentException("stripeSize");
+        }
+        if (maxOverflowSize <= 0) {
+            throw new IllegalArgumentException("maxOverflowSize");
+        }
+        int size = 1;
+        while (size < stripeSize) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = size - 1;
+        this.overflowMap = createOverflowMap(maxOverflowSize);
+    }
+
+    private ConcurrentMap<Long, ActiveTrace> createOverflowMap(int maxOverflowSize) {
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+        cacheBuilder.maximumSize(maxOverflowSize);
+        // OOM defense
+        cacheBuilder.weakValues();
+
+        final Cache<Long, ActiveTrace> localCache = cacheBuilder.build();
+        return localCache.asMap();
+    }
+
+    private Stripe getStripe(Thread thread) {
+        return stripes[(int) (thread.getId() & stripeMask)];
+    }
+
+    @Override
+    public void put(ActiveTrace activeTrace) {
+        if (activeTrace == null) {
+            throw new NullPointerException("activeTrace must not be null");
+        }
+        final Slot slot = localSlot.get();
+        if (slot.get() == null) {
+            // ordered store. collect() does not need to see it immediately
+            slot.lazySet(activeTrace);
+            return;
+        }
+        // another trace is in progress on this thread. e.g. a trace started inside an async trace
+        overflowMap.put(activeTrace.getId(), activeTrace);
+    }
+
+    @Override
+    public ActiveTrace remove(Long key) {
+        if (key == null) {
+            return null;
+        }
+        final long id = key;
+        final Slot slot = localSlot.get();
+        final ActiveTrace activeTrace = slot.get();
+        if (activeTrace != null && activeTrace.getId() == id) {
+            slot.lazySet(null);
+            return activeTrace;
+        }
+        final ActiveTrace overflowed = overflowMap.remove(id);
+        if (overflowed != null) {
+            return overflowed;
+        }
+        // put by another thread
+        return removeSlow(id);
+    }
+
+    private ActiveTrace removeSlow(long id) {
+        for (Stripe stripe : stripes) {
+            for (Slot slot : stripe.slots) {
+                final ActiveTrace activeTrace = slot.get();
+                if (activeTrace != null && activeTrace.getId() == id) {
+                    if (slot.compareAndSet(activeTrace, null)) {
+                        return activeTrace;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void scan(ActiveTraceVisitor visitor) {
+        if (visitor == null) {
+            throw new NullPointerException("visitor must not be null");
+        }
+        for (Stripe stripe : stripes) {
+            boolean purge = false;
+            for (Slot slot : stripe.slots) {
+                if (!slot.thread.isAlive()) {
+                    purge = true;
+                    continue;
+                }
+                final ActiveTrace activeTrace = slot.get();
+                if (activeTrace != null) {
+                    visitor.visit(activeTrace);
+                }
+            }
+            if (purge) {
+                stripe.purge();
+            }
+        }
+        for (ActiveTrace activeTrace : overflowMap.values()) {
+            visitor.visit(activeTrace);
+        }
+    }
+
+    @Override
+    public List<ActiveTraceInfo> collect() {
+        final List<ActiveTraceInfo> collectData = new ArrayList<ActiveTraceInfo>();
+        scan(new ActiveTraceVisitor() {
+            @Override
+            public void visit(ActiveTrace trace) {
+                final long startTime = trace.getStartTime();
+                // not started
+                if (startTime > 0) {
+                    if (trace.isSampled()) {
+                        collectData.add(new ActiveTraceInfo(trace.getId(), startTime, trace.getBindThread(), true, trace.getTransactionId(), trace.getEntryPoint()));
+                    } else {
+                        // clear Trace reference
+                        collectData.add(new ActiveTraceInfo(trace.getId(), startTime, trace.getBindThread()));
+                    }
+                }
+            }
+        });
+        return collectData;
+    }
+
+    int overflowCount() {
+        return overflowMap.size();
+    }
+
+    int slotCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.slots.length;
+        }
+        return count;
+    }
+
+    private static final class Slot extends AtomicReference<ActiveTrace> {
+        private final Thread thread;
+
+        private Slot(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static final class Stripe {
+        private static final Slot[] EMPTY = new Slot[0];
+
+        private volatile Slot[] slots = EMPTY;
+
+        private synchronized void add(Slot slot) {
+            final List<Slot> copy = liveSlots();
+            copy.add(slot);
+            this.slots = copy.toArray(new Slot[copy.size()]);
+        }
+
+        private synchronized void purge() {
+            final List<Slot> copy = liveSlots();
+            this.slots = copy.toArray(new Slot[copy.size()]);
+        }
+
+        private List<Slot> liveSlots() {
+            final Slot[] current = this.slots;
+            final List<Slot> copy = new ArrayList<Slot>(current.length + 1);
+            for (Slot slot : current) {
+                if (slot.thread.isAlive()) {
+                    copy.add(slot);
+                }
+            }
+            return copy;
+        }
+    }
+}
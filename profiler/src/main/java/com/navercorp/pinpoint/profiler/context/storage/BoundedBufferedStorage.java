@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.common.util.Clock;
+import com.navercorp.pinpoint.common.util.SystemClock;
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanChunk;
+import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.profiler.sender.UdpDataSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flushes a SpanChunk when the estimated size of the buffered SpanEvents reaches flushSize,
+ * or when the oldest buffered SpanEvent has been held for maxAge milliseconds.
+ * The age is checked whenever a SpanEvent is stored, and periodically by {@link BoundedBufferedStorageFlusher}.
+ * The flusher thread and the trace thread both flush, so the buffer is guarded by the storage lock.
+ * Buffers are taken from the {@link SpanEventListPool} if one is given.
+ *
+ * @author agent
+ */
+public class BoundedBufferedStorage implements Storage {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedBufferedStorage.class);
+    private static final boolean isDebug = logger.isDebugEnabled();
+
+    public static final int DEFAULT_FLUSH_SIZE = 16 * 1024;
+    public static final long DEFAULT_MAX_AGE = 5000;
+
+    // agentId, applicationName, transactionId ... of SpanChunk
+    private static final int CHUNK_HEADER_SIZE = 256;
+    private static final int MESSAGE_LIMIT = UdpDataSender.UDP_MAX_PACKET_LENGTH;
+
+    private final DataSender dataSender;
+    private final SpanChunkFactory spanChunkFactory;
+    private final int flushSize;
+    private final long maxAge;
+    private final BoundedBufferedStorageMetric metric;
+    private final Clock clock;
+    // null : the age is checked only when a SpanEvent is stored
+    private final BoundedBufferedStorageFlusher flusher;
+    // null : a new buffer for every flush
+    private final SpanEventListPool spanEventListPool;
+
+    private List<SpanEvent> buffer;
+    private int bufferedSize = 0;
+    private long firstStoreTime;
+
+    public BoundedBufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, BoundedBufferedStorageMetric metric) {
+        this(dataSender, spanChunkFactory, DEFAULT_FLUSH_SIZE, DEFAULT_MAX_AGE, metric);
+    }
+
+    public BoundedBufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int flushSize, long maxAge, BoundedBufferedStorageMetric metric) {
+        this(dataSender, spanChunkFactory, flushSize, maxAge, metric, null);
+    }
+
+    public BoundedBufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int flushSize, long maxAge, BoundedBufferedStorageMetric metric, BoundedBufferedStorageFlusher flusher) {
+        this(dataSender, spanChunkFactory, flushSize, maxAge, metric, flusher, null);
+    }
+
+    public BoundedBufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int flushSize, long maxAge, BoundedBufferedStorageMetric metric, BoundedBufferedStorageFlusher flusher, SpanEventListPool spanEventListPool) {
+        this(dataSender, spanChunkFactory, flushSize, maxAge, metric, flusher, spanEventListPool, SystemClock.INSTANCE);
+    }
+
+    BoundedBufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int flushSize, long maxAge, BoundedBufferedStorageMetric metric, BoundedBufferedStorageFlusher flusher, SpanEventListPool spanEventListPool, Clock clock) {
+        if (dataSender == null) {
+            throw new NullPointerException("dataSender must not be null");
+        }
+        if (spanChunkFactory == null) {
+            throw new NullPointerException("spanChunkFactory must not be null");
+        }
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("flushSize");
+        }
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge");
+        }
+        if (metric == null) {
+            throw new NullPointerException("metric must not be null");
+        }
+        if (clock == null) {
+            throw new NullPointerException("clock must not be null");
+        }
+        this.dataSender = dataSender;
+        this.spanChunkFactory = spanChunkFactory;
+        this.flushSize = flushSize;
+        this.maxAge = maxAge;
+        this.metric = metric;
+        this.clock = clock;
+        this.flusher = flusher;
+        this.spanEventListPool = spanEventListPool;
+        this.buffer = nextBuffer(0);
+    }
+
+    @Override
+    public synchronized void store(SpanEvent spanEvent) {
+        final int spanEventSize = SpanEventSizeEstimator.estimate(spanEvent);
+        if (!buffer.isEmpty() && bufferedSize + spanEventSize > flushSize) {
+            if (CHUNK_HEADER_SIZE + bufferedSize + spanEventSize > MESSAGE_LIMIT) {
+                metric.dropAvoided();
+            }
+            metric.sizeFlushed();
+            flushSpanChunk();
+        }
+
+        final long currentTime = clock.getTime();
+        if (buffer.isEmpty()) {
+            this.firstStoreTime = currentTime;
+            if (flusher != null) {
+                flusher.register(this);
+            }
+        }
+        buffer.add(spanEvent);
+        this.bufferedSize += spanEventSize;
+
+        if (bufferedSize >= flushSize) {
+            metric.sizeFlushed();
+            flushSpanChunk();
+        } else if (currentTime - firstStoreTime >= maxAge) {
+            metric.ageFlushed();
+            flushSpanChunk();
+        }
+    }
+
+    @Override
+    public synchronized void store(Span span) {
+        if (!buffer.isEmpty()) {
+            final int spanSize = SpanEventSizeEstimator.estimate(span);
+            if (spanSize + bufferedSize > MESSAGE_LIMIT) {
+                // send SpanEvents separately so that the span is not discarded
+                metric.dropAvoided();
+                flushSpanChunk();
+            } else {
+                final List<SpanEvent> spanEventList = drainBuffer();
+                span.setSpanEventList((List) spanEventList);
+            }
+        }
+        dataSender.send(span);
+
+        if (isDebug) {
+            logger.debug("[BoundedBufferedStorage] Flush span {}", span);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!buffer.isEmpty()) {
+            flushSpanChunk();
+        }
+    }
+
+    synchronized void flushIfExpired() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (clock.getTime() - firstStoreTime >= maxAge) {
+            metric.ageFlushed();
+            flushSpanChunk();
+        }
+    }
+
+    private void flushSpanChunk() {
+        final List<SpanEvent> flushData = drainBuffer();
+        final SpanChunk spanChunk = spanChunkFactory.create(flushData);
+        if (isDebug) {
+            logger.debug("[BoundedBufferedStorage] Flush span-chunk {}", spanChunk);
+        }
+        dataSender.send(spanChunk);
+    }
+
+    private List<SpanEvent> drainBuffer() {
+        metric.flushed(buffer.size(), bufferedSize);
+        // handed over to the sender without copying
+        final List<SpanEvent> flushData = this.buffer;
+        this.buffer = nextBuffer(flushData.size());
+        this.bufferedSize = 0;
+        if (flusher != null) {
+            flusher.deregister(this);
+        }
+        return flushData;
+    }
+
+    private List<SpanEvent> nextBuffer(int lastFlushSize) {
+        if (spanEventListPool == null) {
+            // presized to the last flush
+            return new ArrayList<SpanEvent>(lastFlushSize);
+        }
+        final List<SpanEvent> pooled = spanEventListPool.poll();
+        if (pooled != null) {
+            return pooled;
+        }
+        metric.bufferAllocated();
+        return spanEventListPool.newList(lastFlushSize);
+    }
+
+    @Override
+    public void close() {
+        // SpanEvents left by a corrupted call stack are sent by the flusher
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedBufferedStorage{" +
+                "flushSize=" + flushSize +
+                ", maxAge=" + maxAge +
+                ", dataSender=" + dataSender +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.profiler.AgentInformation;
+import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
+import com.navercorp.pinpoint.profiler.monitor.jmx.AgentMBeanRegistry;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+
+/**
+ * @author agent
+ */
+public class BoundedBufferedStorageFactory implements StorageFactory {
+
+    private final DataSender dataSender;
+    private final int flushSize;
+    private final long maxAge;
+    private final SpanChunkFactory spanChunkFactory;
+    private final BoundedBufferedStorageMetric metric = new BoundedBufferedStorageMetric();
+    private final BoundedBufferedStorageFlusher flusher;
+    private final SpanEventListPool spanEventListPool = new SpanEventListPool();
+
+    public BoundedBufferedStorageFactory(DataSender dataSender, ProfilerConfig config, AgentInformation agentInformation, BoundedBufferedStorageFlusher flusher) {
+        if (dataSender == null) {
+            throw new NullPointerException("dataSender must not be null");
+        }
+        if (config == null) {
+            throw new NullPointerException("config must not be null");
+        }
+        if (flusher == null) {
+            throw new NullPointerException("flusher must not be null");
+        }
+        this.dataSender = dataSender;
+        this.flusher = flusher;
+
+        this.flushSize = config.getIoBufferingFlushSize();
+        this.maxAge = config.getIoBufferingMaxAge();
+
+        this.spanChunkFactory = new SpanChunkFactory(agentInformation);
+        AgentMBeanRegistry.register("BoundedBufferedStorage", null, metric);
+    }
+
+    @Override
+    public Storage createStorage() {
+        BoundedBufferedStorage boundedBufferedStorage = new BoundedBufferedStorage(this.dataSender, spanChunkFactory, this.flushSize, this.maxAge, this.metric, this.flusher, this.spanEventListPool);
+        return boundedBufferedStorage;
+    }
+
+    public BoundedBufferedStorageMetric getMetric() {
+        return metric;
+    }
+
+    public SpanEventListPool getSpanEventListPool() {
+        return spanEventListPool;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedBufferedStorageFactory{" +
+                "flushSize=" + flushSize +
+                ", maxAge=" + maxAge +
+                ", dataSender=" + dataSender +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flushes {@link BoundedBufferedStorage}s whose oldest SpanEvent has been held for maxAge,
+ * even if the owning trace stores nothing more.
+ * Only storages holding SpanEvents are registered, so abandoned storages are not leaked.
+ *
+ * @author agent
+ */
+public class BoundedBufferedStorageFlusher {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final long tickInterval;
+
+    private final Set<BoundedBufferedStorage> pendingStorages = Collections.newSetFromMap(new ConcurrentHashMap<BoundedBufferedStorage, Boolean>());
+
+    private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1, new PinpointThreadFactory("Pinpoint-storage-flusher", true));
+
+    public BoundedBufferedStorageFlusher(long maxAge) {
+        if (maxAge <= 0) {
+            throw new IllegalArgumentException("maxAge");
+        }
+        // a SpanEvent is flushed at most maxAge + tickInterval after it was stored
+        this.tickInterval = Math.max(maxAge / 2, 1);
+    }
+
+    public void start() {
+        executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                flushExpired();
+            }
+        }, tickInterval, tickInterval, TimeUnit.MILLISECONDS);
+        logger.info("BoundedBufferedStorageFlusher started. tickInterval:{}", tickInterval);
+    }
+
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // send what is left before the span sender stops
+        for (BoundedBufferedStorage storage : pendingStorages) {
+            storage.flush();
+        }
+        logger.info("BoundedBufferedStorageFlusher stopped");
+    }
+
+    void register(BoundedBufferedStorage storage) {
+        pendingStorages.add(storage);
+    }
+
+    void deregister(BoundedBufferedStorage storage) {
+        pendingStorages.remove(storage);
+    }
+
+    int getPendingStorageCount() {
+        return pendingStorages.size();
+    }
+
+    void flushExpired() {
+        for (BoundedBufferedStorage storage : pendingStorages) {
+            try {
+                storage.flushIfExpired();
+            } catch (Throwable th) {
+                logger.warn("flushExpired error. Cause:{}", th.getMessage(), th);
+            }
+        }
+    }
+}
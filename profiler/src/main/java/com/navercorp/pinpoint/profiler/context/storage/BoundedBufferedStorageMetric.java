@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.UniformReservoir;
+
+/**
+ * Counters of {@link BoundedBufferedStorage}. shared by all storages of a {@link BoundedBufferedStorageFactory},
+ * which registers it on the platform MBean server.
+ *
+ * @author agent
+ */
+public class BoundedBufferedStorageMetric implements BoundedBufferedStorageMetricMBean {
+
+    private final Histogram chunkSize = new Histogram(new UniformReservoir());
+    private final Histogram chunkEventCount = new Histogram(new UniformReservoir());
+    private final Meter sizeFlushMeter = new Meter();
+    private final Meter ageFlushMeter = new Meter();
+    private final Meter dropAvoidedMeter = new Meter();
+    private final Meter bufferAllocationMeter = new Meter();
+
+    void flushed(int eventCount, int estimatedSize) {
+        chunkEventCount.update(eventCount);
+        chunkSize.update(estimatedSize);
+    }
+
+    void sizeFlushed() {
+        sizeFlushMeter.mark();
+    }
+
+    void ageFlushed() {
+        ageFlushMeter.mark();
+    }
+
+    void dropAvoided() {
+        dropAvoidedMeter.mark();
+    }
+
+    void bufferAllocated() {
+        bufferAllocationMeter.mark();
+    }
+
+    /**
+     * @return estimated bytes of the flushed SpanEvents
+     */
+    public Snapshot getChunkSize() {
+        return chunkSize.getSnapshot();
+    }
+
+    public Snapshot getChunkEventCount() {
+        return chunkEventCount.getSnapshot();
+    }
+
+    @Override
+    public double getChunkSizeMean() {
+        return getChunkSize().getMean();
+    }
+
+    @Override
+    public long getChunkSizeMax() {
+        return getChunkSize().getMax();
+    }
+
+    @Override
+    public double getChunkEventCountMean() {
+        return getChunkEventCount().getMean();
+    }
+
+    @Override
+    public long getSizeFlushCount() {
+        return sizeFlushMeter.getCount();
+    }
+
+    @Override
+    public long getAgeFlushCount() {
+        return ageFlushMeter.getCount();
+    }
+
+    /**
+     * @return number of times SpanEvents were split off because a single message would have exceeded the UDP packet limit
+     */
+    @Override
+    public long getDropAvoidedCount() {
+        return dropAvoidedMeter.getCount();
+    }
+
+    @Override
+    public long getBufferAllocationCount() {
+        return bufferAllocationMeter.getCount();
+    }
+
+    @Override
+    public String toString() {
+        final Snapshot chunkSize = getChunkSize();
+        return "BoundedBufferedStorageMetric{" +
+                "chunkSize(mean)=" + chunkSize.getMean() +
+                ", chunkSize(max)=" + chunkSize.getMax() +
+                ", chunkEventCount(mean)=" + getChunkEventCount().getMean() +
+                ", sizeFlushCount=" + getSizeFlushCount() +
+                ", ageFlushCount=" + getAgeFlushCount() +
+                ", dropAvoidedCount=" + getDropAvoidedCount() +
+                ", bufferAllocationCount=" + getBufferAllocationCount() +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanChunk;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.sender.SendCompletionHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Buffers of {@link BoundedBufferedStorage}. A buffer is handed over to the sender with the {@link SpanChunk} or {@link Span}
+ * and comes back to the pool once the sender thread has serialized it. (see {@link #newSendCompletionHandler(SendCompletionHandler)})
+ * Without the completion handler the pool stays empty and every flush gets a new buffer.
+ *
+ * @author agent
+ */
+public class SpanEventListPool {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final BlockingQueue<PooledSpanEventList> pool;
+
+    public SpanEventListPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpanEventListPool(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        this.pool = new ArrayBlockingQueue<PooledSpanEventList>(capacity);
+    }
+
+    /**
+     * @return an empty buffer, or {@code null} if the pool is empty
+     */
+    List<SpanEvent> poll() {
+        final PooledSpanEventList list = pool.poll();
+        if (list == null) {
+            return null;
+        }
+        list.pooled = false;
+        return list;
+    }
+
+    List<SpanEvent> newList(int initialCapacity) {
+        return new PooledSpanEventList(initialCapacity);
+    }
+
+    void release(List<?> spanEventList) {
+        if (!(spanEventList instanceof PooledSpanEventList)) {
+            return;
+        }
+        final PooledSpanEventList list = (PooledSpanEventList) spanEventList;
+        // a message sent twice must not put its buffer back twice
+        if (list.pooled) {
+            return;
+        }
+        list.pooled = true;
+        list.clear();
+        pool.offer(list);
+    }
+
+    int size() {
+        return pool.size();
+    }
+
+    /**
+     * The returned handler must be the outermost one, so that {@code next} sees the SpanEvents before the buffer is cleared.
+     */
+    public SendCompletionHandler newSendCompletionHandler(final SendCompletionHandler next) {
+        return new SendCompletionHandler() {
+            @Override
+            public void completed(Object message) {
+                final List<?> spanEventList = getSpanEventList(message);
+                if (next != null) {
+                    next.completed(message);
+                }
+                if (spanEventList != null) {
+                    release(spanEventList);
+                }
+            }
+        };
+    }
+
+    private static List<?> getSpanEventList(Object message) {
+        if (message instanceof SpanChunk) {
+            return ((SpanChunk) message).getSpanEventList();
+        }
+        if (message instanceof Span) {
+            return ((Span) message).getSpanEventList();
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "SpanEventListPool{" +
+                "size=" + pool.size() +
+                '}';
+    }
+
+    private static class PooledSpanEventList extends ArrayList<SpanEvent> {
+        // written by the sender thread before offer(), read by the storage thread after poll()
+        private boolean pooled = false;
+
+        private PooledSpanEventList(int initialCapacity) {
+            super(initialCapacity);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+
+import java.util.List;
+
+/**
+ * Estimates the serialized size of a SpanEvent(or Span) without serializing it.
+ * Strings are counted as 1 byte per char, so multi-byte text is underestimated by up to 3 times.
+ *
+ * @author agent
+ */
+public final class SpanEventSizeEstimator {
+
+    // field headers + fixed size fields(sequence, startElapsed, endElapsed, serviceType, depth, nextSpanId, apiId, async ids)
+    static final int SPAN_EVENT_OVERHEAD = 48;
+    // header fields of a Span or SpanChunk except strings
+    static final int MESSAGE_OVERHEAD = 96;
+    // field headers + string length
+    private static final int FIELD_OVERHEAD = 4;
+    // key + union header
+    private static final int ANNOTATION_OVERHEAD = 8;
+
+    private SpanEventSizeEstimator() {
+    }
+
+    public static int estimate(SpanEvent spanEvent) {
+        if (spanEvent == null) {
+            throw new NullPointerException("spanEvent must not be null");
+        }
+        int size = SPAN_EVENT_OVERHEAD;
+        size += stringSize(spanEvent.getRpc());
+        size += stringSize(spanEvent.getEndPoint());
+        size += stringSize(spanEvent.getDestinationId());
+        size += intStringSize(spanEvent.getExceptionInfo());
+        size += annotationsSize(spanEvent.getAnnotations());
+        return size;
+    }
+
+    /**
+     * @return estimated size of the span excluding its SpanEvents
+     */
+    public static int estimate(Span span) {
+        if (span == null) {
+            throw new NullPointerException("span must not be null");
+        }
+        int size = MESSAGE_OVERHEAD;
+        size += stringSize(span.getAgentId());
+        size += stringSize(span.getApplicationName());
+        final byte[] transactionId = span.getTransactionId();
+        if (transactionId != null) {
+            size += FIELD_OVERHEAD + transactionId.length;
+        }
+        size += stringSize(span.getRpc());
+        size += stringSize(span.getEndPoint());
+        size += stringSize(span.getRemoteAddr());
+        size += stringSize(span.getParentApplicationName());
+        size += stringSize(span.getAcceptorHost());
+        size += intStringSize(span.getExceptionInfo());
+        size += annotationsSize(span.getAnnotations());
+        return size;
+    }
+
+    private static int annotationsSize(List<TAnnotation> annotations) {
+        if (annotations == null) {
+            return 0;
+        }
+        int size = 0;
+        for (int i = 0; i < annotations.size(); i++) {
+            size += annotationSize(annotations.get(i));
+        }
+        return size;
+    }
+
+    private static int annotationSize(TAnnotation annotation) {
+        final TAnnotationValue value = annotation.getValue();
+        if (value == null || value.getSetField() == null) {
+            return ANNOTATION_OVERHEAD;
+        }
+        switch (value.getSetField()) {
+            case STRING_VALUE:
+                return ANNOTATION_OVERHEAD + stringSize(value.getStringValue());
+            case BINARY_VALUE:
+                final byte[] binaryValue = value.getBinaryValue();
+                return ANNOTATION_OVERHEAD + FIELD_OVERHEAD + (binaryValue == null ? 0 : binaryValue.length);
+            case INT_STRING_VALUE:
+                return ANNOTATION_OVERHEAD + intStringSize(value.getIntStringValue());
+            case INT_STRING_STRING_VALUE:
+                final TIntStringStringValue intStringStringValue = value.getIntStringStringValue();
+                return ANNOTATION_OVERHEAD + FIELD_OVERHEAD + stringSize(intStringStringValue.getStringValue1()) + stringSize(intStringStringValue.getStringValue2());
+            default:
+                // bool, byte, short, int, long, double
+                return ANNOTATION_OVERHEAD + 8;
+        }
+    }
+
+    private static int intStringSize(TIntStringValue intStringValue) {
+        if (intStringValue == null) {
+            return 0;
+        }
+        return FIELD_OVERHEAD + stringSize(intStringValue.getStringValue());
+    }
+
+    private static int stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return FIELD_OVERHEAD + value.length();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.security.ProtectionDomain;
+
+/**
+ * Skips the transformer for class files it left unmodified before, and records transform time of the plugin.
+ *
+ * @author agent
+ */
+public class CachingClassFileTransformer implements ClassFileTransformer {
+
+    private final String transformerId;
+    private final ClassFileTransformer delegate;
+    private final TransformCache transformCache;
+    private final TransformMetric transformMetric;
+
+    public CachingClassFileTransformer(String transformerId, ClassFileTransformer delegate, TransformCache transformCache, TransformMetric transformMetric) {
+        if (transformerId == null) {
+            throw new NullPointerException("transformerId must not be null");
+        }
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (transformCache == null) {
+            throw new NullPointerException("transformCache must not be null");
+        }
+        if (transformMetric == null) {
+            throw new NullPointerException("transformMetric must not be null");
+        }
+        this.transformerId = transformerId;
+        this.delegate = delegate;
+        this.transformCache = transformCache;
+        this.transformMetric = transformMetric;
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        // retransform is requested at runtime on purpose
+        final boolean cacheable = classBeingRedefined == null;
+        if (cacheable) {
+            if (transformCache.isUnmodified(transformerId, loader, className, classfileBuffer)) {
+                transformMetric.recordCacheHit();
+                return null;
+            }
+            transformMetric.recordCacheMiss();
+        }
+
+        final long startTime = System.nanoTime();
+        byte[] transformed = null;
+        try {
+            transformed = delegate.transform(loader, className, classBeingRedefined, protectionDomain, classfileBuffer);
+        } finally {
+            transformMetric.recordTransform(System.nanoTime() - startTime, transformed != null);
+        }
+
+        if (transformed == null && cacheable) {
+            transformCache.putUnmodified(transformerId, loader, className, classfileBuffer);
+        }
+        return transformed;
+    }
+
+    public ClassFileTransformer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingClassFileTransformer{" +
+                "transformerId='" + transformerId + '\'' +
+                ", delegate=" + delegate +
+                '}';
+    }
+}
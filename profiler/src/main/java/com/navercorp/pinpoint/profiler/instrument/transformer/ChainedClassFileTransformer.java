@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.security.ProtectionDomain;
+import java.util.List;
+
+/**
+ * Applies the transformers in order. Each transformer receives the output of the previous one.
+ *
+ * @author agent
+ */
+public class ChainedClassFileTransformer implements ClassFileTransformer {
+
+    private final ClassFileTransformer[] transformers;
+
+    public ChainedClassFileTransformer(List<ClassFileTransformer> transformers) {
+        if (transformers == null) {
+            throw new NullPointerException("transformers must not be null");
+        }
+        this.transformers = transformers.toArray(new ClassFileTransformer[0]);
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+        byte[] current = classfileBuffer;
+        boolean modified = false;
+        for (ClassFileTransformer transformer : transformers) {
+            final byte[] transformed = transformer.transform(loader, className, classBeingRedefined, protectionDomain, current);
+            if (transformed != null) {
+                current = transformed;
+                modified = true;
+            }
+        }
+        if (modified) {
+            return current;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ChainedClassFileTransformer{" +
+                "transformers=" + transformers.length +
+                '}';
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed trie(radix tree) keyed on class names.
+ * A value is bound either to an exact key or to every key starting with a prefix.
+ * {@link #match(String)} walks the trie once, so its cost depends on the key length and not on the number of entries.
+ * When created as reverse, keys are read from the last char so that prefixes act as suffixes.
+ * Not thread-safe for put. match may be called concurrently once all entries are put.
+ *
+ * @author agent
+ */
+final class ClassNameTrie<V> {
+
+    private static final char[] EMPTY_KEYS = new char[0];
+
+    private final boolean reverse;
+    private final Node<V> root = new Node<V>("");
+    private int size = 0;
+
+    ClassNameTrie() {
+        this(false);
+    }
+
+    ClassNameTrie(boolean reverse) {
+        this.reverse = reverse;
+    }
+
+    /**
+     * @return previous value bound to the key
+     */
+    V put(String key, V value) {
+        final Node<V> node = insert(key);
+        final V old = node.value;
+        node.value = value;
+        if (old == null) {
+            size++;
+        }
+        return old;
+    }
+
+    void putPrefix(String prefix, V value) {
+        final Node<V> node = insert(prefix);
+        if (node.prefixValues == null) {
+            node.prefixValues = new ArrayList<V>(1);
+        }
+        node.prefixValues.add(value);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the exact match first, then prefix matches from the longest prefix. null if nothing matches.
+     */
+    List<V> match(String key) {
+        List<V> prefixMatches = null;
+        V exactMatch = null;
+
+        final int length = key.length();
+        Node<V> node = root;
+        int pos = 0;
+        while (true) {
+            if (node.prefixValues != null) {
+                if (prefixMatches == null) {
+                    prefixMatches = new ArrayList<V>(2);
+                }
+                // shortest first. reversed below
+                prefixMatches.addAll(node.prefixValues);
+            }
+            if (pos == length) {
+                exactMatch = node.value;
+                break;
+            }
+            final Node<V> child = node.findChild(charAt(key, pos));
+            if (child == null || !regionMatches(key, pos, child.label)) {
+                break;
+            }
+            pos += child.label.length();
+            node = child;
+        }
+
+        if (exactMatch == null && prefixMatches == null) {
+            return null;
+        }
+        final List<V> result = new ArrayList<V>(1 + (prefixMatches == null ? 0 : prefixMatches.size()));
+        if (exactMatch != null) {
+            result.add(exactMatch);
+        }
+        if (prefixMatches != null) {
+            for (int i = prefixMatches.size() - 1; i >= 0; i--) {
+                result.add(prefixMatches.get(i));
+            }
+        }
+        return result;
+    }
+
+    private Node<V> insert(String key) {
+        if (key == null) {
+            throw new NullPointerException("key must not be null");
+        }
+        final String path = reverse ? new StringBuilder(key).reverse().toString() : key;
+
+        Node<V> node = root;
+        int pos = 0;
+        while (pos < path.length()) {
+            final char c = path.charAt(pos);
+            final Node<V> child = node.findChild(c);
+            if (child == null) {
+                final Node<V> leaf = new Node<V>(path.substring(pos));
+                node.addChild(leaf);
+                return leaf;
+            }
+
+            final String label = child.label;
+            final int common = commonPrefixLength(path, pos, label);
+            if (common == label.length()) {
+                pos += common;
+                node = child;
+                continue;
+            }
+
+            // split the edge
+            final Node<V> middle = new Node<V>(label.substring(0, common));
+            node.replaceChild(c, middle);
+            child.label = label.substring(common);
+            middle.addChild(child);
+
+            pos += common;
+            if (pos == path.length()) {
+                return middle;
+            }
+            final Node<V> leaf = new Node<V>(path.substring(pos));
+            middle.addChild(leaf);
+            return leaf;
+        }
+        return node;
+    }
+
+    private static int commonPrefixLength(String path, int pos, String label) {
+        final int max = Math.min(path.length() - pos, label.length());
+        int i = 0;
+        while (i < max && path.charAt(pos + i) == label.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private char charAt(String key, int pos) {
+        if (reverse) {
+            return key.charAt(key.length() - 1 - pos);
+        }
+        return key.charAt(pos);
+    }
+
+    private boolean regionMatches(String key, int pos, String label) {
+        final int labelLength = label.length();
+        if (key.length() - pos < labelLength) {
+            return false;
+        }
+        if (!reverse) {
+            return key.regionMatches(pos, label, 0, labelLength);
+        }
+        final int end = key.length() - 1 - pos;
+        for (int i = 0; i < labelLength; i++) {
+            if (key.charAt(end - i) != label.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node<V> {
+        private String label;
+        // sorted
+        private char[] childKeys = EMPTY_KEYS;
+        private Node<V>[] children;
+
+        private V value;
+        private List<V> prefixValues;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node<V> findChild(char c) {
+            final int index = Arrays.binarySearch(childKeys, c);
+            if (index < 0) {
+                return null;
+            }
+            return children[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addChild(Node<V> child) {
+            final char c = child.label.charAt(0);
+            final int index = -(Arrays.binarySearch(childKeys, c) + 1);
+
+            final int length = childKeys.length;
+            final char[] newKeys = new char[length + 1];
+            final Node<V>[] newChildren = new Node[length + 1];
+            System.arraycopy(childKeys, 0, newKeys, 0, index);
+            System.arraycopy(childKeys, index, newKeys, index + 1, length - index);
+            if (children != null) {
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index, newChildren, index + 1, length - index);
+            }
+            newKeys[index] = c;
+            newChildren[index] = child;
+            this.childKeys = newKeys;
+            this.children = newChildren;
+        }
+
+        private void replaceChild(char c, Node<V> child) {
+            final int index = Arrays.binarySearch(childKeys, c);
+            children[index] = child;
+        }
+    }
+}
@@ -43,6 +43,11 @@ public class DefaultTransformerRegistry implements TransformerRegistry {
     public ClassFileTransformer findTransformer(String className) {
         return registry.get(className);
     }
+
+    @Override
+    public ClassFileTransformer findTransformer(ClassLoader classLoader, String classInternalName, byte[] classFileBuffer) {
+        return findTransformer(classInternalName);
+    }
     
     public void addTransformer(Matcher matcher, ClassFileTransformer transformer) {
         // TODO extract matcher process
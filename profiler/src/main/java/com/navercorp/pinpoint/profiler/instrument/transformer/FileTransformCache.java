@@ -0,0 +1,330 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * TransformCache persisted in an append-only index file.
+ * Entries are keyed by transformer id, ClassLoader identity, class name and the MD5 of the class file.
+ * The ClassLoader identity is the MD5 of the class names and URLs of the loader and its parents,
+ * so it is the same for the same deployment after a restart.
+ * The index lives in a directory named after the cache generation,
+ * so a new agent version, plugin set or configuration starts with an empty cache.
+ * <p>
+ * New entries are appended by a background thread so that class loading never waits for the disk.
+ * <p>
+ * Only unmodified results are cached. Instrumented bytecode refers to interceptor and api ids
+ * registered while the transformer runs, so it cannot be reused in another JVM.
+ *
+ * @author agent
+ */
+public class FileTransformCache implements TransformCache {
+
+    static final String INDEX_FILE_NAME = "unmodified-v2.idx";
+    static final String BOOTSTRAP_CLASS_LOADER = "bootstrap";
+    private static final String CLOSE = new String("close");
+    private static final long CLOSE_WAIT_MS = 3000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char SEPARATOR = ' ';
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File indexFile;
+    private final ConcurrentMap<String, Boolean> unmodified = new ConcurrentHashMap<String, Boolean>();
+    private final Map<ClassLoader, String> classLoaderIds = Collections.synchronizedMap(new WeakHashMap<ClassLoader, String>());
+
+    private final BlockingQueue<String> writeQueue = new LinkedBlockingQueue<String>();
+    private final Thread writerThread;
+    // accessed by the writer thread only
+    private Writer writer;
+
+    public FileTransformCache(File cacheDir, String generation) throws IOException {
+        if (cacheDir == null) {
+            throw new NullPointerException("cacheDir must not be null");
+        }
+        if (generation == null) {
+            throw new NullPointerException("generation must not be null");
+        }
+        final File generationDir = new File(cacheDir, generation);
+        if (!generationDir.isDirectory() && !generationDir.mkdirs()) {
+            throw new IOException("can not create cache directory:" + generationDir);
+        }
+        this.indexFile = new File(generationDir, INDEX_FILE_NAME);
+        if (indexFile.exists()) {
+            load();
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile, true), UTF_8));
+        this.writerThread = new PinpointThreadFactory("Pinpoint-TransformCacheWriter", true).newThread(new IndexWriter());
+        this.writerThread.start();
+        logger.info("transform cache loaded. file:{} entries:{}", indexFile, unmodified.size());
+    }
+
+    private void load() throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // the last line may be broken if the jvm was killed while writing
+                if (isValid(line)) {
+                    unmodified.put(line, Boolean.TRUE);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean isValid(String line) {
+        // transformerId classLoaderId className digest
+        int separatorCount = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == SEPARATOR) {
+                separatorCount++;
+            }
+        }
+        if (separatorCount < 3) {
+            return false;
+        }
+        final int digestIndex = line.lastIndexOf(SEPARATOR);
+        return line.length() - digestIndex - 1 == 32;
+    }
+
+    @Override
+    public boolean isUnmodified(String transformerId, ClassLoader classLoader, String className, byte[] classFileBuffer) {
+        if (unmodified.isEmpty()) {
+            return false;
+        }
+        return unmodified.containsKey(key(transformerId, classLoader, className, classFileBuffer));
+    }
+
+    @Override
+    public void putUnmodified(String transformerId, ClassLoader classLoader, String className, byte[] classFileBuffer) {
+        final String key = key(transformerId, classLoader, className, classFileBuffer);
+        if (unmodified.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        writeQueue.offer(key);
+    }
+
+    private String key(String transformerId, ClassLoader classLoader, String className, byte[] classFileBuffer) {
+        final String classLoaderId = getClassLoaderId(classLoader);
+        final StringBuilder key = new StringBuilder(transformerId.length() + classLoaderId.length() + className.length() + 35);
+        key.append(transformerId);
+        key.append(SEPARATOR);
+        key.append(classLoaderId);
+        key.append(SEPARATOR);
+        key.append(className);
+        key.append(SEPARATOR);
+        appendHex(key, md5(classFileBuffer));
+        return key.toString();
+    }
+
+    String getClassLoaderId(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return BOOTSTRAP_CLASS_LOADER;
+        }
+        final String cached = classLoaderIds.get(classLoader);
+        if (cached != null) {
+            return cached;
+        }
+        final String classLoaderId = createClassLoaderId(classLoader);
+        classLoaderIds.put(classLoader, classLoaderId);
+        return classLoaderId;
+    }
+
+    private String createClassLoaderId(ClassLoader classLoader) {
+        final StringBuilder source = new StringBuilder(256);
+        ClassLoader current = classLoader;
+        while (current != null) {
+            source.append(current.getClass().getName());
+            if (current instanceof URLClassLoader) {
+                final URL[] urls = ((URLClassLoader) current).getURLs();
+                if (urls != null) {
+                    for (URL url : urls) {
+                        source.append(SEPARATOR).append(url);
+                    }
+                }
+            }
+            source.append('\n');
+            try {
+                current = current.getParent();
+            } catch (SecurityException e) {
+                source.append("?");
+                break;
+            }
+        }
+        final StringBuilder classLoaderId = new StringBuilder(32);
+        appendHex(classLoaderId, md5(source.toString().getBytes(UTF_8)));
+        return classLoaderId.toString();
+    }
+
+    @Override
+    public void close() {
+        writeQueue.offer(CLOSE);
+        try {
+            writerThread.join(CLOSE_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class IndexWriter implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    String key = writeQueue.take();
+                    // write everything pending, then flush once
+                    while (key != null) {
+                        if (key == CLOSE) {
+                            closeWriter();
+                            return;
+                        }
+                        write(key);
+                        key = writeQueue.poll();
+                    }
+                    flush();
+                }
+            } catch (InterruptedException e) {
+                closeWriter();
+            }
+        }
+    }
+
+    private void write(String key) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(key);
+            writer.write('\n');
+        } catch (IOException e) {
+            logger.warn("transform cache write fail. Caused:{}", e.getMessage(), e);
+            closeWriter();
+        }
+    }
+
+    private void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("transform cache write fail. Caused:{}", e.getMessage(), e);
+            closeWriter();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("transform cache close fail. Caused:{}", e.getMessage(), e);
+        }
+        writer = null;
+    }
+
+    /**
+     * @return MD5 of the agent version, plugin jars and configuration
+     */
+    public static String generation(String agentVersion, List<String> pluginSignatures, Properties properties) {
+        if (agentVersion == null) {
+            throw new NullPointerException("agentVersion must not be null");
+        }
+        if (pluginSignatures == null) {
+            throw new NullPointerException("pluginSignatures must not be null");
+        }
+        if (properties == null) {
+            throw new NullPointerException("properties must not be null");
+        }
+        final StringBuilder source = new StringBuilder(1024);
+        source.append(agentVersion).append('\n');
+        for (String pluginSignature : pluginSignatures) {
+            source.append(pluginSignature).append('\n');
+        }
+        // sorted for a stable order
+        final Map<String, String> sortedProperties = new TreeMap<String, String>();
+        for (String name : properties.stringPropertyNames()) {
+            sortedProperties.put(name, properties.getProperty(name));
+        }
+        for (Map.Entry<String, String> entry : sortedProperties.entrySet()) {
+            source.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+
+        final StringBuilder generation = new StringBuilder(32);
+        appendHex(generation, md5(source.toString().getBytes(UTF_8)));
+        return generation.toString();
+    }
+
+    private static byte[] md5(byte[] bytes) {
+        try {
+            final MessageDigest md5 = MessageDigest.getInstance("MD5");
+            return md5.digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not supported", e);
+        }
+    }
+
+    private static void appendHex(StringBuilder builder, byte[] bytes) {
+        for (byte b : bytes) {
+            builder.append(HEX[(b >> 4) & 0x0F]);
+            builder.append(HEX[b & 0x0F]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileTransformCache{" +
+                "indexFile=" + indexFile +
+                ", entries=" + unmodified.size() +
+                '}';
+    }
+}
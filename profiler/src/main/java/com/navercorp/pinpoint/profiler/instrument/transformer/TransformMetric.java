@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transform statistics of a plugin.
+ *
+ * @author agent
+ */
+public class TransformMetric {
+
+    private final String name;
+
+    private final AtomicLong transformCount = new AtomicLong();
+    private final AtomicLong modifiedCount = new AtomicLong();
+    private final AtomicLong transformTime = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+
+    public TransformMetric(String name) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void recordTransform(long elapsedNanos, boolean modified) {
+        transformCount.incrementAndGet();
+        transformTime.addAndGet(elapsedNanos);
+        if (modified) {
+            modifiedCount.incrementAndGet();
+        }
+    }
+
+    void recordCacheHit() {
+        cacheHitCount.incrementAndGet();
+    }
+
+    void recordCacheMiss() {
+        cacheMissCount.incrementAndGet();
+    }
+
+    public long getTransformCount() {
+        return transformCount.get();
+    }
+
+    public long getModifiedCount() {
+        return modifiedCount.get();
+    }
+
+    /**
+     * @return total transform time in nanoseconds
+     */
+    public long getTransformTime() {
+        return transformTime.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    /**
+     * @return 0 ~ 1.0
+     */
+    public double getCacheHitRate() {
+        final long hit = getCacheHitCount();
+        final long total = hit + getCacheMissCount();
+        if (total == 0) {
+            return 0;
+        }
+        return hit / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "TransformMetric{" +
+                "name='" + name + '\'' +
+                ", transformCount=" + getTransformCount() +
+                ", modifiedCount=" + getModifiedCount() +
+                ", transformTime(ms)=" + (getTransformTime() / 1000000) +
+                ", cacheHitCount=" + getCacheHitCount() +
+                ", cacheMissCount=" + getCacheMissCount() +
+                ", cacheHitRate=" + getCacheHitRate() +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author agent
+ */
+public class TransformMetricRegistry {
+
+    private static final Comparator<TransformMetric> TRANSFORM_TIME_DESC = new Comparator<TransformMetric>() {
+        @Override
+        public int compare(TransformMetric o1, TransformMetric o2) {
+            final long time1 = o1.getTransformTime();
+            final long time2 = o2.getTransformTime();
+            return time1 < time2 ? 1 : (time1 == time2 ? 0 : -1);
+        }
+    };
+
+    private final ConcurrentMap<String, TransformMetric> metrics = new ConcurrentHashMap<String, TransformMetric>();
+
+    public TransformMetric getMetric(String name) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        final TransformMetric metric = metrics.get(name);
+        if (metric != null) {
+            return metric;
+        }
+        final TransformMetric newMetric = new TransformMetric(name);
+        final TransformMetric old = metrics.putIfAbsent(name, newMetric);
+        if (old != null) {
+            return old;
+        }
+        return newMetric;
+    }
+
+    /**
+     * @return metrics ordered by transform time
+     */
+    public List<TransformMetric> getMetrics() {
+        final List<TransformMetric> list = new ArrayList<TransformMetric>(metrics.values());
+        Collections.sort(list, TRANSFORM_TIME_DESC);
+        return list;
+    }
+}
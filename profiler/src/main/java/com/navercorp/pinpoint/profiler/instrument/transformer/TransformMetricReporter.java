@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the transform metrics once the application has started, and again on stop.
+ *
+ * @author agent
+ */
+public class TransformMetricReporter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final TransformMetricRegistry transformMetricRegistry;
+    private final long reportDelay;
+    private ScheduledExecutorService executor;
+
+    public TransformMetricReporter(TransformMetricRegistry transformMetricRegistry, long reportDelay) {
+        if (transformMetricRegistry == null) {
+            throw new NullPointerException("transformMetricRegistry must not be null");
+        }
+        this.transformMetricRegistry = transformMetricRegistry;
+        this.reportDelay = reportDelay;
+    }
+
+    public void start() {
+        if (reportDelay <= 0) {
+            return;
+        }
+        this.executor = new ScheduledThreadPoolExecutor(1, new PinpointThreadFactory("Pinpoint-transform-metric-reporter", true));
+        this.executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, reportDelay, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        report();
+    }
+
+    void report() {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        final List<TransformMetric> metrics = transformMetricRegistry.getMetrics();
+        long totalTransformTime = 0;
+        long totalTransformCount = 0;
+        for (TransformMetric metric : metrics) {
+            totalTransformTime += metric.getTransformTime();
+            totalTransformCount += metric.getTransformCount();
+        }
+        logger.info("transform metric. transform:{} time:{}ms", totalTransformCount, TimeUnit.NANOSECONDS.toMillis(totalTransformTime));
+        for (TransformMetric metric : metrics) {
+            logger.info("transform metric. plugin:{} transform:{} modified:{} time:{}ms cacheHit:{} cacheMiss:{} cacheHitRate:{}%",
+                    metric.getName(), metric.getTransformCount(), metric.getModifiedCount(), TimeUnit.NANOSECONDS.toMillis(metric.getTransformTime()),
+                    metric.getCacheHitCount(), metric.getCacheMissCount(), (int) (metric.getCacheHitRate() * 100));
+        }
+    }
+}
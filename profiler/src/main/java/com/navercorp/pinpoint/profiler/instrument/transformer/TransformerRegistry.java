@@ -25,4 +25,6 @@ public interface TransformerRegistry {
 
     ClassFileTransformer findTransformer(String className);
 
+    ClassFileTransformer findTransformer(ClassLoader classLoader, String classInternalName, byte[] classFileBuffer);
+
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.AnnotationMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.ClassNameMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.ClassNameSuffixMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.InterfaceMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.MultiClassNameMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.PackageNameMatcher;
+import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransformerRegistry supporting class name, package, suffix, interface and annotation matchers.
+ * Class names, packages and suffixes are indexed in {@link ClassNameTrie}s, so a lookup costs O(class name length)
+ * regardless of the number of registered matchers.
+ * The class file is parsed only if interface or annotation matchers are registered.
+ * If several transformers match, they are chained in the order of
+ * class name, package(longest first), suffix, interface and annotation.
+ *
+ * @author agent
+ */
+public class TrieTransformerRegistry implements TransformerRegistry {
+
+    private static final int SKIP_ALL = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    // No concurrent issue because only one thread put entries and get operations are started AFTER the registry is completely build.
+    private final ClassNameTrie<ClassFileTransformer> classNameTrie = new ClassNameTrie<ClassFileTransformer>();
+    private final ClassNameTrie<ClassFileTransformer> suffixTrie = new ClassNameTrie<ClassFileTransformer>(true);
+    private final Map<String, List<ClassFileTransformer>> interfaceRegistry = new HashMap<String, List<ClassFileTransformer>>();
+    // key : annotation descriptor
+    private final Map<String, List<ClassFileTransformer>> annotationRegistry = new HashMap<String, List<ClassFileTransformer>>();
+
+    @Override
+    public ClassFileTransformer findTransformer(String classInternalName) {
+        return findTransformer(null, classInternalName, null);
+    }
+
+    @Override
+    public ClassFileTransformer findTransformer(ClassLoader classLoader, String classInternalName, byte[] classFileBuffer) {
+        List<ClassFileTransformer> matches = null;
+        if (classNameTrie.size() > 0) {
+            matches = add(matches, classNameTrie.match(classInternalName));
+        }
+        if (suffixTrie.size() > 0) {
+            matches = add(matches, suffixTrie.match(classInternalName));
+        }
+        if (classFileBuffer != null && (!interfaceRegistry.isEmpty() || !annotationRegistry.isEmpty())) {
+            matches = add(matches, findByClassFile(classFileBuffer));
+        }
+
+        if (matches == null) {
+            return null;
+        }
+        if (matches.size() == 1) {
+            return matches.get(0);
+        }
+        return new ChainedClassFileTransformer(matches);
+    }
+
+    private List<ClassFileTransformer> add(List<ClassFileTransformer> matches, List<ClassFileTransformer> newMatches) {
+        if (newMatches == null) {
+            return matches;
+        }
+        if (matches == null) {
+            return newMatches;
+        }
+        matches.addAll(newMatches);
+        return matches;
+    }
+
+    private List<ClassFileTransformer> findByClassFile(byte[] classFileBuffer) {
+        final ClassReader classReader = new ClassReader(classFileBuffer);
+        List<ClassFileTransformer> matches = null;
+        if (!interfaceRegistry.isEmpty()) {
+            for (String interfaceName : classReader.getInterfaces()) {
+                matches = add(matches, copy(interfaceRegistry.get(interfaceName)));
+            }
+        }
+        if (!annotationRegistry.isEmpty()) {
+            final AnnotationCollector annotationCollector = new AnnotationCollector();
+            classReader.accept(annotationCollector, SKIP_ALL);
+            matches = add(matches, annotationCollector.matches);
+        }
+        return matches;
+    }
+
+    private static List<ClassFileTransformer> copy(List<ClassFileTransformer> transformers) {
+        if (transformers == null) {
+            return null;
+        }
+        return new ArrayList<ClassFileTransformer>(transformers);
+    }
+
+    public void addTransformer(Matcher matcher, ClassFileTransformer transformer) {
+        if (matcher instanceof ClassNameMatcher) {
+            final ClassNameMatcher classNameMatcher = (ClassNameMatcher) matcher;
+            addClassName(classNameMatcher.getClassName(), transformer);
+        } else if (matcher instanceof MultiClassNameMatcher) {
+            final MultiClassNameMatcher classNameMatcher = (MultiClassNameMatcher) matcher;
+            for (String className : classNameMatcher.getClassNames()) {
+                addClassName(className, transformer);
+            }
+        } else if (matcher instanceof PackageNameMatcher) {
+            final String packageName = ((PackageNameMatcher) matcher).getPackageName();
+            // "com/foo/" does not match "com/foobar/Bar"
+            final String packageInternalName = JavaAssistUtils.javaNameToJvmName(packageName) + '/';
+            classNameTrie.putPrefix(packageInternalName, transformer);
+        } else if (matcher instanceof ClassNameSuffixMatcher) {
+            final String suffix = ((ClassNameSuffixMatcher) matcher).getSuffix();
+            suffixTrie.putPrefix(JavaAssistUtils.javaNameToJvmName(suffix), transformer);
+        } else if (matcher instanceof InterfaceMatcher) {
+            final String interfaceName = ((InterfaceMatcher) matcher).getInterfaceName();
+            put(interfaceRegistry, JavaAssistUtils.javaNameToJvmName(interfaceName), transformer);
+        } else if (matcher instanceof AnnotationMatcher) {
+            final String annotationName = ((AnnotationMatcher) matcher).getAnnotationName();
+            final String descriptor = "L" + JavaAssistUtils.javaNameToJvmName(annotationName) + ";";
+            put(annotationRegistry, descriptor, transformer);
+        } else {
+            throw new IllegalArgumentException("unsupported matcher :" + matcher);
+        }
+    }
+
+    private void addClassName(String className, ClassFileTransformer transformer) {
+        final String classInternalName = JavaAssistUtils.javaNameToJvmName(className);
+        final ClassFileTransformer old = classNameTrie.put(classInternalName, transformer);
+        if (old != null) {
+            throw new IllegalStateException("Transformer already exist. className:" + classInternalName + " new:" + transformer.getClass() + " old:" + old.getClass());
+        }
+    }
+
+    private void put(Map<String, List<ClassFileTransformer>> registry, String key, ClassFileTransformer transformer) {
+        List<ClassFileTransformer> transformers = registry.get(key);
+        if (transformers == null) {
+            transformers = new ArrayList<ClassFileTransformer>(1);
+            registry.put(key, transformers);
+        }
+        transformers.add(transformer);
+    }
+
+    private class AnnotationCollector extends ClassVisitor {
+
+        private List<ClassFileTransformer> matches;
+
+        private AnnotationCollector() {
+            super(Opcodes.ASM5);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            final List<ClassFileTransformer> transformers = annotationRegistry.get(desc);
+            if (transformers != null) {
+                if (matches == null) {
+                    matches = new ArrayList<ClassFileTransformer>(transformers.size());
+                }
+                matches.addAll(transformers);
+            }
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            return null;
+        }
+    }
+}
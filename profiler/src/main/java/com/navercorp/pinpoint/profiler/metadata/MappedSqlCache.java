@@ -0,0 +1,435 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.metadata;
+
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Normalized sql cache backed by a memory-mapped file. The sql strings live in the file and survive restarts,
+ * the heap only holds an open addressing index of record offsets.
+ * <p>
+ * Sql ids are kept across restarts. Stored sql is sent under {@link #getLineageStartTime()} and marked by {@link #markSent(String)}
+ * once the collector acknowledged it, so {@link Result#isNewValue()} is true only on the first use in this run of sql that was never sent.
+ * When the file is full, new sql falls back to an on-heap {@link SimpleCache}. Its ids are only valid for this run.
+ * <pre>
+ * header : magic(4) formatVersion(4) agentVersionHash(8) lineageStartTime(8) recordCount(4) writePosition(4)
+ * record : hash(4) sequence(4) flags(1) length(4) chars(length * 2)
+ * </pre>
+ *
+ * @author agent
+ */
+public class MappedSqlCache {
+
+    private static final int MAGIC = 0x50505351;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int AGENT_VERSION_HASH_OFFSET = 8;
+    private static final int LINEAGE_START_TIME_OFFSET = 16;
+    private static final int RECORD_COUNT_OFFSET = 24;
+    private static final int WRITE_POSITION_OFFSET = 28;
+
+    private static final int RECORD_HEADER_SIZE = 13;
+    private static final int RECORD_SEQUENCE_OFFSET = 4;
+    private static final int RECORD_FLAGS_OFFSET = 8;
+    private static final int RECORD_LENGTH_OFFSET = 9;
+
+    /**
+     * the sql is already normalized. no need to parse it again.
+     */
+    private static final byte FLAG_NORMALIZED = 1;
+    /**
+     * the collector stored the metadata under the lineage start time.
+     */
+    private static final byte FLAG_SENT = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileLock fileLock;
+    private final MappedByteBuffer buffer;
+    private final int fileSize;
+
+    private final AtomicInteger idGen;
+    private final SimpleCache<String> overflowCache;
+    // sql used in this run. indexed by record index
+    private final AtomicLongArray usedRecords;
+
+    private final Object writeLock = new Object();
+    // slot : offset << 32 | record index. 0 is empty
+    private volatile AtomicLongArray index;
+    private int recordCount;
+    private int writePosition;
+    private boolean closed = false;
+
+    public MappedSqlCache(File file, int fileSize, int overflowCacheSize, String agentVersion, long agentStartTime) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file must not be null");
+        }
+        if (agentVersion == null) {
+            throw new NullPointerException("agentVersion must not be null");
+        }
+        if (fileSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("fileSize");
+        }
+        this.file = file;
+        this.fileSize = fileSize;
+
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("can not create directory:" + parent);
+        }
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            this.fileLock = tryLock(channel);
+            if (fileLock == null) {
+                throw new IOException("sql cache file is used by another process. file:" + file);
+            }
+            randomAccessFile.setLength(Math.max(fileSize, randomAccessFile.length()));
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+
+        final long agentVersionHash = hash64(agentVersion);
+        if (!isValidHeader(agentVersionHash)) {
+            logger.info("reset sql cache. file:{}", file);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putLong(AGENT_VERSION_HASH_OFFSET, agentVersionHash);
+            buffer.putLong(LINEAGE_START_TIME_OFFSET, agentStartTime);
+            buffer.putInt(RECORD_COUNT_OFFSET, 0);
+            buffer.putInt(WRITE_POSITION_OFFSET, HEADER_SIZE);
+        }
+        this.recordCount = buffer.getInt(RECORD_COUNT_OFFSET);
+        this.writePosition = buffer.getInt(WRITE_POSITION_OFFSET);
+
+        this.usedRecords = new AtomicLongArray(((fileSize - HEADER_SIZE) / RECORD_HEADER_SIZE + 63) / 64);
+        final int maxSequence = loadIndex();
+        this.idGen = new AtomicInteger(maxSequence + 1);
+        this.overflowCache = new SimpleCache<String>(overflowCacheSize, idGen);
+
+        logger.info("sql cache loaded. file:{} records:{} lineageStartTime:{}", file, recordCount, getLineageStartTime());
+    }
+
+    private FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by this jvm
+            return null;
+        }
+    }
+
+    private boolean isValidHeader(long agentVersionHash) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            return false;
+        }
+        // sql normalization may differ between agent versions
+        if (buffer.getLong(AGENT_VERSION_HASH_OFFSET) != agentVersionHash) {
+            return false;
+        }
+        final int writePosition = buffer.getInt(WRITE_POSITION_OFFSET);
+        return buffer.getInt(RECORD_COUNT_OFFSET) >= 0 && writePosition >= HEADER_SIZE && writePosition <= fileSize;
+    }
+
+    private int loadIndex() {
+        this.index = new AtomicLongArray(tableSize(recordCount));
+        int maxSequence = 0;
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < recordCount; i++) {
+            final int hash = buffer.getInt(offset);
+            insertIndex(index, hash, offset, i);
+            maxSequence = Math.max(maxSequence, buffer.getInt(offset + RECORD_SEQUENCE_OFFSET));
+            offset += recordSize(buffer.getInt(offset + RECORD_LENGTH_OFFSET));
+        }
+        return maxSequence;
+    }
+
+    private static int tableSize(int recordCount) {
+        int size = 1024;
+        // load factor 0.5
+        while (size < recordCount * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int recordSize(int length) {
+        return RECORD_HEADER_SIZE + length * 2;
+    }
+
+    public long getLineageStartTime() {
+        return buffer.getLong(LINEAGE_START_TIME_OFFSET);
+    }
+
+    /**
+     * @return null if the sql was not stored as already normalized sql
+     */
+    public Result getNormalized(String sql) {
+        if (sql == null) {
+            throw new NullPointerException("sql must not be null");
+        }
+        final long slot = find(this.index, sql, hash(sql));
+        if (slot == 0) {
+            return null;
+        }
+        final int offset = (int) (slot >>> 32);
+        if ((buffer.get(offset + RECORD_FLAGS_OFFSET) & FLAG_NORMALIZED) == 0) {
+            return null;
+        }
+        return toResult(slot);
+    }
+
+    /**
+     * @return true if the sql is stored in the file. false if it is unknown or only in the overflow cache
+     */
+    public boolean isStored(String normalizedSql) {
+        if (normalizedSql == null) {
+            throw new NullPointerException("normalizedSql must not be null");
+        }
+        return find(this.index, normalizedSql, hash(normalizedSql)) != 0;
+    }
+
+    /**
+     * marks the sql as stored by the collector under the lineage start time. it is not sent again after a restart.
+     *
+     * @return false if the sql is not stored in the file
+     */
+    public boolean markSent(String normalizedSql) {
+        if (normalizedSql == null) {
+            throw new NullPointerException("normalizedSql must not be null");
+        }
+        final long slot = find(this.index, normalizedSql, hash(normalizedSql));
+        if (slot == 0) {
+            return false;
+        }
+        setFlag((int) (slot >>> 32), FLAG_SENT);
+        return true;
+    }
+
+    /**
+     * @param alreadyNormalized true if the normalized sql is the same as the original sql
+     */
+    public Result put(String normalizedSql, boolean alreadyNormalized) {
+        if (normalizedSql == null) {
+            throw new NullPointerException("normalizedSql must not be null");
+        }
+        final int hash = hash(normalizedSql);
+        final long slot = find(this.index, normalizedSql, hash);
+        if (slot != 0) {
+            if (alreadyNormalized) {
+                markNormalized(slot);
+            }
+            return toResult(slot);
+        }
+
+        synchronized (writeLock) {
+            final long recheck = find(this.index, normalizedSql, hash);
+            if (recheck != 0) {
+                return toResult(recheck);
+            }
+            final int recordSize = recordSize(normalizedSql.length());
+            if (closed || writePosition + recordSize > fileSize) {
+                return overflowCache.put(normalizedSql);
+            }
+            final int sequence = idGen.getAndIncrement();
+            final int offset = writePosition;
+            buffer.putInt(offset, hash);
+            buffer.putInt(offset + RECORD_SEQUENCE_OFFSET, sequence);
+            buffer.put(offset + RECORD_FLAGS_OFFSET, alreadyNormalized ? FLAG_NORMALIZED : 0);
+            buffer.putInt(offset + RECORD_LENGTH_OFFSET, normalizedSql.length());
+            final int charOffset = offset + RECORD_HEADER_SIZE;
+            for (int i = 0; i < normalizedSql.length(); i++) {
+                buffer.putChar(charOffset + i * 2, normalizedSql.charAt(i));
+            }
+
+            final int recordIndex = recordCount;
+            this.writePosition = offset + recordSize;
+            this.recordCount = recordIndex + 1;
+            // commit the record
+            buffer.putInt(WRITE_POSITION_OFFSET, writePosition);
+            buffer.putInt(RECORD_COUNT_OFFSET, recordCount);
+
+            AtomicLongArray index = this.index;
+            if (recordCount * 2 > index.length()) {
+                index = resize(index);
+            }
+            insertIndex(index, hash, offset, recordIndex);
+            // publish after the record is written
+            this.index = index;
+
+            markUsed(recordIndex);
+            return new Result(true, BytesUtils.zigzagToInt(sequence));
+        }
+    }
+
+    private void markNormalized(long slot) {
+        setFlag((int) (slot >>> 32), FLAG_NORMALIZED);
+    }
+
+    private void setFlag(int offset, byte flag) {
+        if ((buffer.get(offset + RECORD_FLAGS_OFFSET) & flag) != 0) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (!closed) {
+                final byte flags = buffer.get(offset + RECORD_FLAGS_OFFSET);
+                buffer.put(offset + RECORD_FLAGS_OFFSET, (byte) (flags | flag));
+            }
+        }
+    }
+
+    private Result toResult(long slot) {
+        final int offset = (int) (slot >>> 32);
+        final int recordIndex = (int) slot - 1;
+        final int sequence = buffer.getInt(offset + RECORD_SEQUENCE_OFFSET);
+        final boolean firstUse = markUsed(recordIndex);
+        final boolean sent = (buffer.get(offset + RECORD_FLAGS_OFFSET) & FLAG_SENT) != 0;
+        return new Result(firstUse && !sent, BytesUtils.zigzagToInt(sequence));
+    }
+
+    /**
+     * @return true if the record is used for the first time in this run
+     */
+    private boolean markUsed(int recordIndex) {
+        final int wordIndex = recordIndex >>> 6;
+        final long bit = 1L << (recordIndex & 63);
+        while (true) {
+            final long word = usedRecords.get(wordIndex);
+            if ((word & bit) != 0) {
+                return false;
+            }
+            if (usedRecords.compareAndSet(wordIndex, word, word | bit)) {
+                return true;
+            }
+        }
+    }
+
+    private long find(AtomicLongArray index, String sql, int hash) {
+        final int mask = index.length() - 1;
+        int position = hash & mask;
+        while (true) {
+            final long slot = index.get(position);
+            if (slot == 0) {
+                return 0;
+            }
+            final int offset = (int) (slot >>> 32);
+            if (buffer.getInt(offset) == hash && equalsRecord(offset, sql)) {
+                return slot;
+            }
+            position = (position + 1) & mask;
+        }
+    }
+
+    private boolean equalsRecord(int offset, String sql) {
+        final int length = sql.length();
+        if (buffer.getInt(offset + RECORD_LENGTH_OFFSET) != length) {
+            return false;
+        }
+        final int charOffset = offset + RECORD_HEADER_SIZE;
+        for (int i = 0; i < length; i++) {
+            if (buffer.getChar(charOffset + i * 2) != sql.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AtomicLongArray resize(AtomicLongArray index) {
+        final AtomicLongArray newIndex = new AtomicLongArray(index.length() * 2);
+        for (int i = 0; i < index.length(); i++) {
+            final long slot = index.get(i);
+            if (slot != 0) {
+                final int offset = (int) (slot >>> 32);
+                insertIndex(newIndex, buffer.getInt(offset), offset, (int) slot - 1);
+            }
+        }
+        return newIndex;
+    }
+
+    private static void insertIndex(AtomicLongArray index, int hash, int offset, int recordIndex) {
+        final int mask = index.length() - 1;
+        int position = hash & mask;
+        while (index.get(position) != 0) {
+            position = (position + 1) & mask;
+        }
+        index.set(position, ((long) offset << 32) | (recordIndex + 1));
+    }
+
+    private static int hash(String sql) {
+        final int hash = sql.hashCode();
+        // spread low bits for the power of two table
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public int getRecordCount() {
+        synchronized (writeLock) {
+            return recordCount;
+        }
+    }
+
+    public void close() {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.force();
+            try {
+                fileLock.release();
+                randomAccessFile.close();
+            } catch (IOException e) {
+                logger.warn("sql cache close fail. Caused:{}", e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedSqlCache{" +
+                "file=" + file +
+                ", fileSize=" + fileSize +
+                ", recordCount=" + getRecordCount() +
+                '}';
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.metadata;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.common.PinpointConstants;
+import com.navercorp.pinpoint.profiler.context.CachingSqlNormalizer;
+import com.navercorp.pinpoint.profiler.context.MappedCachingSqlNormalizer;
+import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
+import com.navercorp.pinpoint.rpc.Future;
+import com.navercorp.pinpoint.rpc.FutureListener;
+import com.navercorp.pinpoint.rpc.ResponseMessage;
+import com.navercorp.pinpoint.thrift.dto.TResult;
+import com.navercorp.pinpoint.thrift.dto.TSqlMetaData;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.util.SerializationUtils;
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SqlMetaDataService backed by {@link MappedSqlCache}.
+ * Sql stored in the cache file is sent once per cache lineage under {@link MappedSqlCache#getLineageStartTime()}.
+ * Every later agent start only sends a {@link PinpointConstants#SQL_METADATA_LINEAGE_ID} metadata
+ * so that the sql of this agent start can be found under the lineage start time.
+ *
+ * @author agent
+ */
+public class MappedSqlMetaDataCacheService implements SqlMetaDataService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final MappedSqlCache sqlCache;
+    private final CachingSqlNormalizer cachingSqlNormalizer;
+
+    private final String agentId;
+    private final long agentStartTime;
+    private final long lineageStartTime;
+    private final EnhancedDataSender enhancedDataSender;
+
+    private final AtomicBoolean lineageSent = new AtomicBoolean();
+
+    public MappedSqlMetaDataCacheService(String agentId, long agentStartTime, EnhancedDataSender enhancedDataSender, MappedSqlCache sqlCache) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (enhancedDataSender == null) {
+            throw new NullPointerException("enhancedDataSender must not be null");
+        }
+        if (sqlCache == null) {
+            throw new NullPointerException("sqlCache must not be null");
+        }
+        this.agentId = agentId;
+        this.agentStartTime = agentStartTime;
+        this.enhancedDataSender = enhancedDataSender;
+        this.sqlCache = sqlCache;
+        this.cachingSqlNormalizer = new MappedCachingSqlNormalizer(sqlCache);
+        this.lineageStartTime = sqlCache.getLineageStartTime();
+        if (lineageStartTime == agentStartTime) {
+            // first agent start of the lineage
+            this.lineageSent.set(true);
+        }
+    }
+
+    @Override
+    public ParsingResult parseSql(final String sql) {
+        // lazy sql normalization
+        return this.cachingSqlNormalizer.wrapSql(sql);
+    }
+
+    @Override
+    public boolean cacheSql(ParsingResult parsingResult) {
+        if (parsingResult == null) {
+            return false;
+        }
+        sendLineage();
+
+        final boolean isNewValue = this.cachingSqlNormalizer.normalizedSql(parsingResult);
+        if (isNewValue) {
+            if (isDebug) {
+                logger.debug("NewSQLParsingResult:{}", parsingResult);
+            }
+            final String sql = parsingResult.getSql();
+            if (sqlCache.isStored(sql)) {
+                final TSqlMetaData sqlMetaData = newSqlMetaData(lineageStartTime, parsingResult.getId(), sql);
+                this.enhancedDataSender.request(sqlMetaData, new SentListener(sqlMetaData));
+            } else {
+                // overflow. the id is only valid for this agent start
+                final TSqlMetaData sqlMetaData = newSqlMetaData(agentStartTime, parsingResult.getId(), sql);
+                this.enhancedDataSender.request(sqlMetaData);
+            }
+        }
+        return isNewValue;
+    }
+
+    private void sendLineage() {
+        if (lineageSent.get()) {
+            return;
+        }
+        if (lineageSent.compareAndSet(false, true)) {
+            final TSqlMetaData lineage = newSqlMetaData(agentStartTime, PinpointConstants.SQL_METADATA_LINEAGE_ID, String.valueOf(lineageStartTime));
+            this.enhancedDataSender.request(lineage);
+        }
+    }
+
+    private TSqlMetaData newSqlMetaData(long startTime, int sqlId, String sql) {
+        final TSqlMetaData sqlMetaData = new TSqlMetaData();
+        sqlMetaData.setAgentId(agentId);
+        sqlMetaData.setAgentStartTime(startTime);
+        sqlMetaData.setSqlId(sqlId);
+        sqlMetaData.setSql(sql);
+        return sqlMetaData;
+    }
+
+    private class SentListener implements FutureListener<ResponseMessage> {
+
+        private final TSqlMetaData sqlMetaData;
+
+        private SentListener(TSqlMetaData sqlMetaData) {
+            this.sqlMetaData = sqlMetaData;
+        }
+
+        @Override
+        public void onComplete(Future<ResponseMessage> future) {
+            if (future.isSuccess() && isSuccess(future.getResult())) {
+                sqlCache.markSent(sqlMetaData.getSql());
+                return;
+            }
+            logger.info("sql metadata request fail. retry without ack. sqlId:{}", sqlMetaData.getSqlId());
+            // not marked as sent. it is sent again after a restart if this retry is lost too
+            enhancedDataSender.request(sqlMetaData);
+        }
+
+        private boolean isSuccess(ResponseMessage responseMessage) {
+            if (responseMessage == null) {
+                return false;
+            }
+            final HeaderTBaseDeserializer deserializer = HeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+            final TBase<?, ?> response = SerializationUtils.deserialize(responseMessage.getMessage(), deserializer, null);
+            return response instanceof TResult && ((TResult) response).isSuccess();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedSqlMetaDataCacheService{" +
+                "agentId='" + agentId + '\'' +
+                ", lineageStartTime=" + lineageStartTime +
+                ", sqlCache=" + sqlCache +
+                '}';
+    }
+}
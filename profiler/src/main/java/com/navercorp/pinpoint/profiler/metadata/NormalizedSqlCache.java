@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.metadata;
+
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.NormalizedSqlBuffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Set associative sql id cache probed with a {@link NormalizedSqlBuffer}.
+ * A hit compares the buffer with the cached sql and allocates nothing.
+ * Evicted sql gets a new id when it is put again, like {@link SimpleCache}.
+ *
+ * @author agent
+ */
+public class NormalizedSqlCache {
+
+    private static final int WAYS = 4;
+
+    // zero means not exist.
+    private final AtomicInteger idGen = new AtomicInteger(1);
+    private final AtomicReferenceArray<Entry> entries;
+    private final int setMask;
+    private int evictCursor = 0;
+
+    public NormalizedSqlCache(int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize");
+        }
+        int sets = 1;
+        while (sets * WAYS < cacheSize) {
+            sets <<= 1;
+        }
+        this.entries = new AtomicReferenceArray<Entry>(sets * WAYS);
+        this.setMask = sets - 1;
+    }
+
+    /**
+     * @return null if not exist
+     */
+    public Entry get(NormalizedSqlBuffer sql) {
+        if (sql == null) {
+            throw new NullPointerException("sql must not be null");
+        }
+        final int hash = sql.hashCode();
+        final int base = setIndex(hash);
+        for (int i = 0; i < WAYS; i++) {
+            final Entry entry = entries.get(base + i);
+            if (entry != null && entry.hash == hash && sql.contentEquals(entry.sql)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public Result put(NormalizedSqlBuffer sql) {
+        final Entry find = get(sql);
+        if (find != null) {
+            return new Result(false, find.id);
+        }
+        // miss only
+        synchronized (this) {
+            final Entry recheck = get(sql);
+            if (recheck != null) {
+                return new Result(false, recheck.id);
+            }
+            // Use negative values too to reduce data size
+            final int newId = BytesUtils.zigzagToInt(idGen.getAndIncrement());
+            final Entry entry = new Entry(sql.hashCode(), sql.getNormalizedSql(), newId);
+            entries.set(selectSlot(entry.hash), entry);
+            return new Result(true, newId);
+        }
+    }
+
+    private int selectSlot(int hash) {
+        final int base = setIndex(hash);
+        for (int i = 0; i < WAYS; i++) {
+            if (entries.get(base + i) == null) {
+                return base + i;
+            }
+        }
+        return base + (evictCursor++ & (WAYS - 1));
+    }
+
+    private int setIndex(int hash) {
+        // spread low bits
+        final int spread = hash ^ (hash >>> 16);
+        return (spread & setMask) * WAYS;
+    }
+
+    public static final class Entry {
+        private final int hash;
+        private final String sql;
+        private final int id;
+
+        private Entry(int hash, String sql, int id) {
+            this.hash = hash;
+            this.sql = sql;
+            this.id = id;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -41,8 +41,15 @@ public class SimpleCache<T> {
     }
 
     public SimpleCache(int cacheSize, int startValue) {
-        idGen = new AtomicInteger(startValue);
-        cache = createCache(cacheSize);
+        this(cacheSize, new AtomicInteger(startValue));
+    }
+
+    SimpleCache(int cacheSize, AtomicInteger idGen) {
+        if (idGen == null) {
+            throw new NullPointerException("idGen must not be null");
+        }
+        this.idGen = idGen;
+        this.cache = createCache(cacheSize);
     }
 
     private ConcurrentMap<T, Result> createCache(int maxCacheSize) {
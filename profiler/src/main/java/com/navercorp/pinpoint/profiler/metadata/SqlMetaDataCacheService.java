@@ -39,16 +39,23 @@ public class SqlMetaDataCacheService implements SqlMetaDataService {
     private final EnhancedDataSender enhancedDataSender;
 
     public SqlMetaDataCacheService(String agentId, long agentStartTime, EnhancedDataSender enhancedDataSender, int jdbcSqlCacheSize) {
+        this(agentId, agentStartTime, enhancedDataSender, new DefaultCachingSqlNormalizer(jdbcSqlCacheSize));
+    }
+
+    public SqlMetaDataCacheService(String agentId, long agentStartTime, EnhancedDataSender enhancedDataSender, CachingSqlNormalizer cachingSqlNormalizer) {
         if (agentId == null) {
             throw new NullPointerException("agentId must not be null");
         }
         if (enhancedDataSender == null) {
             throw new NullPointerException("enhancedDataSender must not be null");
         }
+        if (cachingSqlNormalizer == null) {
+            throw new NullPointerException("cachingSqlNormalizer must not be null");
+        }
         this.agentId = agentId;
         this.agentStartTime = agentStartTime;
         this.enhancedDataSender = enhancedDataSender;
-        this.cachingSqlNormalizer = new DefaultCachingSqlNormalizer(jdbcSqlCacheSize);
+        this.cachingSqlNormalizer = cachingSqlNormalizer;
     }
 
     @Override
@@ -22,6 +22,7 @@ import com.navercorp.pinpoint.profiler.monitor.codahale.activetrace.ActiveTraceM
 import com.navercorp.pinpoint.profiler.monitor.codahale.cpu.CpuLoadCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.datasource.DataSourceCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.gc.GarbageCollector;
+import com.navercorp.pinpoint.profiler.monitor.codahale.sampling.SamplingRateCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.tps.TransactionMetricCollector;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 import com.navercorp.pinpoint.thrift.dto.TActiveTrace;
@@ -109,6 +110,7 @@ public class AgentStatMonitor {
         private final TransactionMetricCollector transactionMetricCollector;
         private final ActiveTraceMetricCollector activeTraceMetricCollector;
         private final DataSourceCollector dataSourceCollector;
+        private final SamplingRateCollector samplingRateCollector;
 
         // Not thread safe. For use with single thread ONLY
         private final int numStatsPerBatch;
@@ -122,6 +124,7 @@ public class AgentStatMonitor {
             this.transactionMetricCollector = agentStatCollectorFactory.getTransactionMetricCollector();
             this.activeTraceMetricCollector = agentStatCollectorFactory.getActiveTraceMetricCollector();
             this.dataSourceCollector = agentStatCollectorFactory.getDataSourceCollector();
+            this.samplingRateCollector = agentStatCollectorFactory.getSamplingRateCollector();
             this.numStatsPerBatch = numStatsPerBatch;
             this.agentStats = new ArrayList<TAgentStat>(this.numStatsPerBatch);
         }
@@ -158,6 +161,10 @@ public class AgentStatMonitor {
             agentStat.setActiveTrace(activeTrace);
              final TDataSourceList dataSourceList = dataSourceCollector.collect();
              agentStat.setDataSourceList(dataSourceList);
+            final Integer samplingRate = samplingRateCollector.collect();
+            if (samplingRate != null) {
+                agentStat.setSamplingRate(samplingRate);
+            }
 
             return agentStat;
         }
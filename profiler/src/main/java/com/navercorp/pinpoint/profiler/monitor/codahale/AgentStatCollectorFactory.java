@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.profiler.monitor.codahale;
 
 import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 import com.navercorp.pinpoint.profiler.context.TransactionCounter;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceRepository;
 import com.navercorp.pinpoint.profiler.context.monitor.DataSourceMonitorWrapper;
@@ -43,9 +44,12 @@ import com.navercorp.pinpoint.profiler.monitor.codahale.gc.ParallelDetailedMetri
 import com.navercorp.pinpoint.profiler.monitor.codahale.gc.SerialCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.gc.SerialDetailedMetricsCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.gc.UnknownGarbageCollector;
+import com.navercorp.pinpoint.profiler.monitor.codahale.sampling.AdaptiveSamplingRateCollector;
+import com.navercorp.pinpoint.profiler.monitor.codahale.sampling.SamplingRateCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.tps.DefaultTransactionMetricCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.tps.TransactionMetricCollector;
 import com.navercorp.pinpoint.profiler.monitor.codahale.tps.metric.TransactionMetricSet;
+import com.navercorp.pinpoint.profiler.sampler.AdaptiveSampler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,8 +72,13 @@ public class AgentStatCollectorFactory {
     private final TransactionMetricCollector transactionMetricCollector;
     private final ActiveTraceMetricCollector activeTraceMetricCollector;
     private final DataSourceCollector dataSourceCollector;
+    private final SamplingRateCollector samplingRateCollector;
 
     public AgentStatCollectorFactory(ProfilerConfig profilerConfig, ActiveTraceRepository activeTraceRepository, TransactionCounter transactionCounter, PluginMonitorContext pluginMonitorContext) {
+        this(profilerConfig, activeTraceRepository, transactionCounter, pluginMonitorContext, null);
+    }
+
+    public AgentStatCollectorFactory(ProfilerConfig profilerConfig, ActiveTraceRepository activeTraceRepository, TransactionCounter transactionCounter, PluginMonitorContext pluginMonitorContext, Sampler sampler) {
         if (profilerConfig == null) {
             throw new NullPointerException("profilerConfig must not be null");
         }
@@ -88,6 +97,7 @@ public class AgentStatCollectorFactory {
         this.transactionMetricCollector = createTransactionMetricCollector(transactionCounter);
         this.activeTraceMetricCollector = createActiveTraceCollector(activeTraceRepository, profilerConfig.isTraceAgentActiveThread());
         this.dataSourceCollector = createDataSourceCollector(pluginMonitorContext);
+        this.samplingRateCollector = createSamplingRateCollector(sampler);
     }
 
     private MetricMonitorRegistry createRegistry() {
@@ -184,6 +194,13 @@ public class AgentStatCollectorFactory {
         return DataSourceCollector.EMPTY_DATASOURCE_COLLECTOR;
     }
 
+    private SamplingRateCollector createSamplingRateCollector(Sampler sampler) {
+        if (sampler instanceof AdaptiveSampler) {
+            return new AdaptiveSamplingRateCollector((AdaptiveSampler) sampler);
+        }
+        return SamplingRateCollector.EMPTY_SAMPLING_RATE_COLLECTOR;
+    }
+
     public GarbageCollector getGarbageCollector() {
         return this.garbageCollector;
     }
@@ -204,4 +221,8 @@ public class AgentStatCollectorFactory {
         return this.dataSourceCollector;
     }
 
+    public SamplingRateCollector getSamplingRateCollector() {
+        return this.samplingRateCollector;
+    }
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.monitor.codahale.sampling;
+
+import com.navercorp.pinpoint.profiler.sampler.AdaptiveSampler;
+
+/**
+ * @author agent
+ */
+public class AdaptiveSamplingRateCollector implements SamplingRateCollector {
+
+    private final AdaptiveSampler adaptiveSampler;
+
+    public AdaptiveSamplingRateCollector(AdaptiveSampler adaptiveSampler) {
+        if (adaptiveSampler == null) {
+            throw new NullPointerException("adaptiveSampler must not be null");
+        }
+        this.adaptiveSampler = adaptiveSampler;
+    }
+
+    @Override
+    public Integer collect() {
+        return adaptiveSampler.getCurrentSamplingRate();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveSamplingRateCollector{" +
+                "adaptiveSampler=" + adaptiveSampler +
+                '}';
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.monitor.codahale.sampling;
+
+/**
+ * Reports the sampling rate (1 out of n) currently applied to new transactions.
+ *
+ * @author agent
+ */
+public interface SamplingRateCollector {
+
+    SamplingRateCollector EMPTY_SAMPLING_RATE_COLLECTOR = new SamplingRateCollector() {
+        @Override
+        public Integer collect() {
+            return null;
+        }
+    };
+
+    /**
+     * @return current sampling rate, or {@code null} if the sampler does not adjust its rate
+     */
+    Integer collect();
+
+}
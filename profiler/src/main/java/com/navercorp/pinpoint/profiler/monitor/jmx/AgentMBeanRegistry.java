@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.monitor.jmx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the agent's internal metrics on the platform MBean server so they can be read live with any JMX client.
+ * Registration failures are logged and ignored, they must not keep the agent from starting.
+ *
+ * @author agent
+ */
+public final class AgentMBeanRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentMBeanRegistry.class);
+
+    private static final String DOMAIN = "com.navercorp.pinpoint.profiler.mbean";
+
+    private AgentMBeanRegistry() {
+    }
+
+    public static ObjectName register(String type, String name, Object mBean) {
+        if (type == null) {
+            throw new NullPointerException("type must not be null");
+        }
+        if (mBean == null) {
+            throw new NullPointerException("mBean must not be null");
+        }
+        try {
+            final ObjectName objectName = createObjectName(type, name);
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                logger.warn("MBean already registered. name:{}", objectName);
+                return null;
+            }
+            mBeanServer.registerMBean(mBean, objectName);
+            logger.info("registerMBean {}", objectName);
+            return objectName;
+        } catch (Exception e) {
+            logger.warn("registerMBean failed. type:{}, name:{}, Caused:{}", type, name, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+                logger.info("unregisterMBean {}", objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("unregisterMBean failed. name:{}, Caused:{}", objectName, e.getMessage(), e);
+        }
+    }
+
+    static ObjectName createObjectName(String type, String name) throws Exception {
+        final StringBuilder sb = new StringBuilder(64);
+        sb.append(DOMAIN).append(":type=").append(ObjectName.quote(type));
+        if (name != null) {
+            sb.append(",name=").append(ObjectName.quote(name));
+        }
+        return new ObjectName(sb.toString());
+    }
+}
@@ -137,6 +137,19 @@ public class DefaultProfilerPluginContext implements ProfilerPluginSetupContext,
         final MatchableClassFileTransformerGuardDelegate guard = new MatchableClassFileTransformerGuardDelegate(this, matcher, transformCallback);
         classTransformers.add(guard);
     }
+
+    @Override
+    public void addClassFileTransformer(final Matcher matcher, final TransformCallback transformCallback) {
+        if (matcher == null) {
+            throw new NullPointerException("matcher must not be null");
+        }
+        if (transformCallback == null) {
+            throw new NullPointerException("transformCallback must not be null");
+        }
+
+        final MatchableClassFileTransformerGuardDelegate guard = new MatchableClassFileTransformerGuardDelegate(this, matcher, transformCallback);
+        classTransformers.add(guard);
+    }
     
     @Override
     public void addClassFileTransformer(ClassLoader classLoader, String targetClassName, final TransformCallback transformCallback) {
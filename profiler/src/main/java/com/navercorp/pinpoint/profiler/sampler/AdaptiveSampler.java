@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.common.util.Clock;
+import com.navercorp.pinpoint.common.util.SystemClock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Samples 1 out of n new transactions, where n is adjusted every second so that
+ * the number of sampled transactions does not exceed targetTps.
+ * The transaction rate is smoothed by EWMA, and n never goes below samplingRate.
+ * Sampled transactions over targetTps within a second are rejected until the next adjustment.
+ *
+ * @author agent
+ */
+public class AdaptiveSampler implements Sampler {
+
+    static final long UPDATE_INTERVAL = 1000;
+    private static final double EWMA_ALPHA = 0.5;
+
+    // one counter per cache line
+    private static final int PADDING = 8;
+
+    private final int samplingRate;
+    private final int targetTps;
+    private final Clock clock;
+
+    private final AtomicLongArray stripes;
+    private final int stripeMask;
+
+    private final AtomicLong sampledCount = new AtomicLong();
+
+    private volatile int currentSamplingRate;
+    private volatile long intervalSampledCount;
+    private volatile long nextUpdateTime;
+
+    // guarded by updateLock
+    private final AtomicBoolean updateLock = new AtomicBoolean();
+    private long lastUpdateTime;
+    private long lastTransactionCount;
+    private double transactionRate = -1;
+
+    public AdaptiveSampler(int samplingRate, int targetTps) {
+        this(samplingRate, targetTps, SystemClock.INSTANCE);
+    }
+
+    AdaptiveSampler(int samplingRate, int targetTps, Clock clock) {
+        if (samplingRate <= 0) {
+            throw new IllegalArgumentException("Invalid samplingRate " + samplingRate);
+        }
+        if (targetTps <= 0) {
+            throw new IllegalArgumentException("Invalid targetTps " + targetTps);
+        }
+        if (clock == null) {
+            throw new NullPointerException("clock must not be null");
+        }
+        this.samplingRate = samplingRate;
+        this.targetTps = targetTps;
+        this.clock = clock;
+
+        final int stripeCount = stripeCount(Runtime.getRuntime().availableProcessors());
+        this.stripes = new AtomicLongArray(stripeCount * PADDING);
+        this.stripeMask = stripeCount - 1;
+
+        this.currentSamplingRate = samplingRate;
+        final long now = clock.getTime();
+        this.lastUpdateTime = now;
+        this.nextUpdateTime = now + UPDATE_INTERVAL;
+    }
+
+    private static int stripeCount(int availableProcessors) {
+        int stripeCount = 1;
+        while (stripeCount < availableProcessors * 2) {
+            stripeCount <<= 1;
+        }
+        return stripeCount;
+    }
+
+    @Override
+    public boolean isSampling() {
+        updateIfNecessary();
+
+        final int stripeIndex = ((int) Thread.currentThread().getId() & stripeMask) * PADDING;
+        final long count = stripes.getAndIncrement(stripeIndex);
+        if (count % currentSamplingRate != 0) {
+            return false;
+        }
+
+        final long sampled = sampledCount.incrementAndGet();
+        if (sampled - intervalSampledCount > targetTps) {
+            sampledCount.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void updateIfNecessary() {
+        final long now = clock.getTime();
+        if (now < nextUpdateTime) {
+            return;
+        }
+        if (!updateLock.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (now < nextUpdateTime) {
+                return;
+            }
+            update(now);
+        } finally {
+            updateLock.set(false);
+        }
+    }
+
+    private void update(long now) {
+        final long transactionCount = getTransactionCount();
+        final long elapsed = Math.max(now - lastUpdateTime, 1);
+        final double currentTransactionRate = (transactionCount - lastTransactionCount) * 1000D / elapsed;
+        if (transactionRate < 0) {
+            this.transactionRate = currentTransactionRate;
+        } else {
+            this.transactionRate += EWMA_ALPHA * (currentTransactionRate - transactionRate);
+        }
+        this.lastTransactionCount = transactionCount;
+        this.lastUpdateTime = now;
+
+        this.currentSamplingRate = calculateSamplingRate(transactionRate);
+        this.intervalSampledCount = sampledCount.get();
+        this.nextUpdateTime = now + UPDATE_INTERVAL;
+    }
+
+    int calculateSamplingRate(double transactionRate) {
+        final double rate = Math.ceil(transactionRate / targetTps);
+        if (rate <= samplingRate) {
+            return samplingRate;
+        }
+        if (rate >= Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) rate;
+    }
+
+    /**
+     * @return total number of new transactions asked for a sampling decision
+     */
+    public long getTransactionCount() {
+        long sum = 0;
+        for (int i = 0; i < stripes.length(); i += PADDING) {
+            sum += stripes.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * @return total number of sampled new transactions
+     */
+    public long getSampledCount() {
+        return sampledCount.get();
+    }
+
+    /**
+     * @return 1 out of n transactions currently being sampled
+     */
+    public int getCurrentSamplingRate() {
+        return currentSamplingRate;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveSampler{" +
+                "samplingRate=" + samplingRate +
+                ", targetTps=" + targetTps +
+                ", currentSamplingRate=" + currentSamplingRate +
+                '}';
+    }
+}
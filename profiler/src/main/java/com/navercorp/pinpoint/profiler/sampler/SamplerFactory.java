@@ -31,4 +31,24 @@ public class SamplerFactory {
         }
         return new SamplingRateSampler(samplingRate);
     }
+
+    public Sampler createSampler(boolean sampling, int samplingRate, String samplerType, int targetTps) {
+        if (samplerType == null) {
+            throw new NullPointerException("samplerType must not be null");
+        }
+        return createSampler(sampling, samplingRate, SamplerType.valueOf(samplerType), targetTps);
+    }
+
+    public Sampler createSampler(boolean sampling, int samplingRate, SamplerType samplerType, int targetTps) {
+        if (samplerType == null) {
+            throw new NullPointerException("samplerType must not be null");
+        }
+        if (samplerType == SamplerType.ADAPTIVE) {
+            if (!sampling || samplingRate <= 0) {
+                return new FalseSampler();
+            }
+            return new AdaptiveSampler(samplingRate, targetTps);
+        }
+        return createSampler(sampling, samplingRate);
+    }
 }
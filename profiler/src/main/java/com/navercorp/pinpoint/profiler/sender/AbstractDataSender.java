@@ -36,6 +36,8 @@ public abstract class AbstractDataSender implements DataSender {
 
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    private volatile SendCompletionHandler sendCompletionHandler;
+
     abstract protected void sendPacket(Object dto);
 
     protected void sendPacketN(Collection<Object> messageList) {
@@ -56,21 +58,84 @@ public abstract class AbstractDataSender implements DataSender {
     }
 
     protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(int queueSize, String executorName) {
-        final AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queueSize, executorName);
+        return createAsyncQueueingExecutor(AsyncQueueFactory.DEFAULT, queueSize, executorName);
+    }
+
+    protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(AsyncQueueFactory queueFactory, int queueSize, String executorName) {
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
+        final AsyncQueue<Object> queue = queueFactory.createQueue(queueSize);
+        final AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queue, queueFactory.getMaxDrainSize(), executorName);
         executor.setListener(new AsyncQueueingExecutorListener<Object>() {
             @Override
             public void execute(Collection<Object> messageList) {
-                sendPacketN(messageList);
+                try {
+                    sendPacketN(messageList);
+                } finally {
+                    completed(messageList);
+                }
             }
 
             @Override
             public void execute(Object message) {
-                sendPacket(message);
+                try {
+                    sendPacket(message);
+                } finally {
+                    completed(message);
+                }
             }
         });
         return executor;
     }
 
+    /**
+     * true if sendPacket() has written the message to the socket(or discarded it) when it returns,
+     * and no reference to the message is held afterwards.
+     */
+    public boolean isSendCompletionSupported() {
+        return false;
+    }
+
+    public void setSendCompletionHandler(SendCompletionHandler sendCompletionHandler) {
+        if (!isSendCompletionSupported()) {
+            throw new UnsupportedOperationException(this.getClass().getSimpleName() + " holds messages after sendPacket()");
+        }
+        this.sendCompletionHandler = sendCompletionHandler;
+    }
+
+    public SendCompletionHandler getSendCompletionHandler() {
+        return sendCompletionHandler;
+    }
+
+    private void completed(Collection<Object> messageList) {
+        final SendCompletionHandler sendCompletionHandler = this.sendCompletionHandler;
+        if (sendCompletionHandler == null) {
+            return;
+        }
+        final Object[] dataList = messageList.toArray();
+        final int size = messageList.size();
+        for (int i = 0; i < size; i++) {
+            completed(sendCompletionHandler, dataList[i]);
+        }
+    }
+
+    private void completed(Object message) {
+        final SendCompletionHandler sendCompletionHandler = this.sendCompletionHandler;
+        if (sendCompletionHandler == null) {
+            return;
+        }
+        completed(sendCompletionHandler, message);
+    }
+
+    private void completed(SendCompletionHandler sendCompletionHandler, Object message) {
+        try {
+            sendCompletionHandler.completed(message);
+        } catch (Throwable th) {
+            logger.warn("SendCompletionHandler error. Cause:{}", th.getMessage(), th);
+        }
+    }
+
     protected byte[] serialize(HeaderTBaseSerializer serializer, TBase tBase) {
         return SerializationUtils.serialize(tBase, serializer, null);
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+/**
+ * @author agent
+ */
+public class AsyncQueueFactory {
+
+    public static final int DEFAULT_MAX_DRAIN_SIZE = 10;
+
+    public static final AsyncQueueFactory DEFAULT = new AsyncQueueFactory(AsyncQueueType.LINKED, DEFAULT_MAX_DRAIN_SIZE, WaitStrategy.PARK);
+
+    private final AsyncQueueType queueType;
+    private final int maxDrainSize;
+    private final WaitStrategy waitStrategy;
+
+    public AsyncQueueFactory(String queueType, int maxDrainSize, String waitStrategy) {
+        this(AsyncQueueType.valueOf(queueType), maxDrainSize, WaitStrategy.valueOf(waitStrategy));
+    }
+
+    public AsyncQueueFactory(AsyncQueueType queueType, int maxDrainSize, WaitStrategy waitStrategy) {
+        if (queueType == null) {
+            throw new NullPointerException("queueType must not be null");
+        }
+        if (maxDrainSize <= 0) {
+            throw new IllegalArgumentException("maxDrainSize");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        this.queueType = queueType;
+        this.maxDrainSize = maxDrainSize;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public <T> AsyncQueue<T> createQueue(int queueSize) {
+        if (queueType == AsyncQueueType.RING_BUFFER) {
+            return new RingBufferAsyncQueue<T>(queueSize, waitStrategy);
+        } else if (queueType == AsyncQueueType.LINKED) {
+            return new LinkedBlockingAsyncQueue<T>(queueSize);
+        } else {
+            throw new IllegalArgumentException("Unknown type.");
+        }
+    }
+
+    public int getMaxDrainSize() {
+        return maxDrainSize;
+    }
+
+    public AsyncQueueType getQueueType() {
+        return queueType;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueueFactory{" +
+                "queueType=" + queueType +
+                ", maxDrainSize=" + maxDrainSize +
+                ", waitStrategy=" + waitStrategy +
+                '}';
+    }
+}
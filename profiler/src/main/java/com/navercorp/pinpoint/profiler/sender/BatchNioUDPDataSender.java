@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.profiler.monitor.jmx.AgentMBeanRegistry;
+import com.navercorp.pinpoint.rpc.PinpointSocketException;
+import com.navercorp.pinpoint.rpc.buffer.ByteBufferFactory;
+import com.navercorp.pinpoint.rpc.buffer.ByteBufferFactoryLocator;
+import com.navercorp.pinpoint.rpc.buffer.ByteBufferType;
+import com.navercorp.pinpoint.thrift.io.BufferOverflowException;
+import com.navercorp.pinpoint.thrift.io.ByteBufferOutputStream;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderBufferedTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.Header;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer2;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory2;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Packs the batch drained by {@link AsyncQueueingExecutor} into datagrams of up to batchPacketSize bytes.
+ * A datagram holding more than one message starts with the chunk header(see {@link com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer})
+ * and is sent with a gathering write. A datagram holding one message is the same as {@link NioUDPDataSender}.
+ * Packing efficiency is exported as the {@link BatchNioUDPDataSenderMetricMBean} named after the sender thread.
+ *
+ * @author agent
+ */
+public class BatchNioUDPDataSender extends NioUDPDataSender {
+
+    // 1500(ethernet MTU) - 20(IP header) - 8(UDP header)
+    public static final int DEFAULT_BATCH_PACKET_SIZE = 1472;
+
+    private final int batchPacketSize;
+
+    private final HeaderTBaseSerializerFactory2 serializerFactory = new HeaderTBaseSerializerFactory2();
+    // Caution. single thread only
+    private HeaderTBaseSerializer2 batchSerializer;
+
+    // batchPacketSize + room for one max size message
+    private final ByteBuffer batchBuffer;
+    private final ByteBufferOutputStream batchOutputStream;
+    private final ByteBuffer chunkHeader;
+    private final ByteBuffer[] gatheringBuffers = new ByteBuffer[2];
+    private int packedCount = 0;
+
+    private final BatchNioUDPDataSenderMetric metric = new BatchNioUDPDataSenderMetric();
+    private final ObjectName metricObjectName;
+
+    public BatchNioUDPDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory, int batchPacketSize) {
+        super(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory);
+        if (batchPacketSize <= Header.HEADER_SIZE || batchPacketSize > UDP_MAX_PACKET_LENGTH) {
+            throw new IllegalArgumentException("invalid batchPacketSize:" + batchPacketSize);
+        }
+        this.batchPacketSize = batchPacketSize;
+        this.batchSerializer = serializerFactory.createSerializer();
+
+        final ByteBufferFactory bufferFactory = ByteBufferFactoryLocator.getFactory(ByteBufferType.DIRECT);
+        this.batchBuffer = bufferFactory.getBuffer(batchPacketSize + UDP_MAX_PACKET_LENGTH);
+        this.batchOutputStream = new ByteBufferOutputStream(batchBuffer);
+        this.chunkHeader = createChunkHeader(bufferFactory);
+        this.metricObjectName = AgentMBeanRegistry.register("BatchNioUDPDataSender", threadName, metric);
+        logger.info("BatchNioUDPDataSender initialized. batchPacketSize={}", batchPacketSize);
+    }
+
+    private ByteBuffer createChunkHeader(ByteBufferFactory bufferFactory) {
+        final Header header = new ChunkHeaderBufferedTBaseSerializerFactory().getLocator().getChunkHeader();
+        final ByteBuffer buffer = bufferFactory.getBuffer(Header.HEADER_SIZE);
+        buffer.put(header.getSignature());
+        buffer.put(header.getVersion());
+        buffer.putShort(header.getType());
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    protected void sendPacket(Object message) {
+        checkClosed();
+        switchChannel();
+        batchOutputStream.clear();
+        packedCount = 0;
+        appendMessage(message);
+        flush();
+    }
+
+    @Override
+    protected void sendPacketN(Collection<Object> messageList) {
+        checkClosed();
+        switchChannel();
+        // Cannot use toArray(T[] array) because passed messageList doesn't implement it properly.
+        final Object[] dataList = messageList.toArray();
+        final int size = messageList.size();
+
+        batchOutputStream.clear();
+        packedCount = 0;
+        for (int i = 0; i < size; i++) {
+            try {
+                appendMessage(dataList[i]);
+            } catch (PinpointSocketException e) {
+                throw e;
+            } catch (Throwable th) {
+                logger.warn("Unexpected Error. Cause:{}", th.getMessage(), th);
+            }
+        }
+        flush();
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new PinpointSocketException("BatchNioUDPDataSender already closed.");
+        }
+    }
+
+    private void flush() {
+        try {
+            if (packedCount > 0) {
+                writePacket(0, batchBuffer.position(), packedCount);
+            }
+        } finally {
+            batchOutputStream.clear();
+            packedCount = 0;
+        }
+    }
+
+    private void appendMessage(Object message) {
+        if (message instanceof TBase) {
+            append((TBase<?, ?>) message);
+        } else {
+            logger.warn("sendPacket fail. invalid type:{}", message != null ? message.getClass() : null);
+        }
+    }
+
+    private void append(TBase<?, ?> dto) {
+        final int start = batchBuffer.position();
+        try {
+            batchSerializer.serialize(dto, batchOutputStream);
+        } catch (BufferOverflowException e) {
+            discard(start, dto, e);
+            return;
+        } catch (TException e) {
+            discard(start, dto, e);
+            return;
+        }
+        final int end = batchBuffer.position();
+        final int messageSize = end - start;
+        if (messageSize > UDP_MAX_PACKET_LENGTH) {
+            // When packet size is greater than UDP packet size limit, it's better to discard packet than let the socket API fails.
+            logger.warn("discard packet. Caused:too large message. size:{}, {}", messageSize, dto);
+            batchBuffer.position(start);
+            return;
+        }
+        if (packedCount == 0 || Header.HEADER_SIZE + end <= batchPacketSize) {
+            packedCount++;
+            return;
+        }
+        // packet is full. send the packed messages and move the last message to the front
+        writePacket(0, start, packedCount);
+        batchBuffer.limit(end);
+        batchBuffer.position(start);
+        batchBuffer.compact();
+        packedCount = 1;
+    }
+
+    private void discard(int start, TBase<?, ?> dto, Exception cause) {
+        batchBuffer.limit(batchBuffer.capacity());
+        batchBuffer.position(start);
+        // protocol state is broken by the partial write
+        batchSerializer = serializerFactory.createSerializer();
+        logger.warn("discard packet. Serialize {} failed. Error:{}", dto, cause.getMessage(), cause);
+    }
+
+    private void writePacket(int start, int end, int messageCount) {
+        final int position = batchBuffer.position();
+        final int limit = batchBuffer.limit();
+        batchBuffer.limit(end);
+        batchBuffer.position(start);
+        try {
+            if (messageCount == 1) {
+                datagramChannel.write(batchBuffer);
+            } else {
+                chunkHeader.rewind();
+                gatheringBuffers[0] = chunkHeader;
+                gatheringBuffers[1] = batchBuffer;
+                datagramChannel.write(gatheringBuffers);
+            }
+            this.metric.packetSent(messageCount);
+            if (isDebug) {
+                logger.debug("Data sent. size:{}, messageCount:{}", end - start, messageCount);
+            }
+        } catch (IOException e) {
+            final Thread currentThread = Thread.currentThread();
+            if (currentThread.isInterrupted()) {
+                logger.warn("{} thread interrupted.", currentThread.getName());
+                throw new PinpointSocketException(currentThread.getName() + " thread interrupted.", e);
+            }
+            logger.info("packet send error. size:{}, messageCount:{}", end - start, messageCount, e);
+        } finally {
+            gatheringBuffers[0] = null;
+            gatheringBuffers[1] = null;
+            batchBuffer.limit(limit);
+            batchBuffer.position(position);
+        }
+    }
+
+    public BatchNioUDPDataSenderMetric getMetric() {
+        return metric;
+    }
+
+    public long getPacketCount() {
+        return metric.getPacketCount();
+    }
+
+    public long getMessageCount() {
+        return metric.getMessageCount();
+    }
+
+    @Override
+    public void stop() {
+        try {
+            super.stop();
+        } finally {
+            try {
+                batchOutputStream.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            AgentMBeanRegistry.unregister(metricObjectName);
+            logger.info("BatchNioUDPDataSender stopped. packetCount:{}, messageCount:{}", metric.getPacketCount(), metric.getMessageCount());
+        }
+    }
+}
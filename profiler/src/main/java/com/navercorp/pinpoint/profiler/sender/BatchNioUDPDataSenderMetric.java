@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of {@link BatchNioUDPDataSender}. The rates are computed from the counter deltas between two reads,
+ * and a new window is started only once {@link #MIN_SAMPLING_WINDOW_MS} has passed so that frequent polling stays accurate.
+ *
+ * @author agent
+ */
+public class BatchNioUDPDataSenderMetric implements BatchNioUDPDataSenderMetricMBean {
+
+    static final long MIN_SAMPLING_WINDOW_MS = 1000;
+
+    // one packet == one send syscall
+    private final AtomicLong packetCount = new AtomicLong();
+    private final AtomicLong messageCount = new AtomicLong();
+
+    // guarded by this
+    private long lastSampleTime;
+    private long lastPacketCount;
+    private long lastMessageCount;
+    private double messagesPerPacket;
+    private double packetsPerSecond;
+
+    public BatchNioUDPDataSenderMetric() {
+        this.lastSampleTime = System.currentTimeMillis();
+    }
+
+    void packetSent(int messageCount) {
+        this.packetCount.incrementAndGet();
+        this.messageCount.addAndGet(messageCount);
+    }
+
+    @Override
+    public long getPacketCount() {
+        return packetCount.get();
+    }
+
+    @Override
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    @Override
+    public synchronized double getMessagesPerPacket() {
+        sample(System.currentTimeMillis());
+        return messagesPerPacket;
+    }
+
+    @Override
+    public synchronized double getPacketsPerSecond() {
+        sample(System.currentTimeMillis());
+        return packetsPerSecond;
+    }
+
+    // for test
+    synchronized void sample(long currentTimeMillis) {
+        final long elapsed = currentTimeMillis - lastSampleTime;
+        if (elapsed < MIN_SAMPLING_WINDOW_MS) {
+            return;
+        }
+        final long currentPacketCount = packetCount.get();
+        final long currentMessageCount = messageCount.get();
+        final long packets = currentPacketCount - lastPacketCount;
+        final long messages = currentMessageCount - lastMessageCount;
+
+        this.messagesPerPacket = packets == 0 ? 0 : (double) messages / packets;
+        this.packetsPerSecond = packets * 1000D / elapsed;
+
+        this.lastSampleTime = currentTimeMillis;
+        this.lastPacketCount = currentPacketCount;
+        this.lastMessageCount = currentMessageCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchNioUDPDataSenderMetric{" +
+                "packetCount=" + packetCount +
+                ", messageCount=" + messageCount +
+                '}';
+    }
+}
@@ -118,6 +118,7 @@ public class BufferedUdpDataSender extends UdpDataSender {
 
     @Override
     protected void sendPacket(Object message) {
+        switchSocket();
         if (message instanceof TBase) {
             try {
                 final TBase<?, ?> packet = (TBase<?, ?>) message;
@@ -132,6 +133,12 @@ public class BufferedUdpDataSender extends UdpDataSender {
         }
     }
 
+    @Override
+    public boolean isSendCompletionSupported() {
+        // messages are sent later by the flush thread
+        return false;
+    }
+
     @Override
     public void stop() {
         super.stop();
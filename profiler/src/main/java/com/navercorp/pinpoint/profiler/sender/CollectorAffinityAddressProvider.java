@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.rpc.client.SocketAddressProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out the affinity candidates in ring order, one per connect attempt.
+ * After {@link #connected()} the next attempt starts again from the owner,
+ * so a client that failed over goes back to the owner on its next reconnect.
+ *
+ * @author agent
+ */
+public class CollectorAffinityAddressProvider implements SocketAddressProvider {
+
+    private final List<String> candidates;
+    private final int port;
+
+    private int nextIndex = 0;
+    private String lastHost;
+
+    public CollectorAffinityAddressProvider(List<String> candidates, int port) {
+        if (candidates == null) {
+            throw new NullPointerException("candidates must not be null");
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("candidates must not be empty");
+        }
+        this.candidates = new ArrayList<String>(candidates);
+        this.port = port;
+    }
+
+    @Override
+    public synchronized SocketAddress resolve() {
+        final String host = candidates.get(nextIndex);
+        this.nextIndex = (nextIndex + 1) % candidates.size();
+        this.lastHost = host;
+        return new InetSocketAddress(host, port);
+    }
+
+    /**
+     * call when the last resolved address is connected.
+     * @return the connected collector
+     */
+    public synchronized String connected() {
+        this.nextIndex = 0;
+        return lastHost;
+    }
+
+    @Override
+    public String toString() {
+        return "CollectorAffinityAddressProvider{" +
+                "candidates=" + candidates +
+                ", port=" + port +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.common.util.ConsistentHashRing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves the owner collector of an application among the static affinity members(profiler.collector.affinity.members).
+ * Only hashes, so it is safe on the startup path.
+ * {@link #getCandidates(String)} orders the members the way the ring hands the key over when the owner leaves,
+ * so that every agent of an application fails over to the same collector.
+ *
+ * @author agent
+ */
+public class CollectorAffinityResolver {
+
+    private final ConsistentHashRing ring;
+
+    public CollectorAffinityResolver(List<String> members) {
+        if (members == null) {
+            throw new NullPointerException("members must not be null");
+        }
+        this.ring = new ConsistentHashRing(trim(members));
+    }
+
+    private List<String> trim(List<String> members) {
+        final List<String> result = new ArrayList<String>(members.size());
+        for (String member : members) {
+            if (member == null) {
+                continue;
+            }
+            final String trimmed = member.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return owner collector of the key. null if there is no member
+     */
+    public String getOwner(String key) {
+        return ring.getOwner(key);
+    }
+
+    /**
+     * @return every member. the owner first, then the owner of the ring without the previous ones
+     */
+    public List<String> getCandidates(String key) {
+        final List<String> candidates = new ArrayList<String>(ring.getMembers().size());
+        ConsistentHashRing remains = ring;
+        while (!remains.isEmpty()) {
+            final String owner = remains.getOwner(key);
+            candidates.add(owner);
+            remains = remains.remove(owner);
+        }
+        return candidates;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class LinkedBlockingAsyncQueue<T> implements AsyncQueue<T> {
+
+    private final LinkedBlockingQueue<T> queue;
+
+    public LinkedBlockingAsyncQueue(int queueSize) {
+        this.queue = new LinkedBlockingQueue<T>(queueSize);
+    }
+
+    @Override
+    public boolean offer(T data) {
+        return queue.offer(data);
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> drain, int maxElements) {
+        return queue.drainTo(drain, maxElements);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
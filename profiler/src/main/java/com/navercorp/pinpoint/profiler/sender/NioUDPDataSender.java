@@ -34,11 +34,12 @@ import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @Author Taejin Koo
  */
-public class NioUDPDataSender extends AbstractDataSender implements DataSender {
+public class NioUDPDataSender extends AbstractDataSender implements DataSender, CollectorSwitchable {
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
     protected final boolean isDebug = logger.isDebugEnabled();
@@ -47,19 +48,25 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
     public static final int SEND_BUFFER_SIZE = 1024 * 64 * 16;
     public static final int UDP_MAX_PACKET_LENGTH = 65507;
 
-    private final DatagramChannel datagramChannel;
+    protected final DatagramChannel datagramChannel;
+    private final int port;
+    private final AtomicReference<String> switchHost = new AtomicReference<String>();
     private final HeaderTBaseSerializer2 serializer;
     private final ByteBufferOutputStream byteBufferOutputStream;
 
     private final AsyncQueueingExecutor<Object> executor;
 
-    private volatile boolean closed = false;
+    protected volatile boolean closed = false;
 
     public NioUDPDataSender(String host, int port, String threadName, int queueSize) {
         this(host, port, threadName, queueSize, SOCKET_TIMEOUT, SEND_BUFFER_SIZE);
     }
 
     public NioUDPDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueFactory.DEFAULT);
+    }
+
+    public NioUDPDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory) {
         if (host == null ) {
             throw new NullPointerException("host must not be null");
         }
@@ -79,6 +86,7 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         // TODO If fail to create socket, stop agent start
         logger.info("NioUDPDataSender initialized. host={}, port={}", host, port);
         this.datagramChannel = createChannel(host, port, timeout, sendBufferSize);
+        this.port = port;
 
         HeaderTBaseSerializerFactory2 serializerFactory = new HeaderTBaseSerializerFactory2();
         this.serializer = serializerFactory.createSerializer();
@@ -87,7 +95,7 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         ByteBuffer byteBuffer = bufferFactory.getBuffer(UDP_MAX_PACKET_LENGTH);
         this.byteBufferOutputStream = new ByteBufferOutputStream(byteBuffer);
 
-        this.executor = createAsyncQueueingExecutor(queueSize, threadName);
+        this.executor = createAsyncQueueingExecutor(queueFactory, queueSize, threadName);
     }
 
     private DatagramChannel createChannel(String host, int port, int timeout, int sendBufferSize) {
@@ -131,6 +139,43 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         return executor.execute(data);
     }
 
+    @Override
+    public void switchCollector(String host) {
+        if (host == null) {
+            throw new NullPointerException("host must not be null");
+        }
+        switchHost.set(host);
+    }
+
+    /**
+     * reconnects the channel to the requested collector. call on the sender thread only
+     */
+    protected void switchChannel() {
+        final String host = switchHost.getAndSet(null);
+        if (host == null) {
+            return;
+        }
+        final InetSocketAddress serverAddress = new InetSocketAddress(host, port);
+        if (serverAddress.equals(datagramChannel.socket().getRemoteSocketAddress())) {
+            return;
+        }
+        try {
+            datagramChannel.disconnect();
+            datagramChannel.connect(serverAddress);
+            logger.info("NioUDPDataSender switched. host={}, port={}", host, port);
+        } catch (IOException e) {
+            logger.warn("NioUDPDataSender switch fail. host={}, port={} Cause:{}", host, port, e.getMessage(), e);
+            // retry with the next packet unless another switch was requested
+            switchHost.compareAndSet(null, host);
+        }
+    }
+
+    @Override
+    public boolean isSendCompletionSupported() {
+        // the packet is written to the channel in sendPacket()
+        return true;
+    }
+
     @Override
     public void stop() {
         try {
@@ -149,6 +194,7 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         if (closed) {
             throw new PinpointSocketException("NioUDPDataSender already closed.");
         }
+        switchChannel();
 
         if (message instanceof TBase) {
             byteBufferOutputStream.clear();
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Preallocated bounded multi-producer/single-consumer ring buffer.
+ * Producers claim a slot with a single CAS on the tail sequence, so offer() neither locks nor allocates.
+ * Caution. poll() and drainTo() must be called by a single consumer thread.
+ *
+ * @author agent
+ */
+public class RingBufferAsyncQueue<T> implements AsyncQueue<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> buffer;
+    // slot sequence. sequence == position : writable, sequence == position + 1 : readable
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    private final WaitStrategy waitStrategy;
+
+    public RingBufferAsyncQueue(int queueSize, WaitStrategy waitStrategy) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize");
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        final int capacity = roundToPowerOfTwo(queueSize);
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<T>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value > (1 << 30)) {
+            throw new IllegalArgumentException("too large queueSize:" + value);
+        }
+        int capacity = 1;
+        while (capacity < value) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public boolean offer(T data) {
+        if (data == null) {
+            throw new NullPointerException("data must not be null");
+        }
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) (position & mask);
+            final long sequence = sequences.get(index);
+            final long diff = sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, data);
+                    // publish. ordered after the slot write
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // queue is full
+                return false;
+            }
+            // another producer claimed this position. retry
+        }
+    }
+
+    private T pollNow() {
+        final long position = head.get();
+        final int index = (int) (position & mask);
+        final long sequence = sequences.get(index);
+        if (sequence != position + 1) {
+            return null;
+        }
+        final T data = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+        head.lazySet(position + 1);
+        return data;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T data = pollNow();
+        if (data != null) {
+            return data;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            data = pollNow();
+            if (data != null) {
+                return data;
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+            waitStrategy.idle(idleCount++);
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> drain, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            final T data = pollNow();
+            if (data == null) {
+                break;
+            }
+            drain.add(data);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        final long size = tail.get() - head.get();
+        if (size < 0) {
+            return 0;
+        }
+        return (int) size;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends every span and span chunk to the affinity member owning its transaction,
+ * so that the spans of a transaction reach the same collector on whichever agent they are recorded.
+ * The collector needs the whole transaction to decide tail sampling.(see profiler.sampling.tail.enable)
+ *
+ * @author agent
+ */
+public class TransactionRoutingDataSender implements DataSender {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final CollectorAffinityResolver collectorAffinityResolver;
+    private final Map<String, DataSender> dataSenderMap;
+
+    /**
+     * @param dataSenderMap sender of each affinity member
+     */
+    public TransactionRoutingDataSender(CollectorAffinityResolver collectorAffinityResolver, Map<String, DataSender> dataSenderMap) {
+        if (collectorAffinityResolver == null) {
+            throw new NullPointerException("collectorAffinityResolver must not be null");
+        }
+        if (dataSenderMap == null) {
+            throw new NullPointerException("dataSenderMap must not be null");
+        }
+        if (dataSenderMap.isEmpty()) {
+            throw new IllegalArgumentException("dataSenderMap must not be empty");
+        }
+        this.collectorAffinityResolver = collectorAffinityResolver;
+        this.dataSenderMap = new LinkedHashMap<String, DataSender>(dataSenderMap);
+    }
+
+    @Override
+    public boolean send(TBase<?, ?> data) {
+        final String transactionKey = getTransactionKey(data);
+        if (transactionKey == null) {
+            logger.warn("send fail. no transactionId. data:{}", data);
+            return false;
+        }
+        final String owner = collectorAffinityResolver.getOwner(transactionKey);
+        final DataSender dataSender = dataSenderMap.get(owner);
+        if (dataSender == null) {
+            logger.warn("send fail. unknown collector:{}", owner);
+            return false;
+        }
+        return dataSender.send(data);
+    }
+
+    static String getTransactionKey(TBase<?, ?> data) {
+        if (data instanceof TSpan) {
+            final TSpan span = (TSpan) data;
+            return getTransactionKey(span.getTransactionId(), span.getAgentId());
+        }
+        if (data instanceof TSpanChunk) {
+            final TSpanChunk spanChunk = (TSpanChunk) data;
+            return getTransactionKey(spanChunk.getTransactionId(), spanChunk.getAgentId());
+        }
+        return null;
+    }
+
+    private static String getTransactionKey(byte[] transactionIdBytes, String agentId) {
+        if (transactionIdBytes == null) {
+            return null;
+        }
+        final TransactionId transactionId = TransactionIdUtils.parseTransactionId(transactionIdBytes);
+        // the agentId is omitted when the transaction started on the sending agent.
+        // every node must hash the same key
+        String transactionAgentId = transactionId.getAgentId();
+        if (transactionAgentId == null) {
+            transactionAgentId = agentId;
+        }
+        return TransactionIdUtils.formatString(transactionAgentId, transactionId.getAgentStartTime(), transactionId.getTransactionSequence());
+    }
+
+    public Collection<DataSender> getDataSenders() {
+        return Collections.unmodifiableCollection(dataSenderMap.values());
+    }
+
+    @Override
+    public void stop() {
+        for (DataSender dataSender : dataSenderMap.values()) {
+            dataSender.stop();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionRoutingDataSender{" +
+                "collectors=" + dataSenderMap.keySet() +
+                '}';
+    }
+}
@@ -27,13 +27,14 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author netspider
  * @author emeroad
  * @author koo.taejin
  */
-public class UdpDataSender extends AbstractDataSender implements DataSender {
+public class UdpDataSender extends AbstractDataSender implements DataSender, CollectorSwitchable {
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
     protected final boolean isDebug = logger.isDebugEnabled();
@@ -46,6 +47,8 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     protected final DatagramPacket reusePacket = new DatagramPacket(new byte[1], 1);
 
     protected final DatagramSocket udpSocket;
+    private final int port;
+    private final AtomicReference<String> switchHost = new AtomicReference<String>();
 
     // Caution. not thread safe
     private final HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory(false, UDP_MAX_PACKET_LENGTH, false).createSerializer();
@@ -57,6 +60,10 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     }
 
     public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueFactory.DEFAULT);
+    }
+
+    public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory) {
         if (host == null ) {
             throw new NullPointerException("host must not be null");
         }
@@ -76,8 +83,9 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
         // TODO If fail to create socket, stop agent start
         logger.info("UdpDataSender initialized. host={}, port={}", host, port);
         this.udpSocket = createSocket(host, port, timeout, sendBufferSize);
+        this.port = port;
 
-        this.executor = createAsyncQueueingExecutor(queueSize, threadName);
+        this.executor = createAsyncQueueingExecutor(queueFactory, queueSize, threadName);
     }
 
     @Override
@@ -85,6 +93,43 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
         return executor.execute(data);
     }
 
+    @Override
+    public void switchCollector(String host) {
+        if (host == null) {
+            throw new NullPointerException("host must not be null");
+        }
+        switchHost.set(host);
+    }
+
+    /**
+     * reconnects the socket to the requested collector
+     */
+    protected void switchSocket() {
+        final String host = switchHost.getAndSet(null);
+        if (host == null) {
+            return;
+        }
+        final InetSocketAddress serverAddress = new InetSocketAddress(host, port);
+        if (serverAddress.equals(udpSocket.getRemoteSocketAddress())) {
+            return;
+        }
+        try {
+            udpSocket.disconnect();
+            udpSocket.connect(serverAddress);
+            logger.info("UdpDataSender switched. host={}, port={}", host, port);
+        } catch (SocketException e) {
+            logger.warn("UdpDataSender switch fail. host={}, port={} Cause:{}", host, port, e.getMessage(), e);
+            // retry with the next packet unless another switch was requested
+            switchHost.compareAndSet(null, host);
+        }
+    }
+
+    @Override
+    public boolean isSendCompletionSupported() {
+        // the packet is written to the socket in sendPacket()
+        return true;
+    }
+
     @Override
     public void stop() {
         executor.stop();
@@ -112,6 +157,7 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     }
 
     protected void sendPacket(Object message) {
+        switchSocket();
         if (message instanceof TBase) {
             final TBase dto = (TBase) message;
             // do not copy bytes because it's single threaded
@@ -30,14 +30,29 @@ public final class UdpDataSenderFactory {
     private final int queueSize;
     private final int timeout;
     private final int sendBufferSize;
+    private final AsyncQueueFactory queueFactory;
+    private final int batchPacketSize;
 
     public UdpDataSenderFactory(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueFactory.DEFAULT);
+    }
+
+    public UdpDataSenderFactory(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory, BatchNioUDPDataSender.DEFAULT_BATCH_PACKET_SIZE);
+    }
+
+    public UdpDataSenderFactory(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueFactory queueFactory, int batchPacketSize) {
+        if (queueFactory == null) {
+            throw new NullPointerException("queueFactory must not be null");
+        }
         this.host = host;
         this.port = port;
         this.threadName = threadName;
         this.queueSize = queueSize;
         this.timeout = timeout;
         this.sendBufferSize = sendBufferSize;
+        this.queueFactory = queueFactory;
+        this.batchPacketSize = batchPacketSize;
     }
 
     public DataSender create(String typeName) {
@@ -46,9 +61,11 @@ public final class UdpDataSenderFactory {
 
     public DataSender create(UdpDataSenderType type) {
         if (type == UdpDataSenderType.NIO) {
-            return new NioUDPDataSender(host, port, threadName, queueSize, timeout, sendBufferSize);
+            return new NioUDPDataSender(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory);
+        } else if (type == UdpDataSenderType.NIO_BATCH) {
+            return new BatchNioUDPDataSender(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory, batchPacketSize);
         } else if (type == UdpDataSenderType.OIO) {
-            return new UdpDataSender(host, port, threadName, queueSize, timeout, sendBufferSize);
+            return new UdpDataSender(host, port, threadName, queueSize, timeout, sendBufferSize, queueFactory);
         } else {
             throw new IllegalArgumentException("Unknown type.");
         }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idle strategy of the consumer thread when {@link RingBufferAsyncQueue} is empty.
+ *
+ * @author agent
+ */
+public enum WaitStrategy {
+
+    /**
+     * lowest cpu usage. wakeup latency is bounded by PARK_NANOS
+     */
+    PARK {
+        @Override
+        void idle(int idleCount) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    },
+    /**
+     * busy spin. lowest latency. burns a core
+     */
+    SPIN {
+        @Override
+        void idle(int idleCount) {
+            // busy spin
+        }
+    },
+    YIELD {
+        @Override
+        void idle(int idleCount) {
+            Thread.yield();
+        }
+    };
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    abstract void idle(int idleCount);
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class BufferedCachingSqlNormalizerTest {
+
+    @Test
+    public void testNormalizedSql() throws Exception {
+        CachingSqlNormalizer normalizer = new BufferedCachingSqlNormalizer(1);
+        ParsingResult parsingResult = normalizer.wrapSql("select * from dual");
+
+        boolean newCache = normalizer.normalizedSql(parsingResult);
+        Assert.assertTrue("newCacheState", newCache);
+
+        boolean notCached = normalizer.normalizedSql(parsingResult);
+        Assert.assertFalse("alreadyCached", notCached);
+
+        ParsingResult alreadyCached = normalizer.wrapSql("select * from dual");
+        boolean notCached2 = normalizer.normalizedSql(alreadyCached);
+        Assert.assertFalse("alreadyCached2", notCached2);
+        Assert.assertEquals(parsingResult.getId(), alreadyCached.getId());
+        Assert.assertSame(parsingResult.getSql(), alreadyCached.getSql());
+    }
+
+    @Test
+    public void testNormalizedSql_literal() throws Exception {
+        CachingSqlNormalizer normalizer = new BufferedCachingSqlNormalizer(16);
+        ParsingResult parsingResult = normalizer.wrapSql("select * from dual where id = 1 and name = 'a'");
+        Assert.assertTrue(normalizer.normalizedSql(parsingResult));
+        Assert.assertEquals("select * from dual where id = 0# and name = '1$'", parsingResult.getSql());
+        Assert.assertEquals("1,a", parsingResult.getOutput());
+
+        ParsingResult sameNormalizedSql = normalizer.wrapSql("select * from dual where id = 2 and name = 'b'");
+        Assert.assertFalse(normalizer.normalizedSql(sameNormalizedSql));
+        Assert.assertEquals(parsingResult.getId(), sameNormalizedSql.getId());
+        Assert.assertEquals(parsingResult.getSql(), sameNormalizedSql.getSql());
+        Assert.assertEquals("2,b", sameNormalizedSql.getOutput());
+    }
+
+    @Test
+    public void testNormalizedSql_cache_expire() throws Exception {
+        CachingSqlNormalizer normalizer = new BufferedCachingSqlNormalizer(1);
+        for (int i = 0; i < 10; i++) {
+            ParsingResult parsingResult = normalizer.wrapSql("select * from table" + i);
+            Assert.assertTrue(normalizer.normalizedSql(parsingResult));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.common.trace.TraceFlags;
+import com.navercorp.pinpoint.profiler.context.storage.Storage;
+import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
+import com.navercorp.pinpoint.profiler.sampler.FalseSampler;
+import com.navercorp.pinpoint.profiler.sampler.TrueSampler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author agent
+ */
+public class DefaultBaseTraceFactoryTest {
+
+    private final TraceContext traceContext = newTraceContext();
+
+    private final StorageFactory storageFactory = newStorageFactory();
+
+    private final StorageFactory tailSamplingStorageFactory = newStorageFactory();
+
+    private TraceContext newTraceContext() {
+        TraceContext traceContext = mock(TraceContext.class);
+        when(traceContext.getAgentId()).thenReturn("agentId");
+        when(traceContext.getAgentStartTime()).thenReturn(System.currentTimeMillis());
+        return traceContext;
+    }
+
+    private StorageFactory newStorageFactory() {
+        StorageFactory storageFactory = mock(StorageFactory.class);
+        when(storageFactory.createStorage()).thenReturn(mock(Storage.class));
+        return storageFactory;
+    }
+
+    @Test
+    public void newTraceObject_sampled() {
+        BaseTraceFactory traceFactory = new DefaultBaseTraceFactory(traceContext, storageFactory, new TrueSampler(), new IdGenerator(), new DefaultSpanEventFactory(), true, tailSamplingStorageFactory);
+
+        Trace trace = traceFactory.newTraceObject();
+
+        Assert.assertTrue(trace.canSampled());
+        Assert.assertFalse(TraceFlags.isTailSamplingCandidate(trace.getTraceId().getFlags()));
+        verify(tailSamplingStorageFactory, never()).createStorage();
+    }
+
+    @Test
+    public void newTraceObject_tailSamplingCandidate() {
+        BaseTraceFactory traceFactory = new DefaultBaseTraceFactory(traceContext, storageFactory, new FalseSampler(), new IdGenerator(), new DefaultSpanEventFactory(), true, tailSamplingStorageFactory);
+
+        Trace trace = traceFactory.newTraceObject();
+
+        Assert.assertTrue(trace.canSampled());
+        Assert.assertTrue(TraceFlags.isTailSamplingCandidate(trace.getTraceId().getFlags()));
+        // propagated to the next node
+        Assert.assertTrue(TraceFlags.isTailSamplingCandidate(trace.getTraceId().getNextTraceId().getFlags()));
+        verify(tailSamplingStorageFactory).createStorage();
+        verify(storageFactory, never()).createStorage();
+    }
+
+    @Test
+    public void newTraceObject_tailSamplingDisabled() {
+        BaseTraceFactory traceFactory = new DefaultBaseTraceFactory(traceContext, storageFactory, new FalseSampler(), new IdGenerator(), new DefaultSpanEventFactory(), false, tailSamplingStorageFactory);
+
+        Trace trace = traceFactory.newTraceObject();
+
+        Assert.assertFalse(trace.canSampled());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.profiler.metadata.MappedSqlCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author agent
+ */
+public class MappedCachingSqlNormalizerTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("sql-cache", ".sqlcache");
+        Assert.assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void normalizedSql() throws IOException {
+        MappedSqlCache sqlCache = new MappedSqlCache(file, 1024 * 1024, 16, "1.0", 100);
+        CachingSqlNormalizer normalizer = new MappedCachingSqlNormalizer(sqlCache);
+
+        ParsingResult parsingResult = normalizer.wrapSql("select * from dual where id = 1");
+        Assert.assertTrue(normalizer.normalizedSql(parsingResult));
+        Assert.assertEquals("select * from dual where id = 0#", parsingResult.getSql());
+        Assert.assertEquals("1", parsingResult.getOutput());
+
+        Assert.assertFalse(normalizer.normalizedSql(parsingResult));
+
+        ParsingResult sameNormalizedSql = normalizer.wrapSql("select * from dual where id = 2");
+        Assert.assertFalse(normalizer.normalizedSql(sameNormalizedSql));
+        Assert.assertEquals(parsingResult.getId(), sameNormalizedSql.getId());
+        Assert.assertEquals("2", sameNormalizedSql.getOutput());
+        sqlCache.close();
+    }
+
+    @Test
+    public void normalizedSql_restart() throws IOException {
+        MappedSqlCache sqlCache = new MappedSqlCache(file, 1024 * 1024, 16, "1.0", 100);
+        CachingSqlNormalizer normalizer = new MappedCachingSqlNormalizer(sqlCache);
+        ParsingResult parsingResult = normalizer.wrapSql("select * from dual where id = ?");
+        Assert.assertTrue(normalizer.normalizedSql(parsingResult));
+        sqlCache.close();
+
+        MappedSqlCache restartedCache = new MappedSqlCache(file, 1024 * 1024, 16, "1.0", 200);
+        CachingSqlNormalizer restarted = new MappedCachingSqlNormalizer(restartedCache);
+        ParsingResult restartedResult = restarted.wrapSql("select * from dual where id = ?");
+        // new agent start. metadata has to be sent again with the same id
+        Assert.assertTrue(restarted.normalizedSql(restartedResult));
+        Assert.assertEquals(parsingResult.getId(), restartedResult.getId());
+        Assert.assertEquals("select * from dual where id = ?", restartedResult.getSql());
+        Assert.assertEquals("", restartedResult.getOutput());
+
+        ParsingResult cached = restarted.wrapSql("select * from dual where id = ?");
+        Assert.assertFalse(restarted.normalizedSql(cached));
+        restartedCache.close();
+    }
+}
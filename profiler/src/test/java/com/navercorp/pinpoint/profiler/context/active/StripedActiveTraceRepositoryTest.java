@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.active;
+
+import com.navercorp.pinpoint.profiler.context.ActiveTrace;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class StripedActiveTraceRepositoryTest {
+
+    private long activeTraceId = 1;
+
+    @Test
+    public void putAndRemove() {
+        StripedActiveTraceRepository repository = new StripedActiveTraceRepository();
+        ActiveTrace activeTrace = createActiveTrace(100);
+        repository.put(activeTrace);
+
+        List<ActiveTraceInfo> collect = repository.collect();
+        Assert.assertEquals(1, collect.size());
+        Assert.assertEquals(activeTrace.getId(), collect.get(0).getLocalTraceId());
+
+        Assert.assertSame(activeTrace, repository.remove(activeTrace.getId()));
+        Assert.assertNull(repository.remove(activeTrace.getId()));
+        Assert.assertTrue(repository.collect().isEmpty());
+    }
+
+    @Test
+    public void notStarted() {
+        StripedActiveTraceRepository repository = new StripedActiveTraceRepository();
+        ActiveTrace activeTrace = Mockito.mock(ActiveTrace.class);
+        Mockito.when(activeTrace.getStartTime()).thenReturn(0L);
+        Mockito.when(activeTrace.getId()).thenReturn(nextLocalTransactionId());
+        repository.put(activeTrace);
+
+        Assert.assertTrue(repository.collect().isEmpty());
+    }
+
+    @Test
+    public void collect_multiThread() throws Exception {
+        final StripedActiveTraceRepository repository = new StripedActiveTraceRepository(4);
+        final int threadCount = 20;
+        final CountDownLatch putLatch = new CountDownLatch(threadCount);
+        final CountDownLatch removeLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final ActiveTrace activeTrace = createActiveTrace(i < 5 ? 100 : 10000);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    repository.put(activeTrace);
+                    putLatch.countDown();
+                    try {
+                        removeLatch.await();
+                    } catch (InterruptedException ignore) {
+                        Thread.currentThread().interrupt();
+                    }
+                    repository.remove(activeTrace.getId());
+                    endLatch.countDown();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        Assert.assertTrue(putLatch.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(threadCount, repository.collect().size());
+        ActiveTraceHistogramFactory histogramFactory = new ActiveTraceHistogramFactory(repository);
+        List<Integer> activeTraceCounts = histogramFactory.createHistogram().getActiveTraceCounts();
+        Assert.assertEquals(5, activeTraceCounts.get(0).intValue());
+        Assert.assertEquals(15, activeTraceCounts.get(3).intValue());
+
+        removeLatch.countDown();
+        Assert.assertTrue(endLatch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(repository.collect().isEmpty());
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // dead thread slots are purged while scanning
+        repository.collect();
+        Assert.assertEquals(0, repository.slotCount());
+    }
+
+    @Test
+    public void put_occupiedSlot() {
+        StripedActiveTraceRepository repository = new StripedActiveTraceRepository();
+        ActiveTrace first = createActiveTrace(100);
+        ActiveTrace second = createActiveTrace(50);
+        repository.put(first);
+        repository.put(second);
+
+        Assert.assertEquals(1, repository.overflowCount());
+        Assert.assertEquals(2, repository.collect().size());
+
+        Assert.assertSame(first, repository.remove(first.getId()));
+        Assert.assertSame(second, repository.remove(second.getId()));
+        Assert.assertEquals(0, repository.overflowCount());
+        Assert.assertTrue(repository.collect().isEmpty());
+    }
+
+    @Test
+    public void put_overflowBound() {
+        StripedActiveTraceRepository repository = new StripedActiveTraceRepository(1, 2);
+        repository.put(createActiveTrace(100));
+        for (int i = 0; i < 10; i++) {
+            repository.put(createActiveTrace(100));
+        }
+
+        Assert.assertTrue(repository.overflowCount() <= 2);
+    }
+
+    @Test
+    public void remove_otherThread() throws Exception {
+        final StripedActiveTraceRepository repository = new StripedActiveTraceRepository();
+        final ActiveTrace activeTrace = createActiveTrace(100);
+        repository.put(activeTrace);
+
+        final ActiveTrace[] removed = new ActiveTrace[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                removed[0] = repository.remove(activeTrace.getId());
+            }
+        });
+        thread.start();
+        thread.join();
+
+        Assert.assertSame(activeTrace, removed[0]);
+        Assert.assertTrue(repository.collect().isEmpty());
+    }
+
+    private ActiveTrace createActiveTrace(long executionTime) {
+        ActiveTrace activeTrace = Mockito.mock(ActiveTrace.class);
+        Mockito.when(activeTrace.getStartTime()).thenReturn(System.currentTimeMillis() - executionTime);
+        Mockito.when(activeTrace.getId()).thenReturn(nextLocalTransactionId());
+        return activeTrace;
+    }
+
+    private long nextLocalTransactionId() {
+        return activeTraceId++;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.common.Version;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.Clock;
+import com.navercorp.pinpoint.common.util.JvmUtils;
+import com.navercorp.pinpoint.common.util.SystemPropertyKey;
+import com.navercorp.pinpoint.profiler.AgentInformation;
+import com.navercorp.pinpoint.profiler.context.Annotation;
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanChunk;
+import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.sender.CountingDataSender;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.profiler.sender.SendCompletionHandler;
+import org.apache.thrift.TBase;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class BoundedBufferedStorageTest {
+
+    private static final int EMPTY_SPAN_EVENT_SIZE = SpanEventSizeEstimator.SPAN_EVENT_OVERHEAD;
+
+    private AgentInformation agentInformation = new AgentInformation("agentId", "applicationName", 0, 1, "hostName", "127.0.0.1", ServiceType.STAND_ALONE,
+            JvmUtils.getSystemProperty(SystemPropertyKey.JAVA_VERSION), Version.VERSION);
+    private SpanChunkFactory spanChunkFactory = new SpanChunkFactory(agentInformation);
+    private CountingDataSender countingDataSender = new CountingDataSender();
+    private BoundedBufferedStorageMetric metric;
+    private ManualClock clock;
+    private BoundedBufferedStorageFlusher flusher;
+
+    @Before
+    public void before() {
+        countingDataSender.stop();
+        metric = new BoundedBufferedStorageMetric();
+        clock = new ManualClock();
+        flusher = new BoundedBufferedStorageFlusher(BoundedBufferedStorage.DEFAULT_MAX_AGE);
+    }
+
+    @Test
+    public void testStore_noFlush() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        storage.store(new SpanEvent(span));
+
+        Assert.assertEquals(0, countingDataSender.getTotalCount());
+    }
+
+    @Test
+    public void testStore_sizeFlush() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 2 + 1);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, metric.getSizeFlushCount());
+        Assert.assertEquals(2, metric.getChunkEventCount().getMax());
+        Assert.assertEquals(EMPTY_SPAN_EVENT_SIZE * 2, metric.getChunkSize().getMax());
+    }
+
+    @Test
+    public void testStore_largeSpanEvent() {
+        BoundedBufferedStorage storage = newStorage(1024);
+
+        Span span = new Span();
+        SpanEvent spanEvent = new SpanEvent(span);
+        spanEvent.addAnnotation(new Annotation(1, newString(2048)));
+        storage.store(spanEvent);
+
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, metric.getSizeFlushCount());
+    }
+
+    @Test
+    public void testStore_ageFlush() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        clock.add(BoundedBufferedStorage.DEFAULT_MAX_AGE - 1);
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+
+        clock.add(1);
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, metric.getAgeFlushCount());
+        Assert.assertEquals(3, metric.getChunkEventCount().getMax());
+    }
+
+    @Test
+    public void testStore_spanLastFlush() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        storage.store(new SpanEvent(span));
+        storage.store(span);
+
+        Assert.assertEquals(1, countingDataSender.getSpanCounter());
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(2, span.getSpanEventListSize());
+    }
+
+    @Test
+    public void testStore_dropAvoided() {
+        BoundedBufferedStorage storage = newStorage(BoundedBufferedStorage.DEFAULT_FLUSH_SIZE);
+
+        Span span = new Span();
+        SpanEvent spanEvent1 = new SpanEvent(span);
+        spanEvent1.addAnnotation(new Annotation(1, newString(10000)));
+        storage.store(spanEvent1);
+
+        SpanEvent spanEvent2 = new SpanEvent(span);
+        spanEvent2.addAnnotation(new Annotation(1, newString(60000)));
+        storage.store(spanEvent2);
+
+        // spanEvent1, spanEvent2
+        Assert.assertEquals(2, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, metric.getDropAvoidedCount());
+    }
+
+    @Test
+    public void testStore_spanDropAvoided() {
+        BoundedBufferedStorage storage = newStorage(BoundedBufferedStorage.DEFAULT_FLUSH_SIZE);
+
+        Span span = new Span();
+        SpanEvent spanEvent = new SpanEvent(span);
+        spanEvent.addAnnotation(new Annotation(1, newString(10000)));
+        storage.store(spanEvent);
+
+        span.addAnnotation(new Annotation(1, newString(60000)));
+        storage.store(span);
+
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, countingDataSender.getSpanCounter());
+        Assert.assertFalse(span.isSetSpanEventList());
+        Assert.assertEquals(1, metric.getDropAvoidedCount());
+    }
+
+    @Test
+    public void testFlusher_deadlineFlush() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(1, flusher.getPendingStorageCount());
+
+        clock.add(BoundedBufferedStorage.DEFAULT_MAX_AGE - 1);
+        flusher.flushExpired();
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+
+        // no more SpanEvents are stored
+        clock.add(1);
+        flusher.flushExpired();
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, metric.getAgeFlushCount());
+        Assert.assertEquals(0, flusher.getPendingStorageCount());
+    }
+
+    @Test
+    public void testFlusher_deregisterOnSpan() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        storage.store(span);
+        Assert.assertEquals(0, flusher.getPendingStorageCount());
+
+        clock.add(BoundedBufferedStorage.DEFAULT_MAX_AGE);
+        flusher.flushExpired();
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(1, countingDataSender.getSpanCounter());
+    }
+
+    @Test
+    public void testFlusher_stop() {
+        BoundedBufferedStorage storage = newStorage(EMPTY_SPAN_EVENT_SIZE * 10);
+
+        storage.store(new SpanEvent(new Span()));
+        flusher.start();
+        flusher.stop();
+
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+        Assert.assertEquals(0, flusher.getPendingStorageCount());
+    }
+
+    @Test
+    public void testStore_reuseBuffer() {
+        final List<TBase<?, ?>> sentList = new ArrayList<TBase<?, ?>>();
+        DataSender dataSender = new DataSender() {
+            @Override
+            public boolean send(TBase<?, ?> data) {
+                sentList.add(data);
+                return true;
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+        SpanEventListPool pool = new SpanEventListPool(4);
+        // clears the message like the SpanEvent recycler does
+        SendCompletionHandler handler = pool.newSendCompletionHandler(new SendCompletionHandler() {
+            @Override
+            public void completed(Object message) {
+                ((SpanChunk) message).setSpanEventList(null);
+            }
+        });
+        BoundedBufferedStorage storage = new BoundedBufferedStorage(dataSender, spanChunkFactory, EMPTY_SPAN_EVENT_SIZE, BoundedBufferedStorage.DEFAULT_MAX_AGE, metric, null, pool, clock);
+
+        Span span = new Span();
+        storage.store(new SpanEvent(span));
+        Assert.assertEquals(1, sentList.size());
+        final SpanChunk first = (SpanChunk) sentList.get(0);
+        final List<?> firstBuffer = first.getSpanEventList();
+        handler.completed(first);
+        Assert.assertEquals(1, pool.size());
+
+        // the first buffer comes back after the second one has been taken
+        storage.store(new SpanEvent(span));
+        storage.store(new SpanEvent(span));
+        final SpanChunk third = (SpanChunk) sentList.get(2);
+        Assert.assertSame(firstBuffer, third.getSpanEventList());
+        Assert.assertEquals(1, third.getSpanEventListSize());
+        Assert.assertEquals(0, pool.size());
+        // the initial buffer and the one taken while the first chunk was in flight
+        Assert.assertEquals(2, metric.getBufferAllocationCount());
+    }
+
+    private BoundedBufferedStorage newStorage(int flushSize) {
+        return new BoundedBufferedStorage(countingDataSender, spanChunkFactory, flushSize, BoundedBufferedStorage.DEFAULT_MAX_AGE, metric, flusher, null, clock);
+    }
+
+    private String newString(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        return new String(chars);
+    }
+
+    private static class ManualClock implements Clock {
+        private long time = 1000;
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        void add(long millis) {
+            time += millis;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author agent
+ */
+public class CachingClassFileTransformerTest {
+
+    private static final byte[] CLASS_FILE = {1, 2, 3, 4};
+
+    @Test
+    public void unmodified() throws Exception {
+        CountingTransformer delegate = new CountingTransformer(null);
+        TransformMetric metric = new TransformMetric("plugin");
+        CachingClassFileTransformer transformer = new CachingClassFileTransformer("plugin#0", delegate, new MemoryTransformCache(), metric);
+
+        Assert.assertNull(transformer.transform(null, "com.foo.Bar", null, null, CLASS_FILE));
+        Assert.assertNull(transformer.transform(null, "com.foo.Bar", null, null, CLASS_FILE));
+
+        Assert.assertEquals(1, delegate.count);
+        Assert.assertEquals(1, metric.getTransformCount());
+        Assert.assertEquals(0, metric.getModifiedCount());
+        Assert.assertEquals(1, metric.getCacheHitCount());
+        Assert.assertEquals(1, metric.getCacheMissCount());
+        Assert.assertEquals(0.5, metric.getCacheHitRate(), 0.0001);
+    }
+
+    @Test
+    public void unmodified_otherClassLoader() throws Exception {
+        CountingTransformer delegate = new CountingTransformer(null);
+        TransformMetric metric = new TransformMetric("plugin");
+        CachingClassFileTransformer transformer = new CachingClassFileTransformer("plugin#0", delegate, new MemoryTransformCache(), metric);
+        ClassLoader classLoader = new ClassLoader(null) {
+        };
+
+        Assert.assertNull(transformer.transform(null, "com.foo.Bar", null, null, CLASS_FILE));
+        Assert.assertNull(transformer.transform(classLoader, "com.foo.Bar", null, null, CLASS_FILE));
+
+        Assert.assertEquals(2, delegate.count);
+        Assert.assertEquals(0, metric.getCacheHitCount());
+    }
+
+    @Test
+    public void modified() throws Exception {
+        byte[] transformed = {5, 6};
+        CountingTransformer delegate = new CountingTransformer(transformed);
+        TransformMetric metric = new TransformMetric("plugin");
+        CachingClassFileTransformer transformer = new CachingClassFileTransformer("plugin#0", delegate, new MemoryTransformCache(), metric);
+
+        Assert.assertSame(transformed, transformer.transform(null, "com.foo.Bar", null, null, CLASS_FILE));
+        Assert.assertSame(transformed, transformer.transform(null, "com.foo.Bar", null, null, CLASS_FILE));
+
+        Assert.assertEquals(2, delegate.count);
+        Assert.assertEquals(2, metric.getModifiedCount());
+        Assert.assertEquals(0, metric.getCacheHitCount());
+    }
+
+    @Test
+    public void retransform() throws Exception {
+        CountingTransformer delegate = new CountingTransformer(null);
+        TransformMetric metric = new TransformMetric("plugin");
+        MemoryTransformCache transformCache = new MemoryTransformCache();
+        transformCache.putUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE);
+        CachingClassFileTransformer transformer = new CachingClassFileTransformer("plugin#0", delegate, transformCache, metric);
+
+        Assert.assertNull(transformer.transform(null, "com.foo.Bar", Object.class, null, CLASS_FILE));
+
+        Assert.assertEquals(1, delegate.count);
+        Assert.assertEquals(0, metric.getCacheHitCount());
+        Assert.assertEquals(0, metric.getCacheMissCount());
+    }
+
+    private static class CountingTransformer implements ClassFileTransformer {
+        private final byte[] result;
+        private int count;
+
+        private CountingTransformer(byte[] result) {
+            this.result = result;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+            count++;
+            return result;
+        }
+    }
+
+    private static class MemoryTransformCache implements TransformCache {
+        private final Set<String> unmodified = new HashSet<String>();
+
+        @Override
+        public boolean isUnmodified(String transformerId, ClassLoader classLoader, String className, byte[] classFileBuffer) {
+            return unmodified.contains(transformerId + classLoader + className);
+        }
+
+        @Override
+        public void putUnmodified(String transformerId, ClassLoader classLoader, String className, byte[] classFileBuffer) {
+            unmodified.add(transformerId + classLoader + className);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class ClassNameTrieTest {
+
+    @Test
+    public void exactMatch() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        Assert.assertNull(trie.put("com/foo/Bar", "bar"));
+        Assert.assertNull(trie.put("com/foo/Baz", "baz"));
+        Assert.assertNull(trie.put("com/foo/B", "b"));
+
+        Assert.assertEquals(Arrays.asList("bar"), trie.match("com/foo/Bar"));
+        Assert.assertEquals(Arrays.asList("baz"), trie.match("com/foo/Baz"));
+        Assert.assertEquals(Arrays.asList("b"), trie.match("com/foo/B"));
+        Assert.assertNull(trie.match("com/foo/Ba"));
+        Assert.assertNull(trie.match("com/foo/Bar2"));
+        Assert.assertNull(trie.match("com/foo"));
+        Assert.assertEquals(3, trie.size());
+    }
+
+    @Test
+    public void put_returnOldValue() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        Assert.assertNull(trie.put("com/foo/Bar", "bar1"));
+        Assert.assertEquals("bar1", trie.put("com/foo/Bar", "bar2"));
+        Assert.assertEquals(Arrays.asList("bar2"), trie.match("com/foo/Bar"));
+        Assert.assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void prefixMatch() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        trie.putPrefix("com/", "com");
+        trie.putPrefix("com/foo/", "foo");
+        trie.put("com/foo/Bar", "bar");
+
+        List<String> match = trie.match("com/foo/Bar");
+        Assert.assertEquals(Arrays.asList("bar", "foo", "com"), match);
+
+        Assert.assertEquals(Arrays.asList("foo", "com"), trie.match("com/foo/Baz"));
+        Assert.assertEquals(Arrays.asList("com"), trie.match("com/foobar/Baz"));
+        Assert.assertNull(trie.match("org/foo/Bar"));
+    }
+
+    @Test
+    public void reverse() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>(true);
+        trie.putPrefix("Controller", "controller");
+        trie.putPrefix("Service", "service");
+        trie.putPrefix("DaoService", "daoService");
+
+        Assert.assertEquals(Arrays.asList("controller"), trie.match("com/foo/UserController"));
+        Assert.assertEquals(Arrays.asList("service"), trie.match("com/foo/UserService"));
+        Assert.assertEquals(Arrays.asList("daoService", "service"), trie.match("com/foo/UserDaoService"));
+        Assert.assertNull(trie.match("com/foo/ServiceImpl"));
+        Assert.assertNull(trie.match("ice"));
+    }
+
+    @Test
+    public void splitEdge() {
+        ClassNameTrie<String> trie = new ClassNameTrie<String>();
+        trie.put("abcdef", "1");
+        trie.put("abcxyz", "2");
+        trie.put("abc", "3");
+        trie.put("ab", "4");
+
+        Assert.assertEquals(Arrays.asList("1"), trie.match("abcdef"));
+        Assert.assertEquals(Arrays.asList("2"), trie.match("abcxyz"));
+        Assert.assertEquals(Arrays.asList("3"), trie.match("abc"));
+        Assert.assertEquals(Arrays.asList("4"), trie.match("ab"));
+        Assert.assertNull(trie.match("a"));
+        Assert.assertNull(trie.match("abcd"));
+    }
+}
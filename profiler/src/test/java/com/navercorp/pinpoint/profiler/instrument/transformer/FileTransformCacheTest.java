@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+/**
+ * @author agent
+ */
+public class FileTransformCacheTest {
+
+    private static final byte[] CLASS_FILE = {1, 2, 3, 4};
+
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheDir = File.createTempFile("transform-cache", "");
+        Assert.assertTrue(cacheDir.delete());
+        Assert.assertTrue(cacheDir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        delete(cacheDir);
+    }
+
+    private void delete(File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void unmodified() throws IOException {
+        FileTransformCache cache = new FileTransformCache(cacheDir, "generation");
+        Assert.assertFalse(cache.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+
+        cache.putUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE);
+        Assert.assertTrue(cache.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+        Assert.assertFalse(cache.isUnmodified("plugin#1", null, "com.foo.Bar", CLASS_FILE));
+        Assert.assertFalse(cache.isUnmodified("plugin#0", null, "com.foo.Baz", CLASS_FILE));
+        Assert.assertFalse(cache.isUnmodified("plugin#0", null, "com.foo.Bar", new byte[]{1, 2, 3, 5}));
+        cache.close();
+    }
+
+    @Test
+    public void unmodified_classLoader() throws IOException {
+        FileTransformCache cache = new FileTransformCache(cacheDir, "generation");
+        ClassLoader classLoader = new URLClassLoader(new URL[]{new URL("file:/app/a.jar")}, null);
+        ClassLoader sameClassPath = new URLClassLoader(new URL[]{new URL("file:/app/a.jar")}, null);
+        ClassLoader otherClassPath = new URLClassLoader(new URL[]{new URL("file:/app/b.jar")}, null);
+
+        cache.putUnmodified("plugin#0", classLoader, "com.foo.Bar", CLASS_FILE);
+        Assert.assertTrue(cache.isUnmodified("plugin#0", classLoader, "com.foo.Bar", CLASS_FILE));
+        Assert.assertTrue(cache.isUnmodified("plugin#0", sameClassPath, "com.foo.Bar", CLASS_FILE));
+        Assert.assertFalse(cache.isUnmodified("plugin#0", otherClassPath, "com.foo.Bar", CLASS_FILE));
+        Assert.assertFalse(cache.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+        cache.close();
+    }
+
+    @Test
+    public void reload() throws IOException {
+        FileTransformCache cache = new FileTransformCache(cacheDir, "generation");
+        cache.putUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE);
+        cache.close();
+
+        FileTransformCache reloaded = new FileTransformCache(cacheDir, "generation");
+        Assert.assertTrue(reloaded.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+        reloaded.close();
+
+        FileTransformCache otherGeneration = new FileTransformCache(cacheDir, "generation2");
+        Assert.assertFalse(otherGeneration.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+        otherGeneration.close();
+    }
+
+    @Test
+    public void reload_brokenLine() throws IOException {
+        FileTransformCache cache = new FileTransformCache(cacheDir, "generation");
+        cache.putUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE);
+        cache.close();
+
+        final File indexFile = new File(new File(cacheDir, "generation"), FileTransformCache.INDEX_FILE_NAME);
+        final FileOutputStream out = new FileOutputStream(indexFile, true);
+        out.write("plugin#0 bootstrap com.foo.Baz 0123".getBytes("UTF-8"));
+        out.close();
+
+        FileTransformCache reloaded = new FileTransformCache(cacheDir, "generation");
+        Assert.assertTrue(reloaded.isUnmodified("plugin#0", null, "com.foo.Bar", CLASS_FILE));
+        Assert.assertFalse(reloaded.isUnmodified("plugin#0", null, "com.foo.Baz", CLASS_FILE));
+        reloaded.close();
+    }
+
+    @Test
+    public void generation() {
+        Properties properties = new Properties();
+        properties.setProperty("profiler.foo", "1");
+
+        final String generation = FileTransformCache.generation("1.0", Arrays.asList("plugin"), properties);
+        Assert.assertEquals(32, generation.length());
+        Assert.assertEquals(generation, FileTransformCache.generation("1.0", Arrays.asList("plugin"), properties));
+
+        Assert.assertNotEquals(generation, FileTransformCache.generation("1.1", Arrays.asList("plugin"), properties));
+        Assert.assertNotEquals(generation, FileTransformCache.generation("1.0", Collections.<String>emptyList(), properties));
+
+        Properties changed = new Properties();
+        changed.setProperty("profiler.foo", "2");
+        Assert.assertNotEquals(generation, FileTransformCache.generation("1.0", Arrays.asList("plugin"), changed));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up transformers for the classes loaded at startup of a large application.
+ * The class names are synthesized so that packages are shared as in real class paths.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main TransformerRegistryBenchmark
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransformerRegistryBenchmark {
+
+    private static final String[] ROOT_PACKAGES = {"com/navercorp", "org/springframework", "org/apache", "io/netty", "com/fasterxml", "javax", "sun", "java"};
+    private static final String[] SUFFIXES = {"Controller", "Service", "Dao", "Factory", "Handler", "Impl", "Support", "Util"};
+
+    @Param({"30000"})
+    public int classCount;
+
+    @Param({"100", "1000", "5000"})
+    public int matcherCount;
+
+    private String[] classNames;
+
+    private DefaultTransformerRegistry defaultRegistry;
+    private TrieTransformerRegistry trieRegistry;
+    private TrieTransformerRegistry trieRegistryWithPatterns;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+        this.classNames = new String[classCount];
+        for (int i = 0; i < classCount; i++) {
+            final String root = ROOT_PACKAGES[random.nextInt(ROOT_PACKAGES.length)];
+            final String suffix = SUFFIXES[random.nextInt(SUFFIXES.length)];
+            classNames[i] = root + "/module" + random.nextInt(50) + "/sub" + random.nextInt(20) + "/Class" + i + suffix;
+        }
+
+        final ClassFileTransformer transformer = new NoopTransformer();
+        this.defaultRegistry = new DefaultTransformerRegistry();
+        this.trieRegistry = new TrieTransformerRegistry();
+        this.trieRegistryWithPatterns = new TrieTransformerRegistry();
+        final int step = Math.max(1, classCount / matcherCount);
+        for (int i = 0; i < matcherCount && i * step < classCount; i++) {
+            final String className = classNames[i * step].replace('/', '.');
+            defaultRegistry.addTransformer(Matchers.newClassNameMatcher(className), transformer);
+            trieRegistry.addTransformer(Matchers.newClassNameMatcher(className), transformer);
+            trieRegistryWithPatterns.addTransformer(Matchers.newClassNameMatcher(className), transformer);
+        }
+        for (int i = 0; i < 10; i++) {
+            trieRegistryWithPatterns.addTransformer(Matchers.newPackageNameMatcher(ROOT_PACKAGES[0].replace('/', '.') + ".module" + i), transformer);
+        }
+        trieRegistryWithPatterns.addTransformer(Matchers.newClassNameSuffixMatcher(SUFFIXES[0]), transformer);
+    }
+
+    @Benchmark
+    public void defaultRegistry(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(defaultRegistry.findTransformer(className));
+        }
+    }
+
+    @Benchmark
+    public void trieRegistry(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(trieRegistry.findTransformer(className));
+        }
+    }
+
+    @Benchmark
+    public void trieRegistryWithPatterns(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(trieRegistryWithPatterns.findTransformer(className));
+        }
+    }
+
+    private static class NoopTransformer implements ClassFileTransformer {
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransformerRegistryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
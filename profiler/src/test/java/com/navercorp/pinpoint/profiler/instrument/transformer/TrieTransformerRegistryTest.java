@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matchers;
+import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * @author agent
+ */
+public class TrieTransformerRegistryTest {
+
+    @Test
+    public void classNameMatcher() {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newClassNameMatcher("com.foo.Bar"), transformer);
+
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/Bar"));
+        Assert.assertNull(registry.findTransformer("com/foo/Baz"));
+    }
+
+    @Test
+    public void multiClassNameMatcher() {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newMultiClassNameMatcher("com.foo.Bar", "com.foo.Baz"), transformer);
+
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/Bar"));
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/Baz"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void duplicatedClassName() {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        registry.addTransformer(Matchers.newClassNameMatcher("com.foo.Bar"), new MockTransformer("a"));
+        registry.addTransformer(Matchers.newClassNameMatcher("com.foo.Bar"), new MockTransformer("b"));
+    }
+
+    @Test
+    public void packageNameMatcher() {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newPackageNameMatcher("com.foo"), transformer);
+
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/Bar"));
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/sub/Bar"));
+        Assert.assertNull(registry.findTransformer("com/foobar/Bar"));
+        Assert.assertNull(registry.findTransformer("com/Bar"));
+    }
+
+    @Test
+    public void classNameSuffixMatcher() {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newClassNameSuffixMatcher("Controller"), transformer);
+
+        Assert.assertSame(transformer, registry.findTransformer("com/foo/UserController"));
+        Assert.assertNull(registry.findTransformer("com/foo/ControllerSupport"));
+    }
+
+    @Test
+    public void interfaceMatcher() throws IOException {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newInterfaceMatcher(Runnable.class.getName()), transformer);
+
+        Assert.assertSame(transformer, findTransformer(registry, RunnableTarget.class));
+        Assert.assertNull(findTransformer(registry, AnnotatedTarget.class));
+        // class file not available
+        Assert.assertNull(registry.findTransformer(JavaAssistUtils.javaNameToJvmName(RunnableTarget.class.getName())));
+    }
+
+    @Test
+    public void annotationMatcher() throws IOException {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        ClassFileTransformer transformer = new MockTransformer("a");
+        registry.addTransformer(Matchers.newAnnotationMatcher(TestAnnotation.class.getName()), transformer);
+
+        Assert.assertSame(transformer, findTransformer(registry, AnnotatedTarget.class));
+        Assert.assertNull(findTransformer(registry, RunnableTarget.class));
+    }
+
+    @Test
+    public void chained() throws Exception {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        registry.addTransformer(Matchers.newClassNameMatcher("com.foo.UserController"), new MockTransformer("a"));
+        registry.addTransformer(Matchers.newPackageNameMatcher("com"), new MockTransformer("b"));
+        registry.addTransformer(Matchers.newPackageNameMatcher("com.foo"), new MockTransformer("c"));
+        registry.addTransformer(Matchers.newClassNameSuffixMatcher("Controller"), new MockTransformer("d"));
+
+        ClassFileTransformer transformer = registry.findTransformer("com/foo/UserController");
+        Assert.assertTrue(transformer instanceof ChainedClassFileTransformer);
+
+        byte[] result = transformer.transform(null, "com.foo.UserController", null, null, new byte[0]);
+        Assert.assertEquals("acbd", new String(result, "UTF-8"));
+    }
+
+    @Test
+    public void chained_notModified() throws Exception {
+        TrieTransformerRegistry registry = new TrieTransformerRegistry();
+        registry.addTransformer(Matchers.newPackageNameMatcher("com"), new MockTransformer(null));
+        registry.addTransformer(Matchers.newPackageNameMatcher("com.foo"), new MockTransformer(null));
+
+        ClassFileTransformer transformer = registry.findTransformer("com/foo/Bar");
+        Assert.assertNull(transformer.transform(null, "com.foo.Bar", null, null, new byte[0]));
+    }
+
+    private ClassFileTransformer findTransformer(TrieTransformerRegistry registry, Class<?> clazz) throws IOException {
+        final String classInternalName = JavaAssistUtils.javaNameToJvmName(clazz.getName());
+        final ClassReader classReader = new ClassReader(clazz.getName());
+        return registry.findTransformer(clazz.getClassLoader(), classInternalName, classReader.b);
+    }
+
+    @Retention(RetentionPolicy.CLASS)
+    public @interface TestAnnotation {
+    }
+
+    public static class RunnableTarget implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    @TestAnnotation
+    public static class AnnotatedTarget {
+    }
+
+    /**
+     * appends its name to the class file buffer
+     */
+    private static class MockTransformer implements ClassFileTransformer {
+        private final String name;
+
+        private MockTransformer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+            if (name == null) {
+                return null;
+            }
+            final byte[] append = name.getBytes();
+            final byte[] result = new byte[classfileBuffer.length + append.length];
+            System.arraycopy(classfileBuffer, 0, result, 0, classfileBuffer.length);
+            System.arraycopy(append, 0, result, classfileBuffer.length, append.length);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.metadata;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author agent
+ */
+public class MappedSqlCacheTest {
+
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("sql-cache", ".sqlcache");
+        Assert.assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void put() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+
+        Result first = cache.put("select * from dual", false);
+        Assert.assertTrue(first.isNewValue());
+        Assert.assertEquals(-1, first.getId());
+
+        Result recheck = cache.put("select * from dual", false);
+        Assert.assertFalse(recheck.isNewValue());
+        Assert.assertEquals(first.getId(), recheck.getId());
+
+        Result second = cache.put("select * from table", false);
+        Assert.assertTrue(second.isNewValue());
+        Assert.assertEquals(1, second.getId());
+
+        Assert.assertEquals(2, cache.getRecordCount());
+        cache.close();
+    }
+
+    @Test
+    public void getNormalized() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        cache.put("select * from t where a = ?", false);
+        Assert.assertNull(cache.getNormalized("select * from t where a = ?"));
+        Assert.assertNull(cache.getNormalized("select * from unknown"));
+
+        // upgrade to normalized
+        cache.put("select * from t where a = ?", true);
+        Result normalized = cache.getNormalized("select * from t where a = ?");
+        Assert.assertNotNull(normalized);
+        Assert.assertFalse(normalized.isNewValue());
+        cache.close();
+    }
+
+    @Test
+    public void reopen() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        final int id1 = cache.put("select 1", true).getId();
+        final int id2 = cache.put("select 2", false).getId();
+        cache.close();
+
+        MappedSqlCache reopened = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 200);
+        Assert.assertEquals(100, reopened.getLineageStartTime());
+        Assert.assertEquals(2, reopened.getRecordCount());
+
+        // not acknowledged by the collector. metadata has to be sent again
+        Result normalized = reopened.getNormalized("select 1");
+        Assert.assertEquals(id1, normalized.getId());
+        Assert.assertTrue(normalized.isNewValue());
+        Assert.assertFalse(reopened.put("select 1", true).isNewValue());
+
+        Result result2 = reopened.put("select 2", false);
+        Assert.assertEquals(id2, result2.getId());
+        Assert.assertTrue(result2.isNewValue());
+
+        Result result3 = reopened.put("select 3", false);
+        Assert.assertTrue(result3.getId() != id1 && result3.getId() != id2);
+        reopened.close();
+    }
+
+    @Test
+    public void reopen_sent() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        final int id1 = cache.put("select 1", true).getId();
+        cache.put("select 2", false);
+        Assert.assertTrue(cache.markSent("select 1"));
+        Assert.assertFalse(cache.markSent("select unknown"));
+        cache.close();
+
+        MappedSqlCache reopened = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 200);
+        Result normalized = reopened.getNormalized("select 1");
+        Assert.assertEquals(id1, normalized.getId());
+        // already stored under the lineage start time
+        Assert.assertFalse(normalized.isNewValue());
+        Assert.assertTrue(reopened.isStored("select 1"));
+
+        Assert.assertTrue(reopened.put("select 2", false).isNewValue());
+        reopened.close();
+    }
+
+    @Test
+    public void isStored_overflow() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, 128, 16, "1.0", 100);
+        cache.put("select 1", false);
+        cache.put("select * from very_long_table_name_that_does_not_fit", false);
+        Assert.assertTrue(cache.isStored("select 1"));
+        Assert.assertFalse(cache.isStored("select * from very_long_table_name_that_does_not_fit"));
+        Assert.assertFalse(cache.markSent("select * from very_long_table_name_that_does_not_fit"));
+        cache.close();
+    }
+
+    @Test
+    public void reopen_agentVersionChanged() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        cache.put("select 1", true);
+        cache.close();
+
+        MappedSqlCache reopened = new MappedSqlCache(file, FILE_SIZE, 16, "1.1", 200);
+        Assert.assertEquals(0, reopened.getRecordCount());
+        Assert.assertEquals(200, reopened.getLineageStartTime());
+        Assert.assertNull(reopened.getNormalized("select 1"));
+        reopened.close();
+    }
+
+    @Test
+    public void resizeIndex() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        final int count = 5000;
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(cache.put("select " + i, true).isNewValue());
+        }
+        for (int i = 0; i < count; i++) {
+            Assert.assertFalse(cache.put("select " + i, true).isNewValue());
+        }
+        cache.close();
+
+        MappedSqlCache reopened = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 200);
+        for (int i = 0; i < count; i++) {
+            Assert.assertNotNull(reopened.getNormalized("select " + i));
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void overflow() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, 128, 16, "1.0", 100);
+        Result stored = cache.put("select 1", false);
+        Result overflow = cache.put("select * from very_long_table_name_that_does_not_fit", false);
+        Assert.assertTrue(overflow.isNewValue());
+        Assert.assertTrue(stored.getId() != overflow.getId());
+        Assert.assertEquals(1, cache.getRecordCount());
+
+        Result overflowRecheck = cache.put("select * from very_long_table_name_that_does_not_fit", false);
+        Assert.assertFalse(overflowRecheck.isNewValue());
+        Assert.assertEquals(overflow.getId(), overflowRecheck.getId());
+        cache.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void locked() throws IOException {
+        MappedSqlCache cache = new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        try {
+            new MappedSqlCache(file, FILE_SIZE, 16, "1.0", 100);
+        } finally {
+            cache.close();
+        }
+    }
+}
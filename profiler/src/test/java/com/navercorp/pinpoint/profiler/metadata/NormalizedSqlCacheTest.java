@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.metadata;
+
+import com.navercorp.pinpoint.common.util.BufferedSqlParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author agent
+ */
+public class NormalizedSqlCacheTest {
+
+    private final BufferedSqlParser sqlParser = new BufferedSqlParser();
+
+    @Test
+    public void put() {
+        NormalizedSqlCache cache = new NormalizedSqlCache(16);
+        Assert.assertNull(cache.get(sqlParser.normalize("select 1")));
+
+        Result first = cache.put(sqlParser.normalize("select 1"));
+        Assert.assertTrue(first.isNewValue());
+
+        Result second = cache.put(sqlParser.normalize("select 2"));
+        Assert.assertFalse(second.isNewValue());
+        Assert.assertEquals(first.getId(), second.getId());
+
+        NormalizedSqlCache.Entry entry = cache.get(sqlParser.normalize("select 3"));
+        Assert.assertNotNull(entry);
+        Assert.assertEquals("select 0#", entry.getSql());
+        Assert.assertEquals(first.getId(), entry.getId());
+    }
+
+    @Test
+    public void put_uniqueId() {
+        NormalizedSqlCache cache = new NormalizedSqlCache(1024);
+        Set<Integer> ids = new HashSet<Integer>();
+        for (int i = 0; i < 512; i++) {
+            Result result = cache.put(sqlParser.normalize("select * from table" + i));
+            Assert.assertTrue(result.isNewValue());
+            Assert.assertTrue(ids.add(result.getId()));
+        }
+    }
+
+    @Test
+    public void put_evict() {
+        NormalizedSqlCache cache = new NormalizedSqlCache(1);
+        for (int i = 0; i < 100; i++) {
+            cache.put(sqlParser.normalize("select * from table" + i));
+        }
+        int cached = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get(sqlParser.normalize("select * from table" + i)) != null) {
+                cached++;
+            }
+        }
+        Assert.assertTrue(cached <= 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCacheSize() {
+        new NormalizedSqlCache(0);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import com.navercorp.pinpoint.common.util.Clock;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class AdaptiveSamplerTest {
+
+    @Test
+    public void samplingRate() {
+        ManualClock clock = new ManualClock();
+        AdaptiveSampler sampler = new AdaptiveSampler(2, 100, clock);
+
+        int sampled = sample(sampler, 10);
+        Assert.assertEquals(5, sampled);
+        Assert.assertEquals(10, sampler.getTransactionCount());
+        Assert.assertEquals(5, sampler.getSampledCount());
+    }
+
+    @Test
+    public void limitTargetTps() {
+        ManualClock clock = new ManualClock();
+        AdaptiveSampler sampler = new AdaptiveSampler(1, 10, clock);
+
+        int sampled = sample(sampler, 1000);
+        Assert.assertEquals(10, sampled);
+        Assert.assertEquals(1000, sampler.getTransactionCount());
+    }
+
+    @Test
+    public void adaptSamplingRate() {
+        ManualClock clock = new ManualClock();
+        AdaptiveSampler sampler = new AdaptiveSampler(1, 10, clock);
+
+        sample(sampler, 1000);
+        clock.add(AdaptiveSampler.UPDATE_INTERVAL);
+        sampler.isSampling();
+        // 1000 tps / 10 tps
+        Assert.assertEquals(100, sampler.getCurrentSamplingRate());
+
+        // traffic drops
+        clock.add(AdaptiveSampler.UPDATE_INTERVAL);
+        sampler.isSampling();
+        Assert.assertEquals(51, sampler.getCurrentSamplingRate());
+
+        for (int i = 0; i < 20; i++) {
+            clock.add(AdaptiveSampler.UPDATE_INTERVAL);
+            sampler.isSampling();
+        }
+        Assert.assertEquals(1, sampler.getCurrentSamplingRate());
+    }
+
+    @Test
+    public void minimumSamplingRate() {
+        AdaptiveSampler sampler = new AdaptiveSampler(20, 100, new ManualClock());
+
+        Assert.assertEquals(20, sampler.calculateSamplingRate(0));
+        Assert.assertEquals(20, sampler.calculateSamplingRate(2000));
+        Assert.assertEquals(30, sampler.calculateSamplingRate(3000));
+        Assert.assertEquals(Integer.MAX_VALUE, sampler.calculateSamplingRate(Double.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTargetTps() {
+        new AdaptiveSampler(1, 0);
+    }
+
+    private int sample(AdaptiveSampler sampler, int count) {
+        int sampled = 0;
+        for (int i = 0; i < count; i++) {
+            if (sampler.isSampling()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    private static class ManualClock implements Clock {
+        private long time = 1000;
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        void add(long millis) {
+            time += millis;
+        }
+    }
+}
@@ -42,4 +42,18 @@ public class SamplerFactoryTest {
         boolean sampling = sampler.isSampling();
         Assert.assertFalse(sampling);
     }
+
+    @Test
+    public void createAdaptiveSampler() {
+        SamplerFactory samplerFactory = new SamplerFactory();
+        Sampler sampler = samplerFactory.createSampler(true, 1, "ADAPTIVE", 100);
+        Assert.assertTrue(sampler instanceof AdaptiveSampler);
+    }
+
+    @Test
+    public void createAdaptiveSampler_Disabled() {
+        SamplerFactory samplerFactory = new SamplerFactory();
+        Sampler sampler = samplerFactory.createSampler(false, 1, SamplerType.ADAPTIVE, 100);
+        Assert.assertFalse(sampler.isSampling());
+    }
 }
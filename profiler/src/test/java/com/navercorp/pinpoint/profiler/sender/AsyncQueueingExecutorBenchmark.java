@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares producer throughput of {@link AsyncQueueingExecutor} backends.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main AsyncQueueingExecutorBenchmark -t 64
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AsyncQueueingExecutorBenchmark {
+
+    private static final int[] PRODUCER_THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"LINKED", "RING_BUFFER"})
+    public String queueType;
+
+    @Param({"PARK", "YIELD"})
+    public String waitStrategy;
+
+    @Param({"10", "100"})
+    public int maxDrainSize;
+
+    private AsyncQueueingExecutor<Object> executor;
+
+    private final Object message = new Object();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        AsyncQueueFactory queueFactory = new AsyncQueueFactory(queueType, maxDrainSize, waitStrategy);
+        AsyncQueue<Object> queue = queueFactory.createQueue(1024 * 5);
+        this.executor = new AsyncQueueingExecutor<Object>(queue, queueFactory.getMaxDrainSize(), "AsyncQueueingExecutorBenchmark");
+        this.executor.setListener(new AsyncQueueingExecutorListener<Object>() {
+            @Override
+            public void execute(Collection<Object> messageList) {
+            }
+
+            @Override
+            public void execute(Object message) {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.executor.stop();
+    }
+
+    @Benchmark
+    public boolean execute() {
+        return executor.execute(message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : PRODUCER_THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(AsyncQueueingExecutorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
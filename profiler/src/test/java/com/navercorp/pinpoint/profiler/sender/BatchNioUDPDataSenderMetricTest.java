@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author agent
+ */
+public class BatchNioUDPDataSenderMetricTest {
+
+    @Test
+    public void sample() {
+        BatchNioUDPDataSenderMetric metric = new BatchNioUDPDataSenderMetric();
+        final long startTime = System.currentTimeMillis() + BatchNioUDPDataSenderMetric.MIN_SAMPLING_WINDOW_MS;
+        metric.sample(startTime);
+
+        metric.packetSent(10);
+        metric.packetSent(20);
+        metric.sample(startTime + 2000);
+        Assert.assertEquals(15D, metric.getMessagesPerPacket(), 0.001);
+        Assert.assertEquals(1D, metric.getPacketsPerSecond(), 0.001);
+
+        // window too short, keep the previous values
+        metric.packetSent(1);
+        metric.sample(startTime + 2500);
+        Assert.assertEquals(15D, metric.getMessagesPerPacket(), 0.001);
+
+        metric.sample(startTime + 4000);
+        Assert.assertEquals(1D, metric.getMessagesPerPacket(), 0.001);
+        Assert.assertEquals(0.5D, metric.getPacketsPerSecond(), 0.001);
+
+        Assert.assertEquals(3, metric.getPacketCount());
+        Assert.assertEquals(31, metric.getMessageCount());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.ChunkHeaderTBaseDeserializerFactory;
+import org.apache.thrift.TBase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.SocketUtils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class BatchNioUDPDataSenderTest {
+
+    private static final int BATCH_PACKET_SIZE = 1024;
+
+    private int PORT = SocketUtils.findAvailableUdpPort(61112);
+    private DatagramSocket receiver;
+
+    @Before
+    public void setUp() throws SocketException {
+        receiver = new DatagramSocket(PORT);
+        receiver.setSoTimeout(1000);
+    }
+
+    @After
+    public void setDown() {
+        if (receiver != null) {
+            receiver.close();
+        }
+        PORT = SocketUtils.findAvailableUdpPort(61112);
+    }
+
+    @Test
+    public void sendBatch() throws Exception {
+        BatchNioUDPDataSender sender = new BatchNioUDPDataSender("localhost", PORT, "test", 1024, 1000, 1024 * 64 * 100, AsyncQueueFactory.DEFAULT, BATCH_PACKET_SIZE);
+
+        final int sendMessageCount = 100;
+        try {
+            for (int i = 0; i < sendMessageCount; i++) {
+                TAgentInfo agentInfo = new TAgentInfo();
+                agentInfo.setAgentId("agent-" + i);
+                sender.send(agentInfo);
+            }
+
+            int receivedMessageCount = 0;
+            int packetCount = 0;
+            final ChunkHeaderTBaseDeserializer deserializer = ChunkHeaderTBaseDeserializerFactory.DEFAULT_FACTORY.createDeserializer();
+            final byte[] receiveData = new byte[65535];
+            while (receivedMessageCount < sendMessageCount) {
+                DatagramPacket datagramPacket = new DatagramPacket(receiveData, 0, receiveData.length);
+                receiver.receive(datagramPacket);
+                Assert.assertTrue(datagramPacket.getLength() <= BATCH_PACKET_SIZE);
+
+                List<TBase<?, ?>> messageList = deserializer.deserialize(datagramPacket.getData(), datagramPacket.getOffset(), datagramPacket.getLength());
+                for (TBase<?, ?> message : messageList) {
+                    Assert.assertTrue(message instanceof TAgentInfo);
+                }
+                receivedMessageCount += messageList.size();
+                packetCount++;
+            }
+            Assert.assertEquals(sendMessageCount, receivedMessageCount);
+            Assert.assertEquals(packetCount, sender.getPacketCount());
+            Assert.assertEquals(sendMessageCount, sender.getMessageCount());
+        } finally {
+            sender.stop();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void discardTooLargeMessage() throws Exception {
+        BatchNioUDPDataSender sender = new BatchNioUDPDataSender("localhost", PORT, "test", 128, 1000, 1024 * 64 * 100, AsyncQueueFactory.DEFAULT, BATCH_PACKET_SIZE);
+        try {
+            TAgentInfo agentInfo = new TAgentInfo();
+            agentInfo.setAgentId(new String(new char[UdpDataSender.UDP_MAX_PACKET_LENGTH + 100]).replace('\0', 'a'));
+            sender.send(agentInfo);
+            sender.send(agentInfo);
+
+            final byte[] receiveData = new byte[65535];
+            receiver.receive(new DatagramPacket(receiveData, 0, receiveData.length));
+        } finally {
+            sender.stop();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author agent
+ */
+public class CollectorAffinityAddressProviderTest {
+
+    @Test
+    public void resolve_rotate() {
+        CollectorAffinityAddressProvider provider = new CollectorAffinityAddressProvider(Arrays.asList("10.0.0.2", "10.0.0.1"), 9994);
+
+        Assert.assertEquals(new InetSocketAddress("10.0.0.2", 9994), provider.resolve());
+        Assert.assertEquals(new InetSocketAddress("10.0.0.1", 9994), provider.resolve());
+        Assert.assertEquals(new InetSocketAddress("10.0.0.2", 9994), provider.resolve());
+    }
+
+    @Test
+    public void connected_restartFromOwner() {
+        CollectorAffinityAddressProvider provider = new CollectorAffinityAddressProvider(Arrays.asList("10.0.0.2", "10.0.0.1"), 9994);
+
+        provider.resolve();
+        provider.resolve();
+        Assert.assertEquals("10.0.0.1", provider.connected());
+
+        Assert.assertEquals(new InetSocketAddress("10.0.0.2", 9994), provider.resolve());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void empty() {
+        new CollectorAffinityAddressProvider(Collections.<String>emptyList(), 9994);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.common.util.ConsistentHashRing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class CollectorAffinityResolverTest {
+
+    private static final List<String> MEMBERS = Arrays.asList("10.0.0.1", " 10.0.0.2 ", "10.0.0.3", "");
+
+    @Test
+    public void getOwner() {
+        CollectorAffinityResolver resolver = new CollectorAffinityResolver(MEMBERS);
+
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        Assert.assertEquals(ring.getOwner("app"), resolver.getOwner("app"));
+    }
+
+    @Test
+    public void getCandidates() {
+        CollectorAffinityResolver resolver = new CollectorAffinityResolver(MEMBERS);
+
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+        String owner = ring.getOwner("app");
+        ConsistentHashRing withoutOwner = ring.remove(owner);
+        String next = withoutOwner.getOwner("app");
+        String last = withoutOwner.remove(next).getOwner("app");
+
+        Assert.assertEquals(Arrays.asList(owner, next, last), resolver.getCandidates("app"));
+    }
+
+    @Test
+    public void empty() {
+        CollectorAffinityResolver resolver = new CollectorAffinityResolver(Collections.singletonList(""));
+        Assert.assertNull(resolver.getOwner("app"));
+        Assert.assertTrue(resolver.getCandidates("app").isEmpty());
+    }
+}
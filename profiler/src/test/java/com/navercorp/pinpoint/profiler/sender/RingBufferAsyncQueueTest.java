@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author agent
+ */
+public class RingBufferAsyncQueueTest {
+
+    @Test
+    public void capacity() {
+        Assert.assertEquals(1, new RingBufferAsyncQueue<Integer>(1, WaitStrategy.PARK).capacity());
+        Assert.assertEquals(8, new RingBufferAsyncQueue<Integer>(5, WaitStrategy.PARK).capacity());
+        Assert.assertEquals(8192, new RingBufferAsyncQueue<Integer>(1024 * 5, WaitStrategy.PARK).capacity());
+    }
+
+    @Test
+    public void offerAndPoll() throws InterruptedException {
+        RingBufferAsyncQueue<Integer> queue = new RingBufferAsyncQueue<Integer>(4, WaitStrategy.PARK);
+        Assert.assertTrue(queue.isEmpty());
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse("full", queue.offer(4));
+        Assert.assertEquals(4, queue.size());
+
+        Assert.assertEquals(Integer.valueOf(0), queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(queue.offer(5));
+
+        List<Integer> drain = new ArrayList<Integer>();
+        Assert.assertEquals(2, queue.drainTo(drain, 2));
+        Assert.assertEquals(Integer.valueOf(1), drain.get(0));
+        Assert.assertEquals(Integer.valueOf(2), drain.get(1));
+
+        drain.clear();
+        Assert.assertEquals(2, queue.drainTo(drain, 10));
+        Assert.assertEquals(Integer.valueOf(3), drain.get(0));
+        Assert.assertEquals(Integer.valueOf(5), drain.get(1));
+
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void multiProducer() throws InterruptedException {
+        final int producerCount = 4;
+        final int messagePerProducer = 10000;
+        final RingBufferAsyncQueue<Integer> queue = new RingBufferAsyncQueue<Integer>(128, WaitStrategy.YIELD);
+        final CountDownLatch latch = new CountDownLatch(producerCount);
+        final AtomicInteger dropCount = new AtomicInteger();
+
+        for (int i = 0; i < producerCount; i++) {
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < messagePerProducer; j++) {
+                        while (!queue.offer(j)) {
+                            dropCount.incrementAndGet();
+                            Thread.yield();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+            producer.start();
+        }
+
+        int received = 0;
+        long sum = 0;
+        while (received < producerCount * messagePerProducer) {
+            Integer data = queue.poll(1, TimeUnit.SECONDS);
+            Assert.assertNotNull(data);
+            sum += data;
+            received++;
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+
+        final long expected = (long) producerCount * messagePerProducer * (messagePerProducer - 1) / 2;
+        Assert.assertEquals(expected, sum);
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void interrupt() {
+        RingBufferAsyncQueue<Integer> queue = new RingBufferAsyncQueue<Integer>(4, WaitStrategy.PARK);
+        Thread.currentThread().interrupt();
+        try {
+            queue.poll(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (InterruptedException e) {
+            Assert.assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+}
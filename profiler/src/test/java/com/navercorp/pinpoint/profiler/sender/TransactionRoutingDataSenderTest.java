@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class TransactionRoutingDataSenderTest {
+
+    private static final List<String> MEMBERS = Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3");
+
+    @Test
+    public void getTransactionKey_sameTransaction() {
+        // the agentId is omitted on the agent starting the transaction
+        TSpan span = new TSpan();
+        span.setAgentId("agentA");
+        span.setTransactionId(TransactionIdUtils.formatBytes(null, 1, 10));
+
+        TSpanChunk spanChunk = new TSpanChunk();
+        spanChunk.setAgentId("agentB");
+        spanChunk.setTransactionId(TransactionIdUtils.formatBytes("agentA", 1, 10));
+
+        String transactionKey = TransactionRoutingDataSender.getTransactionKey(span);
+        Assert.assertEquals(TransactionIdUtils.formatString("agentA", 1, 10), transactionKey);
+        Assert.assertEquals(transactionKey, TransactionRoutingDataSender.getTransactionKey(spanChunk));
+    }
+
+    @Test
+    public void send() {
+        CollectorAffinityResolver resolver = new CollectorAffinityResolver(MEMBERS);
+        Map<String, CountingDataSender> dataSenderMap = new LinkedHashMap<String, CountingDataSender>();
+        for (String member : MEMBERS) {
+            dataSenderMap.put(member, new CountingDataSender());
+        }
+        TransactionRoutingDataSender dataSender = new TransactionRoutingDataSender(resolver, new LinkedHashMap<String, DataSender>(dataSenderMap));
+
+        Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            TSpan span = new TSpan();
+            span.setAgentId("agentA");
+            span.setTransactionId(TransactionIdUtils.formatBytes(null, 1, i));
+            dataSender.send(span);
+
+            String owner = resolver.getOwner(TransactionIdUtils.formatString("agentA", 1, i));
+            Integer count = expected.get(owner);
+            expected.put(owner, count == null ? 1 : count + 1);
+        }
+
+        for (String member : MEMBERS) {
+            Integer count = expected.get(member);
+            Assert.assertEquals(count == null ? 0 : count, dataSenderMap.get(member).getSenderCounter());
+        }
+    }
+
+    @Test
+    public void send_noTransaction() {
+        CollectorAffinityResolver resolver = new CollectorAffinityResolver(MEMBERS);
+        CountingDataSender countingDataSender = new CountingDataSender();
+        Map<String, DataSender> dataSenderMap = new LinkedHashMap<String, DataSender>();
+        for (String member : MEMBERS) {
+            dataSenderMap.put(member, countingDataSender);
+        }
+        TransactionRoutingDataSender dataSender = new TransactionRoutingDataSender(resolver, dataSenderMap);
+
+        Assert.assertFalse(dataSender.send(new TAgentStat()));
+        Assert.assertEquals(0, countingDataSender.getSenderCounter());
+    }
+}
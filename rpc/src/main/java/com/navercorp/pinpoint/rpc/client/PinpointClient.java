@@ -41,6 +41,8 @@ public class PinpointClient implements PinpointSocket {
     private volatile PinpointClientHandler pinpointClientHandler;
 
     private volatile boolean closed;
+
+    private volatile SocketAddressProvider socketAddressProvider;
     
     private List<PinpointClientReconnectEventListener> reconnectEventListeners = new CopyOnWriteArrayList<PinpointClientReconnectEventListener>();
     
@@ -71,6 +73,22 @@ public class PinpointClient implements PinpointSocket {
     }
     
 
+    public void setSocketAddressProvider(SocketAddressProvider socketAddressProvider) {
+        this.socketAddressProvider = socketAddressProvider;
+    }
+
+    SocketAddress getReconnectAddress(SocketAddress lastAddress) {
+        final SocketAddressProvider socketAddressProvider = this.socketAddressProvider;
+        if (socketAddressProvider == null) {
+            return lastAddress;
+        }
+        final SocketAddress resolved = socketAddressProvider.resolve();
+        if (resolved == null) {
+            return lastAddress;
+        }
+        return resolved;
+    }
+
     /*
         because reconnectEventListener's constructor contains Dummy and can't be access through setter,
         guarantee it is not null.
@@ -228,6 +228,23 @@ public class PinpointClientFactory {
         return pinpointClient;
     }
 
+    /**
+     * connects to the resolved address. the client asks the provider again on every reconnect
+     */
+    public PinpointClient connect(SocketAddressProvider socketAddressProvider) throws PinpointSocketException {
+        if (socketAddressProvider == null) {
+            throw new NullPointerException("socketAddressProvider must not be null");
+        }
+        final SocketAddress connectAddress = socketAddressProvider.resolve();
+        ChannelFuture connectFuture = bootstrap.connect(connectAddress);
+        PinpointClientHandler pinpointClientHandler = getSocketHandler(connectFuture, connectAddress);
+
+        PinpointClient pinpointClient = new PinpointClient(pinpointClientHandler);
+        pinpointClient.setSocketAddressProvider(socketAddressProvider);
+        traceSocket(pinpointClient);
+        return pinpointClient;
+    }
+
     public PinpointClient reconnect(String host, int port) throws PinpointSocketException {
         SocketAddress address = new InetSocketAddress(host, port);
         ChannelFuture connectFuture = bootstrap.connect(address);
@@ -257,6 +274,16 @@ public class PinpointClientFactory {
         return pinpointClient;
     }
 
+    public PinpointClient scheduledConnect(SocketAddressProvider socketAddressProvider) {
+        if (socketAddressProvider == null) {
+            throw new NullPointerException("socketAddressProvider must not be null");
+        }
+        PinpointClient pinpointClient = new PinpointClient(new ReconnectStateClientHandler());
+        pinpointClient.setSocketAddressProvider(socketAddressProvider);
+        scheduleConnectEvent(pinpointClient, socketAddressProvider.resolve());
+        return pinpointClient;
+    }
+
     PinpointClientHandler getSocketHandler(ChannelFuture channelConnectFuture, SocketAddress address) {
         if (address == null) {
             throw new NullPointerException("address");
@@ -317,6 +344,12 @@ public class PinpointClientFactory {
     }
 
     void reconnect(final PinpointClient pinpointClient, final SocketAddress socketAddress) {
+        // re-resolved on every attempt, so that a client with a SocketAddressProvider moves on to the next server
+        final SocketAddress reconnectAddress = pinpointClient.getReconnectAddress(socketAddress);
+        scheduleConnectEvent(pinpointClient, reconnectAddress);
+    }
+
+    private void scheduleConnectEvent(PinpointClient pinpointClient, SocketAddress socketAddress) {
         ConnectEvent connectEvent = new ConnectEvent(pinpointClient, socketAddress);
         timer.newTimeout(connectEvent, reconnectDelay, TimeUnit.MILLISECONDS);
     }
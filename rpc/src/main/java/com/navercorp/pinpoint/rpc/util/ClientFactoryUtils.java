@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.rpc.util;
 import com.navercorp.pinpoint.rpc.PinpointSocketException;
 import com.navercorp.pinpoint.rpc.client.PinpointClient;
 import com.navercorp.pinpoint.rpc.client.PinpointClientFactory;
+import com.navercorp.pinpoint.rpc.client.SocketAddressProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,4 +54,24 @@ public final class ClientFactoryUtils {
         return pinpointClient;
     }
 
+    /**
+     * every attempt asks the provider, so the retries may go to different servers
+     */
+    public static PinpointClient createPinpointClient(SocketAddressProvider socketAddressProvider, PinpointClientFactory clientFactory) {
+        PinpointClient pinpointClient = null;
+        for (int i = 0; i < 3; i++) {
+            try {
+                pinpointClient = clientFactory.connect(socketAddressProvider);
+                LOGGER.info("tcp connect success. remote:{}", pinpointClient.getRemoteAddress());
+                return pinpointClient;
+            } catch (PinpointSocketException e) {
+                LOGGER.warn("tcp connect fail. {} try reconnect, retryCount:{}", e.getMessage(), i);
+            }
+        }
+        LOGGER.warn("change background tcp connect mode. socketAddressProvider:{}", socketAddressProvider);
+        pinpointClient = clientFactory.scheduledConnect(socketAddressProvider);
+
+        return pinpointClient;
+    }
+
 }
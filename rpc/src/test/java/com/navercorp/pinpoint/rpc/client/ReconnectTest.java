@@ -33,7 +33,10 @@ import org.springframework.util.SocketUtils;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -107,6 +110,42 @@ public class ReconnectTest {
         Assert.assertTrue(reconnectPerformed.get());
     }
     
+    @Test
+    public void reconnect_socketAddressProvider() throws IOException, InterruptedException {
+        final int nextPort = SocketUtils.findAvailableTcpPort(bindPort + 1);
+        PinpointServerAcceptor serverAcceptor = PinpointRPCTestUtils.createPinpointServerFactory(bindPort, SimpleServerMessageListener.DUPLEX_ECHO_INSTANCE);
+
+        final AtomicInteger resolveCount = new AtomicInteger();
+        final SocketAddressProvider socketAddressProvider = new SocketAddressProvider() {
+            @Override
+            public SocketAddress resolve() {
+                final int port = resolveCount.getAndIncrement() % 2 == 0 ? bindPort : nextPort;
+                return new InetSocketAddress("localhost", port);
+            }
+        };
+
+        PinpointServerAcceptor nextServerAcceptor = null;
+        try {
+            PinpointClient client = clientFactory.connect(socketAddressProvider);
+
+            PinpointRPCTestUtils.close(serverAcceptor);
+            assertClientDisconnected(client);
+
+            // the first server does not come back. the client must move on to the next address
+            nextServerAcceptor = PinpointRPCTestUtils.createPinpointServerFactory(nextPort, SimpleServerMessageListener.DUPLEX_ECHO_INSTANCE);
+            assertClientConnected(client);
+            Assert.assertEquals(nextPort, ((InetSocketAddress) client.getRemoteAddress()).getPort());
+
+            byte[] randomByte = TestByteUtils.createRandomByte(10);
+            byte[] response = PinpointRPCTestUtils.request(client, randomByte);
+            Assert.assertArrayEquals(randomByte, response);
+
+            PinpointRPCTestUtils.close(client);
+        } finally {
+            PinpointRPCTestUtils.close(nextServerAcceptor);
+        }
+    }
+
     // it takes very long time. 
     // @Test
     @Ignore
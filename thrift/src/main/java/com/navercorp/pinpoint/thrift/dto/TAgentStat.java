@@ -37,6 +37,7 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
   private static final org.apache.thrift.protocol.TField TRANSACTION_FIELD_DESC = new org.apache.thrift.protocol.TField("transaction", org.apache.thrift.protocol.TType.STRUCT, (short)30);
   private static final org.apache.thrift.protocol.TField ACTIVE_TRACE_FIELD_DESC = new org.apache.thrift.protocol.TField("activeTrace", org.apache.thrift.protocol.TType.STRUCT, (short)40);
   private static final org.apache.thrift.protocol.TField DATA_SOURCE_LIST_FIELD_DESC = new org.apache.thrift.protocol.TField("dataSourceList", org.apache.thrift.protocol.TType.STRUCT, (short)50);
+  private static final org.apache.thrift.protocol.TField SAMPLING_RATE_FIELD_DESC = new org.apache.thrift.protocol.TField("samplingRate", org.apache.thrift.protocol.TType.I32, (short)60);
   private static final org.apache.thrift.protocol.TField METADATA_FIELD_DESC = new org.apache.thrift.protocol.TField("metadata", org.apache.thrift.protocol.TType.STRING, (short)200);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
@@ -54,6 +55,7 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
   private TTransaction transaction; // optional
   private TActiveTrace activeTrace; // optional
   private TDataSourceList dataSourceList; // optional
+  private int samplingRate; // optional
   private String metadata; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
@@ -67,6 +69,7 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     TRANSACTION((short)30, "transaction"),
     ACTIVE_TRACE((short)40, "activeTrace"),
     DATA_SOURCE_LIST((short)50, "dataSourceList"),
+    SAMPLING_RATE((short)60, "samplingRate"),
     METADATA((short)200, "metadata");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
@@ -100,6 +103,8 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
           return ACTIVE_TRACE;
         case 50: // DATA_SOURCE_LIST
           return DATA_SOURCE_LIST;
+        case 60: // SAMPLING_RATE
+          return SAMPLING_RATE;
         case 200: // METADATA
           return METADATA;
         default:
@@ -145,8 +150,9 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
   private static final int __STARTTIMESTAMP_ISSET_ID = 0;
   private static final int __TIMESTAMP_ISSET_ID = 1;
   private static final int __COLLECTINTERVAL_ISSET_ID = 2;
+  private static final int __SAMPLINGRATE_ISSET_ID = 3;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.AGENT_ID,_Fields.START_TIMESTAMP,_Fields.TIMESTAMP,_Fields.COLLECT_INTERVAL,_Fields.GC,_Fields.CPU_LOAD,_Fields.TRANSACTION,_Fields.ACTIVE_TRACE,_Fields.DATA_SOURCE_LIST,_Fields.METADATA};
+  private static final _Fields optionals[] = {_Fields.AGENT_ID,_Fields.START_TIMESTAMP,_Fields.TIMESTAMP,_Fields.COLLECT_INTERVAL,_Fields.GC,_Fields.CPU_LOAD,_Fields.TRANSACTION,_Fields.ACTIVE_TRACE,_Fields.DATA_SOURCE_LIST,_Fields.SAMPLING_RATE,_Fields.METADATA};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -168,6 +174,8 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
         new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TActiveTrace.class)));
     tmpMap.put(_Fields.DATA_SOURCE_LIST, new org.apache.thrift.meta_data.FieldMetaData("dataSourceList", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRUCT        , "TDataSourceList")));
+    tmpMap.put(_Fields.SAMPLING_RATE, new org.apache.thrift.meta_data.FieldMetaData("samplingRate", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
     tmpMap.put(_Fields.METADATA, new org.apache.thrift.meta_data.FieldMetaData("metadata", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
@@ -203,6 +211,7 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     if (other.isSetDataSourceList()) {
       this.dataSourceList = other.dataSourceList;
     }
+    this.samplingRate = other.samplingRate;
     if (other.isSetMetadata()) {
       this.metadata = other.metadata;
     }
@@ -226,6 +235,8 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     this.transaction = null;
     this.activeTrace = null;
     this.dataSourceList = null;
+    setSamplingRateIsSet(false);
+    this.samplingRate = 0;
     this.metadata = null;
   }
 
@@ -433,6 +444,28 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     }
   }
 
+  public int getSamplingRate() {
+    return this.samplingRate;
+  }
+
+  public void setSamplingRate(int samplingRate) {
+    this.samplingRate = samplingRate;
+    setSamplingRateIsSet(true);
+  }
+
+  public void unsetSamplingRate() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __SAMPLINGRATE_ISSET_ID);
+  }
+
+  /** Returns true if field samplingRate is set (has been assigned a value) and false otherwise */
+  public boolean isSetSamplingRate() {
+    return EncodingUtils.testBit(__isset_bitfield, __SAMPLINGRATE_ISSET_ID);
+  }
+
+  public void setSamplingRateIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __SAMPLINGRATE_ISSET_ID, value);
+  }
+
   public String getMetadata() {
     return this.metadata;
   }
@@ -530,6 +563,14 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
       }
       break;
 
+    case SAMPLING_RATE:
+      if (value == null) {
+        unsetSamplingRate();
+      } else {
+        setSamplingRate((Integer)value);
+      }
+      break;
+
     case METADATA:
       if (value == null) {
         unsetMetadata();
@@ -570,6 +611,9 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     case DATA_SOURCE_LIST:
       return getDataSourceList();
 
+    case SAMPLING_RATE:
+      return getSamplingRate();
+
     case METADATA:
       return getMetadata();
 
@@ -602,6 +646,8 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
       return isSetActiveTrace();
     case DATA_SOURCE_LIST:
       return isSetDataSourceList();
+    case SAMPLING_RATE:
+      return isSetSamplingRate();
     case METADATA:
       return isSetMetadata();
     }
@@ -702,6 +748,15 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
         return false;
     }
 
+    boolean this_present_samplingRate = true && this.isSetSamplingRate();
+    boolean that_present_samplingRate = true && that.isSetSamplingRate();
+    if (this_present_samplingRate || that_present_samplingRate) {
+      if (!(this_present_samplingRate && that_present_samplingRate))
+        return false;
+      if (this.samplingRate != that.samplingRate)
+        return false;
+    }
+
     boolean this_present_metadata = true && this.isSetMetadata();
     boolean that_present_metadata = true && that.isSetMetadata();
     if (this_present_metadata || that_present_metadata) {
@@ -763,6 +818,11 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     if (present_dataSourceList)
       list.add(dataSourceList);
 
+    boolean present_samplingRate = true && (isSetSamplingRate());
+    list.add(present_samplingRate);
+    if (present_samplingRate)
+      list.add(samplingRate);
+
     boolean present_metadata = true && (isSetMetadata());
     list.add(present_metadata);
     if (present_metadata)
@@ -869,6 +929,16 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetSamplingRate()).compareTo(other.isSetSamplingRate());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetSamplingRate()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.samplingRate, other.samplingRate);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     lastComparison = Boolean.valueOf(isSetMetadata()).compareTo(other.isSetMetadata());
     if (lastComparison != 0) {
       return lastComparison;
@@ -976,6 +1046,12 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
       }
       first = false;
     }
+    if (isSetSamplingRate()) {
+      if (!first) sb.append(", ");
+      sb.append("samplingRate:");
+      sb.append(this.samplingRate);
+      first = false;
+    }
     if (isSetMetadata()) {
       if (!first) sb.append(", ");
       sb.append("metadata:");
@@ -1120,6 +1196,14 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 60: // SAMPLING_RATE
+            if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+              struct.samplingRate = iprot.readI32();
+              struct.setSamplingRateIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           case 200: // METADATA
             if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
               struct.metadata = iprot.readString();
@@ -1198,6 +1282,11 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
           oprot.writeFieldEnd();
         }
       }
+      if (struct.isSetSamplingRate()) {
+        oprot.writeFieldBegin(SAMPLING_RATE_FIELD_DESC);
+        oprot.writeI32(struct.samplingRate);
+        oprot.writeFieldEnd();
+      }
       if (struct.metadata != null) {
         if (struct.isSetMetadata()) {
           oprot.writeFieldBegin(METADATA_FIELD_DESC);
@@ -1250,10 +1339,13 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
       if (struct.isSetDataSourceList()) {
         optionals.set(8);
       }
-      if (struct.isSetMetadata()) {
+      if (struct.isSetSamplingRate()) {
         optionals.set(9);
       }
-      oprot.writeBitSet(optionals, 10);
+      if (struct.isSetMetadata()) {
+        optionals.set(10);
+      }
+      oprot.writeBitSet(optionals, 11);
       if (struct.isSetAgentId()) {
         oprot.writeString(struct.agentId);
       }
@@ -1281,6 +1373,9 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
       if (struct.isSetDataSourceList()) {
         struct.dataSourceList.write(oprot);
       }
+      if (struct.isSetSamplingRate()) {
+        oprot.writeI32(struct.samplingRate);
+      }
       if (struct.isSetMetadata()) {
         oprot.writeString(struct.metadata);
       }
@@ -1289,7 +1384,7 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, TAgentStat struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(10);
+      BitSet incoming = iprot.readBitSet(11);
       if (incoming.get(0)) {
         struct.agentId = iprot.readString();
         struct.setAgentIdIsSet(true);
@@ -1332,6 +1427,10 @@ public class TAgentStat implements org.apache.thrift.TBase<TAgentStat, TAgentSta
         struct.setDataSourceListIsSet(true);
       }
       if (incoming.get(9)) {
+        struct.samplingRate = iprot.readI32();
+        struct.setSamplingRateIsSet(true);
+      }
+      if (incoming.get(10)) {
         struct.metadata = iprot.readString();
         struct.setMetadataIsSet(true);
       }
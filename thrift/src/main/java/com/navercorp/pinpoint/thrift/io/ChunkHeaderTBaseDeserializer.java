@@ -72,6 +72,20 @@ public class ChunkHeaderTBaseDeserializer {
         return list;
     }
 
+    /**
+     * @return true if the packet starts with the chunk header
+     */
+    public boolean isChunked(byte[] bytes, int offset, int length) {
+        if (length < Header.HEADER_SIZE) {
+            return false;
+        }
+        if (HeaderUtils.validateSignature(bytes[offset]) == HeaderUtils.FAIL) {
+            return false;
+        }
+        final short type = bytesToShort(bytes[offset + 2], bytes[offset + 3]);
+        return locator.isChunkHeader(type);
+    }
+
     private TBase<?, ?> deserialize() throws TException {
         final Header header = readHeader();
         if (header == null) {
@@ -101,6 +101,7 @@ struct TAgentStat {
     30: optional TTransaction   transaction
     40: optional TActiveTrace   activeTrace
     50: optional TDataSourceList dataSourceList
+    60: optional i32         samplingRate
     200: optional string    metadata
 }
 
@@ -111,7 +111,7 @@ public class ApplicationMapBuilder {
         appendNodeResponseTime(nodeList, linkList, nodeHistogramDataSource);
         appendAgentInfo(nodeList, linkDataDuplexMap, agentInfoPopulator);
 
-        final ApplicationMap map = new DefaultApplicationMap(range, nodeList, linkList);
+        final ApplicationMap map = new DefaultApplicationMap(range, nodeList, linkList, linkDataDuplexMap.isTruncated());
         return map;
     }
 
@@ -34,9 +34,15 @@ public class DefaultApplicationMap implements ApplicationMap {
 
     private final Range range;
 
+    private final boolean truncated;
+
 //    private List<ApplicationScatterScanResult> applicationScatterScanResultList;
 
     DefaultApplicationMap(Range range, NodeList nodeList, LinkList linkList) {
+        this(range, nodeList, linkList, false);
+    }
+
+    DefaultApplicationMap(Range range, NodeList nodeList, LinkList linkList, boolean truncated) {
         if (range == null) {
             throw new NullPointerException("range must not be null");
         }
@@ -49,6 +55,7 @@ public class DefaultApplicationMap implements ApplicationMap {
         this.range = range;
         this.nodeList = nodeList;
         this.linkList = linkList;
+        this.truncated = truncated;
     }
 
     @JsonProperty("nodeDataArray")
@@ -64,4 +71,9 @@ public class DefaultApplicationMap implements ApplicationMap {
     public Range getRange() {
         return range;
     }
+
+    @JsonProperty("truncated")
+    public boolean isTruncated() {
+        return truncated;
+    }
 }
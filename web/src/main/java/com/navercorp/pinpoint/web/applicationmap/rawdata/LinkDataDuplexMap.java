@@ -29,6 +29,9 @@ public class LinkDataDuplexMap {
 
     private final LinkDataMap targetLinkDataMap;
 
+    // search stopped at the deadline. the links are partial
+    private boolean truncated;
+
     public LinkDataDuplexMap() {
         this.sourceLinkDataMap = new LinkDataMap();
         this.targetLinkDataMap = new LinkDataMap();
@@ -101,6 +104,14 @@ public class LinkDataDuplexMap {
         return targetLinkDataMap.getLinkData(findLinkKey);
     }
 
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
     public long getTotalCount() {
         return this.sourceLinkDataMap.getTotalCount() + this.targetLinkDataMap.getTotalCount();
     }
@@ -110,6 +121,7 @@ public class LinkDataDuplexMap {
         final StringBuilder sb = new StringBuilder("LinkDataDuplexMap{");
         sb.append("sourceLinkDataMap=").append(sourceLinkDataMap);
         sb.append(", targetLinkDataMap=").append(targetLinkDataMap);
+        sb.append(", truncated=").append(truncated);
         sb.append('}');
         return sb.toString();
     }
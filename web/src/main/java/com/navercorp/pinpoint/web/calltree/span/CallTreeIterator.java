@@ -18,7 +18,6 @@ package com.navercorp.pinpoint.web.calltree.span;
 
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -26,7 +25,8 @@ import java.util.List;
  */
 public class CallTreeIterator implements Iterator<CallTreeNode> {
 
-    private List<CallTreeNode> nodes = new LinkedList<>();
+    // random access by index. LinkedList.get() made the iteration O(n^2) on large transactions.
+    private List<CallTreeNode> nodes = new ArrayList<>();
     private int index = -1;
 
     public CallTreeIterator(final CallTreeNode root) {
@@ -230,8 +230,15 @@ public class CallTreeIterator implements Iterator<CallTreeNode> {
         return nodes.get(index + 1);
     }
 
+    public CallTreeNode getRoot() {
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        return nodes.get(0);
+    }
+
     public List<SpanAlign> values() {
-        List<SpanAlign> values = new ArrayList<>();
+        List<SpanAlign> values = new ArrayList<>(nodes.size());
         for (CallTreeNode node : nodes) {
             values.add(node.getValue());
         }
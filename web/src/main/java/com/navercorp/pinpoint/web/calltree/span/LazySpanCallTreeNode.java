@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.navercorp.pinpoint.web.calltree.span;
+
+/**
+ * Node of a span whose own call tree is aligned on the first access to its children. (see {@link SpanAligner2#sortLazily()})
+ *
+ * @author agent
+ */
+class LazySpanCallTreeNode extends CallTreeNode {
+
+    // null until the parent tree is sorted, and after the children are aligned
+    private SpanAligner2 spanAligner;
+
+    LazySpanCallTreeNode(SpanAlign value) {
+        super(null, value);
+    }
+
+    void setSpanAligner(SpanAligner2 spanAligner) {
+        this.spanAligner = spanAligner;
+    }
+
+    @Override
+    public CallTreeNode getChild() {
+        align();
+        return super.getChild();
+    }
+
+    @Override
+    public boolean hasChild() {
+        align();
+        return super.hasChild();
+    }
+
+    private void align() {
+        final SpanAligner2 spanAligner = this.spanAligner;
+        if (spanAligner == null) {
+            return;
+        }
+        this.spanAligner = null;
+        spanAligner.alignChildren(this);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.calltree.span;
+
+import com.navercorp.pinpoint.common.server.bo.AnnotationBo;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.common.util.AnnotationKeyUtils;
+import com.navercorp.pinpoint.common.util.IntStringStringValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Matches two call tree nodes whose subtrees are calls of the same apis in the same shape, with the same destinations and arguments.
+ * e.g. the same query with the same bind values executed in a loop.
+ * Arguments are compared by the annotations recorded by the agent (SQL_ID, CACHE_ARGS, ARGS),
+ * so the nodes can be compared before or after their metadata is resolved.
+ * Comparison gives up after maxNodeCount nodes so that the cost stays bounded.
+ *
+ * @author agent
+ */
+public class RepeatedCallTreeMatcher {
+
+    public static final int DEFAULT_MAX_NODE_COUNT = 1000;
+
+    private final int maxNodeCount;
+
+    public RepeatedCallTreeMatcher() {
+        this(DEFAULT_MAX_NODE_COUNT);
+    }
+
+    public RepeatedCallTreeMatcher(int maxNodeCount) {
+        if (maxNodeCount <= 0) {
+            throw new IllegalArgumentException("maxNodeCount must be greater than 0");
+        }
+        this.maxNodeCount = maxNodeCount;
+    }
+
+    public boolean matches(CallTreeNode node, CallTreeNode other) {
+        if (node == null || other == null) {
+            return false;
+        }
+        if (!isSameCall(node.getValue(), other.getValue())) {
+            return false;
+        }
+
+        // change logic from recursive to loop, because of avoid call-stack-overflow.
+        final Deque<CallTreeNode[]> pairs = new ArrayDeque<>();
+        pairs.push(new CallTreeNode[]{node.getChild(), other.getChild()});
+        int nodeCount = 1;
+        while (!pairs.isEmpty()) {
+            final CallTreeNode[] pair = pairs.pop();
+            CallTreeNode left = pair[0];
+            CallTreeNode right = pair[1];
+            while (left != null && right != null) {
+                if (++nodeCount > maxNodeCount) {
+                    return false;
+                }
+                if (!isSameCall(left.getValue(), right.getValue())) {
+                    return false;
+                }
+                if (left.hasChild() || right.hasChild()) {
+                    pairs.push(new CallTreeNode[]{left.getChild(), right.getChild()});
+                }
+                left = left.getSibling();
+                right = right.getSibling();
+            }
+            if (left != right) {
+                // different number of children
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSameCall(SpanAlign align, SpanAlign other) {
+        if (align.isSpan() != other.isSpan()) {
+            return false;
+        }
+        if (align.getServiceType() != other.getServiceType()) {
+            return false;
+        }
+        if (align.getApiId() != other.getApiId()) {
+            return false;
+        }
+        if (align.hasException() != other.hasException()) {
+            return false;
+        }
+        if (!Objects.equals(align.getDestinationId(), other.getDestinationId())) {
+            return false;
+        }
+        if (align.isSpan()) {
+            // remote calls are repeated only when they are served by the same agent
+            if (!Objects.equals(align.getAgentId(), other.getAgentId())) {
+                return false;
+            }
+        }
+        return isSameArguments(align.getAnnotationBoList(), other.getAnnotationBoList());
+    }
+
+    private boolean isSameArguments(List<AnnotationBo> annotationBoList, List<AnnotationBo> otherAnnotationBoList) {
+        final List<AnnotationBo> arguments = getRecordedArguments(annotationBoList);
+        final List<AnnotationBo> otherArguments = getRecordedArguments(otherAnnotationBoList);
+        if (arguments.size() != otherArguments.size()) {
+            return false;
+        }
+        for (int i = 0; i < arguments.size(); i++) {
+            final AnnotationBo argument = arguments.get(i);
+            final AnnotationBo otherArgument = otherArguments.get(i);
+            if (argument.getKey() != otherArgument.getKey()) {
+                return false;
+            }
+            if (!isSameValue(argument.getValue(), otherArgument.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * annotations added by the metadata transition are skipped. ARGS annotations resolved from CACHE_ARGS are skipped as well.
+     */
+    private List<AnnotationBo> getRecordedArguments(List<AnnotationBo> annotationBoList) {
+        if (annotationBoList == null || annotationBoList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<AnnotationBo> arguments = new ArrayList<>(annotationBoList.size());
+        for (AnnotationBo annotationBo : annotationBoList) {
+            final int key = annotationBo.getKey();
+            if (key == AnnotationKey.SQL_ID.getCode() || AnnotationKeyUtils.isCachedArgsKey(key)) {
+                arguments.add(annotationBo);
+            } else if (AnnotationKeyUtils.isArgsKey(key) && !isResolvedCachedArgs(annotationBoList, key)) {
+                arguments.add(annotationBo);
+            }
+        }
+        return arguments;
+    }
+
+    private boolean isResolvedCachedArgs(List<AnnotationBo> annotationBoList, int argsKey) {
+        for (AnnotationBo annotationBo : annotationBoList) {
+            final int key = annotationBo.getKey();
+            if (AnnotationKeyUtils.isCachedArgsKey(key) && AnnotationKeyUtils.cachedArgsToArgs(key) == argsKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSameValue(Object value, Object otherValue) {
+        if (value instanceof IntStringStringValue && otherValue instanceof IntStringStringValue) {
+            // sql id, output parameters and bind values
+            final IntStringStringValue sqlValue = (IntStringStringValue) value;
+            final IntStringStringValue otherSqlValue = (IntStringStringValue) otherValue;
+            return sqlValue.getIntValue() == otherSqlValue.getIntValue()
+                    && Objects.equals(sqlValue.getStringValue1(), otherSqlValue.getStringValue1())
+                    && Objects.equals(sqlValue.getStringValue2(), otherSqlValue.getStringValue2());
+        }
+        return Objects.deepEquals(value, otherValue);
+    }
+}
@@ -45,6 +45,11 @@ public class SpanAligner2 {
     private Long rootSpanId = null;
     private int matchType = FAIL_MATCH;
 
+    // the spans called by an aligned span are added as LazySpanCallTreeNode
+    private boolean lazy = false;
+    // lazy nodes created while a span is aligned. they may be aligned only after their parent tree is sorted
+    private final List<LazySpanCallTreeNode> sortingNodeList = new ArrayList<>();
+
     public SpanAligner2(List<SpanBo> spans, long collectorAcceptTime) {
         this.spanIdMap = buildSpanMap(spans);
         this.rootSpanId = findRootSpanId(spans, collectorAcceptTime);
@@ -127,6 +132,28 @@ public class SpanAligner2 {
     }
 
     public CallTree sort() {
+        final SpanBo rootSpanBo = removeRootSpan();
+        final CallTree tree = createSpanCallTree(rootSpanBo);
+        tree.sort();
+        
+        return tree;
+    }
+
+    /**
+     * aligns the root span only. the spans it calls are aligned when the children of their nodes are first accessed,
+     * so that a walk over the tree does not need the whole transaction aligned at once.
+     * the aligner is referenced by the nodes not aligned yet.
+     */
+    public CallTree sortLazily() {
+        this.lazy = true;
+        final SpanBo rootSpanBo = removeRootSpan();
+        final CallTree tree = createSpanCallTree(rootSpanBo);
+        sort(tree);
+
+        return tree;
+    }
+
+    private SpanBo removeRootSpan() {
         final List<SpanBo> rootList = spanIdMap.remove(rootSpanId);
         if (rootList == null || rootList.isEmpty()) {
             throw new IllegalStateException("rootList span not found. rootSpanId=" + rootSpanId + ", map=" + spanIdMap.keySet());
@@ -134,11 +161,28 @@ public class SpanAligner2 {
         if (rootList.size() > 1) {
             throw new IllegalStateException("duplicate rootList span found. rootSpanId=" + rootSpanId + ", map=" + spanIdMap.keySet());
         }
-        final SpanBo rootSpanBo = rootList.get(0);
-        final CallTree tree = createSpanCallTree(rootSpanBo);
+        return rootList.get(0);
+    }
+
+    void alignChildren(final LazySpanCallTreeNode node) {
+        final SpanBo span = node.getValue().getSpanBo();
+        final CallTree tree = createSpanCallTree(span);
+        sort(tree);
+
+        // same tree as the eager alignment, the root is replaced by the node
+        final CallTreeNode child = tree.getRoot().getChild();
+        for (CallTreeNode sibling = child; sibling != null; sibling = sibling.getSibling()) {
+            sibling.setParent(node);
+        }
+        node.setChild(child);
+    }
+
+    private void sort(final CallTree tree) {
         tree.sort();
-        
-        return tree;
+        for (LazySpanCallTreeNode node : sortingNodeList) {
+            node.setSpanAligner(this);
+        }
+        sortingNodeList.clear();
     }
 
     public int getMatchType() {
@@ -170,7 +214,7 @@ public class SpanAligner2 {
             if (nextSpanId != ROOT && nextSpanBoList != null) {
                 final SpanBo nextSpanBo = getNextSpan(span, spanEventBo, nextSpanBoList);
                 if (nextSpanBo != null) {
-                    final CallTree subTree = createSpanCallTree(nextSpanBo);
+                    final CallTree subTree = lazy ? createLazySpanCallTree(nextSpanBo) : createSpanCallTree(nextSpanBo);
                     tree.add(subTree);
                 } else {
                     logger.debug("nextSpanId not found. {}", nextSpanId);
@@ -198,6 +242,12 @@ public class SpanAligner2 {
         return tree;
     }
 
+    private CallTree createLazySpanCallTree(final SpanBo span) {
+        final LazySpanCallTreeNode node = new LazySpanCallTreeNode(new SpanAlign(span));
+        sortingNodeList.add(node);
+        return new SpanCallTree(node);
+    }
+
     private CallTree createAsyncSpanCallTree(final SpanBo span, final List<SpanEventBo> asyncSpanEventBoList, final SpanAsyncEventMap asyncSpanEventMap) {
         final SpanAlign spanAlign = new SpanAlign(span);
         final CallTree tree = new SpanAsyncCallTree(spanAlign);
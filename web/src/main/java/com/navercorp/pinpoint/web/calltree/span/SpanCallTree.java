@@ -30,7 +30,11 @@ public class SpanCallTree implements CallTree {
     private CallTreeNode cursor;
 
     public SpanCallTree(final SpanAlign spanAlign) {
-        this.root = new CallTreeNode(null, spanAlign);
+        this(new CallTreeNode(null, spanAlign));
+    }
+
+    SpanCallTree(final CallTreeNode root) {
+        this.root = root;
         this.cursor = this.root;
     }
 
@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.web.controller;
 
+import com.google.common.cache.CacheStats;
+import com.navercorp.pinpoint.web.service.map.LinkDataMapCache;
 import com.navercorp.pinpoint.web.vo.Application;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.navercorp.pinpoint.web.service.AdminService;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +48,9 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private LinkDataMapCache linkDataMapCache;
+
     @RequestMapping(value = "/removeApplicationName")
     @ResponseBody
     public String removeApplicationName(@RequestParam("applicationName") String applicationName) {
@@ -107,4 +113,26 @@ public class AdminController {
         return this.adminService.getInactiveAgents(applicationName, durationDays);
     }
 
+    @RequestMapping(value = "/serverMapCacheStats")
+    @ResponseBody
+    public Map<String, Object> serverMapCacheStats() {
+        final CacheStats stats = this.linkDataMapCache.getStats();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enable", linkDataMapCache.isEnable());
+        result.put("size", linkDataMapCache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    @RequestMapping(value = "/invalidateServerMapCache")
+    @ResponseBody
+    public String invalidateServerMapCache() {
+        logger.info("invalidate server map cache.");
+        this.linkDataMapCache.invalidateAll();
+        return "OK";
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.controller;
+
+import com.navercorp.pinpoint.web.service.ApplicationStatService;
+import com.navercorp.pinpoint.web.vo.Range;
+import com.navercorp.pinpoint.web.vo.stat.ApplicationStat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * @author agent
+ */
+@Controller
+public class ApplicationStatController {
+
+    @Autowired
+    private ApplicationStatService applicationStatService;
+
+    @RequestMapping(value = "/getApplicationStat", method = RequestMethod.GET)
+    @ResponseBody
+    public List<ApplicationStat> getApplicationStat(
+            @RequestParam("application") String applicationName,
+            @RequestParam("from") long from,
+            @RequestParam("to") long to) {
+        Range range = new Range(from, to);
+        return applicationStatService.selectApplicationStatList(applicationName, range);
+    }
+}
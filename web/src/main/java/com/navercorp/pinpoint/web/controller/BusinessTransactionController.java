@@ -23,6 +23,7 @@ import com.navercorp.pinpoint.common.util.OutputParameterParser;
 import com.navercorp.pinpoint.common.util.SqlParser;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.web.view.TransactionCallStackViewModel;
 import com.navercorp.pinpoint.web.view.TransactionInfoViewModel;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.slf4j.Logger;
@@ -38,10 +39,12 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMap;
 import com.navercorp.pinpoint.web.calltree.span.CallTreeIterator;
 import com.navercorp.pinpoint.web.service.FilteredMapService;
+import com.navercorp.pinpoint.web.service.LazySpanResult;
 import com.navercorp.pinpoint.web.service.SpanResult;
 import com.navercorp.pinpoint.web.service.SpanService;
 import com.navercorp.pinpoint.web.service.TransactionInfoService;
 import com.navercorp.pinpoint.web.vo.callstacks.RecordSet;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
 
 /**
  * @author emeroad
@@ -73,6 +76,9 @@ public class BusinessTransactionController {
     @Value("#{pinpointWebProps['log.button.disable.message'] ?: ''}")
     private String disableButtonMessage;
 
+    @Value("#{pinpointWebProps['web.callstack.stream.maxLimit'] ?: 10000}")
+    private int callStackMaxLimit;
+
     private SqlParser sqlParser = new DefaultSqlParser();
     private OutputParameterParser parameterParser = new OutputParameterParser();
 
@@ -106,6 +112,40 @@ public class BusinessTransactionController {
         return result;
     }
 
+    /**
+     * call stack of a selected transaction, written while the records are created.
+     * returns the rows of at most limit call tree nodes from offset. use nextOffset of the response for the next page.
+     * the id of a call tree node row is its position in the call tree + 1 on every page, the other rows have negative ids.
+     *
+     * @param collapse collapses repeated sibling calls into one row
+     */
+    @RequestMapping(value = "/transactionCallStack", method = RequestMethod.GET)
+    @ResponseBody
+    public TransactionCallStackViewModel transactionCallStack(@RequestParam("traceId") String traceIdParam,
+                                                              @RequestParam(value = "focusTimestamp", required = false, defaultValue = "0") long focusTimestamp,
+                                                              @RequestParam(value = "agentId", required = false) String agentId,
+                                                              @RequestParam(value = "spanId", required = false, defaultValue = "-1") long spanId,
+                                                              @RequestParam(value = "offset", required = false, defaultValue = "0") int offset,
+                                                              @RequestParam(value = "limit", required = false, defaultValue = "-1") int limit,
+                                                              @RequestParam(value = "collapse", required = false, defaultValue = "false") boolean collapse) {
+        logger.debug("GET /transactionCallStack params {traceId={}, focusTimestamp={}, agentId={}, spanId={}, offset={}, limit={}, collapse={}}", traceIdParam, focusTimestamp, agentId, spanId, offset, limit, collapse);
+
+        final TransactionId transactionId = TransactionIdUtils.parseTransactionId(traceIdParam);
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit <= 0 || limit > callStackMaxLimit) {
+            limit = callStackMaxLimit;
+        }
+
+        // select spans
+        // spans are aligned and metadata is resolved while the records are created
+        final LazySpanResult spanResult = this.spanService.selectSpanLazily(transactionId, focusTimestamp);
+
+        final StreamingRecordSet recordSet = this.transactionInfoService.createStreamingRecordSet(spanResult, focusTimestamp, agentId, spanId, offset, limit, collapse);
+        return new TransactionCallStackViewModel(transactionId, recordSet, spanResult.getCompleteTypeString(), logLinkEnable, logButtonName, logPageUrl, disableButtonMessage);
+    }
+
     @RequestMapping(value = "/sqlBind", method = RequestMethod.POST)
     @ResponseBody
     public String sqlBind(@RequestParam("sql") String sql,
@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.web.dao;
 
 import com.navercorp.pinpoint.common.server.bo.SqlMetaDataBo;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 import java.util.List;
 
@@ -25,4 +26,10 @@ import java.util.List;
  */
 public interface SqlMetaDataDao {
     List<SqlMetaDataBo> getSqlMetaData(String agentId, long time, int sqlId);
+
+    /**
+     * multi-get of the metadata
+     * @return metadata list of each key, in the order of keyList
+     */
+    List<List<SqlMetaDataBo>> getSqlMetaData(List<MetaDataKey> keyList);
 }
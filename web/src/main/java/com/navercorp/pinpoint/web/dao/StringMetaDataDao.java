@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.web.dao;
 
 import com.navercorp.pinpoint.common.server.bo.StringMetaDataBo;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 import java.util.List;
 
@@ -25,4 +26,10 @@ import java.util.List;
  */
 public interface StringMetaDataDao {
     List<StringMetaDataBo> getStringMetaData(String agentId, long time, int stringId);
+
+    /**
+     * multi-get of the metadata
+     * @return metadata list of each key, in the order of keyList
+     */
+    List<List<StringMetaDataBo>> getStringMetaData(List<MetaDataKey> keyList);
 }
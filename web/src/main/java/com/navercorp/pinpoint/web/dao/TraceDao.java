@@ -33,5 +33,11 @@ public interface TraceDao {
     
     List<List<SpanBo>> selectAllSpans(List<TransactionId> transactionIdList);
 
+    /**
+     * streaming variant of {@link #selectAllSpans(List)}.
+     * Each transaction is handed to the handler as soon as its partition is fetched, not necessarily in the requested order.
+     */
+    void selectAllSpans(List<TransactionId> transactionIdList, TraceHandler traceHandler);
+
 
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao;
+
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+
+import java.util.List;
+
+/**
+ * Receives the spans of each transaction as soon as they are decoded.
+ * Called on the thread that requested the spans.
+ *
+ * @author agent
+ * @see TraceDao#selectAllSpans(List, TraceHandler)
+ */
+public interface TraceHandler {
+
+    void handle(List<SpanBo> transaction);
+
+}
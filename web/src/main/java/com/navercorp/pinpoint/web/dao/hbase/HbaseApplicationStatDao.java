@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.ResultsExtractor;
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatSummaryBo;
+import com.navercorp.pinpoint.common.server.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.web.dao.ApplicationStatDao;
+import com.navercorp.pinpoint.web.vo.Range;
+import com.navercorp.pinpoint.web.vo.stat.ApplicationStat;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the ApplicationStat table written by the collectors.
+ * Every collector writes its own row per window (applicationName + reverse(windowStart) + collectorId),
+ * so the rows of the same window are merged into one {@link ApplicationStat}.
+ *
+ * @author agent
+ */
+@Repository
+public class HbaseApplicationStatDao implements ApplicationStatDao {
+
+    private static final int SCANNER_CACHE_SIZE = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HbaseOperations2 hbaseOperations2;
+
+    @Override
+    public List<ApplicationStat> getApplicationStatList(String applicationName, Range range) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+
+        Scan scan = new Scan();
+        scan.setMaxVersions(1);
+        scan.setCaching(SCANNER_CACHE_SIZE);
+
+        // rows are ordered by reverse(windowStart), the stop row includes the windows starting at range.getFrom()
+        scan.setStartRow(createRowKey(applicationName, range.getTo()));
+        scan.setStopRow(createRowKey(applicationName, range.getFrom() - 1));
+        scan.addFamily(HBaseTables.APPLICATION_STAT_CF_STATISTICS);
+
+        List<ApplicationStat> applicationStats = this.hbaseOperations2.find(HBaseTables.APPLICATION_STAT, scan, new ApplicationStatResultsExtractor(applicationName));
+        if (logger.isDebugEnabled()) {
+            logger.debug("applicationStats found. applicationName:{}, size:{}", applicationName, applicationStats.size());
+        }
+        return applicationStats;
+    }
+
+    private byte[] createRowKey(String applicationName, long timestamp) {
+        byte[] applicationNameKey = BytesUtils.toBytes(applicationName);
+        long reverseTimestamp = TimeUtils.reverseTimeMillis(timestamp);
+        return RowKeyUtils.concatFixedByteAndLong(applicationNameKey, HBaseTables.APPLICATION_NAME_MAX_LEN, reverseTimestamp);
+    }
+
+    private static class ApplicationStatResultsExtractor implements ResultsExtractor<List<ApplicationStat>> {
+
+        private final String applicationName;
+
+        private ApplicationStatResultsExtractor(String applicationName) {
+            this.applicationName = applicationName;
+        }
+
+        @Override
+        public List<ApplicationStat> extractData(ResultScanner results) throws Exception {
+            // rows of the same window are adjacent, newest window first
+            final List<ApplicationStat> applicationStats = new ArrayList<>();
+            ApplicationStat current = null;
+            for (Result result : results) {
+                final byte[] rowKey = result.getRow();
+                final long reverseWindowStart = BytesUtils.bytesToLong(rowKey, HBaseTables.APPLICATION_NAME_MAX_LEN);
+                final long windowStart = TimeUtils.recoveryTimeMillis(reverseWindowStart);
+                if (current == null || current.getTimestamp() != windowStart) {
+                    current = new ApplicationStat(applicationName, windowStart);
+                    applicationStats.add(current);
+                }
+                for (Cell cell : result.rawCells()) {
+                    final byte[] qualifier = CellUtil.cloneQualifier(cell);
+                    if (qualifier.length != 1) {
+                        continue;
+                    }
+                    final ApplicationStatField field = ApplicationStatField.fromTypeCode(qualifier[0]);
+                    if (field == ApplicationStatField.UNKNOWN) {
+                        continue;
+                    }
+                    current.addSummary(field, ApplicationStatSummaryBo.readValue(CellUtil.cloneValue(cell)));
+                }
+            }
+            return applicationStats;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.annotations.Beta;
 import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,6 +95,21 @@ public class HbaseDualReadDao implements TraceDao {
         return result;
     }
 
+    @Override
+    public void selectAllSpans(List<TransactionId> transactionIdList, TraceHandler traceHandler) {
+        if (traceHandler == null) {
+            throw new NullPointerException("traceHandler must not be null");
+        }
+        // the result of master and slave are compared. no streaming
+        final List<List<SpanBo>> spanBos = selectAllSpans(transactionIdList);
+        if (spanBos == null) {
+            return;
+        }
+        for (List<SpanBo> transaction : spanBos) {
+            traceHandler.handle(transaction);
+        }
+    }
+
 
     private void rethrowRuntimeException(Throwable exception) {
         if (exception != null) {
@@ -18,12 +18,14 @@ package com.navercorp.pinpoint.web.dao.hbase;
 
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.MapStatisticsResolution;
 import com.navercorp.pinpoint.common.hbase.ResultsExtractor;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
 import com.navercorp.pinpoint.web.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.web.mapper.*;
+import com.navercorp.pinpoint.web.util.MapStatisticsRangeSplitter;
 import com.navercorp.pinpoint.web.util.TimeWindow;
 import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
 import com.navercorp.pinpoint.web.vo.Application;
@@ -36,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -64,6 +67,9 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
     @Qualifier("statisticsCalleeRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Value("#{pinpointWebProps['web.map.statistics.rollup.enable'] ?: false}")
+    private boolean rollupEnable;
+
 
     @Override
     public LinkDataMap selectCallee(Application calleeApplication, Range range) {
@@ -75,10 +81,15 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         }
 
         final TimeWindow timeWindow = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
-        // find distributed key - ver2.
-        final Scan scan = createScan(calleeApplication, range, HBaseTables.MAP_STATISTICS_CALLER_VER2_CF_COUNTER);
         ResultsExtractor<LinkDataMap> resultExtractor = new RowMapReduceResultExtractor<>(mapStatisticsCalleeMapper, new MapStatisticsTimeWindowReducer(timeWindow));
-        LinkDataMap linkDataMap = hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_CALLER_VER2, scan, rowKeyDistributorByHashPrefix, resultExtractor, MAP_STATISTICS_CALLER_VER2_NUM_PARTITIONS);
+        LinkDataMap linkDataMap;
+        if (rollupEnable) {
+            linkDataMap = selectCalleeRollup(calleeApplication, range, timeWindow, resultExtractor);
+        } else {
+            // find distributed key - ver2.
+            final Scan scan = createScan(calleeApplication, range, HBaseTables.MAP_STATISTICS_CALLER_VER2_CF_COUNTER);
+            linkDataMap = hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_CALLER_VER2, scan, rowKeyDistributorByHashPrefix, resultExtractor, MAP_STATISTICS_CALLER_VER2_NUM_PARTITIONS);
+        }
         logger.debug("Callee data. {}, {}", linkDataMap, range);
         if (linkDataMap != null && linkDataMap.size() > 0) {
             return linkDataMap;
@@ -88,6 +99,21 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
     }
 
 
+    private LinkDataMap selectCalleeRollup(Application calleeApplication, Range range, TimeWindow timeWindow, ResultsExtractor<LinkDataMap> resultExtractor) {
+        // all ranges are reduced into the same LinkDataMap of the reducer
+        LinkDataMap linkDataMap = null;
+        final MapStatisticsRangeSplitter splitter = new MapStatisticsRangeSplitter(timeWindow.getWindowSlotSize());
+        for (MapStatisticsRangeSplitter.SlotRange slotRange : splitter.split(range)) {
+            final MapStatisticsResolution resolution = slotRange.getResolution();
+            final Scan scan = createScan(calleeApplication, slotRange.getRange(), HBaseTables.MAP_STATISTICS_CALLER_VER2_CF_COUNTER);
+            final LinkDataMap result = hbaseOperations2.findParallel(resolution.getCallerTable(), scan, rowKeyDistributorByHashPrefix, resultExtractor, MAP_STATISTICS_CALLER_VER2_NUM_PARTITIONS);
+            if (result != null) {
+                linkDataMap = result;
+            }
+        }
+        return linkDataMap;
+    }
+
     private Scan createScan(Application application, Range range, byte[] family) {
         range = rangeFactory.createStatisticsRange(range);
 
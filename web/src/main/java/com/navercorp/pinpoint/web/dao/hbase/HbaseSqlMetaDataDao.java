@@ -16,18 +16,28 @@
 
 package com.navercorp.pinpoint.web.dao.hbase;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
 import org.apache.hadoop.hbase.client.Get;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.navercorp.pinpoint.common.PinpointConstants;
 import com.navercorp.pinpoint.common.server.bo.SqlMetaDataBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 /**
  * @author emeroad
@@ -36,6 +46,10 @@ import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
 //@Repository
 public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
 
+    private static final long NO_LINEAGE = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     @Autowired
     private HbaseOperations2 hbaseOperations2;
 
@@ -53,13 +67,115 @@ public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
             throw new NullPointerException("agentId must not be null");
         }
 
+        final List<SqlMetaDataBo> result = hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, newGet(agentId, time, sqlId), sqlMetaDataMapper);
+        if (!isEmpty(result) || sqlId == PinpointConstants.SQL_METADATA_LINEAGE_ID) {
+            return result;
+        }
+        // the agent sends the sql of a persistent sql cache only once, under the start time of the cache lineage
+        final List<SqlMetaDataBo> lineage = hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, newGet(agentId, time, PinpointConstants.SQL_METADATA_LINEAGE_ID), sqlMetaDataMapper);
+        final long lineageStartTime = getLineageStartTime(lineage);
+        if (lineageStartTime == NO_LINEAGE || lineageStartTime == time) {
+            return result;
+        }
+        return hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, newGet(agentId, lineageStartTime, sqlId), sqlMetaDataMapper);
+    }
+
+    @Override
+    public List<List<SqlMetaDataBo>> getSqlMetaData(List<MetaDataKey> keyList) {
+        if (keyList == null) {
+            throw new NullPointerException("keyList must not be null");
+        }
+        if (keyList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Get> getList = new ArrayList<>(keyList.size());
+        for (MetaDataKey key : keyList) {
+            getList.add(newGet(key.getAgentId(), key.getAgentStartTime(), key.getId()));
+        }
+        final List<List<SqlMetaDataBo>> resultList = new ArrayList<>(hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, getList, sqlMetaDataMapper));
+        fillFromLineage(keyList, resultList);
+        return resultList;
+    }
+
+    /**
+     * looks up the missing sql again under the lineage start time of the agent start
+     */
+    private void fillFromLineage(List<MetaDataKey> keyList, List<List<SqlMetaDataBo>> resultList) {
+        final List<Integer> missIndexList = new ArrayList<>();
+        final Set<MetaDataKey> agentStartSet = new LinkedHashSet<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            final MetaDataKey key = keyList.get(i);
+            if (isEmpty(resultList.get(i)) && key.getId() != PinpointConstants.SQL_METADATA_LINEAGE_ID) {
+                missIndexList.add(i);
+                agentStartSet.add(new MetaDataKey(key.getAgentId(), key.getAgentStartTime(), PinpointConstants.SQL_METADATA_LINEAGE_ID));
+            }
+        }
+        if (missIndexList.isEmpty()) {
+            return;
+        }
+
+        final List<MetaDataKey> agentStartList = new ArrayList<>(agentStartSet);
+        final List<Get> lineageGetList = new ArrayList<>(agentStartList.size());
+        for (MetaDataKey agentStart : agentStartList) {
+            lineageGetList.add(newGet(agentStart.getAgentId(), agentStart.getAgentStartTime(), agentStart.getId()));
+        }
+        final List<List<SqlMetaDataBo>> lineageList = hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, lineageGetList, sqlMetaDataMapper);
+        final Map<MetaDataKey, Long> lineageStartTimeMap = new HashMap<>();
+        for (int i = 0; i < agentStartList.size(); i++) {
+            final MetaDataKey agentStart = agentStartList.get(i);
+            final long lineageStartTime = getLineageStartTime(lineageList.get(i));
+            if (lineageStartTime != NO_LINEAGE && lineageStartTime != agentStart.getAgentStartTime()) {
+                lineageStartTimeMap.put(agentStart, lineageStartTime);
+            }
+        }
+        if (lineageStartTimeMap.isEmpty()) {
+            return;
+        }
+
+        final List<Integer> retryIndexList = new ArrayList<>();
+        final List<Get> retryGetList = new ArrayList<>();
+        for (Integer missIndex : missIndexList) {
+            final MetaDataKey key = keyList.get(missIndex);
+            final Long lineageStartTime = lineageStartTimeMap.get(new MetaDataKey(key.getAgentId(), key.getAgentStartTime(), PinpointConstants.SQL_METADATA_LINEAGE_ID));
+            if (lineageStartTime != null) {
+                retryIndexList.add(missIndex);
+                retryGetList.add(newGet(key.getAgentId(), lineageStartTime, key.getId()));
+            }
+        }
+        if (retryGetList.isEmpty()) {
+            return;
+        }
+        final List<List<SqlMetaDataBo>> retryList = hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, retryGetList, sqlMetaDataMapper);
+        for (int i = 0; i < retryIndexList.size(); i++) {
+            resultList.set(retryIndexList.get(i), retryList.get(i));
+        }
+    }
+
+    private long getLineageStartTime(List<SqlMetaDataBo> lineage) {
+        if (isEmpty(lineage)) {
+            return NO_LINEAGE;
+        }
+        final String lineageStartTime = lineage.get(0).getSql();
+        try {
+            return Long.parseLong(lineageStartTime);
+        } catch (NumberFormatException e) {
+            logger.warn("invalid sql metadata lineage:{}", lineageStartTime);
+            return NO_LINEAGE;
+        }
+    }
+
+    private static boolean isEmpty(List<SqlMetaDataBo> sqlMetaDataList) {
+        return sqlMetaDataList == null || sqlMetaDataList.isEmpty();
+    }
+
+    private Get newGet(String agentId, long time, int sqlId) {
         SqlMetaDataBo sqlMetaData = new SqlMetaDataBo(agentId, time, sqlId);
         byte[] rowKey = getDistributedKey(sqlMetaData.toRowKey());
 
         Get get = new Get(rowKey);
         get.addFamily(HBaseTables.SQL_METADATA_VER2_CF_SQL);
-
-        return hbaseOperations2.get(HBaseTables.SQL_METADATA_VER2, get, sqlMetaDataMapper);
+        return get;
     }
 
     private byte[] getDistributedKey(byte[] rowKey) {
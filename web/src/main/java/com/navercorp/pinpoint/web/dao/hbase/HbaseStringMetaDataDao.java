@@ -21,6 +21,7 @@ import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.web.dao.StringMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
 import org.apache.hadoop.hbase.client.Get;
@@ -28,6 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -62,6 +65,27 @@ public class HbaseStringMetaDataDao implements StringMetaDataDao {
         return hbaseOperations2.get(HBaseTables.STRING_METADATA, get, stringMetaDataMapper);
     }
 
+    @Override
+    public List<List<StringMetaDataBo>> getStringMetaData(List<MetaDataKey> keyList) {
+        if (keyList == null) {
+            throw new NullPointerException("keyList must not be null");
+        }
+        if (keyList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Get> getList = new ArrayList<>(keyList.size());
+        for (MetaDataKey key : keyList) {
+            StringMetaDataBo stringMetaDataBo = new StringMetaDataBo(key.getAgentId(), key.getAgentStartTime(), key.getId());
+            byte[] rowKey = getDistributedKey(stringMetaDataBo.toRowKey());
+
+            Get get = new Get(rowKey);
+            get.addFamily(HBaseTables.STRING_METADATA_CF_STR);
+            getList.add(get);
+        }
+        return hbaseOperations2.get(HBaseTables.STRING_METADATA, getList, stringMetaDataMapper);
+    }
+
     private byte[] getDistributedKey(byte[] rowKey) {
         return rowKeyDistributorByHashPrefix.getDistributedKey(rowKey);
     }
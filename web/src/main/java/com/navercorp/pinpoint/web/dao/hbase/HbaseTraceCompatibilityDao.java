@@ -3,6 +3,7 @@ package com.navercorp.pinpoint.web.dao.hbase;
 import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
 import org.apache.commons.collections.CollectionUtils;
 
 import java.util.List;
@@ -66,4 +67,19 @@ public class HbaseTraceCompatibilityDao implements TraceDao {
         return slave.selectAllSpans(transactionIdList);
     }
 
+    @Override
+    public void selectAllSpans(List<TransactionId> transactionIdList, TraceHandler traceHandler) {
+        if (traceHandler == null) {
+            throw new NullPointerException("traceHandler must not be null");
+        }
+        // the result of master and slave are compared. no streaming
+        final List<List<SpanBo>> spanBos = selectAllSpans(transactionIdList);
+        if (spanBos == null) {
+            return;
+        }
+        for (List<SpanBo> transaction : spanBos) {
+            traceHandler.handle(transaction);
+        }
+    }
+
 }
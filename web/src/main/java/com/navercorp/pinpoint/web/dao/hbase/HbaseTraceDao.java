@@ -24,6 +24,7 @@ import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.common.server.bo.serializer.RowKeyEncoder;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
 import com.navercorp.pinpoint.web.mapper.CellTraceMapper;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.hadoop.hbase.client.Get;
@@ -107,6 +108,26 @@ public class HbaseTraceDao implements TraceDao {
         return partitionSelect(splitTransactionIdList, hBaseFamilyList);
     }
 
+    @Override
+    public void selectAllSpans(List<TransactionId> transactionIdList, TraceHandler traceHandler) {
+        if (traceHandler == null) {
+            throw new NullPointerException("traceHandler must not be null");
+        }
+        if (CollectionUtils.isEmpty(transactionIdList)) {
+            return;
+        }
+
+        List<byte[]> hBaseFamilyList = new ArrayList<>(2);
+        hBaseFamilyList.add(HBaseTables.TRACES_CF_SPAN);
+        hBaseFamilyList.add(HBaseTables.TRACES_CF_TERMINALSPAN);
+
+        for (List<TransactionId> partition : partition(transactionIdList, selectAllSpansLimit)) {
+            for (List<SpanBo> transaction : select0(partition, hBaseFamilyList)) {
+                traceHandler.handle(transaction);
+            }
+        }
+    }
+
     @Override
     public List<List<SpanBo>> selectAllSpans(List<TransactionId> transactionIdList) {
         return selectAllSpans(transactionIdList, selectAllSpansLimit);
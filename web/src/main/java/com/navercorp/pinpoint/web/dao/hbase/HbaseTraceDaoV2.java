@@ -8,8 +8,10 @@ import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.server.bo.serializer.RowKeyEncoder;
 import com.navercorp.pinpoint.common.server.bo.serializer.trace.v2.SpanEncoder;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
 import com.navercorp.pinpoint.web.mapper.CellTraceMapper;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.hadoop.hbase.client.Get;
@@ -17,6 +19,7 @@ import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.QualifierFilter;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,9 +27,21 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Woonduk Kang(emeroad)
@@ -54,9 +69,57 @@ public class HbaseTraceDaoV2 implements TraceDao {
     @Value("#{pinpointWebProps['web.hbase.selectAllSpans.limit'] ?: 500}")
     private int selectAllSpansLimit;
 
+    @Value("#{pinpointWebProps['web.hbase.selectSpans.parallel.enable'] ?: false}")
+    private boolean parallelEnable;
+
+    @Value("#{pinpointWebProps['web.hbase.selectSpans.parallel.threadSize'] ?: 8}")
+    private int parallelThreadSize;
+
+    @Value("#{pinpointWebProps['web.hbase.selectSpans.parallel.queueSize'] ?: 1024}")
+    private int parallelQueueSize;
+
+    // sort Gets by row key so that each multi-get hits as few regions as possible
+    @Value("#{pinpointWebProps['web.hbase.selectSpans.parallel.sortRowKey'] ?: true}")
+    private boolean sortRowKey;
+
+    private ExecutorService executor;
+
     private final Filter spanFilter = createSpanQualifierFilter();
 
 
+    @PostConstruct
+    public void init() {
+        if (!parallelEnable) {
+            return;
+        }
+        if (parallelThreadSize <= 0) {
+            throw new IllegalArgumentException("parallelThreadSize must be greater than 0");
+        }
+        if (parallelQueueSize <= 0) {
+            throw new IllegalArgumentException("parallelQueueSize must be greater than 0");
+        }
+        final PinpointThreadFactory threadFactory = new PinpointThreadFactory("Pinpoint-TraceDao-Select", true);
+        // bounded. the request thread runs the partition itself when the queue is full
+        this.executor = new ThreadPoolExecutor(parallelThreadSize, parallelThreadSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(parallelQueueSize), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        logger.info("parallel select enabled. threadSize:{}, queueSize:{}, sortRowKey:{}", parallelThreadSize, parallelQueueSize, sortRowKey);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        final ExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
     @Autowired
     @Qualifier("spanMapperV2")
     public void setSpanMapperV2(RowMapper<List<SpanBo>> spanMapperV2) {
@@ -108,6 +171,30 @@ public class HbaseTraceDaoV2 implements TraceDao {
         return partitionSelect(partitionTransactionIdList, HBaseTables.TRACE_V2_CF_SPAN, null);
     }
 
+    @Override
+    public void selectAllSpans(List<TransactionId> transactionIdList, TraceHandler traceHandler) {
+        selectAllSpans(transactionIdList, selectAllSpansLimit, traceHandler);
+    }
+
+    void selectAllSpans(List<TransactionId> transactionIdList, int eachPartitionSize, TraceHandler traceHandler) {
+        if (traceHandler == null) {
+            throw new NullPointerException("traceHandler must not be null");
+        }
+        if (CollectionUtils.isEmpty(transactionIdList)) {
+            return;
+        }
+
+        List<List<TransactionId>> partitionTransactionIdList = partition(transactionIdList, eachPartitionSize);
+
+        if (executor != null && partitionTransactionIdList.size() > 1) {
+            parallelSelect(partitionTransactionIdList, HBaseTables.TRACE_V2_CF_SPAN, null, traceHandler);
+            return;
+        }
+        for (List<TransactionId> partition : partitionTransactionIdList) {
+            handle(select0(partition, HBaseTables.TRACE_V2_CF_SPAN, null), traceHandler);
+        }
+    }
+
 
     private List<List<TransactionId>> partition(List<TransactionId> transactionIdList, int maxTransactionIdListSize) {
         return Lists.partition(transactionIdList, maxTransactionIdListSize);
@@ -121,6 +208,10 @@ public class HbaseTraceDaoV2 implements TraceDao {
             throw new NullPointerException("columnFamily may not be null.");
         }
 
+        if (executor != null && partitionTransactionIdList.size() > 1) {
+            return parallelSelect(partitionTransactionIdList, columnFamily, filter);
+        }
+
         List<List<SpanBo>> spanBoList = new ArrayList<>();
         for (List<TransactionId> transactionIdList : partitionTransactionIdList) {
             List<List<SpanBo>> partitionSpanList = select0(transactionIdList, columnFamily, filter);
@@ -129,6 +220,161 @@ public class HbaseTraceDaoV2 implements TraceDao {
         return spanBoList;
     }
 
+    private List<List<SpanBo>> parallelSelect(List<List<TransactionId>> partitionTransactionIdList, byte[] columnFamily, Filter filter) {
+        final List<IndexedGet> indexedGetList = new ArrayList<>();
+        for (List<TransactionId> transactionIdList : partitionTransactionIdList) {
+            for (TransactionId transactionId : transactionIdList) {
+                final Get get = createGet(transactionId, columnFamily, filter);
+                indexedGetList.add(new IndexedGet(indexedGetList.size(), get));
+            }
+        }
+        if (sortRowKey) {
+            Collections.sort(indexedGetList, ROW_KEY_COMPARATOR);
+        }
+
+        final List<Future<List<List<SpanBo>>>> futureList = new ArrayList<>(partitionTransactionIdList.size());
+        final List<List<IndexedGet>> partitionGetList = new ArrayList<>(partitionTransactionIdList.size());
+        int offset = 0;
+        for (List<TransactionId> transactionIdList : partitionTransactionIdList) {
+            final List<IndexedGet> partition = indexedGetList.subList(offset, offset + transactionIdList.size());
+            offset += transactionIdList.size();
+
+            final List<Get> multiGet = new ArrayList<>(partition.size());
+            for (IndexedGet indexedGet : partition) {
+                multiGet.add(indexedGet.get);
+            }
+            partitionGetList.add(partition);
+            futureList.add(executor.submit(new MultiGetTask(multiGet)));
+        }
+
+        // restore the order of the requested transactionIds
+        final List<List<SpanBo>> result = new ArrayList<>(Collections.<List<SpanBo>>nCopies(indexedGetList.size(), null));
+        for (int i = 0; i < futureList.size(); i++) {
+            final List<IndexedGet> partition = partitionGetList.get(i);
+            final List<List<SpanBo>> partitionSpanList = getResult(futureList, i);
+            if (partitionSpanList.size() != partition.size()) {
+                throw new IllegalStateException("unexpected multi-get result size. expected:" + partition.size() + ", actual:" + partitionSpanList.size());
+            }
+            for (int j = 0; j < partition.size(); j++) {
+                result.set(partition.get(j).index, partitionSpanList.get(j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * hands each partition to the handler in completion order. decoded partitions are not held until the last one arrives.
+     */
+    private void parallelSelect(List<List<TransactionId>> partitionTransactionIdList, byte[] columnFamily, Filter filter, TraceHandler traceHandler) {
+        final List<Get> getList = new ArrayList<>();
+        for (List<TransactionId> transactionIdList : partitionTransactionIdList) {
+            for (TransactionId transactionId : transactionIdList) {
+                getList.add(createGet(transactionId, columnFamily, filter));
+            }
+        }
+        if (sortRowKey) {
+            Collections.sort(getList, GET_ROW_KEY_COMPARATOR);
+        }
+
+        final CompletionService<List<List<SpanBo>>> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<List<List<SpanBo>>>> futureList = new ArrayList<>(partitionTransactionIdList.size());
+        int offset = 0;
+        for (List<TransactionId> transactionIdList : partitionTransactionIdList) {
+            final List<Get> multiGet = new ArrayList<>(getList.subList(offset, offset + transactionIdList.size()));
+            offset += transactionIdList.size();
+            futureList.add(completionService.submit(new MultiGetTask(multiGet)));
+        }
+
+        for (int i = 0; i < futureList.size(); i++) {
+            final List<List<SpanBo>> partitionSpanList = takeResult(completionService, futureList);
+            handle(partitionSpanList, traceHandler);
+        }
+    }
+
+    private void handle(List<List<SpanBo>> partitionSpanList, TraceHandler traceHandler) {
+        for (List<SpanBo> transaction : partitionSpanList) {
+            traceHandler.handle(transaction);
+        }
+    }
+
+    private List<List<SpanBo>> takeResult(CompletionService<List<List<SpanBo>>> completionService, List<Future<List<List<SpanBo>>>> futureList) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            cancel(futureList);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel select interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(futureList);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("parallel select failed", cause);
+        }
+    }
+
+    private List<List<SpanBo>> getResult(List<Future<List<List<SpanBo>>>> futureList, int index) {
+        try {
+            return futureList.get(index).get();
+        } catch (InterruptedException e) {
+            cancel(futureList);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel select interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(futureList);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("parallel select failed", cause);
+        }
+    }
+
+    private void cancel(List<Future<List<List<SpanBo>>>> futureList) {
+        for (Future<List<List<SpanBo>>> future : futureList) {
+            future.cancel(true);
+        }
+    }
+
+    private class MultiGetTask implements Callable<List<List<SpanBo>>> {
+
+        private final List<Get> multiGet;
+
+        private MultiGetTask(List<Get> multiGet) {
+            this.multiGet = multiGet;
+        }
+
+        @Override
+        public List<List<SpanBo>> call() throws Exception {
+            return template2.get(HBaseTables.TRACE_V2, multiGet, spanMapperV2);
+        }
+    }
+
+    private static final Comparator<IndexedGet> ROW_KEY_COMPARATOR = new Comparator<IndexedGet>() {
+        @Override
+        public int compare(IndexedGet o1, IndexedGet o2) {
+            return Bytes.compareTo(o1.get.getRow(), o2.get.getRow());
+        }
+    };
+
+    private static final Comparator<Get> GET_ROW_KEY_COMPARATOR = new Comparator<Get>() {
+        @Override
+        public int compare(Get o1, Get o2) {
+            return Bytes.compareTo(o1.getRow(), o2.getRow());
+        }
+    };
+
+    private static class IndexedGet {
+        private final int index;
+        private final Get get;
+
+        private IndexedGet(int index, Get get) {
+            this.index = index;
+            this.get = get;
+        }
+    }
+
     private List<List<SpanBo>> select0(List<TransactionId> transactionIdList, byte[] columnFamily, Filter filter) {
         if (CollectionUtils.isEmpty(transactionIdList)) {
             return Collections.emptyList();
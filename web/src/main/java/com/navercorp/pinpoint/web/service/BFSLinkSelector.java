@@ -36,10 +36,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Breadth-first link search
  * not thread safe
+ * <p>
+ * With an executor, the caller/callee scans of each depth level are issued concurrently.
+ * Only the dao calls run on the executor; the visit checker, the next queue and the result map
+ * are touched by the calling thread alone.
+ * With a timeout, the search stops at the deadline and returns the links found so far as truncated.
+ *
  * @author emeroad
  * @author minwoo.jung
  */
@@ -63,7 +75,24 @@ public class BFSLinkSelector implements LinkSelector {
     
     private ServerMapDataFilter serverMapDataFilter;
 
+    private final ExecutorService executor;
+
+    private final long timeoutMillis;
+
+    private long deadline;
+
+    private boolean truncated;
+
     public BFSLinkSelector(MapStatisticsCallerDao mapStatisticsCallerDao, MapStatisticsCalleeDao mapStatisticsCalleeDao, HostApplicationMapDao hostApplicationMapDao, ServerMapDataFilter serverMapDataFilter) {
+        this(mapStatisticsCallerDao, mapStatisticsCalleeDao, hostApplicationMapDao, serverMapDataFilter, null, -1);
+    }
+
+    /**
+     * @param executor runs the scans of a depth level concurrently. null for sequential search
+     * @param timeoutMillis search deadline. -1 for no deadline
+     */
+    public BFSLinkSelector(MapStatisticsCallerDao mapStatisticsCallerDao, MapStatisticsCalleeDao mapStatisticsCalleeDao, HostApplicationMapDao hostApplicationMapDao, ServerMapDataFilter serverMapDataFilter,
+                           ExecutorService executor, long timeoutMillis) {
         if (mapStatisticsCalleeDao == null) {
             throw new NullPointerException("mapStatisticsCalleeDao must not be null");
         }
@@ -77,6 +106,8 @@ public class BFSLinkSelector implements LinkSelector {
         this.mapStatisticsCallerDao = mapStatisticsCallerDao;
         this.hostApplicationMapDao = hostApplicationMapDao;
         this.serverMapDataFilter = serverMapDataFilter;
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
     }
 
     /**
@@ -88,50 +119,193 @@ public class BFSLinkSelector implements LinkSelector {
      */
     private LinkDataDuplexMap selectLink(List<Application> targetApplicationList, Range range, SearchDepth callerDepth, SearchDepth calleeDepth) {
 
-        final LinkDataDuplexMap searchResult = new LinkDataDuplexMap();
-
+        final List<Application> callerTargetList = new ArrayList<>();
+        final List<Application> calleeTargetList = new ArrayList<>();
         for (Application targetApplication : targetApplicationList) {
-            final boolean searchCallerNode = checkNextCaller(targetApplication, callerDepth);
-            if (searchCallerNode) {
-                final LinkDataMap caller = mapStatisticsCallerDao.selectCaller(targetApplication, range);
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Found Caller. count={}, caller={}, depth={}", caller.size(), targetApplication, callerDepth.getDepth());
-                }
+            if (checkNextCaller(targetApplication, callerDepth)) {
+                callerTargetList.add(targetApplication);
+            }
+            if (checkNextCallee(targetApplication, calleeDepth)) {
+                calleeTargetList.add(targetApplication);
+            }
+        }
+
+        final List<Callable<LinkDataMap>> scanList = new ArrayList<>(callerTargetList.size() + calleeTargetList.size());
+        for (Application callerTarget : callerTargetList) {
+            scanList.add(new CallerScan(callerTarget, range));
+        }
+        for (Application calleeTarget : calleeTargetList) {
+            scanList.add(new CalleeScan(calleeTarget, range));
+        }
+        // null for the scans not finished before the deadline
+        final List<LinkDataMap> scanResultList = scan(scanList);
+
+        final LinkDataDuplexMap searchResult = new LinkDataDuplexMap();
 
-                final LinkDataMap replaceRpcCaller = replaceRpcCaller(caller, range);
+        for (int i = 0; i < callerTargetList.size(); i++) {
+            final LinkDataMap caller = scanResultList.get(i);
+            if (caller == null) {
+                continue;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Found Caller. count={}, caller={}, depth={}", caller.size(), callerTargetList.get(i), callerDepth.getDepth());
+            }
 
-                for (LinkData link : replaceRpcCaller.getLinkDataList()) {
-                    searchResult.addSourceLinkData(link);
+            final LinkDataMap replaceRpcCaller = replaceRpcCaller(caller, range);
 
-                    final Application toApplication = link.getToApplication();
-                    // skip if nextApplication is a terminal or an unknown cloud
-                    if (toApplication.getServiceType().isTerminal() || toApplication.getServiceType().isUnknown()) {
-                        continue;
-                    }
+            for (LinkData link : replaceRpcCaller.getLinkDataList()) {
+                searchResult.addSourceLinkData(link);
 
-                    addNextNode(toApplication);
+                final Application toApplication = link.getToApplication();
+                // skip if nextApplication is a terminal or an unknown cloud
+                if (toApplication.getServiceType().isTerminal() || toApplication.getServiceType().isUnknown()) {
+                    continue;
                 }
+
+                addNextNode(toApplication);
             }
+        }
 
-            final boolean searchCalleeNode = checkNextCallee(targetApplication, calleeDepth);
-            if (searchCalleeNode) {
-                final LinkDataMap callee = mapStatisticsCalleeDao.selectCallee(targetApplication, range);
-                if (logger.isInfoEnabled()) {
-                    logger.debug("Found Callee. count={}, callee={}, depth={}", callee.size(), targetApplication, calleeDepth.getDepth());
-                }
-                for (LinkData stat : callee.getLinkDataList()) {
-                    
-                    searchResult.addTargetLinkData(stat);
+        for (int i = 0; i < calleeTargetList.size(); i++) {
+            final LinkDataMap callee = scanResultList.get(callerTargetList.size() + i);
+            if (callee == null) {
+                continue;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Found Callee. count={}, callee={}, depth={}", callee.size(), calleeTargetList.get(i), calleeDepth.getDepth());
+            }
+            for (LinkData stat : callee.getLinkDataList()) {
 
-                    final Application fromApplication = stat.getFromApplication();
-                    addNextNode(fromApplication);
-                }
+                searchResult.addTargetLinkData(stat);
+
+                final Application fromApplication = stat.getFromApplication();
+                addNextNode(fromApplication);
             }
         }
         logger.debug("{} depth search end", callerDepth.getDepth());
         return searchResult;
     }
 
+    private List<LinkDataMap> scan(List<Callable<LinkDataMap>> scanList) {
+        if (executor == null || scanList.size() <= 1) {
+            return sequentialScan(scanList);
+        }
+        return parallelScan(scanList);
+    }
+
+    private List<LinkDataMap> sequentialScan(List<Callable<LinkDataMap>> scanList) {
+        final List<LinkDataMap> result = new ArrayList<>(scanList.size());
+        for (Callable<LinkDataMap> scan : scanList) {
+            if (isTimeout()) {
+                this.truncated = true;
+                result.add(null);
+                continue;
+            }
+            result.add(call(scan));
+        }
+        return result;
+    }
+
+    private LinkDataMap call(Callable<LinkDataMap> scan) {
+        try {
+            return scan.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<LinkDataMap> parallelScan(List<Callable<LinkDataMap>> scanList) {
+        final List<Future<LinkDataMap>> futureList = new ArrayList<>(scanList.size());
+        for (Callable<LinkDataMap> scan : scanList) {
+            futureList.add(executor.submit(scan));
+        }
+
+        final List<LinkDataMap> result = new ArrayList<>(futureList.size());
+        for (Future<LinkDataMap> future : futureList) {
+            result.add(getResult(future, futureList));
+        }
+        return result;
+    }
+
+    private LinkDataMap getResult(Future<LinkDataMap> future, List<Future<LinkDataMap>> futureList) {
+        try {
+            if (truncated) {
+                // collect only what is already done
+                if (future.isDone() && !future.isCancelled()) {
+                    return future.get();
+                }
+                future.cancel(true);
+                return null;
+            }
+            if (timeoutMillis < 0) {
+                return future.get();
+            }
+            final long remain = Math.max(deadline - System.currentTimeMillis(), 0);
+            return future.get(remain, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.info("link search timeout. timeout:{}ms", timeoutMillis);
+            this.truncated = true;
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            cancel(futureList);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("link search interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(futureList);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("link search failed", cause);
+        }
+    }
+
+    private void cancel(List<Future<LinkDataMap>> futureList) {
+        for (Future<LinkDataMap> future : futureList) {
+            future.cancel(true);
+        }
+    }
+
+    private boolean isTimeout() {
+        if (timeoutMillis < 0) {
+            return false;
+        }
+        return System.currentTimeMillis() >= deadline;
+    }
+
+    private class CallerScan implements Callable<LinkDataMap> {
+        private final Application application;
+        private final Range range;
+
+        private CallerScan(Application application, Range range) {
+            this.application = application;
+            this.range = range;
+        }
+
+        @Override
+        public LinkDataMap call() throws Exception {
+            return mapStatisticsCallerDao.selectCaller(application, range);
+        }
+    }
+
+    private class CalleeScan implements Callable<LinkDataMap> {
+        private final Application application;
+        private final Range range;
+
+        private CalleeScan(Application application, Range range) {
+            this.application = application;
+            this.range = range;
+        }
+
+        @Override
+        public LinkDataMap call() throws Exception {
+            return mapStatisticsCalleeDao.selectCallee(application, range);
+        }
+    }
+
     private void addNextNode(Application sourceApplication) {
         final boolean add = this.nextQueue.addNextNode(sourceApplication);
         if (!add) {
@@ -339,6 +513,7 @@ public class BFSLinkSelector implements LinkSelector {
         SearchDepth calleeDepth = new SearchDepth(searchOption.getCalleeSearchDepth());
 
         logger.debug("ApplicationMap select {}", sourceApplication);
+        this.deadline = System.currentTimeMillis() + timeoutMillis;
         addNextNode(sourceApplication);
 
         LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
@@ -354,15 +529,23 @@ public class BFSLinkSelector implements LinkSelector {
 
             callerDepth = callerDepth.nextDepth();
             calleeDepth = calleeDepth.nextDepth();
+
+            if (truncated) {
+                logger.info("link search truncated. application:{} depth caller:{} callee:{} remaining:{}", sourceApplication, callerDepth.getDepth(), calleeDepth.getDepth(), nextQueue.copyAndClear());
+                break;
+            }
         }
 
         if (!emulationLinkMarker.isEmpty()) {
             logger.debug("Link emulation size:{}", emulationLinkMarker.size());
             // special case
-            checkUnsearchEmulationCalleeNode(linkDataDuplexMap, range);
+            if (!truncated) {
+                checkUnsearchEmulationCalleeNode(linkDataDuplexMap, range);
+            }
             fillEmulationLink(linkDataDuplexMap, range);
         }
 
+        linkDataDuplexMap.setTruncated(truncated);
         return linkDataDuplexMap;
     }
 
@@ -32,6 +32,7 @@ import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataDuplexMap;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
 import com.navercorp.pinpoint.web.dao.ApplicationTraceIndexDao;
 import com.navercorp.pinpoint.web.dao.TraceDao;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
 import com.navercorp.pinpoint.web.filter.Filter;
 import com.navercorp.pinpoint.web.security.ServerMapDataFilter;
 import com.navercorp.pinpoint.web.util.TimeWindow;
@@ -140,8 +141,9 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         StopWatch watch = new StopWatch();
         watch.start();
 
-        List<List<SpanBo>> originalList = this.traceDao.selectAllSpans(traceIdSet);
-        List<SpanBo> filteredTransactionList = filterList(originalList, filter);
+        final FilteringTraceHandler traceHandler = new FilteringTraceHandler(filter);
+        this.traceDao.selectAllSpans(traceIdSet, traceHandler);
+        List<SpanBo> filteredTransactionList = flatten(traceHandler.getFilteredList());
 
         LoadFactor statistics = new LoadFactor(range);
 
@@ -175,24 +177,36 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         return statistics;
     }
 
-    private List<SpanBo> filterList(List<List<SpanBo>> transactionList, Filter filter) {
-        final List<SpanBo> filteredResult = new ArrayList<>();
+    private List<SpanBo> flatten(List<List<SpanBo>> transactionList) {
+        final List<SpanBo> result = new ArrayList<>();
         for (List<SpanBo> transaction : transactionList) {
-            if (filter.include(transaction)) {
-                filteredResult.addAll(transaction);
-            }
+            result.addAll(transaction);
         }
-        return filteredResult;
+        return result;
     }
 
-    private List<List<SpanBo>> filterList2(List<List<SpanBo>> transactionList, Filter filter) {
-        final List<List<SpanBo>> filteredResult = new ArrayList<>();
-        for (List<SpanBo> transaction : transactionList) {
+    /**
+     * keeps only the transactions accepted by the filter while the partitions arrive
+     */
+    private static class FilteringTraceHandler implements TraceHandler {
+
+        private final Filter filter;
+        private final List<List<SpanBo>> filteredList = new ArrayList<>();
+
+        private FilteringTraceHandler(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public void handle(List<SpanBo> transaction) {
             if (filter.include(transaction)) {
-                filteredResult.add(transaction);
+                filteredList.add(transaction);
             }
         }
-        return filteredResult;
+
+        public List<List<SpanBo>> getFilteredList() {
+            return filteredList;
+        }
     }
 
     @Override
@@ -266,9 +280,10 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         final List<TransactionId> recursiveFilterList = recursiveCallFilter(transactionIdList);
 
         // FIXME might be better to simply traverse the List<Span> and create a process chain for execution
-        final List<List<SpanBo>> originalList = this.traceDao.selectAllSpans(recursiveFilterList);
+        final FilteringTraceHandler traceHandler = new FilteringTraceHandler(filter);
+        this.traceDao.selectAllSpans(recursiveFilterList, traceHandler);
 
-        return filterList2(originalList, filter);
+        return traceHandler.getFilteredList();
     }
 
     private DotExtractor createDotExtractor(Range scanRange, List<List<SpanBo>> filterList) {
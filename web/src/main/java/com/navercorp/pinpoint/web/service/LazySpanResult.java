@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.navercorp.pinpoint.web.service;
+
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.web.calltree.span.CallTreeNode;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * spans of a transaction aligned lazily. (see {@link com.navercorp.pinpoint.web.calltree.span.SpanAligner2#sortLazily()})
+ * the spans are aligned while the call tree is walked from the root, so do not keep the result once the walk has started.
+ *
+ * @author agent
+ */
+public class LazySpanResult {
+
+    private final int completeType;
+    private final CallTreeNode root;
+    private final List<SpanBo> spanList;
+
+    /**
+     * @param root null if the call tree could not be aligned
+     * @param spanList spans of the transaction, not in call tree order
+     */
+    public LazySpanResult(int completeType, CallTreeNode root, List<SpanBo> spanList) {
+        if (spanList == null) {
+            throw new NullPointerException("spanList must not be null");
+        }
+        this.completeType = completeType;
+        this.root = root;
+        this.spanList = spanList;
+    }
+
+    public int getCompleteType() {
+        return completeType;
+    }
+
+    public CallTreeNode getRoot() {
+        return root;
+    }
+
+    public List<SpanBo> getSpanList() {
+        return Collections.unmodifiableList(spanList);
+    }
+
+    public String getCompleteTypeString() {
+        return SpanResult.getCompleteTypeString(completeType);
+    }
+}
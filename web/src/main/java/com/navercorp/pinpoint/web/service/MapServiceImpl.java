@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.web.service;
 
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMap;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMapBuilder;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.AgentHistogramList;
@@ -25,6 +26,7 @@ import com.navercorp.pinpoint.web.dao.MapResponseDao;
 import com.navercorp.pinpoint.web.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.web.dao.MapStatisticsCallerDao;
 import com.navercorp.pinpoint.web.security.ServerMapDataFilter;
+import com.navercorp.pinpoint.web.service.map.LinkDataMapCache;
 import com.navercorp.pinpoint.web.view.ApplicationTimeHistogramViewModel;
 import com.navercorp.pinpoint.web.vo.Application;
 import com.navercorp.pinpoint.web.vo.Range;
@@ -33,10 +35,17 @@ import com.navercorp.pinpoint.web.vo.SearchOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author netspider
@@ -69,6 +78,56 @@ public class MapServiceImpl implements MapService {
     @Autowired(required=false)
     private ServerMapDataFilter serverMapDataFilter;
 
+    @Autowired
+    private LinkDataMapCache linkDataMapCache;
+
+    @Value("#{pinpointWebProps['web.servermap.search.parallel.enable'] ?: false}")
+    private boolean parallelSearchEnable;
+
+    @Value("#{pinpointWebProps['web.servermap.search.parallel.threadSize'] ?: 16}")
+    private int parallelSearchThreadSize;
+
+    @Value("#{pinpointWebProps['web.servermap.search.parallel.queueSize'] ?: 1024}")
+    private int parallelSearchQueueSize;
+
+    // -1 : no deadline
+    @Value("#{pinpointWebProps['web.servermap.search.timeout'] ?: -1}")
+    private long searchTimeout;
+
+    private ExecutorService searchExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!parallelSearchEnable) {
+            return;
+        }
+        if (parallelSearchThreadSize <= 0) {
+            throw new IllegalArgumentException("parallelSearchThreadSize must be greater than 0");
+        }
+        if (parallelSearchQueueSize <= 0) {
+            throw new IllegalArgumentException("parallelSearchQueueSize must be greater than 0");
+        }
+        final PinpointThreadFactory threadFactory = new PinpointThreadFactory("Pinpoint-ServerMap-Search", true);
+        // bounded. the request thread runs the scan itself when the queue is full
+        this.searchExecutor = new ThreadPoolExecutor(parallelSearchThreadSize, parallelSearchThreadSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(parallelSearchQueueSize), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        logger.info("parallel server map search enabled. threadSize:{}, queueSize:{}, timeout:{}", parallelSearchThreadSize, parallelSearchQueueSize, searchTimeout);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        final ExecutorService searchExecutor = this.searchExecutor;
+        if (searchExecutor == null) {
+            return;
+        }
+        searchExecutor.shutdown();
+        try {
+            searchExecutor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Used in the main UI - draws the server map by querying the timeslot by time.
      */
@@ -85,7 +144,9 @@ public class MapServiceImpl implements MapService {
         StopWatch watch = new StopWatch("ApplicationMap");
         watch.start("ApplicationMap Hbase Io Fetch(Caller,Callee) Time");
 
-        LinkSelector linkSelector = new BFSLinkSelector(this.mapStatisticsCallerDao, this.mapStatisticsCalleeDao, hostApplicationMapDao, serverMapDataFilter);
+        final MapStatisticsCallerDao callerDao = linkDataMapCache.wrap(this.mapStatisticsCallerDao);
+        final MapStatisticsCalleeDao calleeDao = linkDataMapCache.wrap(this.mapStatisticsCalleeDao);
+        LinkSelector linkSelector = new BFSLinkSelector(callerDao, calleeDao, hostApplicationMapDao, serverMapDataFilter, searchExecutor, searchTimeout);
         LinkDataDuplexMap linkDataDuplexMap = linkSelector.select(sourceApplication, range, searchOption);
         watch.stop();
 
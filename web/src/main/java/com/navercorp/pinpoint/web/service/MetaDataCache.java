@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.navercorp.pinpoint.common.server.bo.ApiMetaDataBo;
+import com.navercorp.pinpoint.common.server.bo.SqlMetaDataBo;
+import com.navercorp.pinpoint.common.server.bo.StringMetaDataBo;
+import com.navercorp.pinpoint.web.dao.ApiMetaDataDao;
+import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
+import com.navercorp.pinpoint.web.dao.StringMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves sql/api/string metadata with one multi-get per metadata table.
+ * Metadata of an (agentId, agentStartTime, id) never changes, so the found entries are shared across requests.
+ * Not found entries are not cached since the agent may send the metadata later.
+ *
+ * @author agent
+ */
+@Component
+public class MetaDataCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("#{pinpointWebProps['web.metadata.cache.maxSize'] ?: 100000}")
+    private long maxSize;
+
+    private Cache<MetaDataKey, List<SqlMetaDataBo>> sqlMetaDataCache;
+    private Cache<MetaDataKey, List<ApiMetaDataBo>> apiMetaDataCache;
+    private Cache<MetaDataKey, List<StringMetaDataBo>> stringMetaDataCache;
+
+    @PostConstruct
+    public void init() {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.sqlMetaDataCache = createCache();
+        this.apiMetaDataCache = createCache();
+        this.stringMetaDataCache = createCache();
+        logger.info("metadata cache maxSize:{}", maxSize);
+    }
+
+    private <T> Cache<MetaDataKey, List<T>> createCache() {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Map<MetaDataKey, List<SqlMetaDataBo>> getSqlMetaData(Collection<MetaDataKey> keys, final SqlMetaDataDao sqlMetaDataDao) {
+        if (sqlMetaDataDao == null) {
+            throw new NullPointerException("sqlMetaDataDao must not be null");
+        }
+        return resolve(sqlMetaDataCache, keys, new MultiGet<SqlMetaDataBo>() {
+            @Override
+            public List<List<SqlMetaDataBo>> get(List<MetaDataKey> keyList) {
+                return sqlMetaDataDao.getSqlMetaData(keyList);
+            }
+        });
+    }
+
+    public Map<MetaDataKey, List<ApiMetaDataBo>> getApiMetaData(Collection<MetaDataKey> keys, final ApiMetaDataDao apiMetaDataDao) {
+        if (apiMetaDataDao == null) {
+            throw new NullPointerException("apiMetaDataDao must not be null");
+        }
+        return resolve(apiMetaDataCache, keys, new MultiGet<ApiMetaDataBo>() {
+            @Override
+            public List<List<ApiMetaDataBo>> get(List<MetaDataKey> keyList) {
+                return apiMetaDataDao.getApiMetaData(keyList);
+            }
+        });
+    }
+
+    public Map<MetaDataKey, List<StringMetaDataBo>> getStringMetaData(Collection<MetaDataKey> keys, final StringMetaDataDao stringMetaDataDao) {
+        if (stringMetaDataDao == null) {
+            throw new NullPointerException("stringMetaDataDao must not be null");
+        }
+        return resolve(stringMetaDataCache, keys, new MultiGet<StringMetaDataBo>() {
+            @Override
+            public List<List<StringMetaDataBo>> get(List<MetaDataKey> keyList) {
+                return stringMetaDataDao.getStringMetaData(keyList);
+            }
+        });
+    }
+
+    private <T> Map<MetaDataKey, List<T>> resolve(Cache<MetaDataKey, List<T>> cache, Collection<MetaDataKey> keys, MultiGet<T> multiGet) {
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        final Map<MetaDataKey, List<T>> result = new HashMap<>(keys.size());
+        final List<MetaDataKey> missingKeyList = new ArrayList<>();
+        for (MetaDataKey key : keys) {
+            final List<T> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else if (!result.containsKey(key)) {
+                result.put(key, null);
+                missingKeyList.add(key);
+            }
+        }
+        if (missingKeyList.isEmpty()) {
+            return result;
+        }
+
+        final List<List<T>> metaDataList = multiGet.get(missingKeyList);
+        if (metaDataList.size() != missingKeyList.size()) {
+            throw new IllegalStateException("unexpected multi-get result size. expected:" + missingKeyList.size() + ", actual:" + metaDataList.size());
+        }
+        for (int i = 0; i < missingKeyList.size(); i++) {
+            final MetaDataKey key = missingKeyList.get(i);
+            final List<T> metaData = metaDataList.get(i);
+            if (metaData == null || metaData.isEmpty()) {
+                result.put(key, Collections.<T>emptyList());
+                continue;
+            }
+            final List<T> immutable = Collections.unmodifiableList(new ArrayList<>(metaData));
+            cache.put(key, immutable);
+            result.put(key, immutable);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("metadata resolved. keys:{}, multi-get:{}", result.size(), missingKeyList.size());
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        sqlMetaDataCache.invalidateAll();
+        apiMetaDataCache.invalidateAll();
+        stringMetaDataCache.invalidateAll();
+    }
+
+    private interface MultiGet<T> {
+        List<List<T>> get(List<MetaDataKey> keyList);
+    }
+}
@@ -44,6 +44,10 @@ public class SpanResult {
     }
 
     public String getCompleteTypeString() {
+        return getCompleteTypeString(completeType);
+    }
+
+    static String getCompleteTypeString(int completeType) {
         switch (completeType) {
             case SpanAligner2.BEST_MATCH:
                 return "Complete";
@@ -17,10 +17,21 @@
 package com.navercorp.pinpoint.web.service;
 
 import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.web.calltree.span.SpanAlign;
+
+import java.util.List;
 
 /**
  * @author emeroad
  */
 public interface SpanService {
     SpanResult selectSpan(TransactionId transactionId, long selectedSpanHint);
+
+    /**
+     * aligns the spans lazily and without resolving their metadata(api, sql, string, exception).
+     * the nodes to show must be passed to {@link #transitionMetaData(List)} exactly once.
+     */
+    LazySpanResult selectSpanLazily(TransactionId transactionId, long selectedSpanHint);
+
+    void transitionMetaData(List<SpanAlign> spanAlignList);
 }
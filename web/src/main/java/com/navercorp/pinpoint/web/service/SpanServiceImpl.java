@@ -17,7 +17,11 @@
 package com.navercorp.pinpoint.web.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.server.bo.AnnotationBo;
 import com.navercorp.pinpoint.common.server.bo.ApiMetaDataBo;
@@ -43,6 +47,7 @@ import com.navercorp.pinpoint.web.dao.StringMetaDataDao;
 import com.navercorp.pinpoint.web.dao.TraceDao;
 import com.navercorp.pinpoint.web.security.MetaDataFilter;
 import com.navercorp.pinpoint.web.security.MetaDataFilter.MetaData;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -77,6 +82,9 @@ public class SpanServiceImpl implements SpanService {
     @Autowired
     private StringMetaDataDao stringMetaDataDao;
 
+    @Autowired
+    private MetaDataCache metaDataCache;
+
     private final SqlParser sqlParser = new DefaultSqlParser();
     private final OutputParameterParser outputParameterParser = new OutputParameterParser();
 
@@ -97,17 +105,83 @@ public class SpanServiceImpl implements SpanService {
 
         final SpanResult result = order(spans, selectedSpanHint);
         final CallTreeIterator callTreeIterator = result.getCallTree();
-        final List<SpanAlign> values = callTreeIterator.values();
-        
-        transitionDynamicApiId(values);
-        transitionSqlId(values);
-        transitionCachedString(values);
-        transitionException(values);
+        transitionMetaData(callTreeIterator.values());
         // TODO need to at least show the row data when root span is not found. 
         return result;
     }
 
+    @Override
+    public LazySpanResult selectSpanLazily(TransactionId transactionId, long selectedSpanHint) {
+        if (transactionId == null) {
+            throw new NullPointerException("transactionId must not be null");
+        }
+
+        final List<SpanBo> spans = traceDao.selectSpan(transactionId);
+        if (CollectionUtils.isEmpty(spans)) {
+            return new LazySpanResult(SpanAligner2.FAIL_MATCH, null, Collections.<SpanBo>emptyList());
+        }
+
+        final SpanAligner2 spanAligner = new SpanAligner2(spans, selectedSpanHint);
+        final CallTree callTree = spanAligner.sortLazily();
+        return new LazySpanResult(spanAligner.getMatchType(), callTree.getRoot(), spans);
+    }
 
+    @Override
+    public void transitionMetaData(List<SpanAlign> spanAlignList) {
+        if (spanAlignList == null) {
+            throw new NullPointerException("spanAlignList must not be null");
+        }
+        if (spanAlignList.isEmpty()) {
+            return;
+        }
+
+        final MetaDataResolution metaData = resolveMetaData(spanAlignList);
+        transitionDynamicApiId(spanAlignList, metaData);
+        transitionSqlId(spanAlignList, metaData);
+        transitionCachedString(spanAlignList, metaData);
+        transitionException(spanAlignList, metaData);
+    }
+
+
+
+    /**
+     * collects the metadata ids of the whole call tree and fetches them at once
+     */
+    private MetaDataResolution resolveMetaData(List<SpanAlign> spanAlignList) {
+        final Set<MetaDataKey> sqlKeys = new HashSet<>();
+        final Set<MetaDataKey> apiKeys = new HashSet<>();
+        final Set<MetaDataKey> stringKeys = new HashSet<>();
+        for (SpanAlign spanAlign : spanAlignList) {
+            final String agentId = spanAlign.getAgentId();
+            final long agentStartTime = spanAlign.getAgentStartTime();
+            final List<AnnotationBo> annotationBoList = spanAlign.getAnnotationBoList();
+
+            final int apiId = spanAlign.getApiId();
+            if (apiId != 0 || annotationBoList == null || AnnotationUtils.findApiAnnotation(annotationBoList) == null) {
+                apiKeys.add(new MetaDataKey(agentId, agentStartTime, apiId));
+            }
+
+            if (annotationBoList != null) {
+                final AnnotationBo sqlIdAnnotation = findAnnotation(annotationBoList, AnnotationKey.SQL_ID.getCode());
+                if (sqlIdAnnotation != null && !(metaDataFilter != null && metaDataFilter.filter(spanAlign, MetaData.SQL))) {
+                    final IntStringStringValue sqlValue = (IntStringStringValue) sqlIdAnnotation.getValue();
+                    sqlKeys.add(new MetaDataKey(agentId, agentStartTime, sqlValue.getIntValue()));
+                }
+                for (AnnotationBo annotationBo : findCachedStringAnnotation(annotationBoList)) {
+                    stringKeys.add(new MetaDataKey(agentId, agentStartTime, (Integer) annotationBo.getValue()));
+                }
+            }
+
+            if (spanAlign.hasException()) {
+                stringKeys.add(new MetaDataKey(agentId, agentStartTime, spanAlign.getExceptionId()));
+            }
+        }
+
+        final Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData = metaDataCache.getSqlMetaData(sqlKeys, sqlMetaDataDao);
+        final Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData = metaDataCache.getApiMetaData(apiKeys, apiMetaDataDao);
+        final Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData = metaDataCache.getStringMetaData(stringKeys, stringMetaDataDao);
+        return new MetaDataResolution(sqlMetaData, apiMetaData, stringMetaData);
+    }
 
     private void transitionAnnotation(List<SpanAlign> spans, AnnotationReplacementCallback annotationReplacementCallback) {
         for (SpanAlign spanAlign : spans) {
@@ -120,7 +194,7 @@ public class SpanServiceImpl implements SpanService {
         }
     }
 
-    private void transitionSqlId(final List<SpanAlign> spans) {
+    private void transitionSqlId(final List<SpanAlign> spans, final MetaDataResolution metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
@@ -138,7 +212,7 @@ public class SpanServiceImpl implements SpanService {
                 final IntStringStringValue sqlValue = (IntStringStringValue) sqlIdAnnotation.getValue();
                 final int sqlId = sqlValue.getIntValue();
                 final String sqlParam = sqlValue.getStringValue1();
-                final List<SqlMetaDataBo> sqlMetaDataList = sqlMetaDataDao.getSqlMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), sqlId);
+                final List<SqlMetaDataBo> sqlMetaDataList = metaData.getSqlMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), sqlId);
                 final int size = sqlMetaDataList.size();
                 if (size == 0) {
                     AnnotationBo api = new AnnotationBo();
@@ -231,7 +305,7 @@ public class SpanServiceImpl implements SpanService {
     }
 
 
-    private void transitionDynamicApiId(List<SpanAlign> spans) {
+    private void transitionDynamicApiId(List<SpanAlign> spans, final MetaDataResolution metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
@@ -255,7 +329,7 @@ public class SpanServiceImpl implements SpanService {
                 }
 
                 // may be able to get a more accurate data using agentIdentifier.
-                List<ApiMetaDataBo> apiMetaDataList = apiMetaDataDao.getApiMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), apiId);
+                List<ApiMetaDataBo> apiMetaDataList = metaData.getApiMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), apiId);
                 int size = apiMetaDataList.size();
                 if (size == 0) {
                     AnnotationBo api = new AnnotationBo();
@@ -295,7 +369,7 @@ public class SpanServiceImpl implements SpanService {
         });
     }
 
-    private void transitionCachedString(List<SpanAlign> spans) {
+    private void transitionCachedString(List<SpanAlign> spans, final MetaDataResolution metaData) {
         this.transitionAnnotation(spans, new AnnotationReplacementCallback() {
             @Override
             public void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList) {
@@ -307,7 +381,7 @@ public class SpanServiceImpl implements SpanService {
                 for (AnnotationBo annotationBo : cachedStringAnnotation) {
                     final int cachedArgsKey = annotationBo.getKey();
                     int stringMetaDataId = (Integer) annotationBo.getValue();
-                    List<StringMetaDataBo> stringMetaList = stringMetaDataDao.getStringMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), stringMetaDataId);
+                    List<StringMetaDataBo> stringMetaList = metaData.getStringMetaData(spanAlign.getAgentId(), spanAlign.getAgentStartTime(), stringMetaDataId);
                     int size = stringMetaList.size();
                     if (size == 0) {
                         logger.warn("StringMetaData not Found {}/{}/{}", spanAlign.getAgentId(), stringMetaDataId, spanAlign.getAgentStartTime());
@@ -343,18 +417,18 @@ public class SpanServiceImpl implements SpanService {
         return findAnnotationBoList;
     }
 
-    private void transitionException(List<SpanAlign> spanAlignList) {
+    private void transitionException(List<SpanAlign> spanAlignList, MetaDataResolution metaData) {
         for (SpanAlign spanAlign : spanAlignList) {
             if (spanAlign.hasException()) {
-                StringMetaDataBo stringMetaData = selectStringMetaData(spanAlign.getAgentId(), spanAlign.getExceptionId(), spanAlign.getAgentStartTime());
+                StringMetaDataBo stringMetaData = selectStringMetaData(spanAlign.getAgentId(), spanAlign.getExceptionId(), spanAlign.getAgentStartTime(), metaData);
                 spanAlign.setExceptionClass(stringMetaData.getStringValue());
             }
         }
 
     }
 
-    private StringMetaDataBo selectStringMetaData(String agentId, int cacheId, long agentStartTime) {
-        final List<StringMetaDataBo> metaDataList = stringMetaDataDao.getStringMetaData(agentId, agentStartTime, cacheId);
+    private StringMetaDataBo selectStringMetaData(String agentId, int cacheId, long agentStartTime, MetaDataResolution metaData) {
+        final List<StringMetaDataBo> metaDataList = metaData.getStringMetaData(agentId, agentStartTime, cacheId);
         if (metaDataList == null || metaDataList.isEmpty()) {
             logger.warn("StringMetaData not Found agent:{}, cacheId{}, agentStartTime:{}", agentId, cacheId, agentStartTime);
             StringMetaDataBo stringMetaDataBo = new StringMetaDataBo(agentId, agentStartTime, cacheId);
@@ -397,6 +471,45 @@ public class SpanServiceImpl implements SpanService {
         return apiMetaDataBo.getApiInfo();
     }
 
+    /**
+     * metadata prefetched by {@link #resolveMetaData(List)}. falls back to the dao for an id not collected
+     */
+    private class MetaDataResolution {
+        private final Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData;
+        private final Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData;
+        private final Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData;
+
+        private MetaDataResolution(Map<MetaDataKey, List<SqlMetaDataBo>> sqlMetaData, Map<MetaDataKey, List<ApiMetaDataBo>> apiMetaData, Map<MetaDataKey, List<StringMetaDataBo>> stringMetaData) {
+            this.sqlMetaData = sqlMetaData;
+            this.apiMetaData = apiMetaData;
+            this.stringMetaData = stringMetaData;
+        }
+
+        private List<SqlMetaDataBo> getSqlMetaData(String agentId, long agentStartTime, int sqlId) {
+            final List<SqlMetaDataBo> resolved = sqlMetaData.get(new MetaDataKey(agentId, agentStartTime, sqlId));
+            if (resolved != null) {
+                return resolved;
+            }
+            return sqlMetaDataDao.getSqlMetaData(agentId, agentStartTime, sqlId);
+        }
+
+        private List<ApiMetaDataBo> getApiMetaData(String agentId, long agentStartTime, int apiId) {
+            final List<ApiMetaDataBo> resolved = apiMetaData.get(new MetaDataKey(agentId, agentStartTime, apiId));
+            if (resolved != null) {
+                return resolved;
+            }
+            return apiMetaDataDao.getApiMetaData(agentId, agentStartTime, apiId);
+        }
+
+        private List<StringMetaDataBo> getStringMetaData(String agentId, long agentStartTime, int stringId) {
+            final List<StringMetaDataBo> resolved = stringMetaData.get(new MetaDataKey(agentId, agentStartTime, stringId));
+            if (resolved != null) {
+                return resolved;
+            }
+            return stringMetaDataDao.getStringMetaData(agentId, agentStartTime, stringId);
+        }
+    }
+
     public interface AnnotationReplacementCallback {
         void replacement(SpanAlign spanAlign, List<AnnotationBo> annotationBoList);
     }
@@ -24,6 +24,7 @@ import com.navercorp.pinpoint.web.filter.Filter;
 import com.navercorp.pinpoint.web.vo.BusinessTransactions;
 import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.callstacks.RecordSet;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
 
 /**
  * @author jaehong.kim
@@ -31,5 +32,13 @@ import com.navercorp.pinpoint.web.vo.callstacks.RecordSet;
 public interface TransactionInfoService {
     RecordSet createRecordSet(CallTreeIterator callTreeIterator, long focusTimestamp, String agentId, long spanId);
 
+    /**
+     * records are created on iteration instead of being collected in a list.
+     * offset and limit count call tree nodes. the nodes before the offset are walked without creating their records or resolving their metadata.
+     * @param spanResult spans from {@link SpanService#selectSpanLazily}. metadata is resolved while the records are created
+     * @param collapse collapses the sibling calls that repeat the previous call tree into one record
+     */
+    StreamingRecordSet createStreamingRecordSet(LazySpanResult spanResult, long focusTimestamp, String agentId, long spanId, int offset, int limit, boolean collapse);
+
     BusinessTransactions selectBusinessTransactions(List<TransactionId> traceIds, String applicationName, Range range, Filter filter);
 }
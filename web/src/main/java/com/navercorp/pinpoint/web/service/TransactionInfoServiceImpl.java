@@ -16,9 +16,16 @@
 
 package com.navercorp.pinpoint.web.service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
 
 import com.navercorp.pinpoint.common.server.bo.AnnotationBo;
 import com.navercorp.pinpoint.common.server.bo.Event;
@@ -30,6 +37,7 @@ import com.navercorp.pinpoint.common.trace.LoggingInfo;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.web.calltree.span.CallTreeIterator;
 import com.navercorp.pinpoint.web.calltree.span.CallTreeNode;
+import com.navercorp.pinpoint.web.calltree.span.RepeatedCallTreeMatcher;
 import com.navercorp.pinpoint.web.calltree.span.SpanAlign;
 import com.navercorp.pinpoint.web.dao.TraceDao;
 import com.navercorp.pinpoint.web.filter.Filter;
@@ -40,6 +48,8 @@ import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.callstacks.Record;
 import com.navercorp.pinpoint.web.vo.callstacks.RecordFactory;
 import com.navercorp.pinpoint.web.vo.callstacks.RecordSet;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordFactory;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,12 +64,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class TransactionInfoServiceImpl implements TransactionInfoService {
 
+    private static final String COLLAPSED_TITLE = "COLLAPSED";
+
+    // nodes resolved together while the call stack is streamed
+    private static final int METADATA_BATCH_SIZE = 200;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
     @Qualifier("hbaseTraceDaoFactory")
     private TraceDao traceDao;
 
+    @Autowired
+    private SpanService spanService;
+
     @Autowired
     private AnnotationKeyMatcherService annotationKeyMatcherService;
 
@@ -173,6 +191,76 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
         return recordSet;
     }
 
+    @Override
+    public StreamingRecordSet createStreamingRecordSet(LazySpanResult spanResult, long focusTimestamp, String agentId, long spanId, int offset, int limit, boolean collapse) {
+        if (spanResult == null) {
+            throw new NullPointerException("spanResult must not be null");
+        }
+
+        // finds the viewPoint and the logging info from the spans, the call tree is aligned only while it is walked
+        SpanAlign viewPointSpanAlign = null;
+        SpanAlign firstSpan = null;
+        boolean loggingTransactionInfo = false;
+        for (SpanBo spanBo : spanResult.getSpanList()) {
+            final SpanAlign spanAlign = new SpanAlign(spanBo);
+            if (firstSpan == null) {
+                firstSpan = spanAlign;
+            }
+            if (viewPointSpanAlign == null && isViewPoint(spanAlign, focusTimestamp, agentId, spanId)) {
+                viewPointSpanAlign = spanAlign;
+            }
+            if (spanAlign.getLoggingTransactionInfo() == LoggingInfo.LOGGED.getCode()) {
+                loggingTransactionInfo = true;
+            }
+        }
+
+        final CallTreeNode root = spanResult.getRoot();
+        if (viewPointSpanAlign == null) {
+            // return the root span when focus Span could not be found.
+            viewPointSpanAlign = root != null ? root.getValue() : firstSpan;
+        }
+
+        final StreamingRecordPage recordPage = new StreamingRecordPage(root, viewPointSpanAlign, offset, limit, collapse);
+        final StreamingRecordSet recordSet = new StreamingRecordSet(recordPage, offset, limit);
+        if (viewPointSpanAlign != null) {
+            recordSet.setAgentId(viewPointSpanAlign.getAgentId());
+            recordSet.setApplicationId(viewPointSpanAlign.getApplicationId());
+
+            final String applicationName = recordPage.getViewPointArgument();
+            recordSet.setApplicationName(applicationName);
+        }
+
+        if (root != null) {
+            recordSet.setStartTime(root.getValue().getStartTime());
+            recordSet.setEndTime(root.getValue().getLastTime());
+        } else {
+            recordSet.setStartTime(0);
+            recordSet.setEndTime(0);
+        }
+        recordSet.setLoggingTransactionInfo(loggingTransactionInfo);
+
+        return recordSet;
+    }
+
+    /**
+     * same order as CallTreeIterator
+     */
+    private static CallTreeNode nextPreOrder(CallTreeNode root, CallTreeNode node) {
+        if (node.hasChild()) {
+            return node.getChild();
+        }
+
+        CallTreeNode current = node;
+        while (current != null && current != root) {
+            final CallTreeNode sibling = current.getSibling();
+            if (sibling != null) {
+                return sibling;
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+
     private boolean findIsLoggingTransactionInfo(List<SpanAlign> spanAlignList) {
         for (SpanAlign spanAlign : spanAlignList) {
             if (spanAlign.isSpan()) {
@@ -186,24 +274,25 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
     }
 
     private void markFocusRecord(List<Record> recordList, final SpanAlign viewPointTimeSpanAlign) {
-        final String agentId = viewPointTimeSpanAlign.getAgentId();
         for (Record record : recordList) {
-            if (viewPointTimeSpanAlign.getSpanId() == record.getSpanId() && record.getBegin() == viewPointTimeSpanAlign.getStartTime()) {
-                if (agentId == null) {
-                    if (record.getAgent() == null) {
-                        record.setFocused(true);
-                        break;
-                    }
-                } else {
-                    if (record.getAgent() != null && agentId.equals(record.getAgent())) {
-                        record.setFocused(true);
-                        break;
-                    }
-                }
+            if (isFocusRecord(record, viewPointTimeSpanAlign)) {
+                record.setFocused(true);
+                break;
             }
         }
     }
 
+    private boolean isFocusRecord(Record record, final SpanAlign viewPointTimeSpanAlign) {
+        if (viewPointTimeSpanAlign.getSpanId() != record.getSpanId() || record.getBegin() != viewPointTimeSpanAlign.getStartTime()) {
+            return false;
+        }
+        final String agentId = viewPointTimeSpanAlign.getAgentId();
+        if (agentId == null) {
+            return record.getAgent() == null;
+        }
+        return record.getAgent() != null && agentId.equals(record.getAgent());
+    }
+
     // private void addlogLink(RecordSet recordSet) {
     // List<Record> records = recordSet.getRecordList();
     // List<TransactionInfo> transactionInfoes = new LinkedList<TransactionInfo>();
@@ -355,47 +444,304 @@ public class TransactionInfoServiceImpl implements TransactionInfoService {
                     logger.warn("Corrupt CallTree found : {}", callTreeIterator.toString());
                     throw new IllegalStateException("CallTree corrupted");
                 }
-                final SpanAlign align = node.getValue();
+                populateNodeRecord(node, factory, recordList);
+            }
+
+            return recordList;
+        }
+    }
+
+    private void populateNodeRecord(CallTreeNode node, RecordFactory factory, List<Record> recordList) {
+        final SpanAlign align = node.getValue();
+
+        if (metaDataFilter != null && metaDataFilter.filter(align, MetaData.API)) {
+            if (align.isSpan()) {
+                Record record = metaDataFilter.createRecord(node, factory);
+                recordList.add(record);
+            }
+            return;
+        }
+
+        if (metaDataFilter != null && metaDataFilter.filter(align, MetaData.PARAM)) {
+            metaDataFilter.replaceAnnotationBo(align, MetaData.PARAM);
+        }
+
+        final String argument = getArgument(align);
+        final Record record = factory.get(node, argument);
+        recordList.add(record);
+
+        // add exception record.
+        if (align.hasException()) {
+            final Record exceptionRecord = factory.getException(record.getTab() + 1, record.getId(), align);
+            if(exceptionRecord != null) {
+                recordList.add(exceptionRecord);
+            }
+        }
+
+
+        // add annotation record.
+        if (!align.getAnnotationBoList().isEmpty()) {
+            final List<Record> annotations = factory.getAnnotations(record.getTab() + 1, record.getId(), align);
+            recordList.addAll(annotations);
+        }
+
+        // add remote record.(span only)
+        if (align.getRemoteAddr() != null) {
+            final Record remoteAddressRecord = factory.getParameter(record.getTab() + 1, record.getId(), "REMOTE_ADDRESS", align.getRemoteAddr());
+            recordList.add(remoteAddressRecord);
+        }
+    }
+
+    /**
+     * walks the call tree in the same order as CallTreeIterator and creates the records of one node at a time.
+     * gap, depth and execution time are computed on the walk the same way as CallTreeIterator, and the id of a node is its position + 1,
+     * so a page gives the same values without the nodes before it. the passed subtrees are released from the tree.
+     * metadata of the page nodes is resolved in batches while they are walked, the nodes outside of the page are not resolved.
+     */
+    private class StreamingRecordPage implements StreamingRecordSet.RecordPage {
+
+        private final CallTreeNode root;
+        private final SpanAlign viewPointSpanAlign;
+        private final RepeatedCallTreeMatcher repeatedCallTreeMatcher;
+        private final RecordFactory factory = new StreamingRecordFactory(registry, annotationKeyRegistryService);
+        private final int offset;
+        private final int limit;
+
+        // ancestors of the next node
+        private final Deque<Frame> frames = new ArrayDeque<>();
+        private final Queue<Record> buffer = new ArrayDeque<>();
+        private final List<Record> nodeRecordList = new ArrayList<>();
+        private CallTreeNode nextNode;
+        private int nodeIndex = 0;
+        private int pageNodeCount = 0;
+        private boolean lastNodeInPage = false;
+        private boolean focused = false;
+
+        // nodes whose metadata is resolved. the walk only moves forward in pre-order, so only the last batch is kept
+        private final Set<CallTreeNode> transitionedNodes = Collections.newSetFromMap(new IdentityHashMap<CallTreeNode, Boolean>());
+        private SpanBo transitionedViewPoint;
+
+        private StreamingRecordPage(CallTreeNode root, SpanAlign viewPointSpanAlign, int offset, int limit, boolean collapse) {
+            this.root = root;
+            this.viewPointSpanAlign = viewPointSpanAlign;
+            this.repeatedCallTreeMatcher = collapse ? new RepeatedCallTreeMatcher() : null;
+            this.offset = offset;
+            this.limit = limit;
+            this.nextNode = root;
+        }
+
+        private String getViewPointArgument() {
+            final SpanBo spanBo = viewPointSpanAlign.getSpanBo();
+            if (spanBo.getRpc() == null) {
+                // the display argument may be a cached string. the transition is not repeated on the walk
+                spanService.transitionMetaData(Collections.singletonList(viewPointSpanAlign));
+                this.transitionedViewPoint = spanBo;
+            }
+            return getRpcArgument(viewPointSpanAlign);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && nextNode != null && pageNodeCount < limit) {
+                fill();
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        @Override
+        public boolean hasMore() {
+            return nextNode != null;
+        }
+
+        @Override
+        public int getNextOffset() {
+            return offset + pageNodeCount;
+        }
+
+        private void fill() {
+            final CallTreeNode node = nextNode;
+            final SpanAlign align = node.getValue();
+            final Frame parentFrame = frames.peek();
+
+            align.setId(nodeIndex + 1);
+            align.setDepth(frames.size());
+            align.setGap(getGap(node, parentFrame));
+            align.setExecutionMilliseconds(getExecutionTime(node));
+            if (parentFrame != null) {
+                if (!align.isAsyncFirst()) {
+                    parentFrame.lastExecuteTime = align.getLastTime();
+                }
+                if (repeatedCallTreeMatcher != null) {
+                    collapseRepeatedSibling(node, parentFrame);
+                }
+            }
 
-                if (metaDataFilter != null && metaDataFilter.filter(align, MetaData.API)) {
-                    if (align.isSpan()) {
-                        Record record = metaDataFilter.createRecord(node, factory);
-                        recordList.add(record);
+            this.lastNodeInPage = nodeIndex >= offset;
+            if (lastNodeInPage) {
+                transitionMetaData(node);
+
+                nodeRecordList.clear();
+                populateNodeRecord(node, factory, nodeRecordList);
+                if (!focused && viewPointSpanAlign != null) {
+                    for (Record record : nodeRecordList) {
+                        if (isFocusRecord(record, viewPointSpanAlign)) {
+                            record.setFocused(true);
+                            focused = true;
+                            break;
+                        }
                     }
-                    continue;
                 }
+                buffer.addAll(nodeRecordList);
+                pageNodeCount++;
+            }
+            nodeIndex++;
+
+            this.nextNode = nextNode(node);
+        }
+
+        private long getGap(CallTreeNode node, Frame parentFrame) {
+            if (parentFrame == null) {
+                return 0;
+            }
+
+            final SpanAlign align = node.getValue();
+            if (align.isAsyncFirst()) {
+                final CallTreeNode asyncParent = getAsyncParent(node);
+                if (asyncParent == null) {
+                    return 0;
+                }
+                // skip sibling.
+                return align.getStartTime() - asyncParent.getValue().getStartTime();
+            }
+            return align.getStartTime() - parentFrame.lastExecuteTime;
+        }
 
-                if (metaDataFilter != null && metaDataFilter.filter(align, MetaData.PARAM)) {
-                    metaDataFilter.replaceAnnotationBo(align, MetaData.PARAM);
+        private CallTreeNode getAsyncParent(CallTreeNode node) {
+            final int asyncId = node.getValue().getSpanEventBo().getAsyncId();
+            CallTreeNode parent = node.getParent();
+            while (parent != null && !parent.isRoot()) {
+                if (!parent.getValue().isSpan() && asyncId == parent.getValue().getSpanEventBo().getNextAsyncId()) {
+                    return parent;
                 }
+                parent = parent.getParent();
+            }
+            return null;
+        }
 
-                final String argument = getArgument(align);
-                final Record record = factory.get(node, argument);
-                recordList.add(record);
+        private long getExecutionTime(CallTreeNode node) {
+            long executionTime = node.getValue().getElapsed();
+            CallTreeNode child = node.getChild();
+            while (child != null) {
+                final SpanAlign align = child.getValue();
+                if (!align.isSpan() && !align.isAsyncFirst()) {
+                    // skip span and first async event;
+                    executionTime -= align.getElapsed();
+                }
+                child = child.getSibling();
+            }
+            return executionTime;
+        }
 
-                // add exception record.
-                if (align.hasException()) {
-                    final Record exceptionRecord = factory.getException(record.getTab() + 1, record.getId(), align);
-                    if(exceptionRecord != null) {
-                        recordList.add(exceptionRecord);
-                    }
+        // the siblings that repeat the call tree of the node are skipped on the walk and get one record after the subtree of the node.
+        private void collapseRepeatedSibling(CallTreeNode node, Frame parentFrame) {
+            int repeatCount = 0;
+            long totalElapsed = 0;
+            CallTreeNode sibling = node.getSibling();
+            while (sibling != null && repeatedCallTreeMatcher.matches(node, sibling)) {
+                final SpanAlign align = sibling.getValue();
+                repeatCount++;
+                totalElapsed += align.getElapsed();
+                if (!align.isAsyncFirst()) {
+                    parentFrame.lastExecuteTime = align.getLastTime();
                 }
+                sibling = sibling.getSibling();
+            }
+            parentFrame.collapsedCount = repeatCount;
+            parentFrame.collapsedElapsed = totalElapsed;
+            parentFrame.resumeSibling = sibling;
+        }
 
+        private CallTreeNode nextNode(CallTreeNode node) {
+            if (node.hasChild()) {
+                frames.push(new Frame(node));
+                return node.getChild();
+            }
 
-                // add annotation record.
-                if (!align.getAnnotationBoList().isEmpty()) {
-                    final List<Record> annotations = factory.getAnnotations(record.getTab() + 1, record.getId(), align);
-                    recordList.addAll(annotations);
+            CallTreeNode current = node;
+            while (!frames.isEmpty()) {
+                final Frame parentFrame = frames.peek();
+                CallTreeNode next = current.getSibling();
+                if (parentFrame.collapsedCount > 0) {
+                    if (lastNodeInPage) {
+                        // the record comes after the last node of the subtree, so it is added by the page of that node
+                        final String argument = parentFrame.collapsedCount + " repeated call(s) of the above. total elapsed " + parentFrame.collapsedElapsed + "ms";
+                        final Record collapsedRecord = factory.getParameter(current.getValue().getDepth(), parentFrame.node.getValue().getId(), COLLAPSED_TITLE, argument);
+                        buffer.add(collapsedRecord);
+                    }
+                    next = parentFrame.resumeSibling;
+                    parentFrame.collapsedCount = 0;
+                    parentFrame.resumeSibling = null;
                 }
 
-                // add remote record.(span only)
-                if (align.getRemoteAddr() != null) {
-                    final Record remoteAddressRecord = factory.getParameter(record.getTab() + 1, record.getId(), "REMOTE_ADDRESS", align.getRemoteAddr());
-                    recordList.add(remoteAddressRecord);
+                // release the passed siblings
+                parentFrame.node.setChild(next);
+                if (next != null) {
+                    return next;
                 }
+                frames.pop();
+                current = parentFrame.node;
             }
+            return null;
+        }
 
-            return recordList;
+        private void transitionMetaData(CallTreeNode node) {
+            if (transitionedNodes.contains(node)) {
+                return;
+            }
+            transitionedNodes.clear();
+
+            // nodes after the page are not resolved
+            final int batchSize = Math.min(METADATA_BATCH_SIZE, limit - pageNodeCount);
+            final List<SpanAlign> batch = new ArrayList<>(batchSize);
+            CallTreeNode current = node;
+            while (current != null && transitionedNodes.size() < batchSize) {
+                transitionedNodes.add(current);
+                final SpanAlign spanAlign = current.getValue();
+                if (!(spanAlign.isSpan() && spanAlign.getSpanBo() == transitionedViewPoint)) {
+                    batch.add(spanAlign);
+                }
+                current = TransactionInfoServiceImpl.nextPreOrder(root, current);
+            }
+            spanService.transitionMetaData(batch);
+        }
+    }
+
+    private static class Frame {
+        private final CallTreeNode node;
+        // last time of the last child that is not the first async event, the start time of the node if there is none
+        private long lastExecuteTime;
+
+        // siblings of the last visited child that repeat its call tree
+        private int collapsedCount;
+        private long collapsedElapsed;
+        private CallTreeNode resumeSibling;
+
+        private Frame(CallTreeNode node) {
+            this.node = node;
+            this.lastExecuteTime = node.getValue().getStartTime();
         }
     }
 }
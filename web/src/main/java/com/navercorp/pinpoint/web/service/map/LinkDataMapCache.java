@@ -0,0 +1,279 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.service.map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.navercorp.pinpoint.web.applicationmap.histogram.TimeHistogram;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkCallData;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkData;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
+import com.navercorp.pinpoint.web.dao.MapStatisticsCalleeDao;
+import com.navercorp.pinpoint.web.dao.MapStatisticsCallerDao;
+import com.navercorp.pinpoint.web.util.TimeWindow;
+import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the caller/callee link data of each application per minute slot.
+ * A server map request reads the cached slots and scans only the missing slots,
+ * so moving the window forward by one minute scans one minute.
+ * Slots younger than the unstable period are always scanned since statistics are still being flushed.
+ *
+ * @author agent
+ */
+@Component
+public class LinkDataMapCache {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    // scan at most an hour of missing slots at once. TimeWindowDownSampler keeps one minute windows up to an hour
+    private static final int MAX_SCAN_SLOT_COUNT = 60;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("#{pinpointWebProps['web.servermap.cache.enable'] ?: false}")
+    private boolean enable;
+
+    @Value("#{pinpointWebProps['web.servermap.cache.maxSize'] ?: 100000}")
+    private long maxSize;
+
+    @Value("#{pinpointWebProps['web.servermap.cache.unstableMillis'] ?: 180000}")
+    private long unstableMillis;
+
+    private Cache<SlotKey, LinkDataMap> cache;
+
+    @PostConstruct
+    public void init() {
+        if (!enable) {
+            return;
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        logger.info("server map cache enabled. maxSize:{}, unstableMillis:{}", maxSize, unstableMillis);
+    }
+
+    public boolean isEnable() {
+        return cache != null;
+    }
+
+    public MapStatisticsCallerDao wrap(final MapStatisticsCallerDao mapStatisticsCallerDao) {
+        if (mapStatisticsCallerDao == null) {
+            throw new NullPointerException("mapStatisticsCallerDao must not be null");
+        }
+        if (!isEnable()) {
+            return mapStatisticsCallerDao;
+        }
+        return new MapStatisticsCallerDao() {
+            @Override
+            public LinkDataMap selectCaller(final Application callerApplication, Range range) {
+                return select(callerApplication, Direction.CALLER, range, new SlotScanner() {
+                    @Override
+                    public LinkDataMap scan(Range slotRange) {
+                        return mapStatisticsCallerDao.selectCaller(callerApplication, slotRange);
+                    }
+                });
+            }
+        };
+    }
+
+    public MapStatisticsCalleeDao wrap(final MapStatisticsCalleeDao mapStatisticsCalleeDao) {
+        if (mapStatisticsCalleeDao == null) {
+            throw new NullPointerException("mapStatisticsCalleeDao must not be null");
+        }
+        if (!isEnable()) {
+            return mapStatisticsCalleeDao;
+        }
+        return new MapStatisticsCalleeDao() {
+            @Override
+            public LinkDataMap selectCallee(final Application calleeApplication, Range range) {
+                return select(calleeApplication, Direction.CALLEE, range, new SlotScanner() {
+                    @Override
+                    public LinkDataMap scan(Range slotRange) {
+                        return mapStatisticsCalleeDao.selectCallee(calleeApplication, slotRange);
+                    }
+                });
+            }
+        };
+    }
+
+    private LinkDataMap select(Application application, Direction direction, Range range, SlotScanner scanner) {
+        if (application == null) {
+            throw new NullPointerException("application must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        final LinkDataMap result = new LinkDataMap(new TimeWindow(range, TimeWindowDownSampler.SAMPLER));
+
+        final long fromSlot = toSlot(range.getFrom());
+        final long toSlot = toSlot(range.getTo());
+        final long lastStableSlot = toSlot(System.currentTimeMillis() - unstableMillis);
+
+        long missingFrom = -1;
+        long slot = fromSlot;
+        for (; slot <= toSlot && slot <= lastStableSlot; slot += ONE_MINUTE) {
+            final LinkDataMap cached = cache.getIfPresent(new SlotKey(application, direction, slot));
+            if (cached != null) {
+                if (missingFrom != -1) {
+                    scanAndCache(application, direction, missingFrom, slot - ONE_MINUTE, scanner, result);
+                    missingFrom = -1;
+                }
+                result.addLinkDataMap(cached);
+                continue;
+            }
+            if (missingFrom == -1) {
+                missingFrom = slot;
+            } else if ((slot - missingFrom) / ONE_MINUTE >= MAX_SCAN_SLOT_COUNT) {
+                scanAndCache(application, direction, missingFrom, slot - ONE_MINUTE, scanner, result);
+                missingFrom = slot;
+            }
+        }
+        if (missingFrom != -1) {
+            scanAndCache(application, direction, missingFrom, slot - ONE_MINUTE, scanner, result);
+        }
+        if (slot <= toSlot) {
+            // unstable slots
+            final LinkDataMap recent = scanner.scan(new Range(slot, range.getTo()));
+            if (recent != null) {
+                result.addLinkDataMap(recent);
+            }
+        }
+        return result;
+    }
+
+    private void scanAndCache(Application application, Direction direction, long fromSlot, long toSlot, SlotScanner scanner, LinkDataMap result) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("scan missing slots. {} {} {}~{}", direction, application, fromSlot, toSlot);
+        }
+        final LinkDataMap scanned = scanner.scan(new Range(fromSlot, toSlot));
+        final Map<Long, LinkDataMap> slotMap = scanned != null ? splitBySlot(scanned) : Collections.<Long, LinkDataMap>emptyMap();
+        for (long slot = fromSlot; slot <= toSlot; slot += ONE_MINUTE) {
+            LinkDataMap slotLinkDataMap = slotMap.get(slot);
+            if (slotLinkDataMap == null) {
+                // cache empty slots too
+                slotLinkDataMap = new LinkDataMap();
+            }
+            cache.put(new SlotKey(application, direction, slot), slotLinkDataMap);
+        }
+        if (scanned != null) {
+            result.addLinkDataMap(scanned);
+        }
+    }
+
+    private Map<Long, LinkDataMap> splitBySlot(LinkDataMap linkDataMap) {
+        final Map<Long, LinkDataMap> slotMap = new HashMap<>();
+        for (LinkData linkData : linkDataMap.getLinkDataList()) {
+            for (LinkCallData linkCallData : linkData.getLinkCallDataMap().getLinkDataList()) {
+                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
+                    final long slot = toSlot(timeHistogram.getTimeStamp());
+                    LinkDataMap slotLinkDataMap = slotMap.get(slot);
+                    if (slotLinkDataMap == null) {
+                        slotLinkDataMap = new LinkDataMap();
+                        slotMap.put(slot, slotLinkDataMap);
+                    }
+                    final LinkData slotLinkData = new LinkData(linkData.getFromApplication(), linkData.getToApplication());
+                    slotLinkData.getLinkCallDataMap().addCallData(linkCallData.getSource(), linkCallData.getSourceServiceType(),
+                            linkCallData.getTarget(), linkCallData.getTargetServiceType(), Collections.singletonList(timeHistogram));
+                    slotLinkDataMap.addLinkData(slotLinkData);
+                }
+            }
+        }
+        return slotMap;
+    }
+
+    private long toSlot(long time) {
+        return (time / ONE_MINUTE) * ONE_MINUTE;
+    }
+
+    public CacheStats getStats() {
+        if (!isEnable()) {
+            return new CacheStats(0, 0, 0, 0, 0, 0);
+        }
+        return cache.stats();
+    }
+
+    public long size() {
+        if (!isEnable()) {
+            return 0;
+        }
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        if (isEnable()) {
+            cache.invalidateAll();
+        }
+    }
+
+    private interface SlotScanner {
+        LinkDataMap scan(Range slotRange);
+    }
+
+    private enum Direction {
+        CALLER, CALLEE
+    }
+
+    private static class SlotKey {
+        private final Application application;
+        private final Direction direction;
+        private final long slot;
+
+        private SlotKey(Application application, Direction direction, long slot) {
+            this.application = application;
+            this.direction = direction;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SlotKey slotKey = (SlotKey) o;
+
+            if (slot != slotKey.slot) return false;
+            if (direction != slotKey.direction) return false;
+            return application.equals(slotKey.application);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = application.hashCode();
+            result = 31 * result + direction.hashCode();
+            result = 31 * result + (int) (slot ^ (slot >>> 32));
+            return result;
+        }
+    }
+}
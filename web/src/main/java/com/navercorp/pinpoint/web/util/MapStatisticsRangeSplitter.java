@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.util;
+
+import com.navercorp.pinpoint.common.hbase.MapStatisticsResolution;
+import com.navercorp.pinpoint.web.vo.Range;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a statistics range into time slot ranges of the coarsest resolution that fits.
+ * e.g. 09:58 ~ 12:03 with 1hour max resolution :
+ * 10:00 ~ 11:00 (1hour), 09:58 ~ 09:59 (1min), 12:00 ~ 12:03 (1min)
+ * <p>
+ * Every 1min time slot of the range is covered exactly once.
+ * The resolution is limited by maxResolution so that the time window of a chart is not coarser than the time slot.
+ *
+ * @author agent
+ */
+public class MapStatisticsRangeSplitter {
+
+    private static final MapStatisticsResolution[] RESOLUTIONS = MapStatisticsResolution.values();
+
+    private final long maxResolution;
+
+    public MapStatisticsRangeSplitter(long maxResolution) {
+        this.maxResolution = maxResolution;
+    }
+
+    /**
+     * @param range range of the request
+     * @return ranges of time slot (from : first time slot, to : last time slot)
+     */
+    public List<SlotRange> split(Range range) {
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        final MapStatisticsResolution oneMinute = MapStatisticsResolution.ONE_MINUTE;
+        final long from = oneMinute.getTimeSlot(range.getFrom());
+        final long to = oneMinute.getTimeSlot(range.getTo()) + oneMinute.getResolution();
+
+        final List<SlotRange> result = new ArrayList<>();
+        split(from, to, maxLevel(), result);
+        return result;
+    }
+
+    private int maxLevel() {
+        int level = 0;
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            if (RESOLUTIONS[i].getResolution() <= maxResolution) {
+                level = i;
+            }
+        }
+        return level;
+    }
+
+    // [from, to)
+    private void split(long from, long to, int level, List<SlotRange> result) {
+        if (from >= to) {
+            return;
+        }
+        final MapStatisticsResolution resolution = RESOLUTIONS[level];
+        final long size = resolution.getResolution();
+        if (level == 0) {
+            result.add(new SlotRange(resolution, from, to - size));
+            return;
+        }
+        final long alignedFrom = ceil(from, size);
+        final long alignedTo = (to / size) * size;
+        if (alignedFrom >= alignedTo) {
+            split(from, to, level - 1, result);
+            return;
+        }
+        result.add(new SlotRange(resolution, alignedFrom, alignedTo - size));
+        split(from, alignedFrom, level - 1, result);
+        split(alignedTo, to, level - 1, result);
+    }
+
+    private long ceil(long time, long size) {
+        final long slot = (time / size) * size;
+        if (slot == time) {
+            return slot;
+        }
+        return slot + size;
+    }
+
+    public static class SlotRange {
+        private final MapStatisticsResolution resolution;
+        private final Range range;
+
+        public SlotRange(MapStatisticsResolution resolution, long firstSlot, long lastSlot) {
+            if (resolution == null) {
+                throw new NullPointerException("resolution must not be null");
+            }
+            this.resolution = resolution;
+            this.range = new Range(firstSlot, lastSlot);
+        }
+
+        public MapStatisticsResolution getResolution() {
+            return resolution;
+        }
+
+        public Range getRange() {
+            return range;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("SlotRange{");
+            sb.append("resolution=").append(resolution);
+            sb.append(", range=").append(range.prettyToString());
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
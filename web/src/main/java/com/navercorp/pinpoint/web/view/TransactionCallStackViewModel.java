@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
+
+/**
+ * call stack of {@link TransactionInfoViewModel} written row by row.
+ * application map is not included.
+ *
+ * @author agent
+ */
+@JsonSerialize(using = TransactionCallStackViewModelSerializer.class)
+public class TransactionCallStackViewModel {
+
+    private final TransactionId transactionId;
+    private final StreamingRecordSet recordSet;
+    private final String completeState;
+    private final boolean logLinkEnable;
+    private final String logButtonName;
+    private final String logPageUrl;
+    private final String disableButtonMessage;
+
+    public TransactionCallStackViewModel(TransactionId transactionId, StreamingRecordSet recordSet, String completeState, boolean logLinkEnable, String logButtonName, String logPageUrl, String disableButtonMessage) {
+        if (transactionId == null) {
+            throw new NullPointerException("transactionId must not be null");
+        }
+        if (recordSet == null) {
+            throw new NullPointerException("recordSet must not be null");
+        }
+        this.transactionId = transactionId;
+        this.recordSet = recordSet;
+        this.completeState = completeState;
+        this.logLinkEnable = logLinkEnable;
+        this.logButtonName = logButtonName;
+        this.logPageUrl = logPageUrl;
+        this.disableButtonMessage = disableButtonMessage;
+    }
+
+    public StreamingRecordSet getRecordSet() {
+        return recordSet;
+    }
+
+    public String getTransactionId() {
+        return TransactionIdUtils.formatString(transactionId);
+    }
+
+    public String getCompleteState() {
+        return completeState;
+    }
+
+    public boolean isLogLinkEnable() {
+        return logLinkEnable;
+    }
+
+    public String getLogButtonName() {
+        return logButtonName;
+    }
+
+    public String getLogPageUrl() {
+        if (logPageUrl != null && logPageUrl.length() > 0) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("transactionId=").append(getTransactionId());
+            sb.append("&time=").append(recordSet.getStartTime());
+            return logPageUrl + "?" + sb.toString();
+        }
+
+        return "";
+    }
+
+    public String getDisableButtonMessage() {
+        return disableButtonMessage;
+    }
+
+    public long getBarRatio() {
+        final long elapsed = recordSet.getEndTime() - recordSet.getStartTime();
+        if (elapsed > 0) {
+            return 100 / elapsed;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.navercorp.pinpoint.web.vo.callstacks.Record;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * writes each record as soon as it is created so that the call stack is never held in memory.
+ * hasMore/nextOffset are written after the callStack because they are known only after the page is written.
+ *
+ * @author agent
+ */
+public class TransactionCallStackViewModelSerializer extends JsonSerializer<TransactionCallStackViewModel> {
+
+    private final TransactionInfoCallStackSerializer callStackSerializer = new TransactionInfoCallStackSerializer();
+
+    @Override
+    public void serialize(TransactionCallStackViewModel viewModel, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
+        final StreamingRecordSet recordSet = viewModel.getRecordSet();
+
+        jgen.writeStartObject();
+
+        jgen.writeStringField("applicationName", recordSet.getApplicationName());
+        jgen.writeStringField("transactionId", viewModel.getTransactionId());
+        jgen.writeStringField("agentId", recordSet.getAgentId());
+        jgen.writeStringField("applicationId", recordSet.getApplicationId());
+        jgen.writeNumberField("callStackStart", recordSet.getStartTime());
+        jgen.writeNumberField("callStackEnd", recordSet.getEndTime());
+        jgen.writeStringField("completeState", viewModel.getCompleteState());
+        jgen.writeBooleanField("logLinkEnable", viewModel.isLogLinkEnable());
+        jgen.writeBooleanField("loggingTransactionInfo", recordSet.isLoggingTransactionInfo());
+        jgen.writeStringField("logButtonName", viewModel.getLogButtonName());
+        jgen.writeStringField("logPageUrl", viewModel.getLogPageUrl());
+        jgen.writeStringField("disableButtonMessage", viewModel.getDisableButtonMessage());
+
+        writeCallStackIndex(jgen);
+
+        final long barRatio = viewModel.getBarRatio();
+        jgen.writeArrayFieldStart("callStack");
+        final Iterator<Record> recordIterator = recordSet.getRecordIterator();
+        while (recordIterator.hasNext()) {
+            final Record record = recordIterator.next();
+            callStackSerializer.serialize(new TransactionInfoViewModel.CallStack(record, barRatio), jgen, provider);
+        }
+        jgen.writeEndArray();
+
+        jgen.writeNumberField("offset", recordSet.getOffset());
+        jgen.writeNumberField("limit", recordSet.getLimit());
+        jgen.writeNumberField("nextOffset", recordSet.getNextOffset());
+        jgen.writeBooleanField("hasMore", recordSet.isHasMore());
+
+        jgen.writeEndObject();
+    }
+
+    private void writeCallStackIndex(JsonGenerator jgen) throws IOException {
+        jgen.writeObjectFieldStart("callStackIndex");
+        for (int i = 0; i < TransactionInfoViewModel.CallStack.INDEX.length; i++) {
+            jgen.writeNumberField(TransactionInfoViewModel.CallStack.INDEX[i], i);
+        }
+        jgen.writeEndObject();
+    }
+}
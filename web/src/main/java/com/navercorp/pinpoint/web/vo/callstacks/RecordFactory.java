@@ -53,7 +53,7 @@ public class RecordFactory {
     
     public Record get(final CallTreeNode node, final String argument) {
         final SpanAlign align = node.getValue();
-        align.setId(getNextId());
+        align.setId(getNodeId(align));
 
         final int parentId = getParentId(node);
         Api api = getApi(align);
@@ -86,7 +86,7 @@ public class RecordFactory {
     
     public Record getFilteredRecord(final CallTreeNode node, String apiTitle) {
         final SpanAlign align = node.getValue();
-        align.setId(getNextId());
+        align.setId(getNodeId(align));
 
         final int parentId = getParentId(node);
 //        Api api = getApi(align);
@@ -247,7 +247,11 @@ public class RecordFactory {
         return annotationKeyRegistryService.findAnnotationKey(key);
     }
 
-    private int getNextId() {
+    protected int getNodeId(final SpanAlign align) {
+        return getNextId();
+    }
+
+    protected int getNextId() {
         return idGen++;
     }
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.navercorp.pinpoint.web.vo.callstacks;
+
+import com.navercorp.pinpoint.common.service.AnnotationKeyRegistryService;
+import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
+import com.navercorp.pinpoint.web.calltree.span.SpanAlign;
+
+/**
+ * RecordFactory of a call stack returned page by page. (see {@link StreamingRecordSet})
+ * The record of a call tree node takes the id set on its SpanAlign by the caller, so that parentId refers to the same node on every page.
+ * The other records(exception, annotations, parameters) never have children and get negative ids, unique within the page.
+ *
+ * @author agent
+ */
+public class StreamingRecordFactory extends RecordFactory {
+
+    private int detailIdGen = -1;
+
+    public StreamingRecordFactory(ServiceTypeRegistryService registry, AnnotationKeyRegistryService annotationKeyRegistryService) {
+        super(registry, annotationKeyRegistryService);
+    }
+
+    @Override
+    protected int getNodeId(final SpanAlign align) {
+        return align.getId();
+    }
+
+    @Override
+    protected int getNextId() {
+        return detailIdGen--;
+    }
+}
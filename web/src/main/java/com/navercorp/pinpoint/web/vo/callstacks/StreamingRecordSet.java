@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.vo.callstacks;
+
+import java.util.Iterator;
+
+/**
+ * RecordSet whose records are created while they are written.
+ * Only one page of the call tree is returned. offset and limit count call tree nodes, not records,
+ * so that the nodes before the offset are skipped without creating their records. (see {@link StreamingRecordFactory})
+ *
+ * @author agent
+ */
+public class StreamingRecordSet {
+
+    private long startTime = -1;
+    private long endTime = -1;
+
+    private String applicationName;
+    private String agentId;
+    private String applicationId;
+
+    private boolean loggingTransactionInfo;
+
+    private final RecordPage recordPage;
+    private final int offset;
+    private final int limit;
+
+    private boolean consumed = false;
+
+    public StreamingRecordSet(RecordPage recordPage, int offset, int limit) {
+        if (recordPage == null) {
+            throw new NullPointerException("recordPage must not be null");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than 0");
+        }
+        this.recordPage = recordPage;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * records of the page. can be iterated only once.
+     */
+    public Iterator<Record> getRecordIterator() {
+        if (consumed) {
+            throw new IllegalStateException("already consumed");
+        }
+        this.consumed = true;
+        return recordPage;
+    }
+
+    /**
+     * whether there are nodes after the page. valid after the page is iterated.
+     */
+    public boolean isHasMore() {
+        return recordPage.hasMore();
+    }
+
+    /**
+     * offset of the next page. valid after the page is iterated.
+     */
+    public int getNextOffset() {
+        return recordPage.getNextOffset();
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(String agentId) {
+        this.agentId = agentId;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(String applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    public boolean isLoggingTransactionInfo() {
+        return loggingTransactionInfo;
+    }
+
+    public void setLoggingTransactionInfo(boolean loggingTransactionInfo) {
+        this.loggingTransactionInfo = loggingTransactionInfo;
+    }
+
+    /**
+     * records of the call tree nodes from the offset. the iteration ends after the limit nodes.
+     */
+    public interface RecordPage extends Iterator<Record> {
+
+        boolean hasMore();
+
+        int getNextOffset();
+    }
+}
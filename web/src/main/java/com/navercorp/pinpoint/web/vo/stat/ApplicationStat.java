@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.vo.stat;
+
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatField;
+import com.navercorp.pinpoint.common.server.bo.stat.ApplicationStatSummaryBo;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Agent statistics of an application in a window, merged from the partial summaries written by every collector.
+ *
+ * @author agent
+ */
+public class ApplicationStat {
+
+    private final String applicationName;
+    private final long timestamp;
+    private final Map<ApplicationStatField, ApplicationStatSummaryBo> summaries = new EnumMap<>(ApplicationStatField.class);
+
+    public ApplicationStat(String applicationName, long timestamp) {
+        if (applicationName == null) {
+            throw new NullPointerException("applicationName must not be null");
+        }
+        this.applicationName = applicationName;
+        this.timestamp = timestamp;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<ApplicationStatField, ApplicationStatSummaryBo> getSummaries() {
+        return summaries;
+    }
+
+    public ApplicationStatSummaryBo getSummary(ApplicationStatField field) {
+        return summaries.get(field);
+    }
+
+    public void addSummary(ApplicationStatField field, ApplicationStatSummaryBo summaryBo) {
+        if (field == null) {
+            throw new NullPointerException("field must not be null");
+        }
+        if (summaryBo == null) {
+            throw new NullPointerException("summaryBo must not be null");
+        }
+        final ApplicationStatSummaryBo before = summaries.get(field);
+        if (before == null) {
+            summaries.put(field, summaryBo);
+        } else {
+            before.merge(summaryBo);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ApplicationStat{");
+        sb.append("applicationName='").append(applicationName).append('\'');
+        sb.append(", timestamp=").append(timestamp);
+        sb.append(", summaries=").append(summaries);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.calltree.span;
+
+import com.navercorp.pinpoint.common.server.bo.AnnotationBo;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.common.util.IntStringStringValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class RepeatedCallTreeMatcherTest {
+
+    private final CallTreeFactory factory = new CallTreeFactory();
+
+    @Test
+    public void matches() {
+        CallTree callTree = factory.get(Arrays.asList("R", "##", "###", "##", "###", "##", "###", "##"));
+        CallTreeNode root = callTree.iterator().getRoot();
+
+        CallTreeNode first = root.getChild();
+        CallTreeNode second = first.getSibling();
+        CallTreeNode third = second.getSibling();
+        CallTreeNode fourth = third.getSibling();
+
+        RepeatedCallTreeMatcher matcher = new RepeatedCallTreeMatcher();
+        Assert.assertTrue(matcher.matches(first, second));
+        Assert.assertTrue(matcher.matches(first, third));
+        // no child
+        Assert.assertFalse(matcher.matches(third, fourth));
+        Assert.assertFalse(matcher.matches(fourth, third));
+        Assert.assertFalse(matcher.matches(root, first));
+        Assert.assertFalse(matcher.matches(fourth, null));
+    }
+
+    @Test
+    public void maxNodeCount() {
+        CallTree callTree = factory.get(Arrays.asList("R", "##", "###", "###", "##", "###", "###"));
+        CallTreeNode first = callTree.iterator().getRoot().getChild();
+        CallTreeNode second = first.getSibling();
+
+        Assert.assertTrue(new RepeatedCallTreeMatcher(3).matches(first, second));
+        Assert.assertFalse(new RepeatedCallTreeMatcher(2).matches(first, second));
+    }
+
+    @Test
+    public void matches_destinationId() {
+        CallTree callTree = factory.get(Arrays.asList("R", "##", "##", "##"));
+        CallTreeNode first = callTree.iterator().getRoot().getChild();
+        CallTreeNode second = first.getSibling();
+        CallTreeNode third = second.getSibling();
+        first.getValue().getSpanEventBo().setDestinationId("db1");
+        second.getValue().getSpanEventBo().setDestinationId("db1");
+        third.getValue().getSpanEventBo().setDestinationId("db2");
+
+        RepeatedCallTreeMatcher matcher = new RepeatedCallTreeMatcher();
+        Assert.assertTrue(matcher.matches(first, second));
+        Assert.assertFalse(matcher.matches(first, third));
+    }
+
+    @Test
+    public void matches_sqlId() {
+        CallTree callTree = factory.get(Arrays.asList("R", "##", "##", "##", "##"));
+        CallTreeNode first = callTree.iterator().getRoot().getChild();
+        CallTreeNode second = first.getSibling();
+        CallTreeNode third = second.getSibling();
+        CallTreeNode fourth = third.getSibling();
+        setAnnotation(first, AnnotationKey.SQL_ID, new IntStringStringValue(1, null, "1, 2"));
+        setAnnotation(second, AnnotationKey.SQL_ID, new IntStringStringValue(1, null, "1, 2"));
+        setAnnotation(third, AnnotationKey.SQL_ID, new IntStringStringValue(1, null, "3, 4"));
+        setAnnotation(fourth, AnnotationKey.SQL_ID, new IntStringStringValue(2, null, "1, 2"));
+
+        RepeatedCallTreeMatcher matcher = new RepeatedCallTreeMatcher();
+        Assert.assertTrue(matcher.matches(first, second));
+        // bind values
+        Assert.assertFalse(matcher.matches(first, third));
+        Assert.assertFalse(matcher.matches(first, fourth));
+    }
+
+    @Test
+    public void matches_args() {
+        CallTree callTree = factory.get(Arrays.asList("R", "##", "##", "##", "##"));
+        CallTreeNode first = callTree.iterator().getRoot().getChild();
+        CallTreeNode second = first.getSibling();
+        CallTreeNode third = second.getSibling();
+        CallTreeNode fourth = third.getSibling();
+        setAnnotation(first, AnnotationKey.CACHE_ARGS0, 10);
+        setAnnotation(second, AnnotationKey.CACHE_ARGS0, 10);
+        setAnnotation(third, AnnotationKey.CACHE_ARGS0, 11);
+        setAnnotation(fourth, AnnotationKey.ARGS0, "value");
+
+        // resolved by the metadata transition
+        addAnnotation(first, AnnotationKey.ARGS0, "cached");
+        addAnnotation(first, AnnotationKey.API, "api");
+
+        RepeatedCallTreeMatcher matcher = new RepeatedCallTreeMatcher();
+        Assert.assertTrue(matcher.matches(first, second));
+        Assert.assertTrue(matcher.matches(second, first));
+        Assert.assertFalse(matcher.matches(first, third));
+        Assert.assertFalse(matcher.matches(first, fourth));
+    }
+
+    private void setAnnotation(CallTreeNode node, AnnotationKey key, Object value) {
+        node.getValue().getSpanEventBo().setAnnotationBoList(new ArrayList<AnnotationBo>());
+        addAnnotation(node, key, value);
+    }
+
+    private void addAnnotation(CallTreeNode node, AnnotationKey key, Object value) {
+        AnnotationBo annotationBo = new AnnotationBo();
+        annotationBo.setKey(key.getCode());
+        annotationBo.setValue(value);
+        List<AnnotationBo> annotationBoList = node.getValue().getAnnotationBoList();
+        annotationBoList.add(annotationBo);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.calltree.span;
+
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.SpanEventBo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author agent
+ */
+public class SpanAligner2Test {
+
+    @Test
+    public void sortLazily() {
+        final CallTreeIterator expected = new SpanAligner2(newSpanList(), 0).sort().iterator();
+
+        final CallTree tree = new SpanAligner2(newSpanList(), 0).sortLazily();
+        final CallTreeIterator actual = tree.iterator();
+        Assert.assertEquals(expected.size(), actual.size());
+        while (expected.hasNext()) {
+            final CallTreeNode expectedNode = expected.next();
+            final CallTreeNode actualNode = actual.next();
+            Assert.assertEquals(expectedNode.getDepth(), actualNode.getDepth());
+            Assert.assertEquals(expectedNode.getValue().getSpanId(), actualNode.getValue().getSpanId());
+            Assert.assertEquals(getSequence(expectedNode.getValue()), getSequence(actualNode.getValue()));
+        }
+    }
+
+    private int getSequence(SpanAlign spanAlign) {
+        if (spanAlign.isSpan()) {
+            return -1;
+        }
+        return spanAlign.getSpanEventBo().getSequence();
+    }
+
+    private List<SpanBo> newSpanList() {
+        final SpanBo root = newSpanBo(1, -1, 1000, 100);
+        root.addSpanEventBoList(Arrays.asList(newSpanEventBo(0, 1, 1, 90, -1), newSpanEventBo(1, 2, 2, 30, 2), newSpanEventBo(2, 2, 31, 60, 3), newSpanEventBo(3, 3, 32, 50, -1)));
+        final SpanBo span2 = newSpanBo(2, 1, 1003, 20);
+        span2.addSpanEventBoList(Arrays.asList(newSpanEventBo(0, 1, 1, 10, 4), newSpanEventBo(1, 1, 11, 15, -1)));
+        final SpanBo span3 = newSpanBo(3, 1, 1032, 20);
+        span3.addSpanEventBoList(Arrays.asList(newSpanEventBo(0, 1, 1, 10, -1)));
+        final SpanBo span4 = newSpanBo(4, 2, 1005, 5);
+        return new ArrayList<>(Arrays.asList(root, span2, span3, span4));
+    }
+
+    private SpanBo newSpanBo(long spanId, long parentSpanId, long startTime, int elapsed) {
+        final SpanBo spanBo = new SpanBo();
+        spanBo.setSpanId(spanId);
+        spanBo.setParentSpanId(parentSpanId);
+        spanBo.setStartTime(startTime);
+        spanBo.setElapsed(elapsed);
+        return spanBo;
+    }
+
+    private SpanEventBo newSpanEventBo(int sequence, int depth, int startElapsed, int endElapsed, long nextSpanId) {
+        final SpanEventBo spanEventBo = new SpanEventBo();
+        spanEventBo.setSequence((short) sequence);
+        spanEventBo.setDepth(depth);
+        spanEventBo.setStartElapsed(startElapsed);
+        spanEventBo.setEndElapsed(endElapsed);
+        spanEventBo.setNextSpanId(nextSpanId);
+        spanEventBo.setNextAsyncId(-1);
+        spanEventBo.setAsyncId(-1);
+        return spanEventBo;
+    }
+}
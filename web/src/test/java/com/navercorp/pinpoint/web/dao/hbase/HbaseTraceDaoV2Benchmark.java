@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sequential and parallel multi-get of {@link HbaseTraceDaoV2#selectAllSpans(List)}
+ * against a stand-in TraceV2 table with a fixed round trip latency.
+ * <pre>
+ * run main() or
+ * java -cp ... org.openjdk.jmh.Main HbaseTraceDaoV2Benchmark
+ * </pre>
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HbaseTraceDaoV2Benchmark {
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"8"})
+    public int threadSize;
+
+    @Param({"5"})
+    public long latencyMillis;
+
+    @Param({"20000"})
+    public int transactionSize;
+
+    private HbaseTraceDaoV2 traceDao;
+
+    private List<TransactionId> transactionIdList;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.traceDao = TraceDaoV2Fixture.createTraceDao(latencyMillis, parallel, threadSize);
+        this.transactionIdList = TraceDaoV2Fixture.createTransactionIdList(transactionSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.traceDao.destroy();
+    }
+
+    @Benchmark
+    public List<List<SpanBo>> selectAllSpans() {
+        return traceDao.selectAllSpans(transactionIdList, 500);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HbaseTraceDaoV2Benchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.web.dao.TraceHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author agent
+ */
+public class HbaseTraceDaoV2Test {
+
+    @Test
+    public void parallelSelect_keepOrder() {
+        HbaseTraceDaoV2 traceDao = TraceDaoV2Fixture.createTraceDao(0, true, 4);
+        try {
+            List<TransactionId> transactionIdList = TraceDaoV2Fixture.createTransactionIdList(1234);
+
+            List<List<SpanBo>> result = traceDao.selectAllSpans(transactionIdList, 100);
+
+            assertOrder(transactionIdList, result);
+        } finally {
+            traceDao.destroy();
+        }
+    }
+
+    @Test
+    public void sequentialSelect() {
+        HbaseTraceDaoV2 traceDao = TraceDaoV2Fixture.createTraceDao(0, false, 4);
+
+        List<TransactionId> transactionIdList = TraceDaoV2Fixture.createTransactionIdList(1234);
+
+        List<List<SpanBo>> result = traceDao.selectSpans(transactionIdList, 100);
+
+        assertOrder(transactionIdList, result);
+    }
+
+    @Test
+    public void parallelSelect_handler() {
+        HbaseTraceDaoV2 traceDao = TraceDaoV2Fixture.createTraceDao(0, true, 4);
+        try {
+            List<TransactionId> transactionIdList = TraceDaoV2Fixture.createTransactionIdList(1234);
+
+            CollectingTraceHandler traceHandler = new CollectingTraceHandler();
+            traceDao.selectAllSpans(transactionIdList, 100, traceHandler);
+
+            assertContains(transactionIdList, traceHandler.agentIdList);
+            Assert.assertEquals(Thread.currentThread(), traceHandler.thread);
+        } finally {
+            traceDao.destroy();
+        }
+    }
+
+    @Test
+    public void sequentialSelect_handler() {
+        HbaseTraceDaoV2 traceDao = TraceDaoV2Fixture.createTraceDao(0, false, 4);
+
+        List<TransactionId> transactionIdList = TraceDaoV2Fixture.createTransactionIdList(1234);
+
+        CollectingTraceHandler traceHandler = new CollectingTraceHandler();
+        traceDao.selectAllSpans(transactionIdList, 100, traceHandler);
+
+        assertContains(transactionIdList, traceHandler.agentIdList);
+    }
+
+    private void assertContains(List<TransactionId> transactionIdList, List<String> agentIdList) {
+        Assert.assertEquals(transactionIdList.size(), agentIdList.size());
+        Set<String> expected = new HashSet<>();
+        for (TransactionId transactionId : transactionIdList) {
+            expected.add(TraceDaoV2Fixture.rowKey(transactionId));
+        }
+        Assert.assertEquals(expected, new HashSet<>(agentIdList));
+    }
+
+    private static class CollectingTraceHandler implements TraceHandler {
+        private final List<String> agentIdList = new ArrayList<>();
+        private Thread thread;
+
+        @Override
+        public void handle(List<SpanBo> transaction) {
+            thread = Thread.currentThread();
+            agentIdList.add(transaction.get(0).getAgentId());
+        }
+    }
+
+    private void assertOrder(List<TransactionId> transactionIdList, List<List<SpanBo>> result) {
+        Assert.assertEquals(transactionIdList.size(), result.size());
+        for (int i = 0; i < transactionIdList.size(); i++) {
+            String expected = TraceDaoV2Fixture.rowKey(transactionIdList.get(i));
+            Assert.assertEquals(expected, result.get(i).get(0).getAgentId());
+        }
+    }
+}
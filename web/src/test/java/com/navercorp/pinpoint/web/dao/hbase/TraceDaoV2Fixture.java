@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.common.server.bo.serializer.RowKeyEncoder;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * local stand-in of the TraceV2 table. each multi-get waits for the given latency
+ * and returns one SpanBo whose agentId is the requested row key.
+ *
+ * @author agent
+ */
+final class TraceDaoV2Fixture {
+
+    private TraceDaoV2Fixture() {
+    }
+
+    static HbaseTraceDaoV2 createTraceDao(long latencyMillis, boolean parallelEnable, int parallelThreadSize) {
+        HbaseTraceDaoV2 traceDao = new HbaseTraceDaoV2();
+        ReflectionTestUtils.setField(traceDao, "template2", createTemplate(latencyMillis));
+        ReflectionTestUtils.setField(traceDao, "rowKeyEncoder", ROW_KEY_ENCODER);
+        ReflectionTestUtils.setField(traceDao, "spanMapperV2", mock(RowMapper.class));
+        ReflectionTestUtils.setField(traceDao, "parallelEnable", parallelEnable);
+        ReflectionTestUtils.setField(traceDao, "parallelThreadSize", parallelThreadSize);
+        ReflectionTestUtils.setField(traceDao, "parallelQueueSize", 1024);
+        ReflectionTestUtils.setField(traceDao, "sortRowKey", true);
+        traceDao.init();
+        return traceDao;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HbaseOperations2 createTemplate(final long latencyMillis) {
+        HbaseOperations2 template = mock(HbaseOperations2.class);
+        when(template.get(eq(HBaseTables.TRACE_V2), anyListOf(Get.class), any(RowMapper.class))).thenAnswer(new Answer<List<List<SpanBo>>>() {
+            @Override
+            public List<List<SpanBo>> answer(InvocationOnMock invocation) throws Throwable {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                List<Get> multiGet = (List<Get>) invocation.getArguments()[1];
+                List<List<SpanBo>> result = new ArrayList<>(multiGet.size());
+                for (Get get : multiGet) {
+                    SpanBo spanBo = new SpanBo();
+                    spanBo.setAgentId(Bytes.toStringBinary(get.getRow()));
+                    result.add(Collections.singletonList(spanBo));
+                }
+                return result;
+            }
+        });
+        return template;
+    }
+
+    static List<TransactionId> createTransactionIdList(int size) {
+        List<TransactionId> transactionIdList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactionIdList.add(new TransactionId("agent-" + (i % 10), 1000L, i));
+        }
+        return transactionIdList;
+    }
+
+    static String rowKey(TransactionId transactionId) {
+        return Bytes.toStringBinary(ROW_KEY_ENCODER.encodeRowKey(transactionId));
+    }
+
+    // hash prefixed like TraceRowKeyEncoderV2, so sorting by row key shuffles the request order
+    private static final RowKeyEncoder<TransactionId> ROW_KEY_ENCODER = new RowKeyEncoder<TransactionId>() {
+        @Override
+        public byte[] encodeRowKey(TransactionId transactionId) {
+            byte[] rowKey = BytesUtils.stringLongLongToBytes(transactionId.getAgentId(), 24, transactionId.getAgentStartTime(), transactionId.getTransactionSequence());
+            byte prefix = (byte) (transactionId.getTransactionSequence() % 7);
+            return Bytes.add(new byte[] {prefix}, rowKey);
+        }
+    };
+}
@@ -27,11 +27,16 @@ import com.navercorp.pinpoint.web.vo.Application;
 import com.navercorp.pinpoint.web.vo.LinkKey;
 import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.SearchOption;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -46,6 +51,7 @@ public class BFSLinkSelectorTest {
     private MapStatisticsCallerDao callerDao;
     private MapStatisticsCalleeDao calleeDao;
     private HostApplicationMapDao hostApplicationMapDao;
+    private ExecutorService executor;
 
     private Application APP_A = new Application("APP_A", ServiceType.STAND_ALONE);
     private Application APP_B = new Application("APP_B", ServiceType.STAND_ALONE);
@@ -63,12 +69,22 @@ public class BFSLinkSelectorTest {
         this.callerDao = mock(MapStatisticsCallerDao.class);
         this.calleeDao = mock(MapStatisticsCalleeDao.class);
         this.hostApplicationMapDao = mock(HostApplicationMapDao.class);
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.executor.shutdownNow();
     }
 
     private LinkSelector createLinkSelector() {
         return new BFSLinkSelector(this.callerDao, this.calleeDao, hostApplicationMapDao, null);
     }
 
+    private LinkSelector createParallelLinkSelector(long timeoutMillis) {
+        return new BFSLinkSelector(this.callerDao, this.calleeDao, hostApplicationMapDao, null, executor, timeoutMillis);
+    }
+
     public LinkDataMap newEmptyLinkDataMap() {
         return new LinkDataMap();
     }
@@ -240,5 +256,61 @@ public class BFSLinkSelectorTest {
 
 
 
+    @Test
+    public void testParallel_3tier() throws Exception {
+        // APP_A -> APP_B -> APP_C
+        int callCount_A_B = 10;
+        LinkDataMap link_A_B = new LinkDataMap();
+        link_A_B.addLinkData(APP_A, "agentA", APP_B, "agentB", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), callCount_A_B);
+        when(callerDao.selectCaller(eq(APP_A), any(Range.class))).thenReturn(link_A_B);
+
+        int callCount_B_C = 20;
+        LinkDataMap link_B_C = new LinkDataMap();
+        link_B_C.addLinkData(APP_B, "agentB", APP_C, "agentC", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), callCount_B_C);
+        when(callerDao.selectCaller(eq(APP_B), any(Range.class))).thenReturn(link_B_C);
+        when(callerDao.selectCaller(eq(APP_C), any(Range.class))).thenReturn(newEmptyLinkDataMap());
+
+        when(calleeDao.selectCallee(any(Application.class), any(Range.class))).thenReturn(newEmptyLinkDataMap());
+        when(hostApplicationMapDao.findAcceptApplicationName(any(Application.class), any(Range.class))).thenReturn(new HashSet<AcceptApplication>());
+
+        LinkSelector linkSelector = createParallelLinkSelector(-1);
+        LinkDataDuplexMap linkData = linkSelector.select(APP_A, range, twoDepth);
+
+        Assert.assertFalse(linkData.isTruncated());
+        Assert.assertEquals(linkData.size(), 2);
+        Assert.assertEquals(linkData.getTotalCount(), callCount_A_B + callCount_B_C);
+        assertSource_Target_TotalCount("APP_A->APP_B", linkData, new LinkKey(APP_A, APP_B), callCount_A_B);
+        assertSource_Target_TotalCount("APP_B->APP_C", linkData, new LinkKey(APP_B, APP_C), callCount_B_C);
+    }
+
+    @Test
+    public void testParallel_timeout() throws Exception {
+        // APP_A -> APP_B -> (slow) APP_C
+        int callCount_A_B = 10;
+        LinkDataMap link_A_B = new LinkDataMap();
+        link_A_B.addLinkData(APP_A, "agentA", APP_B, "agentB", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), callCount_A_B);
+        when(callerDao.selectCaller(eq(APP_A), any(Range.class))).thenReturn(link_A_B);
+
+        final LinkDataMap link_B_C = new LinkDataMap();
+        link_B_C.addLinkData(APP_B, "agentB", APP_C, "agentC", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), 20);
+        when(callerDao.selectCaller(eq(APP_B), any(Range.class))).thenAnswer(new Answer<LinkDataMap>() {
+            @Override
+            public LinkDataMap answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(3000);
+                return link_B_C;
+            }
+        });
+
+        when(calleeDao.selectCallee(any(Application.class), any(Range.class))).thenReturn(newEmptyLinkDataMap());
+        when(hostApplicationMapDao.findAcceptApplicationName(any(Application.class), any(Range.class))).thenReturn(new HashSet<AcceptApplication>());
+
+        LinkSelector linkSelector = createParallelLinkSelector(500);
+        LinkDataDuplexMap linkData = linkSelector.select(APP_A, range, twoDepth);
+
+        Assert.assertTrue(linkData.isTruncated());
+        Assert.assertEquals(linkData.size(), 1);
+        assertSource_Target_TotalCount("APP_A->APP_B", linkData, new LinkKey(APP_A, APP_B), callCount_A_B);
+    }
+
 }
 
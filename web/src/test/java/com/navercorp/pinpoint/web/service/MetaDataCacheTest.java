@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.service;
+
+import com.navercorp.pinpoint.common.server.bo.SqlMetaDataBo;
+import com.navercorp.pinpoint.web.dao.SqlMetaDataDao;
+import com.navercorp.pinpoint.web.vo.MetaDataKey;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author agent
+ */
+public class MetaDataCacheTest {
+
+    private static final long AGENT_START_TIME = 1000L;
+
+    private MetaDataCache metaDataCache;
+
+    private CountingSqlMetaDataDao sqlMetaDataDao;
+
+    @Before
+    public void setUp() throws Exception {
+        this.metaDataCache = new MetaDataCache();
+        ReflectionTestUtils.setField(metaDataCache, "maxSize", 100L);
+        this.metaDataCache.init();
+
+        this.sqlMetaDataDao = new CountingSqlMetaDataDao();
+    }
+
+    @Test
+    public void multiGet() {
+        MetaDataKey key1 = new MetaDataKey("agent", AGENT_START_TIME, 1);
+        MetaDataKey key2 = new MetaDataKey("agent", AGENT_START_TIME, 2);
+
+        Map<MetaDataKey, List<SqlMetaDataBo>> result = metaDataCache.getSqlMetaData(Arrays.asList(key1, key2, key1), sqlMetaDataDao);
+
+        Assert.assertEquals(1, sqlMetaDataDao.requestList.size());
+        Assert.assertEquals(Arrays.asList(key1, key2), sqlMetaDataDao.requestList.get(0));
+        Assert.assertEquals("sql-1", result.get(key1).get(0).getSql());
+        Assert.assertEquals("sql-2", result.get(key2).get(0).getSql());
+    }
+
+    @Test
+    public void cacheHit() {
+        MetaDataKey key1 = new MetaDataKey("agent", AGENT_START_TIME, 1);
+        MetaDataKey key2 = new MetaDataKey("agent", AGENT_START_TIME, 2);
+        metaDataCache.getSqlMetaData(Collections.singletonList(key1), sqlMetaDataDao);
+        sqlMetaDataDao.requestList.clear();
+
+        Map<MetaDataKey, List<SqlMetaDataBo>> result = metaDataCache.getSqlMetaData(Arrays.asList(key1, key2), sqlMetaDataDao);
+
+        Assert.assertEquals(1, sqlMetaDataDao.requestList.size());
+        Assert.assertEquals(Collections.singletonList(key2), sqlMetaDataDao.requestList.get(0));
+        Assert.assertEquals("sql-1", result.get(key1).get(0).getSql());
+        Assert.assertEquals("sql-2", result.get(key2).get(0).getSql());
+    }
+
+    @Test
+    public void notFound_notCached() {
+        MetaDataKey notFound = new MetaDataKey("agent", AGENT_START_TIME, -1);
+
+        Map<MetaDataKey, List<SqlMetaDataBo>> result = metaDataCache.getSqlMetaData(Collections.singletonList(notFound), sqlMetaDataDao);
+        Assert.assertTrue(result.get(notFound).isEmpty());
+
+        metaDataCache.getSqlMetaData(Collections.singletonList(notFound), sqlMetaDataDao);
+        Assert.assertEquals(2, sqlMetaDataDao.requestList.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        MetaDataKey key1 = new MetaDataKey("agent", AGENT_START_TIME, 1);
+        Map<MetaDataKey, List<SqlMetaDataBo>> result = metaDataCache.getSqlMetaData(Collections.singletonList(key1), sqlMetaDataDao);
+        result.get(key1).clear();
+    }
+
+    private static class CountingSqlMetaDataDao implements SqlMetaDataDao {
+
+        private final List<List<MetaDataKey>> requestList = new ArrayList<>();
+
+        @Override
+        public List<SqlMetaDataBo> getSqlMetaData(String agentId, long time, int sqlId) {
+            // negative id is not found
+            if (sqlId < 0) {
+                return Collections.emptyList();
+            }
+            SqlMetaDataBo sqlMetaDataBo = new SqlMetaDataBo(agentId, time, sqlId);
+            sqlMetaDataBo.setSql("sql-" + sqlId);
+            List<SqlMetaDataBo> result = new ArrayList<>();
+            result.add(sqlMetaDataBo);
+            return result;
+        }
+
+        @Override
+        public List<List<SqlMetaDataBo>> getSqlMetaData(List<MetaDataKey> keyList) {
+            requestList.add(new ArrayList<>(keyList));
+            List<List<SqlMetaDataBo>> result = new ArrayList<>(keyList.size());
+            for (MetaDataKey key : keyList) {
+                result.add(getSqlMetaData(key.getAgentId(), key.getAgentStartTime(), key.getId()));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.service.map;
+
+import com.navercorp.pinpoint.common.trace.BaseHistogramSchema;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
+import com.navercorp.pinpoint.web.dao.MapStatisticsCallerDao;
+import com.navercorp.pinpoint.web.util.TimeWindow;
+import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.LinkKey;
+import com.navercorp.pinpoint.web.vo.Range;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class LinkDataMapCacheTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long BASE_TIME = TimeUnit.DAYS.toMillis(1000);
+
+    private final Application APP_A = new Application("APP_A", ServiceType.STAND_ALONE);
+    private final Application APP_B = new Application("APP_B", ServiceType.STAND_ALONE);
+
+    private LinkDataMapCache linkDataMapCache;
+
+    private CountingCallerDao callerDao;
+
+    @Before
+    public void setUp() throws Exception {
+        this.linkDataMapCache = new LinkDataMapCache();
+        ReflectionTestUtils.setField(linkDataMapCache, "enable", true);
+        ReflectionTestUtils.setField(linkDataMapCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(linkDataMapCache, "unstableMillis", 0L);
+        this.linkDataMapCache.init();
+
+        this.callerDao = new CountingCallerDao();
+    }
+
+    @Test
+    public void cacheHit() {
+        MapStatisticsCallerDao cachedDao = linkDataMapCache.wrap(callerDao);
+        Range range = new Range(BASE_TIME, BASE_TIME + 10 * ONE_MINUTE);
+
+        LinkDataMap first = cachedDao.selectCaller(APP_A, range);
+        Assert.assertEquals(1, callerDao.scanRangeList.size());
+        Assert.assertEquals(callerDao.selectCaller(APP_A, range).getTotalCount(), first.getTotalCount());
+        callerDao.scanRangeList.clear();
+
+        LinkDataMap second = cachedDao.selectCaller(APP_A, range);
+        Assert.assertEquals(0, callerDao.scanRangeList.size());
+        Assert.assertEquals(first.getTotalCount(), second.getTotalCount());
+        Assert.assertEquals(11, second.getLinkData(new LinkKey(APP_A, APP_B)).getTotalCount());
+        Assert.assertEquals(11, linkDataMapCache.getStats().hitCount());
+    }
+
+    @Test
+    public void extendWindow() {
+        MapStatisticsCallerDao cachedDao = linkDataMapCache.wrap(callerDao);
+        cachedDao.selectCaller(APP_A, new Range(BASE_TIME, BASE_TIME + 10 * ONE_MINUTE));
+        callerDao.scanRangeList.clear();
+
+        // move forward by one minute
+        Range nextRange = new Range(BASE_TIME + ONE_MINUTE, BASE_TIME + 11 * ONE_MINUTE);
+        LinkDataMap next = cachedDao.selectCaller(APP_A, nextRange);
+
+        Assert.assertEquals(1, callerDao.scanRangeList.size());
+        Range scanRange = callerDao.scanRangeList.get(0);
+        Assert.assertEquals(BASE_TIME + 11 * ONE_MINUTE, scanRange.getFrom());
+        Assert.assertEquals(BASE_TIME + 11 * ONE_MINUTE, scanRange.getTo());
+
+        Assert.assertEquals(callerDao.selectCaller(APP_A, nextRange).getTotalCount(), next.getTotalCount());
+    }
+
+    @Test
+    public void unstableSlot() {
+        ReflectionTestUtils.setField(linkDataMapCache, "unstableMillis", System.currentTimeMillis() - BASE_TIME - 5 * ONE_MINUTE);
+
+        MapStatisticsCallerDao cachedDao = linkDataMapCache.wrap(callerDao);
+        Range range = new Range(BASE_TIME, BASE_TIME + 10 * ONE_MINUTE);
+        cachedDao.selectCaller(APP_A, range);
+        callerDao.scanRangeList.clear();
+
+        LinkDataMap second = cachedDao.selectCaller(APP_A, range);
+        // the last slots are not cached
+        Assert.assertEquals(1, callerDao.scanRangeList.size());
+        Assert.assertEquals(11, second.getTotalCount());
+    }
+
+    @Test
+    public void disable() {
+        LinkDataMapCache disabled = new LinkDataMapCache();
+        disabled.init();
+        Assert.assertSame(callerDao, disabled.wrap(callerDao));
+    }
+
+    private class CountingCallerDao implements MapStatisticsCallerDao {
+
+        private final List<Range> scanRangeList = new ArrayList<>();
+
+        // one call per minute slot
+        @Override
+        public LinkDataMap selectCaller(Application callerApplication, Range range) {
+            scanRangeList.add(range);
+            LinkDataMap linkDataMap = new LinkDataMap(new TimeWindow(range, TimeWindowDownSampler.SAMPLER));
+            long from = (range.getFrom() / ONE_MINUTE) * ONE_MINUTE;
+            for (long slot = from; slot <= range.getTo(); slot += ONE_MINUTE) {
+                linkDataMap.addLinkData(callerApplication, "agentA", APP_B, "agentB", slot, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), 1);
+            }
+            return linkDataMap;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.util;
+
+import com.navercorp.pinpoint.common.hbase.MapStatisticsResolution;
+import com.navercorp.pinpoint.web.vo.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ */
+public class MapStatisticsRangeSplitterTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    // 2017-01-01 00:00:00 UTC
+    private static final long BASE = 1483228800000L;
+
+    @Test
+    public void split_hour() {
+        MapStatisticsRangeSplitter splitter = new MapStatisticsRangeSplitter(ONE_HOUR);
+        // 09:58:30 ~ 12:03:10
+        Range range = new Range(BASE + 9 * ONE_HOUR + 58 * ONE_MINUTE + 30000, BASE + 12 * ONE_HOUR + 3 * ONE_MINUTE + 10000);
+        List<MapStatisticsRangeSplitter.SlotRange> result = splitter.split(range);
+
+        Assert.assertEquals(3, result.size());
+        assertSlotRange(result.get(0), MapStatisticsResolution.ONE_HOUR, BASE + 10 * ONE_HOUR, BASE + 11 * ONE_HOUR);
+        assertSlotRange(result.get(1), MapStatisticsResolution.ONE_MINUTE, BASE + 9 * ONE_HOUR + 58 * ONE_MINUTE, BASE + 9 * ONE_HOUR + 59 * ONE_MINUTE);
+        assertSlotRange(result.get(2), MapStatisticsResolution.ONE_MINUTE, BASE + 12 * ONE_HOUR, BASE + 12 * ONE_HOUR + 3 * ONE_MINUTE);
+        assertCoverage(range, result);
+    }
+
+    @Test
+    public void split_maxResolution() {
+        MapStatisticsRangeSplitter splitter = new MapStatisticsRangeSplitter(5 * ONE_MINUTE);
+        Range range = new Range(BASE + 3 * ONE_MINUTE, BASE + 2 * ONE_DAY + 7 * ONE_MINUTE);
+        List<MapStatisticsRangeSplitter.SlotRange> result = splitter.split(range);
+
+        for (MapStatisticsRangeSplitter.SlotRange slotRange : result) {
+            Assert.assertTrue(slotRange.getResolution().getResolution() <= 5 * ONE_MINUTE);
+        }
+        assertCoverage(range, result);
+    }
+
+    @Test
+    public void split_day() {
+        MapStatisticsRangeSplitter splitter = new MapStatisticsRangeSplitter(ONE_DAY);
+        Range range = new Range(BASE + 13 * ONE_MINUTE, BASE + 3 * ONE_DAY + 5 * ONE_HOUR + 17 * ONE_MINUTE);
+        List<MapStatisticsRangeSplitter.SlotRange> result = splitter.split(range);
+
+        Assert.assertEquals(MapStatisticsResolution.ONE_DAY, result.get(0).getResolution());
+        // 1day + 1hour x 2 + 5min x 2 + 1min x 2
+        Assert.assertTrue(result.size() <= 7);
+        assertCoverage(range, result);
+    }
+
+    @Test
+    public void split_short() {
+        MapStatisticsRangeSplitter splitter = new MapStatisticsRangeSplitter(ONE_HOUR);
+        Range range = new Range(BASE + 10 * ONE_MINUTE, BASE + 12 * ONE_MINUTE);
+        List<MapStatisticsRangeSplitter.SlotRange> result = splitter.split(range);
+
+        Assert.assertEquals(1, result.size());
+        assertSlotRange(result.get(0), MapStatisticsResolution.ONE_MINUTE, BASE + 10 * ONE_MINUTE, BASE + 12 * ONE_MINUTE);
+    }
+
+    private void assertSlotRange(MapStatisticsRangeSplitter.SlotRange slotRange, MapStatisticsResolution resolution, long firstSlot, long lastSlot) {
+        Assert.assertEquals(resolution, slotRange.getResolution());
+        Assert.assertEquals(firstSlot, slotRange.getRange().getFrom());
+        Assert.assertEquals(lastSlot, slotRange.getRange().getTo());
+    }
+
+    private void assertCoverage(Range range, List<MapStatisticsRangeSplitter.SlotRange> result) {
+        final Set<Long> covered = new HashSet<>();
+        for (MapStatisticsRangeSplitter.SlotRange slotRange : result) {
+            final long resolution = slotRange.getResolution().getResolution();
+            final Range slot = slotRange.getRange();
+            Assert.assertEquals(0, slot.getFrom() % resolution);
+            for (long minute = slot.getFrom(); minute < slot.getTo() + resolution; minute += ONE_MINUTE) {
+                Assert.assertTrue("duplicated " + minute, covered.add(minute));
+            }
+        }
+        final long from = (range.getFrom() / ONE_MINUTE) * ONE_MINUTE;
+        final long to = (range.getTo() / ONE_MINUTE) * ONE_MINUTE;
+        Assert.assertEquals((to - from) / ONE_MINUTE + 1, covered.size());
+        for (long minute = from; minute <= to; minute += ONE_MINUTE) {
+            Assert.assertTrue("missing " + minute, covered.contains(minute));
+        }
+    }
+}
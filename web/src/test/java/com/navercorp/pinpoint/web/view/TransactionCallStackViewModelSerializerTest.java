@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.navercorp.pinpoint.common.server.bo.MethodTypeEnum;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.web.vo.callstacks.Record;
+import com.navercorp.pinpoint.web.vo.callstacks.StreamingRecordSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * @author agent
+ */
+public class TransactionCallStackViewModelSerializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final TransactionId transactionId = TransactionIdUtils.parseTransactionId("agent^1395798795017^1527177");
+
+    @Test
+    public void testSerialize() throws Exception {
+        StreamingRecordSet recordSet = new StreamingRecordSet(new ListRecordPage(newRecordList(5), 1, 2), 1, 2);
+        recordSet.setApplicationId("applicationId");
+
+        TransactionCallStackViewModel viewModel = new TransactionCallStackViewModel(transactionId, recordSet, "Complete", false, "", "", "");
+        JsonNode jsonNode = mapper.readTree(mapper.writeValueAsString(viewModel));
+
+        Assert.assertEquals("applicationId", jsonNode.get("applicationId").asText());
+        Assert.assertEquals("agent^1395798795017^1527177", jsonNode.get("transactionId").asText());
+
+        JsonNode callStack = jsonNode.get("callStack");
+        Assert.assertEquals(2, callStack.size());
+        int idIndex = jsonNode.get("callStackIndex").get("id").asInt();
+        Assert.assertEquals("2", callStack.get(0).get(idIndex).asText());
+        Assert.assertEquals("3", callStack.get(1).get(idIndex).asText());
+
+        Assert.assertEquals(3, jsonNode.get("nextOffset").asInt());
+        Assert.assertTrue(jsonNode.get("hasMore").asBoolean());
+    }
+
+    @Test
+    public void testSerialize_lastPage() throws Exception {
+        StreamingRecordSet recordSet = new StreamingRecordSet(new ListRecordPage(newRecordList(5), 3, 10), 3, 10);
+
+        TransactionCallStackViewModel viewModel = new TransactionCallStackViewModel(transactionId, recordSet, "Complete", false, "", "", "");
+        JsonNode jsonNode = mapper.readTree(mapper.writeValueAsString(viewModel));
+
+        Assert.assertEquals(2, jsonNode.get("callStack").size());
+        Assert.assertEquals(5, jsonNode.get("nextOffset").asInt());
+        Assert.assertFalse(jsonNode.get("hasMore").asBoolean());
+    }
+
+    private List<Record> newRecordList(int size) {
+        List<Record> recordList = new ArrayList<>();
+        for (int id = 1; id <= size; id++) {
+            recordList.add(new Record(1, id, 0, false, "title", "argument", 0L, 0L, 0, null, null, null, null, false, false, null, 0, 0, MethodTypeEnum.DEFAULT, true));
+        }
+        return recordList;
+    }
+
+    // one record per node
+    private static class ListRecordPage implements StreamingRecordSet.RecordPage {
+
+        private final List<Record> recordList;
+        private final int offset;
+        private final int end;
+        private int index;
+
+        private ListRecordPage(List<Record> recordList, int offset, int limit) {
+            this.recordList = recordList;
+            this.offset = offset;
+            this.end = Math.min(offset + limit, recordList.size());
+            this.index = offset;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < end;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return recordList.get(index++);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        @Override
+        public boolean hasMore() {
+            return index < recordList.size();
+        }
+
+        @Override
+        public int getNextOffset() {
+            return index;
+        }
+    }
+}